@@ -28,6 +28,7 @@ import android.animation.Animator;
 import android.animation.AnimatorSet;
 import android.animation.ObjectAnimator;
 import android.content.ComponentName;
+import android.text.TextUtils;
 import android.util.Log;
 import android.view.HapticFeedbackConstants;
 import android.view.View;
@@ -66,6 +67,7 @@ import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.StringJoiner;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -88,7 +90,13 @@ public class HotseatPredictionController implements DragController.DragListener,
 
     private QuickstepLauncher mLauncher;
     private final Hotseat mHotseat;
-    private final Runnable mUpdateFillIfNotLoading = this::updateFillIfNotLoading;
+    private final Runnable mScheduledFill = this::runScheduledFill;
+    private boolean mFillScheduled = false;
+    private boolean mScheduledFillAnimate = false;
+    // Whether the hotseat items are bound, which happens with the current workspace pages
+    private boolean mHotseatBound = false;
+    // Set when a fill was skipped before the hotseat was bound, it runs once the hotseat is bound
+    private boolean mFillPendingUntilBound = false;
 
     private List<ItemInfo> mPredictedItems = Collections.emptyList();
 
@@ -152,14 +160,52 @@ public class HotseatPredictionController implements DragController.DragListener,
     private void onHotseatHierarchyChanged() {
         if (mPauseFlags == 0 && !mLauncher.isWorkspaceLoading()) {
             // Post update after a single frame to avoid layout within layout
-            MAIN_EXECUTOR.getHandler().removeCallbacks(mUpdateFillIfNotLoading);
-            MAIN_EXECUTOR.getHandler().post(mUpdateFillIfNotLoading);
+            scheduleFillGapsWithPrediction(true);
         }
     }
 
-    private void updateFillIfNotLoading() {
-        if (mPauseFlags == 0 && !mLauncher.isWorkspaceLoading()) {
-            fillGapsWithPrediction(true);
+    /**
+     * Schedules filling the gaps on the next frame. Requests made before then, like a burst of
+     * prediction updates followed by hierarchy changes, are applied together in a single fill
+     * which is animated if any of the requests asked for it.
+     */
+    private void scheduleFillGapsWithPrediction(boolean animate) {
+        mScheduledFillAnimate |= animate;
+        if (!mFillScheduled) {
+            mFillScheduled = true;
+            MAIN_EXECUTOR.getHandler().post(mScheduledFill);
+        }
+    }
+
+    private void runScheduledFill() {
+        if (!mHotseatBound) {
+            // The hotseat is not bound yet, keep the fill pending until it is
+            mFillScheduled = false;
+            mFillPendingUntilBound = true;
+            return;
+        }
+        boolean animate = mScheduledFillAnimate;
+        mFillScheduled = false;
+        mScheduledFillAnimate = false;
+        mFillPendingUntilBound = false;
+        fillGapsWithPrediction(animate);
+    }
+
+    /**
+     * Called when the workspace starts binding, the hotseat is cleared until its items are bound
+     */
+    public void onStartBinding() {
+        mHotseatBound = false;
+    }
+
+    /**
+     * Called when the hotseat items are bound along with the current pages, to run the fill
+     * skipped until then
+     */
+    public void onHotseatBound() {
+        mHotseatBound = true;
+        if (mFillPendingUntilBound) {
+            scheduleFillGapsWithPrediction(false);
         }
     }
 
@@ -183,10 +229,6 @@ public class HotseatPredictionController implements DragController.DragListener,
         return !mPredictedItems.isEmpty();
     }
 
-    private void fillGapsWithPrediction() {
-        fillGapsWithPrediction(false);
-    }
-
     private void fillGapsWithPrediction(boolean animate) {
         Log.d(TAG, "fillGapsWithPrediction flags: " + getStateString(mPauseFlags));
         if (mPauseFlags != 0) {
@@ -235,7 +277,12 @@ public class HotseatPredictionController implements DragController.DragListener,
                 Log.d(TAG, "Predicted item is enabled: " + child.isEnabled());
             }
 
-            if (isPredictedIcon(child) && child.isEnabled()) {
+            if (isPredictedIcon(child) && child.isEnabled()
+                    && isSameItem((WorkspaceItemInfo) child.getTag(), predictedItem)) {
+                // The icon already shows this prediction, keep its item to avoid a rebind
+                predictedItem = (WorkspaceItemInfo) child.getTag();
+                mPredictedItems.set(predictionIndex - 1, predictedItem);
+            } else if (isPredictedIcon(child) && child.isEnabled()) {
                 PredictedAppIcon icon = (PredictedAppIcon) child;
                 boolean animateIconChange = icon.shouldAnimateIconChange(predictedItem);
                 icon.applyFromWorkspaceItem(predictedItem, animateIconChange, numViewsAnimated);
@@ -288,6 +335,7 @@ public class HotseatPredictionController implements DragController.DragListener,
      */
     public void destroy() {
         mLauncher.removeOnDeviceProfileChangeListener(this);
+        MAIN_EXECUTOR.getHandler().removeCallbacks(mScheduledFill);
     }
 
     /**
@@ -299,7 +347,7 @@ public class HotseatPredictionController implements DragController.DragListener,
                 ? (mPauseFlags | FLAG_UPDATE_PAUSED)
                 : (mPauseFlags & ~FLAG_UPDATE_PAUSED);
         if (!paused) {
-            fillGapsWithPrediction();
+            scheduleFillGapsWithPrediction(false);
         }
     }
 
@@ -307,13 +355,74 @@ public class HotseatPredictionController implements DragController.DragListener,
      * Sets or updates the predicted items
      */
     public void setPredictedItems(FixedContainerItems items) {
-        mPredictedItems = new ArrayList(items.items);
-        if (mPredictedItems.isEmpty()) {
+        if (items.items.isEmpty()) {
             Log.d(TAG, "Predicted items is initially empty");
             HotseatRestoreHelper.restoreBackup(mLauncher);
         }
+        mPredictedItems = new ArrayList(items.items);
         Log.d(TAG, "Predicted items: " + mPredictedItems);
-        fillGapsWithPrediction();
+        if (!mFillScheduled && !mFillPendingUntilBound && isShowingPredictedItems()) {
+            // Nothing to update, the hotseat already shows these predictions
+            Log.d(TAG, "Shown predictions unchanged");
+            return;
+        }
+        scheduleFillGapsWithPrediction(false);
+    }
+
+    /**
+     * Returns true if a fill would not change the hotseat, i.e. each gap filled with a prediction
+     * already shows the corresponding predicted item. In that case the shown items are kept in
+     * {@link #mPredictedItems}, same as a fill would do.
+     */
+    private boolean isShowingPredictedItems() {
+        if (mPauseFlags != 0 || !mHotseatBound) {
+            return false;
+        }
+        int predictionIndex = 0;
+        for (int rank = 0; rank < mHotSeatItemsCount; rank++) {
+            View child = mHotseat.getChildAt(
+                    mHotseat.getCellXFromOrder(rank),
+                    mHotseat.getCellYFromOrder(rank));
+            if (child != null && !isPredictedIcon(child)) {
+                continue;
+            }
+            if (mPredictedItems.size() <= predictionIndex) {
+                if (isPredictedIcon(child)) {
+                    // This prediction would be removed
+                    return false;
+                }
+                continue;
+            }
+            if (!(mPredictedItems.get(predictionIndex++) instanceof WorkspaceItemInfo item)
+                    || child == null || !child.isEnabled()
+                    || !isSameItem((WorkspaceItemInfo) child.getTag(), item)) {
+                return false;
+            }
+        }
+        predictionIndex = 0;
+        for (int rank = 0; rank < mHotSeatItemsCount && predictionIndex < mPredictedItems.size();
+                rank++) {
+            View child = mHotseat.getChildAt(
+                    mHotseat.getCellXFromOrder(rank),
+                    mHotseat.getCellYFromOrder(rank));
+            if (isPredictedIcon(child)) {
+                mPredictedItems.set(predictionIndex++, (WorkspaceItemInfo) child.getTag());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if both items would be displayed the same way, predictions are recreated on
+     * every update even if they did not change.
+     */
+    private static boolean isSameItem(WorkspaceItemInfo oldItem, WorkspaceItemInfo newItem) {
+        return oldItem == newItem
+                || (oldItem.user.equals(newItem.user)
+                && Objects.equals(oldItem.getTargetComponent(), newItem.getTargetComponent())
+                && oldItem.bitmap.icon == newItem.bitmap.icon
+                && TextUtils.equals(oldItem.title, newItem.title)
+                && oldItem.runtimeStatusFlags == newItem.runtimeStatusFlags);
     }
 
     /**
@@ -407,7 +516,7 @@ public class HotseatPredictionController implements DragController.DragListener,
     @Override
     public void onDragEnd() {
         mPauseFlags &= ~FLAG_DRAG_IN_PROGRESS;
-        fillGapsWithPrediction(true);
+        scheduleFillGapsWithPrediction(true);
     }
 
     @Nullable
@@ -486,7 +595,7 @@ public class HotseatPredictionController implements DragController.DragListener,
      */
     public void onModelItemsRemoved(Predicate<ItemInfo> matcher) {
         if (mPredictedItems.removeIf(matcher)) {
-            fillGapsWithPrediction(true);
+            scheduleFillGapsWithPrediction(true);
         }
     }
 
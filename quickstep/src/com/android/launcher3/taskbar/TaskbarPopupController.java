@@ -80,7 +80,8 @@ public class TaskbarPopupController implements TaskbarControllers.LoggableTaskba
 
     public TaskbarPopupController(TaskbarActivityContext context) {
         mContext = context;
-        mPopupDataProvider = new PopupDataProvider(this::updateNotificationDots);
+        mPopupDataProvider = new PopupDataProvider(
+                updatedDots -> updateNotificationDots(updatedDots::contains));
     }
 
     public void init(TaskbarControllers controllers) {
@@ -55,6 +55,9 @@ import com.android.launcher3.views.ActivityContext;
 import com.android.launcher3.views.DoubleShadowBubbleTextView;
 import com.android.launcher3.views.IconButtonView;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import java.util.function.Predicate;
 
 /**
@@ -249,60 +252,52 @@ public class TaskbarView extends FrameLayout implements FolderIcon.FolderIconPar
 
     /**
      * Inflates/binds the Hotseat views to show in the Taskbar given their ItemInfos.
+     *
+     * Existing views are reconciled with the new items instead of being rebuilt: views showing
+     * the same item are moved to their new position, other views of the right type are rebound,
+     * and only missing views are taken from the view cache.
      */
     protected void updateHotseatItems(ItemInfo[] hotseatItemInfos) {
-        int nextViewIndex = 0;
         int numViewsAnimated = 0;
 
-        if (mAllAppsButton != null) {
-            removeView(mAllAppsButton);
-
-            if (mTaskbarDivider != null) {
-                removeView(mTaskbarDivider);
+        // Current hotseat views, in order, which can be reused for the new items.
+        ArrayList<View> oldViews = new ArrayList<>(getChildCount());
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (child != mAllAppsButton && child != mTaskbarDivider && child != mQsb) {
+                oldViews.add(child);
             }
         }
-        removeView(mQsb);
 
-
-        for (int i = 0; i < hotseatItemInfos.length; i++) {
-            ItemInfo hotseatItemInfo = hotseatItemInfos[i];
-            if (hotseatItemInfo == null) {
-                continue;
-            }
-
-            // Replace any Hotseat views with the appropriate type if it's not already that type.
-            final int expectedLayoutResId;
-            boolean isFolder = false;
-            if (hotseatItemInfo.isPredictedItem()) {
-                expectedLayoutResId = R.layout.taskbar_predicted_app_icon;
-            } else if (hotseatItemInfo instanceof FolderInfo) {
-                expectedLayoutResId = R.layout.folder_icon;
-                isFolder = true;
-            } else {
-                expectedLayoutResId = R.layout.taskbar_app_icon;
+        ArrayList<ItemInfo> items = new ArrayList<>(hotseatItemInfos.length);
+        for (ItemInfo info : hotseatItemInfos) {
+            if (info != null) {
+                items.add(info);
             }
+        }
 
-            View hotseatView = null;
-            while (nextViewIndex < getChildCount()) {
-                hotseatView = getChildAt(nextViewIndex);
-
-                // see if the view can be reused
-                if ((hotseatView.getSourceLayoutResId() != expectedLayoutResId)
-                        || (isFolder && (hotseatView.getTag() != hotseatItemInfo))) {
-                    // Unlike for BubbleTextView, we can't reapply a new FolderInfo after inflation,
-                    // so if the info changes we need to reinflate. This should only happen if a new
-                    // folder is dragged to the position that another folder previously existed.
-                    removeAndRecycle(hotseatView);
-                    hotseatView = null;
-                } else {
-                    // View found
-                    break;
-                }
+        // First keep the views which already show the same item, then rebind the remaining views
+        // of the expected type.
+        View[] hotseatViews = new View[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            hotseatViews[i] = takeMatchingView(oldViews, items.get(i), true);
+        }
+        for (int i = 0; i < items.size(); i++) {
+            if (hotseatViews[i] == null) {
+                hotseatViews[i] = takeMatchingView(oldViews, items.get(i), false);
             }
+        }
+        for (View unused : oldViews) {
+            removeAndRecycle(unused);
+        }
 
+        ArrayList<View> desiredChildren = new ArrayList<>(items.size() + 3);
+        for (int i = 0; i < items.size(); i++) {
+            ItemInfo hotseatItemInfo = items.get(i);
+            View hotseatView = hotseatViews[i];
             if (hotseatView == null) {
-                if (isFolder) {
-                    FolderInfo folderInfo = (FolderInfo) hotseatItemInfo;
+                int expectedLayoutResId = getExpectedLayoutResId(hotseatItemInfo);
+                if (hotseatItemInfo instanceof FolderInfo folderInfo) {
                     FolderIcon folderIcon = FolderIcon.inflateFolderAndIcon(expectedLayoutResId,
                             mActivityContext, this, folderInfo);
                     folderIcon.setTextVisible(false);
@@ -310,18 +305,14 @@ public class TaskbarView extends FrameLayout implements FolderIcon.FolderIconPar
                 } else {
                     hotseatView = inflate(expectedLayoutResId);
                 }
-                LayoutParams lp = new LayoutParams(mIconTouchSize, mIconTouchSize);
+                hotseatView.setLayoutParams(new LayoutParams(mIconTouchSize, mIconTouchSize));
                 hotseatView.setPadding(mItemPadding, mItemPadding, mItemPadding, mItemPadding);
-                addView(hotseatView, nextViewIndex, lp);
             }
 
             // Apply the Hotseat ItemInfos, or hide the view if there is none for a given index.
-            if (hotseatView instanceof BubbleTextView
-                    && hotseatItemInfo instanceof WorkspaceItemInfo) {
-                BubbleTextView btv = (BubbleTextView) hotseatView;
-                WorkspaceItemInfo workspaceInfo = (WorkspaceItemInfo) hotseatItemInfo;
-
-                boolean animate = btv.shouldAnimateIconChange((WorkspaceItemInfo) hotseatItemInfo);
+            if (hotseatView instanceof BubbleTextView btv
+                    && hotseatItemInfo instanceof WorkspaceItemInfo workspaceInfo) {
+                boolean animate = btv.shouldAnimateIconChange(workspaceInfo);
                 btv.applyFromWorkspaceItem(workspaceInfo, animate, numViewsAnimated);
                 if (animate) {
                     numViewsAnimated++;
@@ -331,30 +322,114 @@ public class TaskbarView extends FrameLayout implements FolderIcon.FolderIconPar
             if (ENABLE_CURSOR_HOVER_STATES.get()) {
                 setHoverListenerForIcon(hotseatView);
             }
-            nextViewIndex++;
-        }
-        // Remove remaining views
-        while (nextViewIndex < getChildCount()) {
-            removeAndRecycle(getChildAt(nextViewIndex));
+            desiredChildren.add(hotseatView);
         }
 
         if (mAllAppsButton != null) {
-            mAllAppsButton.setTranslationXForTaskbarAllAppsIcon(getChildCount() > 0
+            mAllAppsButton.setTranslationXForTaskbarAllAppsIcon(!desiredChildren.isEmpty()
                     ? mTransientTaskbarAllAppsButtonTranslationXOffset : 0f);
-            addView(mAllAppsButton, mIsRtl ? getChildCount() : 0);
-
             // if only all apps button present, don't include divider view.
-            if (mTaskbarDivider != null && getChildCount() > 1) {
-                addView(mTaskbarDivider, mIsRtl ? (getChildCount() - 1) : 1);
+            boolean showDivider = mTaskbarDivider != null && !desiredChildren.isEmpty();
+            if (mIsRtl) {
+                if (showDivider) {
+                    desiredChildren.add(mTaskbarDivider);
+                }
+                desiredChildren.add(mAllAppsButton);
+            } else {
+                if (showDivider) {
+                    desiredChildren.add(0, mTaskbarDivider);
+                }
+                desiredChildren.add(0, mAllAppsButton);
             }
         }
-        if (mActivityContext.getDeviceProfile().isQsbInline) {
-            addView(mQsb, mIsRtl ? getChildCount() : 0);
+        boolean showQsb = mActivityContext.getDeviceProfile().isQsbInline;
+        if (showQsb) {
+            desiredChildren.add(mIsRtl ? desiredChildren.size() : 0, mQsb);
+        }
+
+        applyChildOrder(desiredChildren);
+        if (showQsb) {
             // Always set QSB to invisible after re-adding.
             mQsb.setVisibility(View.INVISIBLE);
         }
     }
 
+    @LayoutRes
+    private static int getExpectedLayoutResId(ItemInfo info) {
+        if (info.isPredictedItem()) {
+            return R.layout.taskbar_predicted_app_icon;
+        } else if (info instanceof FolderInfo) {
+            return R.layout.folder_icon;
+        } else {
+            return R.layout.taskbar_app_icon;
+        }
+    }
+
+    /**
+     * Removes and returns the first view from {@param views} which can display {@param info}.
+     *
+     * @param sameItemOnly if true, only returns a view which already displays the same item
+     */
+    @Nullable
+    private static View takeMatchingView(ArrayList<View> views, ItemInfo info,
+            boolean sameItemOnly) {
+        int expectedLayoutResId = getExpectedLayoutResId(info);
+        for (int i = 0; i < views.size(); i++) {
+            View view = views.get(i);
+            if (view.getSourceLayoutResId() != expectedLayoutResId) {
+                continue;
+            }
+            // Unlike for BubbleTextView, we can't reapply a new FolderInfo after inflation,
+            // so if the info changes we need to reinflate. This should only happen if a new
+            // folder is dragged to the position that another folder previously existed.
+            boolean reusable = info instanceof FolderInfo
+                    ? view.getTag() == info
+                    : !sameItemOnly || isSameItem(view.getTag(), info);
+            if (reusable) {
+                return views.remove(i);
+            }
+        }
+        return null;
+    }
+
+    private static boolean isSameItem(Object tag, ItemInfo info) {
+        if (tag == info) {
+            return true;
+        }
+        // Running apps and predictions are recreated on every update, match them by component.
+        return tag instanceof ItemInfo oldInfo
+                && oldInfo.user.equals(info.user)
+                && Objects.equals(oldInfo.getTargetComponent(), info.getTargetComponent());
+    }
+
+    /**
+     * Updates the children to match {@param desiredChildren}, moving existing children instead of
+     * removing and adding them again.
+     */
+    private void applyChildOrder(List<View> desiredChildren) {
+        boolean changed = false;
+        for (int i = 0; i < desiredChildren.size(); i++) {
+            View view = desiredChildren.get(i);
+            if (i < getChildCount() && getChildAt(i) == view) {
+                continue;
+            }
+            if (view.getParent() == this) {
+                detachViewFromParent(view);
+                attachViewToParent(view, i, view.getLayoutParams());
+                changed = true;
+            } else {
+                addView(view, i);
+            }
+        }
+        while (getChildCount() > desiredChildren.size()) {
+            removeViewAt(getChildCount() - 1);
+        }
+        if (changed) {
+            requestLayout();
+            invalidate();
+        }
+    }
+
     /**
      * Traverse all the child views and change the background of themeIcons
      **/
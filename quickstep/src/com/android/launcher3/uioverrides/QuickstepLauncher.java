@@ -1066,9 +1066,16 @@ public class QuickstepLauncher extends Launcher {
         WellbeingModel.INSTANCE.get(this);
     }
 
+    @Override
+    public void startBinding() {
+        super.startBinding();
+        mHotseatPredictionController.onStartBinding();
+    }
+
     @Override
     public void onInitialBindComplete(IntSet boundPages, RunnableList pendingTasks,
             int workspaceItemCount, boolean isBindSync) {
+        mHotseatPredictionController.onHotseatBound();
         pendingTasks.add(() -> {
             // This is added in pending task as we need to wait for views to be positioned
             // correctly before registering them for the animation.
@@ -99,6 +99,7 @@ import com.android.launcher3.Utilities;
 import com.android.launcher3.anim.AnimationSuccessListener;
 import com.android.launcher3.anim.AnimatorPlaybackController;
 import com.android.launcher3.dragndrop.DragView;
+import com.android.launcher3.logging.EventTrace;
 import com.android.launcher3.logging.StatsLogManager;
 import com.android.launcher3.logging.StatsLogManager.StatsLogger;
 import com.android.launcher3.statehandlers.DesktopVisibilityController;
@@ -151,6 +152,7 @@ import java.util.HashMap;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
@@ -684,6 +686,14 @@ public abstract class AbsSwipeUpHandler<T extends StatefulActivity<S>,
         mLauncherFrameDrawnTime = SystemClock.uptimeMillis();
     }
 
+    /**
+     * Records the time from the touch down to the provided gesture phase time (uptime millis)
+     */
+    private void recordGesturePhase(String spanName, long phaseTimeMs) {
+        EventTrace.recordDuration(spanName,
+                TimeUnit.MILLISECONDS.toNanos(phaseTimeMs - mTouchTimeMs));
+    }
+
     private void initializeLauncherAnimationController() {
         buildAnimationController();
 
@@ -691,6 +701,7 @@ public abstract class AbsSwipeUpHandler<T extends StatefulActivity<S>,
             LatencyTracker.getInstance(mContext).logAction(LatencyTracker.ACTION_TOGGLE_RECENTS,
                     (int) (mLauncherFrameDrawnTime - mTouchTimeMs));
         }
+        recordGesturePhase("gesture.launcherFrameDrawn", mLauncherFrameDrawnTime);
 
         // This method is only called when STATE_GESTURE_STARTED is set, so we can enable the
         // high-res thumbnail loader here once we are sure that we will end up in an overview state
@@ -939,6 +950,7 @@ public abstract class AbsSwipeUpHandler<T extends StatefulActivity<S>,
     public void onRecentsAnimationStart(RecentsAnimationController controller,
             RecentsAnimationTargets targets) {
         super.onRecentsAnimationStart(controller, targets);
+        recordGesturePhase("gesture.recentsAnimationStart", SystemClock.uptimeMillis());
         if (DesktopTaskView.DESKTOP_MODE_SUPPORTED && targets.hasDesktopTasks()) {
             mRemoteTargetHandles = mTargetGluer.assignTargetsForDesktop(targets);
         } else {
@@ -1141,6 +1153,7 @@ public abstract class AbsSwipeUpHandler<T extends StatefulActivity<S>,
         // Fast-finish the attaching animation if it's still running.
         maybeUpdateRecentsAttachedState(false);
         final GestureEndTarget endTarget = mGestureState.getEndTarget();
+        recordGesturePhase("gesture.settledOnEndTarget", SystemClock.uptimeMillis());
         // Wait until the given View (if supplied) draws before resuming the last task.
         View postResumeLastTask = mActivityInterface.onSettledOnEndTarget(endTarget);
 
@@ -26,24 +26,39 @@ import android.os.RemoteException;
 import android.os.Trace;
 import android.util.Log;
 
+import androidx.annotation.GuardedBy;
 import androidx.annotation.Nullable;
 
 import com.android.launcher3.util.SafeCloseable;
 import com.android.launcher3.util.TraceHelper;
 
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import kotlin.random.Random;
 
 /**
  * A binder proxy transaction listener for tracking binder calls on main thread.
+ *
+ * While tracking, the synchronous transactions made on the main thread are also aggregated per
+ * call site and per enclosing {@link TraceHelper} section, which can be checked against the
+ * budgets set with {@link #setBudget}.
  */
 public class BinderTracker {
 
     private static final String TAG = "BinderTracker";
 
+    // Section of the transactions made outside any TraceHelper section
+    private static final String NO_SECTION = "<none>";
+
     // Common IPCs that are ok to block the main thread.
     private static final Set<String> sAllowedFrameworkClasses = Set.of(
             "android.view.IWindowSession",
@@ -51,29 +66,154 @@ public class BinderTracker {
             "android.os.IServiceManager");
 
     /**
-     * Starts tracking binder class and returns a {@link SafeCloseable} to end tracking
+     * Starts tracking binder class and returns a {@link SafeCloseable} to end tracking, which
+     * restores any tracking started before.
+     *
+     * @param callback called with the unexpected binder calls on main thread, or null to only
+     *                 aggregate the transactions
      */
-    public static SafeCloseable startTracking(Consumer<BinderCallSite> callback) {
+    public static SafeCloseable startTracking(@Nullable Consumer<BinderCallSite> callback) {
         TraceHelper current = TraceHelper.INSTANCE;
+        TraceHelperExtension currentListener = sListener;
 
         TraceHelperExtension helper = new TraceHelperExtension(callback);
         TraceHelper.INSTANCE = helper;
+        sListener = helper;
         Binder.setProxyTransactListener(helper);
 
         return () -> {
-            Binder.setProxyTransactListener(null);
+            Binder.setProxyTransactListener(currentListener);
+            sListener = currentListener;
             TraceHelper.INSTANCE = current;
         };
     }
 
+    /**
+     * Sets the maximum number and total duration of the main thread transactions in a section,
+     * including the transactions of its nested sections.
+     */
+    public static void setBudget(String section, int maxCount, long maxDurationMs) {
+        synchronized (sLock) {
+            sBudgets.put(section,
+                    new Budget(maxCount, TimeUnit.MILLISECONDS.toNanos(maxDurationMs)));
+        }
+    }
+
+    /**
+     * Removes all the budgets
+     */
+    public static void clearBudgets() {
+        synchronized (sLock) {
+            sBudgets.clear();
+        }
+    }
+
+    /**
+     * Returns a description of every section which exceeded its budget
+     */
+    public static List<String> getBudgetViolations() {
+        List<String> violations = new ArrayList<>();
+        synchronized (sLock) {
+            sBudgets.forEach((section, budget) -> {
+                TransactionStats stats = sSectionStats.get(section);
+                if (stats != null && (stats.count > budget.maxCount
+                        || stats.totalNanos > budget.maxTotalNanos)) {
+                    violations.add(section + ": " + stats + " exceeds budget of "
+                            + budget.maxCount + " calls and "
+                            + TimeUnit.NANOSECONDS.toMillis(budget.maxTotalNanos) + "ms");
+                }
+            });
+        }
+        return violations;
+    }
+
+    /**
+     * Returns the aggregated main thread transactions of the section, including the transactions
+     * of its nested sections, or null if there were none.
+     */
+    @Nullable
+    public static TransactionStats getSectionStats(String section) {
+        synchronized (sLock) {
+            TransactionStats stats = sSectionStats.get(section);
+            return stats == null ? null : stats.copy();
+        }
+    }
+
+    /**
+     * Returns the aggregated main thread transactions made to the interface method directly in
+     * the section, or null if there were none.
+     */
+    @Nullable
+    public static TransactionStats getCallSiteStats(
+            @Nullable String section, String descriptor, int transactionCode) {
+        synchronized (sLock) {
+            Map<String, TransactionStats> callSites =
+                    sCallSiteStats.get(section == null ? NO_SECTION : section);
+            TransactionStats stats = callSites == null
+                    ? null : callSites.get(getCallSiteKey(descriptor, transactionCode));
+            return stats == null ? null : stats.copy();
+        }
+    }
+
+    /**
+     * Clears all the aggregated transactions
+     */
+    public static void resetStats() {
+        synchronized (sLock) {
+            sSectionStats.clear();
+            sCallSiteStats.clear();
+        }
+    }
+
+    public static void dump(PrintWriter pw) {
+        synchronized (sLock) {
+            pw.println("BinderTracker:");
+            pw.println("  isTracking=" + (sListener != null));
+            sCallSiteStats.forEach((section, callSites) -> {
+                pw.println("  section=" + section + " " + sSectionStats.get(section));
+                callSites.forEach((callSite, stats) ->
+                        pw.println("    " + callSite + " " + stats));
+            });
+            // Sections which only contain nested sections
+            sSectionStats.forEach((section, stats) -> {
+                if (!sCallSiteStats.containsKey(section)) {
+                    pw.println("  section=" + section + " " + stats);
+                }
+            });
+            sBudgets.forEach((section, budget) -> pw.println("  budget section=" + section
+                    + " maxCount=" + budget.maxCount
+                    + " maxDurationMs=" + TimeUnit.NANOSECONDS.toMillis(budget.maxTotalNanos)));
+        }
+    }
+
+    private static String getCallSiteKey(String descriptor, int transactionCode) {
+        return descriptor + ":" + transactionCode;
+    }
+
     private static final LinkedList<String> mMainThreadTraceStack = new LinkedList<>();
     private static final LinkedList<String> mMainThreadIgnoreIpcStack = new LinkedList<>();
 
+    // Only accessed on the main thread
+    private static final WeakHashMap<IBinder, String> sDescriptors = new WeakHashMap<>();
+
+    private static final Object sLock = new Object();
+    @GuardedBy("sLock")
+    private static final Map<String, TransactionStats> sSectionStats = new HashMap<>();
+    @GuardedBy("sLock")
+    private static final Map<String, Map<String, TransactionStats>> sCallSiteStats =
+            new HashMap<>();
+    @GuardedBy("sLock")
+    private static final Map<String, Budget> sBudgets = new HashMap<>();
+
+    @Nullable
+    private static TraceHelperExtension sListener;
+
     private static class TraceHelperExtension extends TraceHelper implements ProxyTransactListener {
 
+        @Nullable
         private final Consumer<BinderCallSite> mUnexpectedTransactionCallback;
 
-        TraceHelperExtension(Consumer<BinderCallSite> unexpectedTransactionCallback) {
+        TraceHelperExtension(@Nullable Consumer<BinderCallSite> unexpectedTransactionCallback) {
             mUnexpectedTransactionCallback = unexpectedTransactionCallback;
         }
 
@@ -132,24 +272,32 @@ public class BinderTracker {
             }
 
             String ipcBypass = mMainThreadIgnoreIpcStack.peekLast();
-            String descriptor;
-            try {
-                descriptor = binder.getInterfaceDescriptor();
-                if (sAllowedFrameworkClasses.contains(descriptor)) {
-                    return null;
+            String descriptor = getDescriptor(binder);
+            if (mUnexpectedTransactionCallback != null
+                    && !sAllowedFrameworkClasses.contains(descriptor)) {
+                if (ipcBypass == null) {
+                    mUnexpectedTransactionCallback.accept(new BinderCallSite(
+                            mMainThreadTraceStack.peekLast(), descriptor, transactionCode));
+                } else {
+                    Log.d(TAG, "MainThread-IPC " + descriptor + " ignored due to " + ipcBypass);
                 }
-            } catch (RemoteException e) {
-                Log.e(TAG, "Error getting IPC descriptor", e);
-                descriptor = binder.getClass().getSimpleName();
             }
+            return new Transaction(descriptor, transactionCode, System.nanoTime());
+        }
 
-            if (ipcBypass == null) {
-                mUnexpectedTransactionCallback.accept(new BinderCallSite(
-                        mMainThreadTraceStack.peekLast(), descriptor, transactionCode));
-            } else {
-                Log.d(TAG, "MainThread-IPC " + descriptor + " ignored due to " + ipcBypass);
+        private String getDescriptor(IBinder binder) {
+            // Getting the descriptor of a proxy is a transaction itself, so it is only done once
+            String descriptor = sDescriptors.get(binder);
+            if (descriptor == null) {
+                try {
+                    descriptor = binder.getInterfaceDescriptor();
+                    sDescriptors.put(binder, descriptor);
+                } catch (RemoteException e) {
+                    Log.e(TAG, "Error getting IPC descriptor", e);
+                    descriptor = binder.getClass().getSimpleName();
+                }
             }
-            return null;
+            return descriptor;
         }
 
         @Override
@@ -160,7 +308,92 @@ public class BinderTracker {
 
         @Override
         public void onTransactEnded(Object session) {
-            // Do nothing
+            if (!(session instanceof Transaction transaction)) {
+                return;
+            }
+            // The transaction is synchronous, so the sections are the same as when it started
+            long durationNanos = System.nanoTime() - transaction.startNanos;
+            String innermostSection = mMainThreadTraceStack.isEmpty()
+                    ? NO_SECTION : mMainThreadTraceStack.peekLast();
+            synchronized (sLock) {
+                sCallSiteStats.computeIfAbsent(innermostSection, s -> new HashMap<>())
+                        .computeIfAbsent(getCallSiteKey(transaction.descriptor,
+                                transaction.transactionCode), k -> new TransactionStats())
+                        .add(durationNanos);
+                if (mMainThreadTraceStack.isEmpty()) {
+                    sSectionStats.computeIfAbsent(NO_SECTION, s -> new TransactionStats())
+                            .add(durationNanos);
+                }
+                for (int i = 0; i < mMainThreadTraceStack.size(); i++) {
+                    String section = mMainThreadTraceStack.get(i);
+                    // Count the transaction once for sections nested in themselves
+                    if (mMainThreadTraceStack.indexOf(section) == i) {
+                        sSectionStats.computeIfAbsent(section, s -> new TransactionStats())
+                                .add(durationNanos);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A synchronous transaction started on the main thread
+     */
+    private static class Transaction {
+
+        final String descriptor;
+        final int transactionCode;
+        final long startNanos;
+
+        Transaction(String descriptor, int transactionCode, long startNanos) {
+            this.descriptor = descriptor;
+            this.transactionCode = transactionCode;
+            this.startNanos = startNanos;
+        }
+    }
+
+    /**
+     * Maximum transactions allowed in a section
+     */
+    private static class Budget {
+
+        final int maxCount;
+        final long maxTotalNanos;
+
+        Budget(int maxCount, long maxTotalNanos) {
+            this.maxCount = maxCount;
+            this.maxTotalNanos = maxTotalNanos;
+        }
+    }
+
+    /**
+     * Aggregated main thread transactions
+     */
+    public static class TransactionStats {
+
+        public int count;
+        public long totalNanos;
+        public long maxNanos;
+
+        void add(long durationNanos) {
+            count++;
+            totalNanos += durationNanos;
+            maxNanos = Math.max(maxNanos, durationNanos);
+        }
+
+        TransactionStats copy() {
+            TransactionStats copy = new TransactionStats();
+            copy.count = count;
+            copy.totalNanos = totalNanos;
+            copy.maxNanos = maxNanos;
+            return copy;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count
+                    + " totalMs=" + TimeUnit.NANOSECONDS.toMillis(totalNanos)
+                    + " maxMs=" + TimeUnit.NANOSECONDS.toMillis(maxNanos);
         }
     }
 
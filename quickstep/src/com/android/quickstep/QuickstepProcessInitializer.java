@@ -27,6 +27,8 @@ import android.view.ThreadedRenderer;
 
 import com.android.launcher3.BuildConfig;
 import com.android.launcher3.MainProcessInitializer;
+import com.android.launcher3.Utilities;
+import com.android.launcher3.util.LogConfig;
 import com.android.systemui.shared.system.InteractionJankMonitorWrapper;
 
 @SuppressWarnings("unused")
@@ -70,6 +72,9 @@ public class QuickstepProcessInitializer extends MainProcessInitializer {
         if (BuildConfig.IS_STUDIO_BUILD) {
             BinderTracker.startTracking(call ->  Log.e("BinderCall",
                     call.descriptor + " called on mainthread under " + call.activeTrace));
+        } else if (Utilities.isPropertyEnabled(LogConfig.MAIN_THREAD_IPC_TRACKING)) {
+            // Only aggregate the main thread transactions, which are reported in dumpsys
+            BinderTracker.startTracking(null);
         }
     }
 }
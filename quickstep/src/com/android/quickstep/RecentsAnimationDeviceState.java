@@ -15,6 +15,7 @@
  */
 package com.android.quickstep;
 
+import static android.app.ActivityManager.LOCK_TASK_MODE_NONE;
 import static android.app.WindowConfiguration.ACTIVITY_TYPE_UNDEFINED;
 import static android.app.WindowConfiguration.WINDOWING_MODE_PINNED;
 import static android.view.Display.DEFAULT_DISPLAY;
@@ -59,6 +60,7 @@ import android.view.ViewConfiguration;
 
 import androidx.annotation.BinderThread;
 import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
 
 import com.android.launcher3.util.DisplayController;
 import com.android.launcher3.util.DisplayController.DisplayInfoChangeListener;
@@ -92,7 +94,7 @@ public class RecentsAnimationDeviceState implements DisplayInfoChangeListener {
     private final DisplayController mDisplayController;
     private final int mDisplayId;
     private final RotationTouchHelper mRotationTouchHelper;
-    private final TaskStackChangeListener mPipListener;
+    private final TaskStackChangeListener mTaskStackListener;
     // Cache for better performance since it doesn't change at runtime.
     private final boolean mCanImeRenderGesturalNavButtons =
             InputMethodService.canImeRenderGesturalNavButtons();
@@ -111,6 +113,10 @@ public class RecentsAnimationDeviceState implements DisplayInfoChangeListener {
     private boolean mIsSwipeToNotificationEnabled;
     private final boolean mIsOneHandedModeSupported;
     private boolean mPipIsActive;
+    // Cached as it is checked for every gesture, and it is only updated through the listener.
+    private boolean mIsLockToAppActive;
+    // Description of mSystemUiStateFlags, only computed when needed after the flags change.
+    private String mSystemUiStateString;
 
     private int mGestureBlockingTaskId = -1;
     private @NonNull Region mExclusionRegion = new Region();
@@ -191,7 +197,8 @@ public class RecentsAnimationDeviceState implements DisplayInfoChangeListener {
         } catch (RemoteException e) {
             // Do nothing
         }
-        mPipListener = new TaskStackChangeListener() {
+        mIsLockToAppActive = ActivityManagerWrapper.getInstance().isLockToAppActive();
+        mTaskStackListener = new TaskStackChangeListener() {
             @Override
             public void onActivityPinned(String packageName, int userId, int taskId, int stackId) {
                 mPipIsActive = true;
@@ -201,10 +208,15 @@ public class RecentsAnimationDeviceState implements DisplayInfoChangeListener {
             public void onActivityUnpinned() {
                 mPipIsActive = false;
             }
+
+            @Override
+            public void onLockTaskModeChanged(int mode) {
+                mIsLockToAppActive = mode != LOCK_TASK_MODE_NONE;
+            }
         };
-        TaskStackChangeListeners.getInstance().registerTaskStackListener(mPipListener);
-        runOnDestroy(() ->
-                TaskStackChangeListeners.getInstance().unregisterTaskStackListener(mPipListener));
+        TaskStackChangeListeners.getInstance().registerTaskStackListener(mTaskStackListener);
+        runOnDestroy(() -> TaskStackChangeListeners.getInstance()
+                .unregisterTaskStackListener(mTaskStackListener));
     }
 
     private void runOnDestroy(Runnable action) {
@@ -320,6 +332,9 @@ public class RecentsAnimationDeviceState implements DisplayInfoChangeListener {
      * Updates the system ui state flags from SystemUI.
      */
     public void setSystemUiFlags(int stateFlags) {
+        if (mSystemUiStateFlags != stateFlags) {
+            mSystemUiStateString = null;
+        }
         mSystemUiStateFlags = stateFlags;
     }
 
@@ -403,7 +418,7 @@ public class RecentsAnimationDeviceState implements DisplayInfoChangeListener {
      * @return whether lock-task mode is active
      */
     public boolean isLockToAppActive() {
-        return ActivityManagerWrapper.getInstance().isLockToAppActive();
+        return mIsLockToAppActive;
     }
 
     /**
@@ -555,15 +570,20 @@ public class RecentsAnimationDeviceState implements DisplayInfoChangeListener {
         return slopMultiplier * touchSlop * touchSlop;
     }
 
+    @UiThread
     public String getSystemUiStateString() {
-        return  QuickStepContract.getSystemUiStateString(mSystemUiStateFlags);
+        if (mSystemUiStateString == null) {
+            mSystemUiStateString = QuickStepContract.getSystemUiStateString(mSystemUiStateFlags);
+        }
+        return mSystemUiStateString;
     }
 
     public void dump(PrintWriter pw) {
         pw.println("DeviceState:");
         pw.println("  canStartSystemGesture=" + canStartSystemGesture());
         pw.println("  systemUiFlags=" + mSystemUiStateFlags);
-        pw.println("  systemUiFlagsDesc=" + getSystemUiStateString());
+        pw.println("  systemUiFlagsDesc="
+                + QuickStepContract.getSystemUiStateString(mSystemUiStateFlags));
         pw.println("  assistantAvailable=" + mAssistantAvailable);
         pw.println("  assistantDisabled="
                 + QuickStepContract.isAssistantGestureDisabled(mSystemUiStateFlags));
@@ -572,6 +592,7 @@ public class RecentsAnimationDeviceState implements DisplayInfoChangeListener {
         pw.println("  deferredGestureRegion=" + mDeferredGestureRegion.getBounds());
         pw.println("  exclusionRegion=" + mExclusionRegion.getBounds());
         pw.println("  pipIsActive=" + mPipIsActive);
+        pw.println("  isLockToAppActive=" + mIsLockToAppActive);
         mRotationTouchHelper.dump(pw);
     }
 }
@@ -19,6 +19,7 @@ import android.content.Context;
 import android.content.res.Resources;
 
 import com.android.launcher3.R;
+import com.android.launcher3.logging.EventTrace;
 import com.android.launcher3.util.Preconditions;
 import com.android.quickstep.util.CancellableTask;
 import com.android.quickstep.util.TaskKeyLruCache;
@@ -33,6 +34,10 @@ import java.util.function.Consumer;
 
 public class TaskThumbnailCache {
 
+    private static final String SPAN_LOAD_THUMBNAIL = "thumbnail.load";
+    private static final String SPAN_LOAD_THUMBNAIL_LOW_RES = "thumbnail.load.lowRes";
+    private static final String COUNTER_CACHE_HIT = "thumbnail.cacheHit";
+
     private final Executor mBgExecutor;
 
     private final int mCacheSize;
@@ -156,6 +161,7 @@ public class TaskThumbnailCache {
         if (cachedThumbnail != null &&  cachedThumbnail.thumbnail != null
                 && (!cachedThumbnail.reducedResolution || lowResolution)) {
             // Already cached, lets use that thumbnail
+            EventTrace.incrementCounter(COUNTER_CACHE_HIT);
             callback.accept(cachedThumbnail);
             return null;
         }
@@ -163,8 +169,12 @@ public class TaskThumbnailCache {
         CancellableTask<ThumbnailData> request = new CancellableTask<ThumbnailData>() {
             @Override
             public ThumbnailData getResultOnBg() {
-                return ActivityManagerWrapper.getInstance().getTaskThumbnail(
+                long start = EventTrace.now();
+                ThumbnailData data = ActivityManagerWrapper.getInstance().getTaskThumbnail(
                         key.id, lowResolution);
+                EventTrace.recordSpan(lowResolution
+                        ? SPAN_LOAD_THUMBNAIL_LOW_RES : SPAN_LOAD_THUMBNAIL, start);
+                return data;
             }
 
             @Override
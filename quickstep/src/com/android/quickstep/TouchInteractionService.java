@@ -89,6 +89,7 @@ import com.android.launcher3.LauncherPrefs;
 import com.android.launcher3.R;
 import com.android.launcher3.anim.AnimatedFloat;
 import com.android.launcher3.config.FeatureFlags;
+import com.android.launcher3.logging.EventTrace;
 import com.android.launcher3.provider.RestoreDbTask;
 import com.android.launcher3.statemanager.StatefulActivity;
 import com.android.launcher3.taskbar.TaskbarActivityContext;
@@ -117,10 +118,12 @@ import com.android.quickstep.inputconsumers.ScreenPinnedInputConsumer;
 import com.android.quickstep.inputconsumers.SysUiOverlayInputConsumer;
 import com.android.quickstep.inputconsumers.TaskbarUnstashInputConsumer;
 import com.android.quickstep.inputconsumers.TrackpadStatusBarInputConsumer;
+import com.android.quickstep.logging.StatsLogBatcher;
 import com.android.quickstep.util.ActiveGestureLog;
 import com.android.quickstep.util.ActiveGestureLog.CompoundString;
 import com.android.quickstep.util.AssistStateManager;
 import com.android.quickstep.util.AssistUtils;
+import com.android.quickstep.util.NavBarPosition;
 import com.android.systemui.shared.recents.IOverviewProxy;
 import com.android.systemui.shared.recents.ISystemUiProxy;
 import com.android.systemui.shared.system.ActivityManagerWrapper;
@@ -143,6 +146,7 @@ import com.android.wm.shell.transition.IShellTransitions;
 import java.io.FileDescriptor;
 import java.io.PrintWriter;
 import java.lang.ref.WeakReference;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -463,8 +467,15 @@ public class TouchInteractionService extends Service {
     private @NonNull InputConsumer mConsumer = InputConsumer.NO_OP;
     private Choreographer mMainChoreographer;
     private @Nullable ResetGestureInputConsumer mResetGestureInputConsumer;
+    // Reused across gestures, until the input monitor or the nav bar position changes
+    private @Nullable SysUiOverlayInputConsumer mSysUiOverlayInputConsumer;
+    private @Nullable NavBarPosition mSysUiOverlayNavBarPosition;
     private GestureState mGestureState = DEFAULT_STATE;
 
+    // Time to select the input consumers, and from the down event until they are ready
+    private final LatencyStats mConsumerSelectionLatency = new LatencyStats();
+    private final LatencyStats mDownToConsumerReadyLatency = new LatencyStats();
+
     private InputMonitorCompat mInputMonitorCompat;
     private InputEventReceiver mInputEventReceiver;
 
@@ -500,6 +511,10 @@ public class TouchInteractionService extends Service {
             mInputMonitorCompat.dispose();
             mInputMonitorCompat = null;
         }
+        if (mSysUiOverlayInputConsumer != null) {
+            mSysUiOverlayInputConsumer.destroy();
+            mSysUiOverlayInputConsumer = null;
+        }
     }
 
     private void initInputMonitor(String reason) {
@@ -697,6 +712,8 @@ public class TouchInteractionService extends Service {
             if ((!mDeviceState.isOneHandedModeActive()
                     && mRotationTouchHelper.isInSwipeUpTouchRegion(event))
                     || isHoverActionWithoutConsumer) {
+                long selectionStartNanos = SystemClock.elapsedRealtimeNanos();
+                Trace.beginSection("TIS.newConsumer");
                 // Clone the previous gesture state since onConsumerAboutToBeSwitched might trigger
                 // onConsumerInactive and wipe the previous gesture state
                 GestureState prevGestureState = new GestureState(mGestureState);
@@ -707,6 +724,8 @@ public class TouchInteractionService extends Service {
                 mGestureState = newGestureState;
                 mConsumer = newConsumer(prevGestureState, mGestureState, event);
                 mUncheckedConsumer = mConsumer;
+                Trace.endSection();
+                onConsumerReady(event, selectionStartNanos);
             } else if (LockedUserState.get(this).isUserUnlocked()
                     && (mDeviceState.isFullyGesturalNavMode() || isTrackpadMultiFingerSwipe(event))
                     && mDeviceState.canTriggerAssistantAction(event)) {
@@ -734,28 +753,16 @@ public class TouchInteractionService extends Service {
         if (mUncheckedConsumer != InputConsumer.NO_OP) {
             switch (event.getActionMasked()) {
                 case ACTION_DOWN:
-                    // fall through
+                    ActiveGestureLog.INSTANCE.addMotionEventLog(event, MOTION_DOWN);
+                    break;
                 case ACTION_UP:
-                    ActiveGestureLog.INSTANCE.addLog(
-                            /* event= */ "onMotionEvent(" + (int) event.getRawX() + ", "
-                                    + (int) event.getRawY() + "): "
-                                    + MotionEvent.actionToString(event.getActionMasked()) + ", "
-                                    + MotionEvent.classificationToString(event.getClassification()),
-                            /* gestureEvent= */ event.getActionMasked() == ACTION_DOWN
-                                    ? MOTION_DOWN
-                                    : MOTION_UP);
+                    ActiveGestureLog.INSTANCE.addMotionEventLog(event, MOTION_UP);
                     break;
                 case ACTION_MOVE:
-                    ActiveGestureLog.INSTANCE.addLog("onMotionEvent: "
-                            + MotionEvent.actionToString(event.getActionMasked()) + ","
-                            + MotionEvent.classificationToString(event.getClassification())
-                            + ", pointerCount: " + event.getPointerCount(), MOTION_MOVE);
+                    ActiveGestureLog.INSTANCE.addMotionEventLog(event, MOTION_MOVE);
                     break;
-                default: {
-                    ActiveGestureLog.INSTANCE.addLog("onMotionEvent: "
-                            + MotionEvent.actionToString(event.getActionMasked()) + ","
-                            + MotionEvent.classificationToString(event.getClassification()));
-                }
+                default:
+                    ActiveGestureLog.INSTANCE.addMotionEventLog(event, null);
             }
         }
 
@@ -941,8 +948,7 @@ public class TouchInteractionService extends Service {
                 reasonString = newCompoundString(reasonPrefix)
                         .append(SUBSTRING_PREFIX)
                         .append("system dialog is showing, using SysUiOverlayInputConsumer");
-                base = new SysUiOverlayInputConsumer(
-                        getBaseContext(), mDeviceState, mInputMonitorCompat);
+                base = getSysUiOverlayInputConsumer();
             }
 
             if (ENABLE_TRACKPAD_GESTURE.get() && mGestureState.isTrackpadGesture()
@@ -1005,6 +1011,27 @@ public class TouchInteractionService extends Service {
         return base;
     }
 
+    private InputConsumer getSysUiOverlayInputConsumer() {
+        NavBarPosition navBarPosition = mDeviceState.getNavBarPosition();
+        if (mSysUiOverlayInputConsumer == null || mSysUiOverlayNavBarPosition != navBarPosition) {
+            if (mSysUiOverlayInputConsumer != null) {
+                mSysUiOverlayInputConsumer.destroy();
+            }
+            mSysUiOverlayInputConsumer = new SysUiOverlayInputConsumer(
+                    getBaseContext(), mDeviceState, mInputMonitorCompat);
+            mSysUiOverlayNavBarPosition = navBarPosition;
+        }
+        return mSysUiOverlayInputConsumer;
+    }
+
+    private void onConsumerReady(MotionEvent event, long selectionStartNanos) {
+        mConsumerSelectionLatency.add(SystemClock.elapsedRealtimeNanos() - selectionStartNanos);
+        long downToReadyMs = SystemClock.uptimeMillis() - event.getEventTime();
+        mDownToConsumerReadyLatency.add(TimeUnit.MILLISECONDS.toNanos(downToReadyMs));
+        ActiveGestureLog.INSTANCE.addLog(
+                "Input consumer ready, ms since event", (int) downToReadyMs);
+    }
+
     private CompoundString newCompoundString(String substring) {
         return new CompoundString(NEWLINE_PREFIX).append(substring);
     }
@@ -1319,6 +1346,8 @@ public class TouchInteractionService extends Service {
         pw.println("  mInputMonitorCompat=" + mInputMonitorCompat);
         pw.println("  mInputEventReceiver=" + mInputEventReceiver);
         DisplayController.INSTANCE.get(this).dump(pw);
+        StatsLogBatcher.getInstance().dump("", pw);
+        BinderTracker.dump(pw);
         pw.println("TouchState:");
         BaseDraggingActivity createdOverviewActivity = mOverviewComponentObserver == null ? null
                 : mOverviewComponentObserver.getActivityInterface().getCreatedActivity();
@@ -1327,7 +1356,10 @@ public class TouchInteractionService extends Service {
         pw.println("  createdOverviewActivity=" + createdOverviewActivity);
         pw.println("  resumed=" + resumed);
         pw.println("  mConsumer=" + mConsumer.getName());
+        mConsumerSelectionLatency.dump("  consumerSelection", pw);
+        mDownToConsumerReadyLatency.dump("  downToConsumerReady", pw);
         ActiveGestureLog.INSTANCE.dump("", pw);
+        EventTrace.dump("", pw);
         RecentsModel.INSTANCE.get(this).dump("", pw);
         if (createdOverviewActivity != null) {
             createdOverviewActivity.getDeviceProfile().dump(this, "", pw);
@@ -1350,4 +1382,24 @@ public class TouchInteractionService extends Service {
                 gestureState, touchTimeMs, mTaskAnimationManager.isRecentsAnimationRunning(),
                 mInputConsumer);
     }
+
+    /** Count, mean and max of latencies measured on the main thread */
+    private static class LatencyStats {
+
+        private long mCount;
+        private long mTotalNanos;
+        private long mMaxNanos;
+
+        void add(long nanos) {
+            mCount++;
+            mTotalNanos += nanos;
+            mMaxNanos = Math.max(mMaxNanos, nanos);
+        }
+
+        void dump(String prefix, PrintWriter pw) {
+            pw.println(prefix + ": count=" + mCount
+                    + " meanUs=" + (mCount == 0 ? 0 : mTotalNanos / mCount / 1000)
+                    + " maxUs=" + mMaxNanos / 1000);
+        }
+    }
 }
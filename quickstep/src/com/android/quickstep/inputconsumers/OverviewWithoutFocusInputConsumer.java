@@ -66,6 +66,11 @@ public class OverviewWithoutFocusInputConsumer implements InputConsumer,
     @Override
     public void onMotionEvent(MotionEvent ev) {
         mTriggerSwipeUpTracker.onMotionEvent(ev);
+        int action = ev.getActionMasked();
+        if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+            // The consumer is only used for a single gesture
+            mTriggerSwipeUpTracker.destroy();
+        }
     }
 
     private void onInterceptTouch() {
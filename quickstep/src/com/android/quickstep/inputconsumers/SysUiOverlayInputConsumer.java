@@ -69,9 +69,20 @@ public class SysUiOverlayInputConsumer implements InputConsumer,
 
     @Override
     public void onMotionEvent(MotionEvent ev) {
+        if (ev.getActionMasked() == MotionEvent.ACTION_DOWN) {
+            // The consumer is reused across gestures
+            mTriggerSwipeUpTracker.init();
+        }
         mTriggerSwipeUpTracker.onMotionEvent(ev);
     }
 
+    /**
+     * Releases the resources of the consumer once it is no longer reused
+     */
+    public void destroy() {
+        mTriggerSwipeUpTracker.destroy();
+    }
+
     private void onInterceptTouch() {
         if (mInputMonitor != null) {
             TestLogging.recordEvent(TestProtocol.SEQUENCE_PILFER, "pilferPointers");
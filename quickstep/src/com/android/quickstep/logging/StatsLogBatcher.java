@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.quickstep.logging;
+
+import static com.android.launcher3.util.Executors.createAndStartNewLooper;
+
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.launcher3.util.LooperExecutor;
+
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * Executor writing the stats logs on a dedicated low priority thread, so that bursts of events
+ * do not compete with the model loader.
+ *
+ * Events are queued and written in batches, with a single message posted to the logging thread
+ * per batch instead of one per event. Events are written in the order they were logged. When the
+ * logging thread falls behind and too many events are queued, new events are dropped.
+ */
+public class StatsLogBatcher implements Executor {
+
+    private static final String TAG = "StatsLogBatcher";
+
+    @VisibleForTesting
+    static final int MAX_QUEUED_EVENTS = 256;
+
+    private static StatsLogBatcher sInstance;
+
+    private final Executor mWriteExecutor;
+    private final int mMaxQueuedEvents;
+    private final Runnable mWriteBatchRunnable = this::writeBatches;
+
+    private final Object mLock = new Object();
+    @GuardedBy("mLock")
+    private ArrayDeque<Runnable> mQueue = new ArrayDeque<>();
+    @GuardedBy("mLock")
+    private boolean mIsWriteScheduled;
+    @GuardedBy("mLock")
+    private long mQueuedCount;
+    @GuardedBy("mLock")
+    private long mDroppedCount;
+    @GuardedBy("mLock")
+    private long mBatchCount;
+
+    // Only accessed on the logging thread
+    private ArrayDeque<Runnable> mBatch = new ArrayDeque<>();
+
+    @VisibleForTesting
+    StatsLogBatcher(Executor writeExecutor, int maxQueuedEvents) {
+        mWriteExecutor = writeExecutor;
+        mMaxQueuedEvents = maxQueuedEvents;
+    }
+
+    /**
+     * Returns the executor shared by all the stats loggers, starting its thread if needed
+     */
+    public static synchronized StatsLogBatcher getInstance() {
+        if (sInstance == null) {
+            sInstance = new StatsLogBatcher(new LooperExecutor(createAndStartNewLooper(
+                    "launcher-stats-log", Process.THREAD_PRIORITY_BACKGROUND)),
+                    MAX_QUEUED_EVENTS);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Queues the writing of an event, or drops it if too many events are already queued
+     */
+    @Override
+    public void execute(Runnable event) {
+        synchronized (mLock) {
+            if (mQueue.size() >= mMaxQueuedEvents) {
+                if (mDroppedCount++ == 0) {
+                    Log.w(TAG, "Logging thread is behind, dropping events");
+                }
+                return;
+            }
+            mQueue.add(event);
+            mQueuedCount++;
+            if (mIsWriteScheduled) {
+                return;
+            }
+            mIsWriteScheduled = true;
+        }
+        mWriteExecutor.execute(mWriteBatchRunnable);
+    }
+
+    private void writeBatches() {
+        while (true) {
+            synchronized (mLock) {
+                if (mQueue.isEmpty()) {
+                    mIsWriteScheduled = false;
+                    return;
+                }
+                // Swap the queues so that new events can be queued while the batch is written
+                ArrayDeque<Runnable> batch = mQueue;
+                mQueue = mBatch;
+                mBatch = batch;
+                mBatchCount++;
+            }
+            Runnable event;
+            while ((event = mBatch.poll()) != null) {
+                event.run();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of events queued so far, excluding the dropped ones
+     */
+    public long getQueuedCount() {
+        synchronized (mLock) {
+            return mQueuedCount;
+        }
+    }
+
+    /**
+     * Returns the number of events dropped so far because too many events were queued
+     */
+    public long getDroppedCount() {
+        synchronized (mLock) {
+            return mDroppedCount;
+        }
+    }
+
+    /**
+     * Returns the number of batches the queued events were written in so far
+     */
+    public long getBatchCount() {
+        synchronized (mLock) {
+            return mBatchCount;
+        }
+    }
+
+    public void dump(String prefix, PrintWriter writer) {
+        synchronized (mLock) {
+            writer.println(prefix + "StatsLogBatcher:");
+            writer.println(prefix + "\tqueued=" + mQueuedCount);
+            writer.println(prefix + "\tdropped=" + mDroppedCount);
+            writer.println(prefix + "\tbatches=" + mBatchCount);
+            writer.println(prefix + "\tpending=" + mQueue.size());
+        }
+    }
+}
@@ -42,6 +42,7 @@ import androidx.annotation.WorkerThread;
 import androidx.slice.SliceItem;
 
 import com.android.launcher3.LauncherAppState;
+import com.android.launcher3.LauncherModel;
 import com.android.launcher3.Utilities;
 import com.android.launcher3.logger.LauncherAtom;
 import com.android.launcher3.logger.LauncherAtom.Attribute;
@@ -56,12 +57,8 @@ import com.android.launcher3.logger.LauncherAtomExtensions.DeviceSearchResultCon
 import com.android.launcher3.logger.LauncherAtomExtensions.ExtendedContainers;
 import com.android.launcher3.logging.InstanceId;
 import com.android.launcher3.logging.StatsLogManager;
-import com.android.launcher3.model.AllAppsList;
-import com.android.launcher3.model.BaseModelUpdateTask;
-import com.android.launcher3.model.BgDataModel;
 import com.android.launcher3.model.data.FolderInfo;
 import com.android.launcher3.model.data.ItemInfo;
-import com.android.launcher3.util.Executors;
 import com.android.launcher3.util.LogConfig;
 import com.android.launcher3.views.ActivityContext;
 import com.android.systemui.shared.system.InteractionJankMonitorWrapper;
@@ -340,7 +337,7 @@ public class StatsLogCompatManager extends StatsLogManager {
             }
 
             if (mSlice != null) {
-                Executors.MODEL_EXECUTOR.execute(
+                StatsLogBatcher.getInstance().execute(
                         () -> {
                             LauncherAtom.ItemInfo.Builder itemInfoBuilder =
                                     LauncherAtom.ItemInfo.newBuilder().setSlice(mSlice);
@@ -355,23 +352,22 @@ public class StatsLogCompatManager extends StatsLogManager {
             }
 
             if (mItemInfo.container < 0 || appState == null) {
-                // Write log on the model thread so that logs do not go out of order
+                // Write all the logs on the same thread so that logs do not go out of order
                 // (for eg: drop comes after drag)
-                Executors.MODEL_EXECUTOR.execute(
+                StatsLogBatcher.getInstance().execute(
                         () -> write(event, applyOverwrites(mItemInfo.buildProto())));
             } else {
-                // Item is inside the folder, fetch folder info in a BG thread
-                // and then write to StatsLog.
-                appState.getModel().enqueueModelUpdateTask(
-                        new BaseModelUpdateTask() {
-                            @Override
-                            public void execute(@NonNull final LauncherAppState app,
-                                    @NonNull final BgDataModel dataModel,
-                                    @NonNull final AllAppsList apps) {
-                                FolderInfo folderInfo = dataModel.folders.get(mItemInfo.container);
-                                write(event, applyOverwrites(mItemInfo.buildProto(folderInfo)));
-                            }
-                        });
+                // Item is inside the folder, read the folder info from a copy of the model
+                // instead of waiting for the model thread, and then write to StatsLog.
+                LauncherModel model = appState.getModel();
+                StatsLogBatcher.getInstance().execute(() -> {
+                    if (!model.isModelLoaded()) {
+                        // Folders are not known until the model is loaded
+                        return;
+                    }
+                    FolderInfo folderInfo = model.getFolderSnapshot(mItemInfo.container);
+                    write(event, applyOverwrites(mItemInfo.buildProto(folderInfo)));
+                });
             }
         }
 
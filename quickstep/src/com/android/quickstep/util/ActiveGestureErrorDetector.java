@@ -70,13 +70,16 @@ public class ActiveGestureErrorDetector {
             @NonNull PrintWriter writer,
             @NonNull ActiveGestureLog.EventLog eventLog) {
         writer.println(prefix + "Error messages for gesture ID: " + eventLog.logId);
+        if (eventLog.getDroppedCount() > 0) {
+            writer.println(prefix + "\tOlder events were dropped, errors may be inaccurate.");
+        }
 
         boolean errorDetected = false;
         // Use a Set since the order is inherently checked in the loop.
         final Set<GestureEvent> encounteredEvents = new ArraySet<>();
         // Set flags and check order of operations.
-        for (ActiveGestureLog.EventEntry eventEntry : eventLog.eventEntries) {
-            GestureEvent gestureEvent = eventEntry.getGestureEvent();
+        for (int i = 0; i < eventLog.getEntryCount(); i++) {
+            GestureEvent gestureEvent = eventLog.getEntry(i).getGestureEvent();
             if (gestureEvent == null) {
                 continue;
             }
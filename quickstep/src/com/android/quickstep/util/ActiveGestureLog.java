@@ -15,8 +15,14 @@
  */
 package com.android.quickstep.util;
 
+import static android.view.MotionEvent.ACTION_DOWN;
+import static android.view.MotionEvent.ACTION_UP;
+
+import android.view.MotionEvent;
+
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 
 import java.io.PrintWriter;
 import java.text.SimpleDateFormat;
@@ -28,10 +34,16 @@ import java.util.Objects;
 
 /**
  * A log to keep track of the active gesture.
+ *
+ * Entries are kept as primitive records in a fixed size ring per gesture, and are only formatted
+ * into strings when the log is dumped. The records are reused once the ring wraps around and the
+ * gesture logs are reused for new gestures, so that logging does not allocate in steady state.
  */
 public class ActiveGestureLog {
 
     private static final int MAX_GESTURES_TRACKED = 10;
+    @VisibleForTesting
+    static final int MAX_ENTRIES_PER_GESTURE = 512;
 
     public static final ActiveGestureLog INSTANCE = new ActiveGestureLog();
 
@@ -48,12 +60,14 @@ public class ActiveGestureLog {
     private static final int TYPE_BOOL_FALSE = 4;
     private static final int TYPE_INPUT_CONSUMER = 5;
     private static final int TYPE_GESTURE_EVENT = 6;
+    private static final int TYPE_MOTION_EVENT = 7;
 
     private final EventLog[] logs;
     private int nextIndex;
     private int mCurrentLogId = 100;
 
-    private ActiveGestureLog() {
+    @VisibleForTesting
+    ActiveGestureLog() {
         this.logs = new EventLog[MAX_GESTURES_TRACKED];
         this.nextIndex = 0;
     }
@@ -80,6 +94,10 @@ public class ActiveGestureLog {
         addLog(event, extras, null);
     }
 
+    public void addLog(String event, float extras) {
+        addLog(event, extras, null);
+    }
+
     public void addLog(CompoundString compoundString) {
         addLog(TYPE_INPUT_CONSUMER, "", 0, compoundString, null);
     }
@@ -101,6 +119,13 @@ public class ActiveGestureLog {
         addLog(TYPE_INTEGER, event, extras, CompoundString.NO_OP, gestureEvent);
     }
 
+    public void addLog(
+            String event,
+            float extras,
+            @Nullable ActiveGestureErrorDetector.GestureEvent gestureEvent) {
+        addLog(TYPE_FLOAT, event, extras, CompoundString.NO_OP, gestureEvent);
+    }
+
     public void addLog(
             String event,
             boolean extras,
@@ -113,38 +138,66 @@ public class ActiveGestureLog {
                 gestureEvent);
     }
 
+    /**
+     * Logs the action, classification, pointer count and, for down and up events, the raw
+     * position of the given motion event, without formatting it.
+     *
+     * @param gestureEvent GestureEvent representing the event being logged.
+     */
+    public void addMotionEventLog(
+            @NonNull MotionEvent event,
+            @Nullable ActiveGestureErrorDetector.GestureEvent gestureEvent) {
+        int action = event.getActionMasked();
+        addLog(
+                TYPE_MOTION_EVENT, "onMotionEvent", 0, CompoundString.NO_OP, gestureEvent,
+                action, event.getClassification(), event.getPointerCount(),
+                // Only keep the position of the down and up events, so that moves are collapsed
+                action == ACTION_DOWN || action == ACTION_UP ? (int) event.getRawX() : 0,
+                action == ACTION_DOWN || action == ACTION_UP ? (int) event.getRawY() : 0);
+    }
+
     private void addLog(
             int type,
             String event,
             float extras,
             CompoundString compoundString,
             @Nullable ActiveGestureErrorDetector.GestureEvent gestureEvent) {
+        addLog(type, event, extras, compoundString, gestureEvent, 0, 0, 0, 0, 0);
+    }
+
+    private void addLog(
+            int type,
+            String event,
+            float extras,
+            CompoundString compoundString,
+            @Nullable ActiveGestureErrorDetector.GestureEvent gestureEvent,
+            int action,
+            int classification,
+            int pointerCount,
+            int x,
+            int y) {
         EventLog lastEventLog = logs[(nextIndex + logs.length - 1) % logs.length];
         if (lastEventLog == null || mCurrentLogId != lastEventLog.logId) {
-            EventLog eventLog = new EventLog(mCurrentLogId);
-            EventEntry eventEntry = new EventEntry();
-
-            eventEntry.update(type, event, extras, compoundString, gestureEvent);
-            eventLog.eventEntries.add(eventEntry);
-            logs[nextIndex] = eventLog;
+            // Reuse the oldest EventLog for the new gesture
+            EventLog eventLog = logs[nextIndex];
+            if (eventLog == null) {
+                eventLog = new EventLog();
+                logs[nextIndex] = eventLog;
+            }
+            eventLog.reset(mCurrentLogId);
             nextIndex = (nextIndex + 1) % logs.length;
-            return;
-        }
-
-        // Update the last EventLog
-        List<EventEntry> lastEventEntries = lastEventLog.eventEntries;
-        EventEntry lastEntry = lastEventEntries.size() > 0
-                ? lastEventEntries.get(lastEventEntries.size() - 1) : null;
-
-        // Update the last EventEntry if it's a duplicate
-        if (isEntrySame(lastEntry, type, event, extras, compoundString, gestureEvent)) {
-            lastEntry.duplicateCount++;
-            return;
+            lastEventLog = eventLog;
+        } else {
+            // Update the last EventEntry if it's a duplicate
+            EventEntry lastEntry = lastEventLog.getLastEntry();
+            if (lastEntry != null && lastEntry.isSame(type, event, extras, compoundString,
+                    gestureEvent, action, classification, pointerCount, x, y)) {
+                lastEntry.duplicateCount++;
+                return;
+            }
         }
-        EventEntry eventEntry = new EventEntry();
-
-        eventEntry.update(type, event, extras, compoundString, gestureEvent);
-        lastEventEntries.add(eventEntry);
+        lastEventLog.nextEntry().update(type, event, extras, compoundString, gestureEvent,
+                action, classification, pointerCount, x, y);
     }
 
     public void dump(String prefix, PrintWriter writer) {
@@ -167,7 +220,12 @@ public class ActiveGestureLog {
             }
 
             writer.println(prefix + "\tLogs for logId: " + eventLog.logId);
-            for (EventEntry eventEntry : eventLog.eventEntries) {
+            if (eventLog.getDroppedCount() > 0) {
+                writer.println(
+                        prefix + "\t\t" + eventLog.getDroppedCount() + " older events dropped");
+            }
+            for (int j = 0; j < eventLog.getEntryCount(); j++) {
+                EventEntry eventEntry = eventLog.getEntry(j);
                 date.setTime(eventEntry.time);
 
                 StringBuilder msg = new StringBuilder(prefix + "\t\t").append(sdf.format(date))
@@ -188,6 +246,17 @@ public class ActiveGestureLog {
                     case TYPE_INPUT_CONSUMER:
                         msg.append(eventEntry.mCompoundString);
                         break;
+                    case TYPE_MOTION_EVENT:
+                        if (eventEntry.action == ACTION_DOWN || eventEntry.action == ACTION_UP) {
+                            msg.append('(').append(eventEntry.x).append(", ")
+                                    .append(eventEntry.y).append(')');
+                        }
+                        msg.append(": ").append(MotionEvent.actionToString(eventEntry.action))
+                                .append(", ")
+                                .append(MotionEvent.classificationToString(
+                                        eventEntry.classification))
+                                .append(", pointerCount: ").append(eventEntry.pointerCount);
+                        break;
                     case TYPE_GESTURE_EVENT:
                         continue;
                     default: // fall out
@@ -213,32 +282,24 @@ public class ActiveGestureLog {
         return mCurrentLogId;
     }
 
-    private boolean isEntrySame(
-            EventEntry entry,
-            int type,
-            String event,
-            float extras,
-            CompoundString compoundString,
-            ActiveGestureErrorDetector.GestureEvent gestureEvent) {
-        return entry != null
-                && entry.type == type
-                && entry.event.equals(event)
-                && Float.compare(entry.extras, extras) == 0
-                && entry.mCompoundString.equals(compoundString)
-                && entry.gestureEvent == gestureEvent;
-    }
-
-    /** A single event entry. */
+    /** A single event entry, reused once its gesture log wraps around. */
     protected static class EventEntry {
 
         private int type;
         private String event;
         private float extras;
-        @NonNull private CompoundString mCompoundString;
+        @NonNull private CompoundString mCompoundString = CompoundString.NO_OP;
         private ActiveGestureErrorDetector.GestureEvent gestureEvent;
         private long time;
         private int duplicateCount;
 
+        // Only set for motion events
+        private int action;
+        private int classification;
+        private int pointerCount;
+        private int x;
+        private int y;
+
         private EventEntry() {}
 
         @Nullable
@@ -251,25 +312,105 @@ public class ActiveGestureLog {
                 String event,
                 float extras,
                 @NonNull CompoundString compoundString,
-                ActiveGestureErrorDetector.GestureEvent gestureEvent) {
+                ActiveGestureErrorDetector.GestureEvent gestureEvent,
+                int action,
+                int classification,
+                int pointerCount,
+                int x,
+                int y) {
             this.type = type;
             this.event = event;
             this.extras = extras;
             this.mCompoundString = compoundString;
             this.gestureEvent = gestureEvent;
+            this.action = action;
+            this.classification = classification;
+            this.pointerCount = pointerCount;
+            this.x = x;
+            this.y = y;
             time = System.currentTimeMillis();
             duplicateCount = 0;
         }
+
+        private boolean isSame(
+                int type,
+                String event,
+                float extras,
+                CompoundString compoundString,
+                ActiveGestureErrorDetector.GestureEvent gestureEvent,
+                int action,
+                int classification,
+                int pointerCount,
+                int x,
+                int y) {
+            return this.type == type
+                    && this.event.equals(event)
+                    && Float.compare(this.extras, extras) == 0
+                    && mCompoundString.equals(compoundString)
+                    && this.gestureEvent == gestureEvent
+                    && this.action == action
+                    && this.classification == classification
+                    && this.pointerCount == pointerCount
+                    && this.x == x
+                    && this.y == y;
+        }
     }
 
-    /** An entire log of entries associated with a single log ID */
+    /**
+     * An entire log of entries associated with a single log ID, kept in a ring of at most
+     * {@link #MAX_ENTRIES_PER_GESTURE} entries. The oldest entries are overwritten when it is full.
+     */
     protected static class EventLog {
 
-        protected final List<EventEntry> eventEntries = new ArrayList<>();
-        protected final int logId;
+        private final EventEntry[] mEntries = new EventEntry[MAX_ENTRIES_PER_GESTURE];
+        private int mFirstIndex;
+        private int mEntryCount;
+        private int mDroppedCount;
+        protected int logId;
 
-        private EventLog(int logId) {
+        private EventLog() {}
+
+        private void reset(int logId) {
             this.logId = logId;
+            mFirstIndex = 0;
+            mEntryCount = 0;
+            mDroppedCount = 0;
+        }
+
+        /** Returns the number of older entries overwritten since the log was started. */
+        protected int getDroppedCount() {
+            return mDroppedCount;
+        }
+
+        protected int getEntryCount() {
+            return mEntryCount;
+        }
+
+        /** Returns the entry at the given index, starting from the oldest one. */
+        protected EventEntry getEntry(int index) {
+            return mEntries[(mFirstIndex + index) % mEntries.length];
+        }
+
+        @Nullable
+        private EventEntry getLastEntry() {
+            return mEntryCount > 0 ? getEntry(mEntryCount - 1) : null;
+        }
+
+        /** Returns the entry to update for a new event, overwriting the oldest one if full. */
+        private EventEntry nextEntry() {
+            int index;
+            if (mEntryCount < mEntries.length) {
+                index = (mFirstIndex + mEntryCount) % mEntries.length;
+                mEntryCount++;
+            } else {
+                index = mFirstIndex;
+                mFirstIndex = (mFirstIndex + 1) % mEntries.length;
+                mDroppedCount++;
+            }
+            if (mEntries[index] == null) {
+                mEntries[index] = new EventEntry();
+            }
+            return mEntries[index];
         }
     }
 
@@ -19,7 +19,8 @@ import android.content.Context;
 import android.content.res.Resources;
 import android.util.Log;
 import android.view.MotionEvent;
-import android.view.VelocityTracker;
+
+import androidx.annotation.VisibleForTesting;
 
 import com.android.launcher3.Alarm;
 import com.android.launcher3.R;
@@ -59,9 +60,10 @@ public class MotionPauseDetector {
     private final Alarm mForcePauseTimeout;
     private final boolean mMakePauseHarderToTrigger;
     private final Context mContext;
-    private final SystemVelocityProvider mVelocityProvider;
+    private final VelocityEstimator mVelocityEstimator;
 
-    private Float mPreviousVelocity = null;
+    private boolean mHasPreviousVelocity;
+    private float mPreviousVelocity;
 
     private OnMotionPauseListener mOnMotionPauseListener;
     private boolean mIsPaused;
@@ -97,7 +99,7 @@ public class MotionPauseDetector {
         mForcePauseTimeout.setOnAlarmListener(alarm -> updatePaused(true /* isPaused */,
                 "Force pause timeout after " +  alarm.getLastSetTimeout() + "ms" /* reason */));
         mMakePauseHarderToTrigger = makePauseHarderToTrigger;
-        mVelocityProvider = new SystemVelocityProvider(axis);
+        mVelocityEstimator = new VelocityEstimator(axis);
     }
 
     /**
@@ -125,6 +127,9 @@ public class MotionPauseDetector {
 
     /**
      * Computes velocity and acceleration to determine whether the motion is paused.
+     *
+     * All the historical samples batched in the event are consumed in one pass, and the pause
+     * state is only evaluated once for the whole batch.
      * @param ev The motion being tracked.
      * @param pointerIndex Index for the pointer being tracked in the motion event
      */
@@ -135,11 +140,12 @@ public class MotionPauseDetector {
                         ? HARDER_TRIGGER_TIMEOUT
                         : FORCE_PAUSE_TIMEOUT;
         mForcePauseTimeout.setAlarm(timeoutMs);
-        float newVelocity = mVelocityProvider.addMotionEvent(ev, ev.getPointerId(pointerIndex));
-        if (mPreviousVelocity != null) {
+        float newVelocity = mVelocityEstimator.addMotionEvent(ev, pointerIndex);
+        if (mHasPreviousVelocity) {
             checkMotionPaused(newVelocity, mPreviousVelocity, ev.getEventTime());
         }
         mPreviousVelocity = newVelocity;
+        mHasPreviousVelocity = true;
     }
 
     private void checkMotionPaused(float velocity, float prevVelocity, long time) {
@@ -217,8 +223,8 @@ public class MotionPauseDetector {
     }
 
     public void clear() {
-        mVelocityProvider.clear();
-        mPreviousVelocity = null;
+        mVelocityEstimator.clear();
+        mHasPreviousVelocity = false;
         setOnMotionPauseListener(null);
         mIsPaused = mHasEverBeenPaused = false;
         mSlowStartTime = 0;
@@ -236,33 +242,130 @@ public class MotionPauseDetector {
         default void onMotionPauseChanged(boolean isPaused) { }
     }
 
-    private static class SystemVelocityProvider {
+    /**
+     * Estimates the velocity of a pointer along an axis, from the samples in a fixed size ring.
+     *
+     * Similar to the default strategy of {@link android.view.VelocityTracker}, the velocity is the
+     * derivative of the second degree polynomial fitting, with least squares, the samples of the
+     * last {@link #HORIZON_MS}. The history is cleared when the pointer changes or stops moving.
+     */
+    @VisibleForTesting
+    static class VelocityEstimator {
+
+        @VisibleForTesting
+        static final int HISTORY_SIZE = 20;
+        @VisibleForTesting
+        static final long HORIZON_MS = 100;
+        // The pointer is assumed to have stopped if no sample is added for this long.
+        @VisibleForTesting
+        static final long ASSUME_POINTER_STOPPED_MS = 40;
 
-        private final VelocityTracker mVelocityTracker;
+        private final long[] mTimes = new long[HISTORY_SIZE];
+        private final float[] mPositions = new float[HISTORY_SIZE];
         private final int mAxis;
 
-        SystemVelocityProvider(int axis) {
-            mVelocityTracker = VelocityTracker.obtain();
+        // Index of the newest sample
+        private int mIndex;
+        private int mCount;
+        private int mPointerId = MotionEvent.INVALID_POINTER_ID;
+
+        VelocityEstimator(int axis) {
             mAxis = axis;
         }
 
         /**
-         * Adds a new motion events, and returns the velocity at this point, or null if
-         * the velocity is not available
+         * Adds the historical and current samples of the pointer in the event, and returns the
+         * velocity at the last one in px / ms
          */
-        public float addMotionEvent(MotionEvent ev, int pointer) {
-            mVelocityTracker.addMovement(ev);
-            mVelocityTracker.computeCurrentVelocity(1); // px / ms
-            return mAxis == MotionEvent.AXIS_X
-                    ? mVelocityTracker.getXVelocity(pointer)
-                    : mVelocityTracker.getYVelocity(pointer);
+        public float addMotionEvent(MotionEvent ev, int pointerIndex) {
+            int pointerId = ev.getPointerId(pointerIndex);
+            if (pointerId != mPointerId) {
+                clear();
+                mPointerId = pointerId;
+            }
+            boolean isXAxis = mAxis == MotionEvent.AXIS_X;
+            int historySize = ev.getHistorySize();
+            for (int i = 0; i < historySize; i++) {
+                addSample(ev.getHistoricalEventTime(i), isXAxis
+                        ? ev.getHistoricalX(pointerIndex, i)
+                        : ev.getHistoricalY(pointerIndex, i));
+            }
+            addSample(ev.getEventTime(), isXAxis ? ev.getX(pointerIndex) : ev.getY(pointerIndex));
+            return getVelocity();
+        }
+
+        @VisibleForTesting
+        void addSample(long time, float position) {
+            if (mCount > 0) {
+                long lastTime = mTimes[mIndex];
+                if (time <= lastTime) {
+                    // Replace the newest sample rather than computing an infinite velocity
+                    mPositions[mIndex] = position;
+                    return;
+                }
+                if (time - lastTime > ASSUME_POINTER_STOPPED_MS) {
+                    mCount = 0;
+                }
+            }
+            mIndex = (mIndex + 1) % HISTORY_SIZE;
+            mTimes[mIndex] = time;
+            mPositions[mIndex] = position;
+            mCount = Math.min(mCount + 1, HISTORY_SIZE);
+        }
+
+        /**
+         * Returns the velocity at the newest sample in px / ms, or 0 if it can not be estimated
+         */
+        @VisibleForTesting
+        float getVelocity() {
+            long newestTime = mTimes[mIndex];
+            float newestPosition = mPositions[mIndex];
+            // Sums of the powers of the times, and of the positions times the powers of the
+            // times, relative to the newest sample to keep them small.
+            double s1 = 0, s2 = 0, s3 = 0, s4 = 0;
+            double y0 = 0, y1 = 0, y2 = 0;
+            int n = 0;
+            for (int i = 0; i < mCount; i++) {
+                int index = (mIndex - i + HISTORY_SIZE) % HISTORY_SIZE;
+                double t = mTimes[index] - newestTime;
+                if (-t > HORIZON_MS) {
+                    break;
+                }
+                double x = mPositions[index] - newestPosition;
+                double t2 = t * t;
+                s1 += t;
+                s2 += t2;
+                s3 += t2 * t;
+                s4 += t2 * t2;
+                y0 += x;
+                y1 += t * x;
+                y2 += t2 * x;
+                n++;
+            }
+            if (n < 2) {
+                return 0;
+            }
+            if (n > 2) {
+                // Solve the normal equations of the quadratic fit for its linear coefficient
+                double det = n * (s2 * s4 - s3 * s3) - s1 * (s1 * s4 - s2 * s3)
+                        + s2 * (s1 * s3 - s2 * s2);
+                if (Math.abs(det) > 1e-6) {
+                    double detB1 = n * (y1 * s4 - s3 * y2) - y0 * (s1 * s4 - s2 * s3)
+                            + s2 * (s1 * y2 - y1 * s2);
+                    return (float) (detB1 / det);
+                }
+            }
+            // Fall back to a linear fit
+            double denominator = n * s2 - s1 * s1;
+            return denominator == 0 ? 0 : (float) ((n * y1 - s1 * y0) / denominator);
         }
 
         /**
-         * Clears all stored motion event records
+         * Clears all stored samples
          */
         public void clear() {
-            mVelocityTracker.clear();
+            mCount = 0;
+            mPointerId = MotionEvent.INVALID_POINTER_ID;
         }
     }
 }
@@ -17,9 +17,15 @@ package com.android.quickstep.util;
 
 import android.graphics.Matrix;
 import android.graphics.Rect;
+import android.util.ArrayMap;
 import android.view.SurfaceControl;
 import android.view.SurfaceControl.Transaction;
 
+import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
+
+import java.util.ArrayDeque;
+
 /**
  * Helper class for building a {@link Transaction}.
  */
@@ -28,11 +34,36 @@ public class SurfaceTransaction {
     private final Transaction mTransaction = new Transaction();
     private final float[] mTmpValues = new float[9];
 
+    @Nullable
+    private final Pool mPool;
+    // Properties of each surface, reused across frames when this transaction is pooled
+    private final ArrayMap<SurfaceControl, SurfaceProperties> mProperties = new ArrayMap<>();
+    private int mPoolGeneration;
+
+    public SurfaceTransaction() {
+        this(null);
+    }
+
+    private SurfaceTransaction(@Nullable Pool pool) {
+        mPool = pool;
+    }
+
     /**
      * Creates a new builder for the provided surface
      */
     public SurfaceProperties forSurface(SurfaceControl surface) {
-        return surface.isValid() ? new SurfaceProperties(surface) : new MockProperties();
+        if (!surface.isValid()) {
+            return new MockProperties();
+        }
+        if (mPool == null) {
+            return new SurfaceProperties(surface);
+        }
+        SurfaceProperties properties = mProperties.get(surface);
+        if (properties == null) {
+            properties = new SurfaceProperties(surface);
+            mProperties.put(surface, properties);
+        }
+        return properties;
     }
 
     /**
@@ -42,6 +73,60 @@ public class SurfaceTransaction {
         return mTransaction;
     }
 
+    /**
+     * Called once the transaction has been applied or merged into a frame, after which it is
+     * empty and can be reused by its pool, if any.
+     */
+    @UiThread
+    public void recycle() {
+        if (mPool != null) {
+            mPool.release(this);
+        }
+    }
+
+    /**
+     * Pool of transactions reused across the frames of an animation. All the properties are set
+     * again on every frame, as other transactions can also modify the same surfaces.
+     */
+    @UiThread
+    public static class Pool {
+
+        private static final int MAX_POOL_SIZE = 3;
+
+        private final ArrayDeque<SurfaceTransaction> mFreeTransactions = new ArrayDeque<>();
+        private int mGeneration;
+
+        /**
+         * Returns an empty transaction, which should be recycled once applied
+         */
+        public SurfaceTransaction obtain() {
+            SurfaceTransaction transaction = mFreeTransactions.poll();
+            if (transaction == null) {
+                transaction = new SurfaceTransaction(this);
+            }
+            if (transaction.mPoolGeneration != mGeneration) {
+                transaction.mProperties.clear();
+                transaction.mPoolGeneration = mGeneration;
+            }
+            return transaction;
+        }
+
+        /**
+         * Drops the properties kept for the previous surfaces, should be called when the set of
+         * surfaces changes.
+         */
+        public void onSurfacesChanged() {
+            mGeneration++;
+        }
+
+        private void release(SurfaceTransaction transaction) {
+            if (mFreeTransactions.size() < MAX_POOL_SIZE
+                    && !mFreeTransactions.contains(transaction)) {
+                mFreeTransactions.add(transaction);
+            }
+        }
+    }
+
     /**
      * Utility class to update surface params in a transaction
      */
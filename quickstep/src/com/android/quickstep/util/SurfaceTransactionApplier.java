@@ -82,6 +82,9 @@ public class SurfaceTransactionApplier extends ReleaseCheck {
     protected boolean onApplyMessage(Message msg) {
         if (msg.what == MSG_UPDATE_SEQUENCE_NUMBER) {
             setCanRelease(msg.arg1 == mLastSequenceNumber);
+            if (msg.arg2 == 1 && msg.obj instanceof SurfaceTransaction transaction) {
+                transaction.recycle();
+            }
             return true;
         }
         return false;
@@ -96,6 +99,7 @@ public class SurfaceTransactionApplier extends ReleaseCheck {
     public void scheduleApply(SurfaceTransaction params) {
         if (!mInitialized) {
             params.getTransaction().apply();
+            params.recycle();
             return;
         }
         View view = mTargetViewRootImpl.getView();
@@ -109,12 +113,13 @@ public class SurfaceTransactionApplier extends ReleaseCheck {
         setCanRelease(false);
         mTargetViewRootImpl.registerRtFrameCallback(frame -> {
             if (mBarrierSurfaceControl == null || !mBarrierSurfaceControl.isValid()) {
-                Message.obtain(mApplyHandler, MSG_UPDATE_SEQUENCE_NUMBER, toApplySeqNo, 0)
+                Message.obtain(mApplyHandler, MSG_UPDATE_SEQUENCE_NUMBER, toApplySeqNo, 0, params)
                         .sendToTarget();
                 return;
             }
             mTargetViewRootImpl.mergeWithNextTransaction(t, frame);
-            Message.obtain(mApplyHandler, MSG_UPDATE_SEQUENCE_NUMBER, toApplySeqNo, 0)
+            // The transaction is empty once merged, and can be reused
+            Message.obtain(mApplyHandler, MSG_UPDATE_SEQUENCE_NUMBER, toApplySeqNo, 1, params)
                     .sendToTarget();
         });
 
@@ -60,6 +60,8 @@ public class TransformParams {
     private float mCornerRadius;
     private RemoteAnimationTargets mTargetSet;
     private SurfaceTransactionApplier mSyncTransactionApplier;
+    // Reuses the transactions across frames
+    private final SurfaceTransaction.Pool mTransactionPool = new SurfaceTransaction.Pool();
 
     private BuilderProxy mHomeBuilderProxy = BuilderProxy.ALWAYS_VISIBLE;
     private BuilderProxy mBaseBuilderProxy = BuilderProxy.ALWAYS_VISIBLE;
@@ -106,6 +108,7 @@ public class TransformParams {
      */
     public TransformParams setTargetSet(RemoteAnimationTargets targetSet) {
         mTargetSet = targetSet;
+        mTransactionPool.onSurfacesChanged();
         return this;
     }
 
@@ -136,10 +139,13 @@ public class TransformParams {
         return this;
     }
 
-    /** Builds the SurfaceTransaction from the given BuilderProxy params. */
+    /**
+     * Builds the SurfaceTransaction from the given BuilderProxy params. The transaction is reused
+     * once applied, and should be applied through {@link #applySurfaceParams}.
+     */
     public SurfaceTransaction createSurfaceParams(BuilderProxy proxy) {
         RemoteAnimationTargets targets = mTargetSet;
-        SurfaceTransaction transaction = new SurfaceTransaction();
+        SurfaceTransaction transaction = mTransactionPool.obtain();
         if (targets == null) {
             return transaction;
         }
@@ -204,6 +210,7 @@ public class TransformParams {
             mSyncTransactionApplier.scheduleApply(builder);
         } else {
             builder.getTransaction().apply();
+            builder.recycle();
         }
     }
 
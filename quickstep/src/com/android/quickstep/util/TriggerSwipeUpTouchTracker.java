@@ -45,6 +45,8 @@ public class TriggerSwipeUpTouchTracker {
     private final OnSwipeUpListener mOnSwipeUp;
 
     private boolean mInterceptedTouch;
+    private boolean mIsTracking;
+    // Kept across gestures and only recycled in destroy()
     private VelocityTracker mVelocityTracker;
 
     public TriggerSwipeUpTouchTracker(Context context, boolean disableHorizontalSwipe,
@@ -66,7 +68,12 @@ public class TriggerSwipeUpTouchTracker {
      */
     public void init() {
         mInterceptedTouch = false;
-        mVelocityTracker = VelocityTracker.obtain();
+        mIsTracking = true;
+        if (mVelocityTracker == null) {
+            mVelocityTracker = VelocityTracker.obtain();
+        } else {
+            mVelocityTracker.clear();
+        }
     }
 
     /**
@@ -80,7 +87,7 @@ public class TriggerSwipeUpTouchTracker {
      * Track motion events to determine whether an atomic swipe up has occurred.
      */
     public void onMotionEvent(MotionEvent ev) {
-        if (mVelocityTracker == null) {
+        if (!mIsTracking) {
             return;
         }
 
@@ -125,6 +132,16 @@ public class TriggerSwipeUpTouchTracker {
     }
 
     private void endTouchTracking() {
+        mIsTracking = false;
+        mVelocityTracker.clear();
+    }
+
+    /**
+     * Stops tracking and recycles the velocity tracker, once the tracker is no longer used.
+     * Calling {@link #init()} afterwards obtains a new velocity tracker.
+     */
+    public void destroy() {
+        mIsTracking = false;
         if (mVelocityTracker != null) {
             mVelocityTracker.recycle();
             mVelocityTracker = null;
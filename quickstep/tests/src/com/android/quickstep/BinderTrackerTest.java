@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.quickstep;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.app.ActivityManager;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.android.launcher3.util.SafeCloseable;
+import com.android.launcher3.util.TraceHelper;
+import com.android.quickstep.BinderTracker.TransactionStats;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for {@link BinderTracker}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class BinderTrackerTest {
+
+    private static final String OUTER_SECTION = "BinderTrackerTest.outer";
+    private static final String INNER_SECTION = "BinderTrackerTest.inner";
+
+    private final List<BinderTracker.BinderCallSite> mUnexpectedCalls = new ArrayList<>();
+    private SafeCloseable mTracking;
+
+    @Before
+    public void setUp() {
+        runOnMainSync(() -> {
+            BinderTracker.resetStats();
+            mTracking = BinderTracker.startTracking(mUnexpectedCalls::add);
+        });
+    }
+
+    @After
+    public void tearDown() {
+        runOnMainSync(() -> {
+            mTracking.close();
+            BinderTracker.clearBudgets();
+            BinderTracker.resetStats();
+        });
+    }
+
+    @Test
+    public void testTransactionsAggregatedPerSection() {
+        runOnMainSync(() -> {
+            TraceHelper.INSTANCE.beginSection(OUTER_SECTION);
+            makeTransaction();
+            TraceHelper.INSTANCE.beginSection(INNER_SECTION);
+            makeTransaction();
+            TraceHelper.INSTANCE.endSection();
+            TraceHelper.INSTANCE.endSection();
+        });
+
+        TransactionStats outer = BinderTracker.getSectionStats(OUTER_SECTION);
+        TransactionStats inner = BinderTracker.getSectionStats(INNER_SECTION);
+        assertNotNull(outer);
+        assertNotNull(inner);
+        // The outer section includes the transactions of the inner one
+        assertEquals(2, outer.count);
+        assertEquals(1, inner.count);
+        assertTrue(outer.totalNanos >= inner.totalNanos);
+        assertTrue(outer.maxNanos <= outer.totalNanos);
+        assertEquals(2, mUnexpectedCalls.size());
+        assertEquals(INNER_SECTION, mUnexpectedCalls.get(1).activeTrace);
+
+        BinderTracker.BinderCallSite callSite = mUnexpectedCalls.get(0);
+        TransactionStats callSiteStats = BinderTracker.getCallSiteStats(
+                OUTER_SECTION, callSite.descriptor, callSite.transactionCode);
+        assertNotNull(callSiteStats);
+        assertEquals(1, callSiteStats.count);
+    }
+
+    @Test
+    public void testAllowedTransactionsAreCountedButNotReported() {
+        runOnMainSync(() -> {
+            TraceHelper.INSTANCE.beginSection(OUTER_SECTION);
+            TraceHelper.allowIpcs(INNER_SECTION, () -> {
+                makeTransaction();
+                return null;
+            });
+            TraceHelper.INSTANCE.endSection();
+        });
+
+        assertEquals(1, BinderTracker.getSectionStats(OUTER_SECTION).count);
+        assertEquals(1, BinderTracker.getSectionStats(INNER_SECTION).count);
+        assertTrue(mUnexpectedCalls.isEmpty());
+    }
+
+    @Test
+    public void testBackgroundTransactionsAreIgnored() {
+        TraceHelper.INSTANCE.beginSection(OUTER_SECTION);
+        makeTransaction();
+        TraceHelper.INSTANCE.endSection();
+
+        assertNull(BinderTracker.getSectionStats(OUTER_SECTION));
+    }
+
+    @Test
+    public void testBudgetViolations() {
+        BinderTracker.setBudget(OUTER_SECTION, 1, 10_000);
+        BinderTracker.setBudget(INNER_SECTION, 0, 10_000);
+        runOnMainSync(() -> {
+            TraceHelper.INSTANCE.beginSection(OUTER_SECTION);
+            makeTransaction();
+            TraceHelper.INSTANCE.endSection();
+        });
+        assertTrue(BinderTracker.getBudgetViolations().isEmpty());
+
+        runOnMainSync(() -> {
+            TraceHelper.INSTANCE.beginSection(OUTER_SECTION);
+            makeTransaction();
+            TraceHelper.INSTANCE.endSection();
+        });
+        List<String> violations = BinderTracker.getBudgetViolations();
+        assertEquals(1, violations.size());
+        assertTrue(violations.get(0).startsWith(OUTER_SECTION));
+    }
+
+    private static void makeTransaction() {
+        // Not cached by the framework, so that it always results in a binder transaction
+        getApplicationContext().getSystemService(ActivityManager.class)
+                .getRunningAppProcesses();
+    }
+
+    private static void runOnMainSync(Runnable runnable) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(runnable);
+    }
+}
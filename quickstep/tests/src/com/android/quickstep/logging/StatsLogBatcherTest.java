@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.quickstep.logging;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for {@link StatsLogBatcher}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class StatsLogBatcherTest {
+
+    private static final int MAX_QUEUED_EVENTS = 3;
+
+    private final List<Runnable> mScheduled = new ArrayList<>();
+    private final List<Integer> mWritten = new ArrayList<>();
+    private final StatsLogBatcher mBatcher =
+            new StatsLogBatcher(mScheduled::add, MAX_QUEUED_EVENTS);
+
+    @Test
+    public void testEventsWrittenInOrderInOneBatch() {
+        log(1);
+        log(2);
+        log(3);
+        assertEquals(1, mScheduled.size());
+
+        runScheduled();
+        assertEquals(List.of(1, 2, 3), mWritten);
+        assertEquals(1, mBatcher.getBatchCount());
+        assertEquals(3, mBatcher.getQueuedCount());
+    }
+
+    @Test
+    public void testEventsLoggedWhileWritingAreWrittenInNextBatch() {
+        mBatcher.execute(() -> {
+            mWritten.add(1);
+            log(2);
+        });
+        runScheduled();
+        assertEquals(List.of(1, 2), mWritten);
+        assertEquals(2, mBatcher.getBatchCount());
+
+        log(3);
+        assertEquals(1, mScheduled.size());
+        runScheduled();
+        assertEquals(List.of(1, 2, 3), mWritten);
+    }
+
+    @Test
+    public void testEventsDroppedWhenQueueIsFull() {
+        for (int i = 0; i < MAX_QUEUED_EVENTS + 2; i++) {
+            log(i);
+        }
+        runScheduled();
+        assertEquals(List.of(0, 1, 2), mWritten);
+        assertEquals(MAX_QUEUED_EVENTS, mBatcher.getQueuedCount());
+        assertEquals(2, mBatcher.getDroppedCount());
+
+        // Events are accepted again once the queue is written
+        log(3);
+        runScheduled();
+        assertEquals(List.of(0, 1, 2, 3), mWritten);
+    }
+
+    private void log(int event) {
+        mBatcher.execute(() -> mWritten.add(event));
+    }
+
+    private void runScheduled() {
+        List<Runnable> scheduled = new ArrayList<>(mScheduled);
+        mScheduled.clear();
+        scheduled.forEach(Runnable::run);
+    }
+}
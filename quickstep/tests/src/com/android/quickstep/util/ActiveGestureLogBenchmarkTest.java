@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.quickstep.util;
+
+import static android.view.MotionEvent.ACTION_DOWN;
+import static android.view.MotionEvent.ACTION_MOVE;
+
+import static com.android.quickstep.util.ActiveGestureErrorDetector.GestureEvent.MOTION_DOWN;
+import static com.android.quickstep.util.ActiveGestureErrorDetector.GestureEvent.MOTION_MOVE;
+import static com.android.quickstep.util.ActiveGestureLog.MAX_ENTRIES_PER_GESTURE;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.os.Debug;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.MotionEvent;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+/**
+ * Measures the time to add entries to the {@link ActiveGestureLog}, and verifies that logging
+ * does not allocate once the gesture log is warmed up.
+ */
+@MediumTest
+@RunWith(AndroidJUnit4.class)
+public class ActiveGestureLogBenchmarkTest {
+
+    private static final String TAG = "ActiveGestureLogBenchmarkTest";
+    private static final int ITERATIONS = 20;
+    private static final int EVENTS_PER_ITERATION = 1000;
+
+    private final ActiveGestureLog mLog = new ActiveGestureLog();
+    private MotionEvent mDown;
+    private MotionEvent mMove;
+
+    @Before
+    public void setUp() {
+        long time = SystemClock.uptimeMillis();
+        mDown = MotionEvent.obtain(time, time, ACTION_DOWN, 10, 20, 0);
+        mMove = MotionEvent.obtain(time, time, ACTION_MOVE, 30, 40, 0);
+    }
+
+    @After
+    public void tearDown() {
+        mDown.recycle();
+        mMove.recycle();
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testLoggingDoesNotAllocate() {
+        // Wrap around the ring once, so that all its entries are created
+        logEvents(MAX_ENTRIES_PER_GESTURE);
+
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        logEvents(EVENTS_PER_ITERATION);
+        Debug.stopAllocCounting();
+
+        assertEquals(0, Debug.getThreadAllocCount());
+    }
+
+    @Test
+    public void testLoggingTime() {
+        logEvents(MAX_ENTRIES_PER_GESTURE);
+
+        long[] times = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            logEvents(EVENTS_PER_ITERATION);
+            times[i] = (SystemClock.elapsedRealtimeNanos() - start) / EVENTS_PER_ITERATION;
+        }
+        Arrays.sort(times);
+        Log.d(TAG, "Log event: median=" + times[ITERATIONS / 2] + "ns"
+                + " min=" + times[0] + "ns max=" + times[ITERATIONS - 1] + "ns");
+    }
+
+    @Test
+    public void testEntriesFormattedOnDump() {
+        mLog.addMotionEventLog(mDown, MOTION_DOWN);
+        mLog.addMotionEventLog(mMove, MOTION_MOVE);
+        mLog.addMotionEventLog(mMove, MOTION_MOVE);
+        mLog.addLog("intEvent", 3);
+
+        String dump = dump();
+        assertTrue(dump, dump.contains(
+                "onMotionEvent(10, 20): ACTION_DOWN, NONE, pointerCount: 1"));
+        assertTrue(dump, dump.contains(
+                "onMotionEvent: ACTION_MOVE, NONE, pointerCount: 1 & 1 similar events"));
+        assertTrue(dump, dump.contains("intEvent: 3"));
+    }
+
+    @Test
+    public void testOldestEntriesDroppedWhenFull() {
+        mLog.addLog("firstEvent");
+        logEvents(MAX_ENTRIES_PER_GESTURE);
+
+        String dump = dump();
+        assertTrue(dump, dump.contains("1 older events dropped"));
+        assertTrue(dump, !dump.contains("firstEvent"));
+    }
+
+    /** Logs distinct consecutive events, so that they are not collapsed into one entry. */
+    private void logEvents(int count) {
+        for (int i = 0; i < count; i++) {
+            if (i % 2 == 0) {
+                mLog.addMotionEventLog(mMove, MOTION_MOVE);
+            } else {
+                mLog.addLog("event", i);
+            }
+        }
+    }
+
+    private String dump() {
+        StringWriter writer = new StringWriter();
+        mLog.dump("", new PrintWriter(writer));
+        return writer.toString();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.quickstep.util;
+
+import androidx.annotation.NonNull;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.android.launcher3.util.SafeCloseable;
+import com.android.quickstep.BinderTracker;
+
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rule tracking the binder transactions made on the main thread during a test, which fails the
+ * test when a {@link com.android.launcher3.util.TraceHelper} section exceeds its budget.
+ */
+public class MainThreadIpcBudgetRule implements TestRule {
+
+    private final List<Runnable> mBudgets = new ArrayList<>();
+
+    /**
+     * Sets the maximum number and total duration of the main thread transactions in the section
+     */
+    public MainThreadIpcBudgetRule setBudget(String section, int maxCount, long maxDurationMs) {
+        mBudgets.add(() -> BinderTracker.setBudget(section, maxCount, maxDurationMs));
+        return this;
+    }
+
+    @NonNull
+    @Override
+    public Statement apply(@NonNull Statement base, @NonNull Description description) {
+        return new Statement() {
+
+            @Override
+            public void evaluate() throws Throwable {
+                List<String> violations;
+                SafeCloseable tracking = startTracking();
+                try {
+                    base.evaluate();
+                } finally {
+                    runOnMainSync(tracking::close);
+                    violations = BinderTracker.getBudgetViolations();
+                    BinderTracker.clearBudgets();
+                    BinderTracker.resetStats();
+                }
+                if (!violations.isEmpty()) {
+                    throw new AssertionError(
+                            "Main thread IPC budget exceeded in " + description.getMethodName()
+                                    + ":\n" + String.join("\n", violations));
+                }
+            }
+        };
+    }
+
+    private SafeCloseable startTracking() {
+        SafeCloseable[] tracking = new SafeCloseable[1];
+        runOnMainSync(() -> {
+            BinderTracker.resetStats();
+            mBudgets.forEach(Runnable::run);
+            tracking[0] = BinderTracker.startTracking(null);
+        });
+        return tracking[0];
+    }
+
+    private static void runOnMainSync(Runnable runnable) {
+        // Tracking is only changed on the main thread, where its sections are updated
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(runnable);
+    }
+}
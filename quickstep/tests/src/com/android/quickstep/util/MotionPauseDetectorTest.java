@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.quickstep.util;
+
+import static android.view.MotionEvent.ACTION_MOVE;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.view.MotionEvent;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.android.launcher3.R;
+import com.android.quickstep.util.MotionPauseDetector.VelocityEstimator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Tests for {@link MotionPauseDetector}, replaying recorded streams of samples either as one
+ * event per sample, or batched into events with historical samples.
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class MotionPauseDetectorTest {
+
+    // Samples of a 120 Hz touch panel
+    private static final long[] SAMPLE_INTERVALS_MS = {8, 9, 8};
+    private static final int SAMPLES_PER_FRAME = 2;
+
+    private final Context mContext =
+            InstrumentationRegistry.getInstrumentation().getTargetContext();
+
+    private float mSpeedFast;
+    private int mPauseDetectedCount;
+
+    @Before
+    public void setUp() {
+        mSpeedFast = mContext.getResources().getDimension(
+                R.dimen.motion_pause_detector_speed_fast);
+    }
+
+    @Test
+    public void testEstimatorMatchesQuadraticMotion() {
+        VelocityEstimator estimator = new VelocityEstimator(MotionEvent.AXIS_Y);
+        long time = 0;
+        for (int i = 0; i < 15; i++) {
+            estimator.addSample(time, 5 + 2 * time + 0.01f * time * time);
+            time += 8;
+        }
+        time -= 8;
+        assertEquals(2 + 0.02f * time, estimator.getVelocity(), 1e-3f);
+    }
+
+    @Test
+    public void testEstimatorResetWhenPointerStops() {
+        VelocityEstimator estimator = new VelocityEstimator(MotionEvent.AXIS_Y);
+        estimator.addSample(0, 0);
+        estimator.addSample(8, 10);
+        assertEquals(10 / 8f, estimator.getVelocity(), 1e-3f);
+
+        estimator.addSample(8 + VelocityEstimator.ASSUME_POINTER_STOPPED_MS + 1, 100);
+        assertEquals(0, estimator.getVelocity(), 0);
+    }
+
+    @Test
+    public void testEstimatorIgnoresSamplesOutsideHorizon() {
+        VelocityEstimator estimator = new VelocityEstimator(MotionEvent.AXIS_Y);
+        long time = 0;
+        for (int i = 0; i < 5; i++) {
+            estimator.addSample(time, -10 * time);
+            time += 8;
+        }
+        float position = -10 * (time - 8);
+        for (long end = time + VelocityEstimator.HORIZON_MS; time <= end; time += 8) {
+            estimator.addSample(time, position);
+        }
+        assertEquals(0, estimator.getVelocity(), 1e-3f);
+    }
+
+    @Test
+    public void testBatchedEventsMatchSeparateEvents() {
+        float[][] stream = recordSwipeAndHold();
+        VelocityEstimator separate = new VelocityEstimator(MotionEvent.AXIS_Y);
+        VelocityEstimator batched = new VelocityEstimator(MotionEvent.AXIS_Y);
+        for (int start = 0; start < stream.length; start += SAMPLES_PER_FRAME) {
+            int end = Math.min(start + SAMPLES_PER_FRAME, stream.length);
+            float separateVelocity = 0;
+            for (int i = start; i < end; i++) {
+                MotionEvent ev = obtainEvent(stream, i, i + 1);
+                separateVelocity = separate.addMotionEvent(ev, 0);
+                ev.recycle();
+            }
+            MotionEvent ev = obtainEvent(stream, start, end);
+            assertEquals(separateVelocity, batched.addMotionEvent(ev, 0), 0);
+            ev.recycle();
+        }
+    }
+
+    @Test
+    public void testPauseDetectedOnHold() {
+        assertTrue(replay(recordSwipeAndHold(), 1));
+        assertEquals(1, mPauseDetectedCount);
+    }
+
+    @Test
+    public void testPauseDetectedOnHold_batched() {
+        assertTrue(replay(recordSwipeAndHold(), SAMPLES_PER_FRAME));
+        assertEquals(1, mPauseDetectedCount);
+    }
+
+    @Test
+    public void testNoPauseWhileMovingFast() {
+        assertFalse(replay(recordFastSwipe(), 1));
+        assertEquals(0, mPauseDetectedCount);
+    }
+
+    @Test
+    public void testNoPauseWhileMovingFast_batched() {
+        assertFalse(replay(recordFastSwipe(), SAMPLES_PER_FRAME));
+        assertEquals(0, mPauseDetectedCount);
+    }
+
+    /**
+     * Replays the stream with the given number of samples per event, and returns whether the
+     * motion is paused at the end
+     */
+    private boolean replay(float[][] stream, int samplesPerEvent) {
+        boolean[] isPaused = new boolean[1];
+        // The detector must be used on a looper thread, for its force pause timeout
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            MotionPauseDetector detector = new MotionPauseDetector(mContext);
+            detector.setOnMotionPauseListener(() -> mPauseDetectedCount++);
+            for (int start = 0; start < stream.length; start += samplesPerEvent) {
+                MotionEvent ev = obtainEvent(
+                        stream, start, Math.min(start + samplesPerEvent, stream.length));
+                detector.addPosition(ev);
+                ev.recycle();
+            }
+            isPaused[0] = detector.isPaused();
+            detector.clear();
+        });
+        return isPaused[0];
+    }
+
+    /** Swipes up fast for 200ms, then holds still for 200ms */
+    private float[][] recordSwipeAndHold() {
+        return record(new float[] {2 * mSpeedFast, 0}, 200);
+    }
+
+    /** Swipes up fast for 400ms */
+    private float[][] recordFastSwipe() {
+        return record(new float[] {2 * mSpeedFast, 2 * mSpeedFast}, 200);
+    }
+
+    /**
+     * Returns samples of {time, y} moving up at each of the given speeds in px / ms, for the
+     * given duration each
+     */
+    private static float[][] record(float[] speeds, long durationMs) {
+        int samplesPerSpeed = 0;
+        for (long time = 0; time < durationMs; samplesPerSpeed++) {
+            time += SAMPLE_INTERVALS_MS[samplesPerSpeed % SAMPLE_INTERVALS_MS.length];
+        }
+        float[][] stream = new float[speeds.length * samplesPerSpeed][];
+        long time = 0;
+        float y = 4000;
+        for (int i = 0; i < stream.length; i++) {
+            stream[i] = new float[] {time, y};
+            long interval = SAMPLE_INTERVALS_MS[i % SAMPLE_INTERVALS_MS.length];
+            time += interval;
+            y -= speeds[i / samplesPerSpeed] * interval;
+        }
+        return stream;
+    }
+
+    /** Returns a move event with the samples from start to end, the last one being current */
+    private static MotionEvent obtainEvent(float[][] stream, int start, int end) {
+        MotionEvent ev = MotionEvent.obtain(
+                0, (long) stream[start][0], ACTION_MOVE, 0, stream[start][1], 0);
+        for (int i = start + 1; i < end; i++) {
+            ev.addBatch((long) stream[i][0], 0, stream[i][1], 1, 1, 0);
+        }
+        return ev;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.quickstep.util;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.view.SurfaceControl;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.quickstep.util.SurfaceTransaction.MockProperties;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Tests for {@link SurfaceTransaction}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class SurfaceTransactionTest {
+
+    @Test
+    public void testPoolReusesRecycledTransactions() {
+        SurfaceTransaction.Pool pool = new SurfaceTransaction.Pool();
+        SurfaceTransaction first = pool.obtain();
+        SurfaceTransaction second = pool.obtain();
+        assertNotSame(first, second);
+
+        first.recycle();
+        assertSame(first, pool.obtain());
+
+        // Recycling twice does not hand out the same transaction twice
+        second.recycle();
+        second.recycle();
+        assertSame(second, pool.obtain());
+        assertNotSame(second, pool.obtain());
+    }
+
+    @Test
+    public void testInvalidSurfaceRecorded() {
+        SurfaceTransaction transaction = new SurfaceTransaction.Pool().obtain();
+        assertTrue(transaction.forSurface(new SurfaceControl()) instanceof MockProperties);
+    }
+}
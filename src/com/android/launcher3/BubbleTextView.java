@@ -61,8 +61,10 @@ import androidx.annotation.UiThread;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.launcher3.accessibility.BaseAccessibilityDelegate;
+import com.android.launcher3.allapps.ActivityAllAppsContainerView;
 import com.android.launcher3.config.FeatureFlags;
 import com.android.launcher3.dot.DotInfo;
+import com.android.launcher3.dot.DotViewIndex;
 import com.android.launcher3.dragndrop.DragOptions.PreDragCondition;
 import com.android.launcher3.dragndrop.DraggableView;
 import com.android.launcher3.folder.FolderIcon;
@@ -81,7 +83,9 @@ import com.android.launcher3.model.data.WorkspaceItemInfo;
 import com.android.launcher3.popup.PopupContainerWithArrow;
 import com.android.launcher3.search.StringMatcherUtility;
 import com.android.launcher3.util.IntArray;
+import com.android.launcher3.util.LabelSpacingCache;
 import com.android.launcher3.util.MultiTranslateDelegate;
+import com.android.launcher3.util.PackageUserKey;
 import com.android.launcher3.util.SafeCloseable;
 import com.android.launcher3.util.ShortcutUtil;
 import com.android.launcher3.util.Themes;
@@ -89,8 +93,11 @@ import com.android.launcher3.views.ActivityContext;
 import com.android.launcher3.views.IconLabelDotView;
 
 import java.text.NumberFormat;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
 /**
  * TextView that draws a bubble behind the text. We cannot use a LineBackgroundSpan
@@ -110,7 +117,6 @@ public class BubbleTextView extends TextView implements ItemInfoUpdateReceiver,
     public static final int DISPLAY_SEARCH_RESULT_APP_ROW = 9;
 
     private static final float MIN_LETTER_SPACING = -0.05f;
-    private static final int MAX_SEARCH_LOOP_COUNT = 20;
     private static final Character NEW_LINE = '\n';
     private static final String EMPTY = "";
     private static final StringMatcherUtility.StringMatcher MATCHER =
@@ -121,6 +127,9 @@ public class BubbleTextView extends TextView implements ItemInfoUpdateReceiver,
     private float mScaleForReorderBounce = 1f;
 
     private IntArray mBreakPointsIntArray;
+    // Key under which this view is registered in the DotViewIndex, while attached
+    private PackageUserKey mDotIndexKey;
+    private int mDotGeneration = -1;
     private CharSequence mLastOriginalText;
     private CharSequence mLastModifiedText;
 
@@ -547,6 +556,69 @@ public class BubbleTextView extends TextView implements ItemInfoUpdateReceiver,
         return result;
     }
 
+    @Override
+    public void setTag(Object tag) {
+        super.setTag(tag);
+        if (isAttachedToWindow()) {
+            DotViewIndex index = mActivity.getDotViewIndex();
+            if (index != null) {
+                updateDotIndexKey(index);
+            }
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        DotViewIndex index = mActivity.getDotViewIndex();
+        if (index != null) {
+            updateDotIndexKey(index);
+            if (mDotGeneration != index.getGeneration() && getTag() instanceof ItemInfo info) {
+                // Dots changed while detached, e.g. in the RecyclerView cache
+                applyDotState(info, false /* animate */);
+            }
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        DotViewIndex index = mActivity.getDotViewIndex();
+        if (index != null) {
+            index.remove(mDotIndexKey, this);
+        }
+        mDotIndexKey = null;
+    }
+
+    private void updateDotIndexKey(DotViewIndex index) {
+        PackageUserKey key = isDotIndexed() && getTag() instanceof ItemInfo info
+                ? DotViewIndex.getKey(info) : null;
+        if (!Objects.equals(key, mDotIndexKey)) {
+            index.remove(mDotIndexKey, this);
+            index.add(key, this);
+            mDotIndexKey = key;
+        }
+    }
+
+    /**
+     * Returns true for icons of the home screen, folders and all apps, which show the dots of
+     * their package. Icons in popups and the widget picker do not.
+     */
+    private boolean isDotIndexed() {
+        switch (mDisplay) {
+            case DISPLAY_WORKSPACE:
+            case DISPLAY_ALL_APPS:
+            case DISPLAY_FOLDER:
+            case DISPLAY_SEARCH_RESULT:
+            case DISPLAY_SEARCH_RESULT_SMALL:
+            case DISPLAY_PREDICTION_ROW:
+            case DISPLAY_SEARCH_RESULT_APP_ROW:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
@@ -567,53 +639,36 @@ public class BubbleTextView extends TextView implements ItemInfoUpdateReceiver,
         if (width <= 0) {
             return;
         }
-        setLetterSpacing(0);
 
-        String text = getText().toString();
         TextPaint paint = getPaint();
-        if (paint.measureText(text) < width) {
-            return;
+        if (mDisplay == DISPLAY_ALL_APPS) {
+            precomputeAllAppsLabels(paint, width);
         }
-
-        float spacing = findBestSpacingValue(paint, text, width, MIN_LETTER_SPACING);
+        float spacing = LabelSpacingCache.getLetterSpacing(
+                paint, getText().toString(), width, MIN_LETTER_SPACING);
         // Reset the paint value so that the call to TextView does appropriate diff.
         paint.setLetterSpacing(0);
         setLetterSpacing(spacing);
     }
 
     /**
-     * Find the appropriate text spacing to display the provided text
-     * @param paint the paint used by the text view
-     * @param text the text to display
-     * @param allowedWidthPx available space to render the text
-     * @param minSpacingEm minimum spacing allowed between characters
-     * @return the final textSpacing value
-     *
-     * @see #setLetterSpacing(float)
+     * Measures the labels of all apps in the background, so that scrolling through all apps
+     * does not measure text when binding icons.
      */
-    private float findBestSpacingValue(TextPaint paint, String text, float allowedWidthPx,
-            float minSpacingEm) {
-        paint.setLetterSpacing(minSpacingEm);
-        if (paint.measureText(text) > allowedWidthPx) {
-            // If there is no result at high limit, we can do anything more
-            return minSpacingEm;
+    private void precomputeAllAppsLabels(TextPaint paint, float width) {
+        ActivityAllAppsContainerView<?> appsView =
+                ActivityContext.lookupContext(getContext()).getAppsView();
+        if (appsView == null) {
+            return;
         }
-
-        float lowLimit = 0;
-        float highLimit = minSpacingEm;
-
-        for (int i = 0; i < MAX_SEARCH_LOOP_COUNT; i++) {
-            float value = (lowLimit + highLimit) / 2;
-            paint.setLetterSpacing(value);
-            if (paint.measureText(text) < allowedWidthPx) {
-                highLimit = value;
-            } else {
-                lowLimit = value;
+        LabelSpacingCache.precompute(() -> {
+            AppInfo[] apps = appsView.getAppsStore().getApps();
+            List<CharSequence> labels = new ArrayList<>(apps.length);
+            for (AppInfo app : apps) {
+                labels.add(app.title);
             }
-        }
-
-        // At the end error on the higher side
-        return highLimit;
+            return labels;
+        }, paint, width, MIN_LETTER_SPACING);
     }
 
     @SuppressWarnings("wrongcall")
@@ -966,6 +1021,10 @@ public class BubbleTextView extends TextView implements ItemInfoUpdateReceiver,
     }
 
     public void applyDotState(ItemInfo itemInfo, boolean animate) {
+        DotViewIndex index = mActivity.getDotViewIndex();
+        if (index != null) {
+            mDotGeneration = index.getGeneration();
+        }
         if (mIcon instanceof FastBitmapDrawable) {
             boolean wasDotted = mDotInfo != null;
             mDotInfo = mActivity.getDotInfoForItem(itemInfo);
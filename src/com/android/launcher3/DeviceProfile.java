@@ -67,7 +67,6 @@ import com.android.launcher3.uioverrides.ApiWrapper;
 import com.android.launcher3.util.DisplayController;
 import com.android.launcher3.util.DisplayController.Info;
 import com.android.launcher3.util.IconSizeSteps;
-import com.android.launcher3.util.ResourceHelper;
 import com.android.launcher3.util.WindowBounds;
 
 import java.io.PrintWriter;
@@ -530,8 +529,8 @@ public class DeviceProfile {
 
         if (mIsResponsiveGrid) {
             HotseatSpecs hotseatSpecs =
-                    HotseatSpecs.create(new ResourceHelper(context,
-                            isTwoPanels ? inv.hotseatSpecsTwoPanelId : inv.hotseatSpecsId));
+                    HotseatSpecs.create(context,
+                            isTwoPanels ? inv.hotseatSpecsTwoPanelId : inv.hotseatSpecsId);
             mResponsiveHotseatSpec = hotseatSpecs.getCalculatedHeightSpec(heightPx);
             hotseatQsbSpace = showQsb ? mResponsiveHotseatSpec.getHotseatQsbSpace() : 0;
         } else {
@@ -584,9 +583,8 @@ public class DeviceProfile {
         // Needs to be calculated after hotseatBarSizePx is correct,
         // for the available height to be correct
         if (mIsResponsiveGrid) {
-            WorkspaceSpecs workspaceSpecs = WorkspaceSpecs.create(
-                    new ResourceHelper(context,
-                            isTwoPanels ? inv.workspaceSpecsTwoPanelId : inv.workspaceSpecsId));
+            WorkspaceSpecs workspaceSpecs = WorkspaceSpecs.create(context,
+                    isTwoPanels ? inv.workspaceSpecsTwoPanelId : inv.workspaceSpecsId);
             int availableResponsiveWidth =
                     availableWidthPx - (isVerticalBarLayout() ? hotseatBarSizePx : 0);
             int numColumns = getPanelCount() * inv.numColumns;
@@ -599,17 +597,15 @@ public class DeviceProfile {
             mResponsiveHeightSpec = workspaceSpecs.getCalculatedHeightSpec(inv.numRows,
                     availableResponsiveHeight);
 
-            AllAppsSpecs allAppsSpecs = AllAppsSpecs.create(
-                    new ResourceHelper(context,
-                            isTwoPanels ? inv.allAppsSpecsTwoPanelId : inv.allAppsSpecsId));
+            AllAppsSpecs allAppsSpecs = AllAppsSpecs.create(context,
+                    isTwoPanels ? inv.allAppsSpecsTwoPanelId : inv.allAppsSpecsId);
             mAllAppsResponsiveWidthSpec = allAppsSpecs.getCalculatedWidthSpec(numColumns,
                     mResponsiveWidthSpec.getAvailableSpace(), mResponsiveWidthSpec);
             mAllAppsResponsiveHeightSpec = allAppsSpecs.getCalculatedHeightSpec(inv.numRows,
                     mResponsiveHeightSpec.getAvailableSpace(), mResponsiveHeightSpec);
 
-            FolderSpecs folderSpecs = FolderSpecs.create(
-                    new ResourceHelper(context,
-                            isTwoPanels ? inv.folderSpecsTwoPanelId : inv.folderSpecsId));
+            FolderSpecs folderSpecs = FolderSpecs.create(context,
+                    isTwoPanels ? inv.folderSpecsTwoPanelId : inv.folderSpecsId);
             mResponsiveFolderWidthSpec = folderSpecs.getCalculatedWidthSpec(inv.numFolderColumns,
                     mResponsiveWidthSpec.getAvailableSpace(), mResponsiveWidthSpec);
             mResponsiveFolderHeightSpec = folderSpecs.getCalculatedHeightSpec(inv.numFolderRows,
@@ -17,6 +17,7 @@
 package com.android.launcher3;
 
 import static com.android.launcher3.LauncherPrefs.GRID_NAME;
+import static com.android.launcher3.LauncherPrefs.TABLET_HOTSEAT_ICONS;
 import static com.android.launcher3.Utilities.dpiFromPx;
 import static com.android.launcher3.testing.shared.ResourceUtils.INVALID_RESOURCE_HANDLE;
 import static com.android.launcher3.util.DisplayController.CHANGE_DENSITY;
@@ -34,11 +35,12 @@ import android.content.res.TypedArray;
 import android.content.res.XmlResourceParser;
 import android.graphics.Point;
 import android.graphics.PointF;
+import android.os.Build;
+import android.provider.Settings;
 import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
 import android.util.Log;
-import android.util.SparseArray;
 import android.util.Xml;
 import android.view.Display;
 
@@ -51,7 +53,6 @@ import androidx.core.content.res.ResourcesCompat;
 
 import com.android.launcher3.config.FeatureFlags;
 import com.android.launcher3.customization.IconDatabase;
-import com.android.launcher3.icons.DotRenderer;
 import com.android.launcher3.logging.FileLog;
 import com.android.launcher3.model.DeviceGridState;
 import com.android.launcher3.provider.RestoreDbTask;
@@ -60,6 +61,7 @@ import com.android.launcher3.util.DisplayController;
 import com.android.launcher3.util.DisplayController.Info;
 import com.android.launcher3.util.LockedUserState;
 import com.android.launcher3.util.MainThreadInitializedObject;
+import com.android.launcher3.util.ParsedResourceCache;
 import com.android.launcher3.util.Partner;
 import com.android.launcher3.util.WindowBounds;
 import com.android.launcher3.util.window.WindowManagerProxy;
@@ -74,6 +76,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 public class InvariantDeviceProfile implements OnSharedPreferenceChangeListener {
@@ -100,6 +103,9 @@ public class InvariantDeviceProfile implements OnSharedPreferenceChangeListener
     public static final String KEY_FONT_SIZE = "pref_custom_font_size";
     public static final String KEY_MAX_LINES = "pref_max_lines";
     public static final String KEY_ALLAPPS_THEMED_ICONS = "pref_allapps_themed_icons";
+    public static final String KEY_TABLET_HOTSEAT_ICONS = "idp_tablet_hotseat_icons";
+
+    private static final char CACHE_VALUE_SEPARATOR = ':';
 
     // Constants that affects the interpolation curve between statically defined device profile
     // buckets.
@@ -122,6 +128,13 @@ public class InvariantDeviceProfile implements OnSharedPreferenceChangeListener
     private static final String RES_GRID_NUM_COLUMNS = "grid_num_columns";
     private static final String RES_GRID_ICON_SIZE_DP = "grid_icon_size_dp";
 
+    // Options parsed from device_profiles.xml, shared by all the instances and grid previews
+    private static final int MAX_CACHED_CONFIGURATIONS = 4;
+    private static final ParsedResourceCache<List<GridOption>> GRID_OPTIONS_CACHE =
+            new ParsedResourceCache<>(MAX_CACHED_CONFIGURATIONS);
+    private static final ParsedResourceCache<List<DisplayOption>> DISPLAY_OPTIONS_CACHE =
+            new ParsedResourceCache<>(MAX_CACHED_CONFIGURATIONS);
+
     /**
      * Number of icons per row and column in the workspace.
      */
@@ -457,16 +470,8 @@ public class InvariantDeviceProfile implements OnSharedPreferenceChangeListener
         // Supported overrides: numRows, numColumns, iconSize
         applyPartnerDeviceProfileOverrides(context, metrics);
 
-        final List<DeviceProfile> localSupportedProfiles = new ArrayList<>();
         defaultWallpaperSize = new Point(displayInfo.currentSize);
-        SparseArray<DotRenderer> dotRendererCache = new SparseArray<>();
         for (WindowBounds bounds : displayInfo.supportedBounds) {
-            localSupportedProfiles.add(new DeviceProfile.Builder(context, this, displayInfo)
-                    .setIsMultiDisplay(deviceType == TYPE_MULTI_DISPLAY)
-                    .setWindowBounds(bounds)
-                    .setDotRendererCache(dotRendererCache)
-                    .build());
-
             // Wallpaper size should be the maximum of the all possible sizes Launcher expects
             int displayWidth = bounds.bounds.width();
             int displayHeight = bounds.bounds.height();
@@ -482,22 +487,62 @@ public class InvariantDeviceProfile implements OnSharedPreferenceChangeListener
             defaultWallpaperSize.x =
                     Math.max(defaultWallpaperSize.x, Math.round(parallaxFactor * displayWidth));
         }
-        supportedProfiles = Collections.unmodifiableList(localSupportedProfiles);
 
-        int numMinShownHotseatIconsForTablet = supportedProfiles
-                .stream()
-                .filter(deviceProfile -> deviceProfile.isTablet)
-                .mapToInt(deviceProfile -> deviceProfile.numShownHotseatIcons)
-                .min()
-                .orElse(0);
+        // The profiles are only built when used. Only the main instance persists the number of
+        // hotseat icons of the tablet profiles, which otherwise requires building all of them.
+        int numTabletHotseatIcons = -1;
+        IntConsumer tabletHotseatIconsCallback = null;
+        if (mContext != null) {
+            LauncherPrefs prefs = LauncherPrefs.get(context);
+            String cacheKey = getProfilesCacheKey(context, displayInfo, closestProfile.name);
+            numTabletHotseatIcons = readTabletHotseatIcons(prefs, cacheKey);
+            tabletHotseatIconsCallback = numIcons -> prefs.put(
+                    TABLET_HOTSEAT_ICONS, cacheKey + CACHE_VALUE_SEPARATOR + numIcons);
+        }
+        supportedProfiles = new LazyDeviceProfileList(context, this, displayInfo,
+                deviceType == TYPE_MULTI_DISPLAY, displayInfo.supportedBounds,
+                numTabletHotseatIcons, tabletHotseatIconsCallback);
+    }
 
-        supportedProfiles
-                .stream()
-                .filter(deviceProfile -> deviceProfile.isTablet)
-                .forEach(deviceProfile -> {
-                    deviceProfile.numShownHotseatIcons = numMinShownHotseatIconsForTablet;
-                    deviceProfile.recalculateHotseatWidthAndBorderSpace();
-                });
+    /**
+     * Returns a key for everything the device profiles depend on apart from the window bounds:
+     * the grid, the values interpolated for the display, the display and the relevant settings.
+     */
+    private String getProfilesCacheKey(Context context, Info displayInfo, String gridName) {
+        SharedPreferences prefs = LauncherPrefs.getPrefs(context);
+        Object[] state = new Object[] {
+                gridName, deviceType, Arrays.toString(toModelState()),
+                numShownHotseatIcons, Arrays.toString(hotseatColumnSpan),
+                Arrays.toString(iconSize), Arrays.toString(iconTextSize),
+                Arrays.toString(minCellSize), Arrays.toString(borderSpaces),
+                Arrays.toString(horizontalMargin), Arrays.toString(hotseatBarBottomSpace),
+                Arrays.toString(hotseatQsbSpace), Arrays.toString(inlineQsb),
+                Arrays.toString(transientTaskbarIconSize), Arrays.toString(startAlignTaskbar),
+                inlineNavButtonsEndSpacing, isScalable, devicePaddingId, workspaceSpecsId,
+                hotseatSpecsId, hotseatSpecsTwoPanelId,
+                displayInfo.getDensityDpi(), displayInfo.fontScale, displayInfo.navigationMode.name(),
+                displayInfo.supportedBounds.stream().map(WindowBounds::toString).sorted()
+                        .collect(Collectors.joining()),
+                DisplayController.isTransientTaskbar(context),
+                Settings.System.getInt(context.getContentResolver(),
+                        Settings.System.ENABLE_TASKBAR, -1),
+                prefs.getInt(DeviceProfile.KEY_ROW_HEIGHT, 100),
+                // Invalidates the cache on system and launcher updates
+                Build.FINGERPRINT, context.getApplicationInfo().sourceDir};
+        return Integer.toHexString(Arrays.hashCode(state));
+    }
+
+    private static int readTabletHotseatIcons(LauncherPrefs prefs, String cacheKey) {
+        String value = prefs.get(TABLET_HOTSEAT_ICONS);
+        int index = value.lastIndexOf(CACHE_VALUE_SEPARATOR);
+        if (index < 0 || !cacheKey.equals(value.substring(0, index))) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(value.substring(index + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
     }
 
     public void addOnChangeListener(OnIDPChangeListener listener) {
@@ -536,40 +581,17 @@ public class InvariantDeviceProfile implements OnSharedPreferenceChangeListener
     private static ArrayList<DisplayOption> getPredefinedDeviceProfiles(Context context,
             String gridName, @DeviceType int deviceType, boolean allowDisabledGrid) {
         ArrayList<DisplayOption> profiles = new ArrayList<>();
-
-        try (XmlResourceParser parser = context.getResources().getXml(R.xml.device_profiles)) {
-            final int depth = parser.getDepth();
-            int type;
-            while (((type = parser.next()) != XmlPullParser.END_TAG ||
-                    parser.getDepth() > depth) && type != XmlPullParser.END_DOCUMENT) {
-                if ((type == XmlPullParser.START_TAG)
-                        && GridOption.TAG_NAME.equals(parser.getName())) {
-
-                    GridOption gridOption = new GridOption(context, Xml.asAttributeSet(parser));
-                    if (gridOption.isEnabled(deviceType) || allowDisabledGrid) {
-                        final int displayDepth = parser.getDepth();
-                        while (((type = parser.next()) != XmlPullParser.END_TAG
-                                || parser.getDepth() > displayDepth)
-                                && type != XmlPullParser.END_DOCUMENT) {
-                            if ((type == XmlPullParser.START_TAG) && "display-option".equals(
-                                    parser.getName())) {
-                                profiles.add(new DisplayOption(gridOption, context,
-                                        Xml.asAttributeSet(parser)));
-                            }
-                        }
-                    }
-                }
+        for (DisplayOption option : getAllDisplayOptions(context)) {
+            if (option.grid.isEnabled(deviceType) || allowDisabledGrid) {
+                profiles.add(option);
             }
-        } catch (IOException | XmlPullParserException e) {
-            throw new RuntimeException(e);
         }
 
         ArrayList<DisplayOption> filteredProfiles = new ArrayList<>();
         if (!TextUtils.isEmpty(gridName)) {
             for (DisplayOption option : profiles) {
-                if (gridName.equals(option.grid.name)
-                        && (option.grid.isEnabled(deviceType) || allowDisabledGrid)) {
-                    filteredProfiles.add(option);
+                if (gridName.equals(option.grid.name)) {
+                    filteredProfiles.add(new DisplayOption(option));
                 }
             }
         }
@@ -577,7 +599,7 @@ public class InvariantDeviceProfile implements OnSharedPreferenceChangeListener
             // No grid found, use the default options
             for (DisplayOption option : profiles) {
                 if (option.canBeDefault) {
-                    filteredProfiles.add(option);
+                    filteredProfiles.add(new DisplayOption(option));
                 }
             }
         }
@@ -587,6 +609,48 @@ public class InvariantDeviceProfile implements OnSharedPreferenceChangeListener
         return filteredProfiles;
     }
 
+    /**
+     * Returns the display options of all the grids, which are shared by all the callers and must
+     * be copied before being modified.
+     */
+    private static List<DisplayOption> getAllDisplayOptions(Context context) {
+        SharedPreferences prefs = LauncherPrefs.getPrefs(context);
+        // The display options also depend on the icon and font size preferences
+        List<Object> key = Arrays.asList(FeatureFlags.ENABLE_RESPONSIVE_WORKSPACE.get(),
+                prefs.getInt(KEY_ICON_SIZE, 100), prefs.getInt(KEY_FONT_SIZE, 100));
+        return DISPLAY_OPTIONS_CACHE.get(context, key, () -> parseAllDisplayOptions(context));
+    }
+
+    private static List<DisplayOption> parseAllDisplayOptions(Context context) {
+        List<DisplayOption> profiles = new ArrayList<>();
+
+        try (XmlResourceParser parser = context.getResources().getXml(R.xml.device_profiles)) {
+            final int depth = parser.getDepth();
+            int type;
+            while (((type = parser.next()) != XmlPullParser.END_TAG ||
+                    parser.getDepth() > depth) && type != XmlPullParser.END_DOCUMENT) {
+                if ((type == XmlPullParser.START_TAG)
+                        && GridOption.TAG_NAME.equals(parser.getName())) {
+
+                    GridOption gridOption = new GridOption(context, Xml.asAttributeSet(parser));
+                    final int displayDepth = parser.getDepth();
+                    while (((type = parser.next()) != XmlPullParser.END_TAG
+                            || parser.getDepth() > displayDepth)
+                            && type != XmlPullParser.END_DOCUMENT) {
+                        if ((type == XmlPullParser.START_TAG) && "display-option".equals(
+                                parser.getName())) {
+                            profiles.add(new DisplayOption(gridOption, context,
+                                    Xml.asAttributeSet(parser)));
+                        }
+                    }
+                }
+            }
+        } catch (IOException | XmlPullParserException e) {
+            throw new RuntimeException(e);
+        }
+        return profiles;
+    }
+
     /**
      * @return all the grid options that can be shown on the device
      */
@@ -601,6 +665,21 @@ public class InvariantDeviceProfile implements OnSharedPreferenceChangeListener
      * @return all the grid options that can be shown on the device
      */
     public static List<GridOption> parseAllDefinedGridOptions(Context context) {
+        return new ArrayList<>(GRID_OPTIONS_CACHE.get(context,
+                FeatureFlags.ENABLE_RESPONSIVE_WORKSPACE.get(),
+                () -> parseGridOptions(context)));
+    }
+
+    /**
+     * Drops the options parsed from device_profiles.xml so that they are parsed again when needed
+     */
+    @VisibleForTesting
+    public static void clearParsedOptions() {
+        GRID_OPTIONS_CACHE.clear();
+        DISPLAY_OPTIONS_CACHE.clear();
+    }
+
+    private static List<GridOption> parseGridOptions(Context context) {
         List<GridOption> result = new ArrayList<>();
 
         try (XmlResourceParser parser = context.getResources().getXml(R.xml.device_profiles)) {
@@ -731,6 +810,18 @@ public class InvariantDeviceProfile implements OnSharedPreferenceChangeListener
         return out;
     }
 
+    /**
+     * Returns the supported profiles which are already built, or the first one if none is. Unlike
+     * iterating {@link #supportedProfiles}, this does not build every profile.
+     */
+    public List<DeviceProfile> getBuiltProfiles() {
+        if (supportedProfiles instanceof LazyDeviceProfileList lazyProfiles) {
+            List<DeviceProfile> profiles = lazyProfiles.getBuiltProfiles();
+            return profiles.isEmpty() ? Collections.singletonList(lazyProfiles.get(0)) : profiles;
+        }
+        return supportedProfiles;
+    }
+
     public DeviceProfile getDeviceProfile(Context context) {
         Resources res = context.getResources();
         Configuration config = context.getResources().getConfiguration();
@@ -746,20 +837,39 @@ public class InvariantDeviceProfile implements OnSharedPreferenceChangeListener
      * Returns the device profile matching the provided screen configuration
      */
     public DeviceProfile getBestMatch(float screenWidth, float screenHeight, int rotation) {
-        DeviceProfile bestMatch = supportedProfiles.get(0);
-        float minDiff = Float.MAX_VALUE;
+        List<DeviceProfile> profiles = supportedProfiles;
+        if (!(profiles instanceof LazyDeviceProfileList lazyProfiles)) {
+            DeviceProfile bestMatch = profiles.get(0);
+            float minDiff = Float.MAX_VALUE;
+
+            for (DeviceProfile profile : profiles) {
+                float diff = Math.abs(profile.widthPx - screenWidth)
+                        + Math.abs(profile.heightPx - screenHeight);
+                if (diff < minDiff) {
+                    minDiff = diff;
+                    bestMatch = profile;
+                } else if (diff == minDiff && profile.rotationHint == rotation) {
+                    bestMatch = profile;
+                }
+            }
+            return bestMatch;
+        }
 
-        for (DeviceProfile profile : supportedProfiles) {
-            float diff = Math.abs(profile.widthPx - screenWidth)
-                    + Math.abs(profile.heightPx - screenHeight);
+        // Match on the window bounds the profiles are built from, to only build the best match
+        int bestMatch = 0;
+        float minDiff = Float.MAX_VALUE;
+        for (int i = 0; i < lazyProfiles.size(); i++) {
+            WindowBounds bounds = lazyProfiles.getWindowBounds(i);
+            float diff = Math.abs(bounds.bounds.width() - screenWidth)
+                    + Math.abs(bounds.bounds.height() - screenHeight);
             if (diff < minDiff) {
                 minDiff = diff;
-                bestMatch = profile;
-            } else if (diff == minDiff && profile.rotationHint == rotation) {
-                bestMatch = profile;
+                bestMatch = i;
+            } else if (diff == minDiff && bounds.rotationHint == rotation) {
+                bestMatch = i;
             }
         }
-        return bestMatch;
+        return lazyProfiles.get(bestMatch);
     }
 
     private static float weight(float x0, float y0, float x1, float y1, float pow) {
@@ -1269,6 +1379,36 @@ public class InvariantDeviceProfile implements OnSharedPreferenceChangeListener
             this(null);
         }
 
+        /**
+         * Creates a copy of the option which can be modified independently
+         */
+        DisplayOption(DisplayOption option) {
+            grid = option.grid;
+            minWidthDps = option.minWidthDps;
+            minHeightDps = option.minHeightDps;
+            canBeDefault = option.canBeDefault;
+            for (int i = 0; i < COUNT_SIZES; i++) {
+                minCellSize[i] = new PointF(option.minCellSize[i].x, option.minCellSize[i].y);
+                borderSpaces[i] = new PointF(option.borderSpaces[i].x, option.borderSpaces[i].y);
+                allAppsCellSize[i] = new PointF(
+                        option.allAppsCellSize[i].x, option.allAppsCellSize[i].y);
+                allAppsBorderSpaces[i] = new PointF(
+                        option.allAppsBorderSpaces[i].x, option.allAppsBorderSpaces[i].y);
+            }
+            System.arraycopy(option.horizontalMargin, 0, horizontalMargin, 0, COUNT_SIZES);
+            System.arraycopy(option.hotseatBarBottomSpace, 0, hotseatBarBottomSpace, 0,
+                    COUNT_SIZES);
+            System.arraycopy(option.hotseatQsbSpace, 0, hotseatQsbSpace, 0, COUNT_SIZES);
+            System.arraycopy(option.iconSizes, 0, iconSizes, 0, COUNT_SIZES);
+            System.arraycopy(option.textSizes, 0, textSizes, 0, COUNT_SIZES);
+            System.arraycopy(option.allAppsIconSizes, 0, allAppsIconSizes, 0, COUNT_SIZES);
+            System.arraycopy(option.allAppsIconTextSizes, 0, allAppsIconTextSizes, 0,
+                    COUNT_SIZES);
+            System.arraycopy(option.transientTaskbarIconSize, 0, transientTaskbarIconSize, 0,
+                    COUNT_SIZES);
+            System.arraycopy(option.startAlignTaskbar, 0, startAlignTaskbar, 0, COUNT_SIZES);
+        }
+
         DisplayOption(GridOption grid) {
             this.grid = grid;
             minWidthDps = 0;
@@ -155,6 +155,7 @@ import com.android.launcher3.celllayout.CellPosMapper.TwoPanelCellPosMapper;
 import com.android.launcher3.compat.AccessibilityManagerCompat;
 import com.android.launcher3.config.FeatureFlags;
 import com.android.launcher3.dot.DotInfo;
+import com.android.launcher3.dot.DotViewIndex;
 import com.android.launcher3.dragndrop.DragController;
 import com.android.launcher3.dragndrop.DragLayer;
 import com.android.launcher3.dragndrop.DragView;
@@ -167,6 +168,7 @@ import com.android.launcher3.keyboard.ViewGroupFocusHelper;
 import com.android.launcher3.logger.LauncherAtom;
 import com.android.launcher3.logger.LauncherAtom.ContainerInfo;
 import com.android.launcher3.logger.LauncherAtom.WorkspaceContainer;
+import com.android.launcher3.logging.EventTrace;
 import com.android.launcher3.logging.FileLog;
 import com.android.launcher3.logging.InstanceId;
 import com.android.launcher3.logging.InstanceIdSequence;
@@ -252,6 +254,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
@@ -383,6 +386,7 @@ public class Launcher extends StatefulActivity<LauncherState>
     private LauncherAccessibilityDelegate mAccessibilityDelegate;
 
     private PopupDataProvider mPopupDataProvider;
+    private final DotViewIndex mDotViewIndex = new DotViewIndex();
 
     private IntSet mSynchronouslyBoundPages = new IntSet();
     @NonNull private IntSet mPagesToBindSynchronously = new IntSet();
@@ -844,6 +848,11 @@ public class Launcher extends StatefulActivity<LauncherState>
         return mPopupDataProvider.getDotInfoForItem(info);
     }
 
+    @Override
+    public DotViewIndex getDotViewIndex() {
+        return mDotViewIndex;
+    }
+
     @Override
     public void invalidateParent(ItemInfo info) {
         if (info.container >= 0) {
@@ -1575,9 +1584,16 @@ public class Launcher extends StatefulActivity<LauncherState>
 
     private final ScreenOnListener mScreenOnListener = this::onScreenOnChanged;
 
-    private void updateNotificationDots(Predicate<PackageUserKey> updatedDots) {
-        mWorkspace.updateNotificationDots(updatedDots);
-        mAppsView.getAppsStore().updateNotificationDots(updatedDots);
+    private void updateNotificationDots(Set<PackageUserKey> updatedDots) {
+        // Only the attached icons of the updated packages are notified, icons attached later on
+        // update their dot when attached.
+        mDotViewIndex.onDotsUpdated(updatedDots, v -> {
+            if (v instanceof BubbleTextView btv && btv.getTag() instanceof ItemInfo info) {
+                btv.applyDotState(info, true /* animate */);
+            } else if (v instanceof FolderIcon folderIcon) {
+                folderIcon.updateDotInfo();
+            }
+        });
     }
 
     @Override
@@ -3191,6 +3207,7 @@ public class Launcher extends StatefulActivity<LauncherState>
         }
 
         mModel.dumpState(prefix, fd, writer, args);
+        EventTrace.dump(prefix, writer);
 
         if (mLauncherCallbacks != null) {
             mLauncherCallbacks.dump(prefix, fd, writer, args);
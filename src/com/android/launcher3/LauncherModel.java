@@ -61,6 +61,7 @@ import com.android.launcher3.model.ReloadStringCacheTask;
 import com.android.launcher3.model.ShortcutsChangedTask;
 import com.android.launcher3.model.UserLockStateChangedTask;
 import com.android.launcher3.model.data.AppInfo;
+import com.android.launcher3.model.data.FolderInfo;
 import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.model.data.WorkspaceItemInfo;
 import com.android.launcher3.pm.InstallSessionTracker;
@@ -117,6 +118,15 @@ public class LauncherModel extends LauncherApps.Callback implements InstallSessi
         }
     }
 
+    /**
+     * Returns a copy of the folder with the id, which can be read on any thread without waiting
+     * for the model thread, or null if there is no such folder.
+     */
+    @Nullable
+    public FolderInfo getFolderSnapshot(int folderId) {
+        return mBgDataModel.copyFolder(folderId);
+    }
+
     @NonNull
     private final ArrayList<Callbacks> mCallbacksList = new ArrayList<>(1);
 
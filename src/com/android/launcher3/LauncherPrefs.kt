@@ -290,6 +290,9 @@ class LauncherPrefs(private val encryptedContext: Context) {
             backedUpItem(DeviceGridState.KEY_DEVICE_TYPE, InvariantDeviceProfile.TYPE_PHONE, true)
         @JvmField val DB_FILE = backedUpItem(DeviceGridState.KEY_DB_FILE, "", true)
         @JvmField
+        val TABLET_HOTSEAT_ICONS =
+            nonRestorableItem(InvariantDeviceProfile.KEY_TABLET_HOTSEAT_ICONS, "", true)
+        @JvmField
         val RESTORE_DEVICE =
             backedUpItem(
                 RestoreDbTask.RESTORED_DEVICE_TYPE,
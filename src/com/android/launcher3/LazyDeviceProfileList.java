@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3;
+
+import android.content.Context;
+import android.util.SparseArray;
+
+import androidx.annotation.Nullable;
+
+import com.android.launcher3.icons.DotRenderer;
+import com.android.launcher3.util.DisplayController.Info;
+import com.android.launcher3.util.WindowBounds;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable list of the {@link DeviceProfile} of every supported window bounds of a display,
+ * where each profile is only built the first time it is accessed.
+ *
+ * All the tablet profiles show the same number of hotseat icons, which is the minimum of what
+ * each of them can show. Unless that number is already known, all the tablet profiles are built
+ * when the first of them is accessed to compute it. If the known number turns out to be too
+ * large, it is computed again, but profiles which were already returned are left unchanged.
+ */
+class LazyDeviceProfileList extends AbstractList<DeviceProfile> implements RandomAccess {
+
+    private static final int UNKNOWN = -1;
+
+    private final Context mContext;
+    private final InvariantDeviceProfile mIdp;
+    private final Info mDisplayInfo;
+    private final boolean mIsMultiDisplay;
+    private final WindowBounds[] mBounds;
+    private final DeviceProfile[] mProfiles;
+    // Whether each profile was returned, after which it must not change
+    private final boolean[] mReturned;
+    // Number of hotseat icons each tablet profile could show before being aligned with the others
+    private final int[] mNumHotseatIcons;
+    private final SparseArray<DotRenderer> mDotRendererCache = new SparseArray<>();
+
+    @Nullable
+    private final IntConsumer mTabletHotseatIconsCallback;
+    private int mNumTabletHotseatIcons;
+
+    /**
+     * @param numTabletHotseatIcons number of hotseat icons of the tablet profiles if known from a
+     *                              previous computation, or -1
+     * @param tabletHotseatIconsCallback called with the number of hotseat icons of the tablet
+     *                                   profiles when it had to be computed
+     */
+    LazyDeviceProfileList(Context context, InvariantDeviceProfile idp, Info displayInfo,
+            boolean isMultiDisplay, Collection<WindowBounds> bounds, int numTabletHotseatIcons,
+            @Nullable IntConsumer tabletHotseatIconsCallback) {
+        mContext = context;
+        mIdp = idp;
+        mDisplayInfo = displayInfo;
+        mIsMultiDisplay = isMultiDisplay;
+        mBounds = bounds.toArray(new WindowBounds[0]);
+        mProfiles = new DeviceProfile[mBounds.length];
+        mReturned = new boolean[mBounds.length];
+        mNumHotseatIcons = new int[mBounds.length];
+        mNumTabletHotseatIcons = numTabletHotseatIcons;
+        mTabletHotseatIconsCallback = tabletHotseatIconsCallback;
+    }
+
+    @Override
+    public int size() {
+        return mBounds.length;
+    }
+
+    /**
+     * Returns the window bounds of the profile at the index, without building it
+     */
+    WindowBounds getWindowBounds(int index) {
+        return mBounds[index];
+    }
+
+    /**
+     * Returns the profiles which are already built, without building any other
+     */
+    synchronized List<DeviceProfile> getBuiltProfiles() {
+        List<DeviceProfile> profiles = new ArrayList<>(mProfiles.length);
+        for (int i = 0; i < mProfiles.length; i++) {
+            if (mProfiles[i] != null) {
+                mReturned[i] = true;
+                profiles.add(mProfiles[i]);
+            }
+        }
+        return profiles;
+    }
+
+    @Override
+    public synchronized DeviceProfile get(int index) {
+        DeviceProfile profile = mProfiles[index];
+        if (profile == null) {
+            profile = build(index);
+            if (profile.isTablet) {
+                if (mNumTabletHotseatIcons == UNKNOWN
+                        || mNumHotseatIcons[index] < mNumTabletHotseatIcons) {
+                    // The number of icons is unknown or out of date, compute it from all the
+                    // profiles
+                    computeTabletHotseatIcons();
+                } else {
+                    alignHotseat(profile);
+                }
+            }
+        }
+        mReturned[index] = true;
+        return profile;
+    }
+
+    private DeviceProfile build(int index) {
+        DeviceProfile profile = new DeviceProfile.Builder(mContext, mIdp, mDisplayInfo)
+                .setIsMultiDisplay(mIsMultiDisplay)
+                .setWindowBounds(mBounds[index])
+                .setDotRendererCache(mDotRendererCache)
+                .build();
+        mProfiles[index] = profile;
+        mNumHotseatIcons[index] = profile.numShownHotseatIcons;
+        return profile;
+    }
+
+    private void computeTabletHotseatIcons() {
+        int numIcons = Integer.MAX_VALUE;
+        for (int i = 0; i < mBounds.length; i++) {
+            if (mDisplayInfo.isTablet(mBounds[i])) {
+                if (mProfiles[i] == null) {
+                    build(i);
+                }
+                numIcons = Math.min(numIcons, mNumHotseatIcons[i]);
+            }
+        }
+        mNumTabletHotseatIcons = numIcons;
+        for (int i = 0; i < mProfiles.length; i++) {
+            // Profiles returned before are only out of date if the persisted number was, and
+            // changing them would not update the views already using them
+            DeviceProfile profile = mProfiles[i];
+            if (profile != null && profile.isTablet && !mReturned[i]) {
+                alignHotseat(profile);
+            }
+        }
+        if (mTabletHotseatIconsCallback != null) {
+            mTabletHotseatIconsCallback.accept(numIcons);
+        }
+    }
+
+    private void alignHotseat(DeviceProfile profile) {
+        profile.numShownHotseatIcons = mNumTabletHotseatIcons;
+        profile.recalculateHotseatWidthAndBorderSpace();
+    }
+}
@@ -36,6 +36,7 @@ public class MultipageCellLayout extends CellLayout {
     private final Drawable mRightBackground;
 
     private boolean mSeamWasAdded = false;
+    private MulticellReorderAlgorithm mReorderAlgorithm;
 
     public MultipageCellLayout(Context context) {
         this(context, null);
@@ -112,9 +113,23 @@ public class MultipageCellLayout extends CellLayout {
                 result, resultSpan, mode);
     }
 
+    @Override
+    void prepareReorder(int pixelX, int pixelY, int minSpanX, int minSpanY, int spanX, int spanY,
+            View dragView) {
+        if (pixelX >= getWidth() / 2) {
+            pixelX += getCellWidth();
+        }
+        super.prepareReorder(pixelX, pixelY, minSpanX, minSpanY, spanX, spanY, dragView);
+    }
+
     @Override
     public MulticellReorderAlgorithm createReorderAlgorithm() {
-        return new MulticellReorderAlgorithm(this);
+        // The algorithm is stateless apart from its seam view, which is reused so that prepared
+        // reorder requests match the ones made when the reorder happens.
+        if (mReorderAlgorithm == null) {
+            mReorderAlgorithm = new MulticellReorderAlgorithm(this);
+        }
+        return mReorderAlgorithm;
     }
 
     @Override
@@ -75,7 +75,6 @@ import com.android.launcher3.celllayout.CellLayoutLayoutParams;
 import com.android.launcher3.celllayout.CellPosMapper;
 import com.android.launcher3.celllayout.CellPosMapper.CellPos;
 import com.android.launcher3.config.FeatureFlags;
-import com.android.launcher3.dot.FolderDotInfo;
 import com.android.launcher3.dragndrop.DragController;
 import com.android.launcher3.dragndrop.DragLayer;
 import com.android.launcher3.dragndrop.DragOptions;
@@ -109,7 +108,6 @@ import com.android.launcher3.util.IntSet;
 import com.android.launcher3.util.IntSparseArrayMap;
 import com.android.launcher3.util.LauncherBindableItemsContainer;
 import com.android.launcher3.util.OverlayEdgeEffect;
-import com.android.launcher3.util.PackageUserKey;
 import com.android.launcher3.util.RunnableList;
 import com.android.launcher3.util.Thunk;
 import com.android.launcher3.util.WallpaperOffsetInterpolator;
@@ -269,6 +267,10 @@ public class Workspace<T extends View & PageIndicator> extends PagedView<T>
     int mLastReorderX = -1;
     @Thunk
     int mLastReorderY = -1;
+    // Target of the last reorder solved in the background, to avoid preparing it again
+    private CellLayout mLastPreparedReorderLayout;
+    private final int[] mLastPreparedReorderCell = new int[] {-1, -1};
+    private final int[] mLastPreparedReorderSpan = new int[] {-1, -1};
 
     private SparseArray<Parcelable> mSavedStates;
     private final IntArray mRestoredPages = new IntArray();
@@ -2376,6 +2378,9 @@ public class Workspace<T extends View & PageIndicator> extends PagedView<T>
         }
         mLastReorderX = -1;
         mLastReorderY = -1;
+        mLastPreparedReorderLayout = null;
+        mLastPreparedReorderCell[0] = mLastPreparedReorderCell[1] = -1;
+        mLastPreparedReorderSpan[0] = mLastPreparedReorderSpan[1] = -1;
     }
 
     /*
@@ -2491,8 +2496,26 @@ public class Workspace<T extends View & PageIndicator> extends PagedView<T>
                     item.spanY, child, mTargetCell);
         } else if ((mDragMode == DRAG_MODE_NONE || mDragMode == DRAG_MODE_REORDER)
                 && (mLastReorderX != reorderX || mLastReorderY != reorderY)
-                && targetCellDistance < mDragTargetLayout.getReorderRadius(mTargetCell, item.spanX,
-                item.spanY)) {
+                && targetCellDistance >= mDragTargetLayout.getReorderRadius(mTargetCell,
+                item.spanX, item.spanY)) {
+            // The reorder will start once the drag gets closer to the target cell, solve it in
+            // the background in the meantime.
+            if (mLastPreparedReorderLayout != mDragTargetLayout
+                    || mLastPreparedReorderCell[0] != mTargetCell[0]
+                    || mLastPreparedReorderCell[1] != mTargetCell[1]
+                    || mLastPreparedReorderSpan[0] != item.spanX
+                    || mLastPreparedReorderSpan[1] != item.spanY) {
+                mLastPreparedReorderLayout = mDragTargetLayout;
+                mLastPreparedReorderCell[0] = mTargetCell[0];
+                mLastPreparedReorderCell[1] = mTargetCell[1];
+                mLastPreparedReorderSpan[0] = item.spanX;
+                mLastPreparedReorderSpan[1] = item.spanY;
+                mDragTargetLayout.prepareReorder((int) mDragViewVisualCenter[0],
+                        (int) mDragViewVisualCenter[1], minSpanX, minSpanY, item.spanX,
+                        item.spanY, child);
+            }
+        } else if ((mDragMode == DRAG_MODE_NONE || mDragMode == DRAG_MODE_REORDER)
+                && (mLastReorderX != reorderX || mLastReorderY != reorderY)) {
             mReorderAlarm.cancelAlarm();
             mLastReorderX = reorderX;
             mLastReorderY = reorderY;
@@ -3361,38 +3384,6 @@ public class Workspace<T extends View & PageIndicator> extends PagedView<T>
         return null;
     }
 
-    public void updateNotificationDots(Predicate<PackageUserKey> updatedDots) {
-        final PackageUserKey packageUserKey = new PackageUserKey(null, null);
-        Predicate<ItemInfo> matcher = info -> !packageUserKey.updateFromItemInfo(info)
-                || updatedDots.test(packageUserKey);
-
-        ItemOperator op = (info, v) -> {
-            if (info instanceof WorkspaceItemInfo && v instanceof BubbleTextView) {
-                if (matcher.test(info)) {
-                    ((BubbleTextView) v).applyDotState(info, true /* animate */);
-                }
-            } else if (info instanceof FolderInfo && v instanceof FolderIcon) {
-                FolderInfo fi = (FolderInfo) info;
-                if (fi.contents.stream().anyMatch(matcher)) {
-                    FolderDotInfo folderDotInfo = new FolderDotInfo();
-                    for (WorkspaceItemInfo si : fi.contents) {
-                        folderDotInfo.addDotInfo(mLauncher.getDotInfoForItem(si));
-                    }
-                    ((FolderIcon) v).setDotInfo(folderDotInfo);
-                }
-            }
-
-            // process all the shortcuts
-            return false;
-        };
-
-        mapOverItems(op);
-        Folder folder = Folder.getOpen(mLauncher);
-        if (folder != null) {
-            folder.iterateOverItems(op);
-        }
-    }
-
     /**
      * Remove workspace icons & widget information related to items in matcher.
      *
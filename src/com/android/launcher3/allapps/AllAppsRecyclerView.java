@@ -45,6 +45,7 @@ import com.android.launcher3.LauncherAppState;
 import com.android.launcher3.R;
 import com.android.launcher3.Utilities;
 import com.android.launcher3.logging.StatsLogManager;
+import com.android.launcher3.recyclerview.AllAppsRecyclerViewPool;
 import com.android.launcher3.views.ActivityContext;
 
 import java.util.List;
@@ -156,6 +157,15 @@ public class AllAppsRecyclerView extends FastScrollRecyclerView {
         }
     }
 
+    @Override
+    public boolean fling(int velocityX, int velocityY) {
+        boolean flinging = super.fling(velocityX, velocityY);
+        if (flinging && getRecycledViewPool() instanceof AllAppsRecyclerViewPool<?> pool) {
+            pool.onFling(velocityY);
+        }
+        return flinging;
+    }
+
     @Override
     public void onScrolled(int dx, int dy) {
         super.onScrolled(dx, dy);
@@ -15,10 +15,14 @@
  */
 package com.android.launcher3.allapps;
 
+import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
+import static com.android.launcher3.util.Executors.UI_HELPER_EXECUTOR;
+
 import android.content.Context;
 
 import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.DiffUtil.DiffResult;
 
 import com.android.launcher3.allapps.BaseAllAppsAdapter.AdapterItem;
 import com.android.launcher3.model.data.AppInfo;
@@ -27,6 +31,7 @@ import com.android.launcher3.util.LabelComparator;
 import com.android.launcher3.views.ActivityContext;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
@@ -38,6 +43,11 @@ import java.util.stream.Stream;
 /**
  * The alphabetically sorted list of applications.
  *
+ * When the set of apps changes, sorting the apps and diffing the adapter items is done on a
+ * background thread using a snapshot of the current state, and only the result is applied on the
+ * main thread. Results which were superseded by a newer update are dropped. Other updates, like
+ * search results, are applied synchronously as callers rely on the items being updated.
+ *
  * @param <T> Type of context inflating this view.
  */
 public class AlphabeticalAppsList<T extends Context & ActivityContext> implements
@@ -81,11 +91,15 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
     // The of ordered component names as a result of a search query
     private final ArrayList<AdapterItem> mSearchResults = new ArrayList<>();
     private BaseAllAppsAdapter<T> mAdapter;
-    private AppInfoComparator mAppNameComparator;
+    private final AppInfoComparator mAppNameComparator;
     private int mNumAppsPerRowAllApps;
     private int mNumAppRowsInAdapter;
     private Predicate<ItemInfo> mItemFilter;
 
+    // Incremented for every update request, used to discard results of obsolete requests
+    private int mAppsGeneration = 0;
+    private int mAdapterItemsGeneration = 0;
+
     public AlphabeticalAppsList(Context context, @Nullable AllAppsStore<T> appsStore,
             WorkProfileManager workProfileManager) {
         mAllAppsStore = appsStore;
@@ -105,7 +119,8 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
 
     public void updateItemFilter(Predicate<ItemInfo> itemFilter) {
         this.mItemFilter = itemFilter;
-        onAppsUpdated();
+        // The adapter is usually attached right after, apply the filtered apps before returning
+        updateApps(true /* sync */);
     }
 
     /**
@@ -188,26 +203,41 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
     }
 
     /**
-     * Updates internals when the set of apps are updated.
+     * Updates internals when the set of apps are updated. The apps are sorted and diffed on a
+     * background thread, unless there are no items shown yet.
      */
     @Override
     public void onAppsUpdated() {
+        updateApps(mAdapterItems.isEmpty());
+    }
+
+    private void updateApps(boolean sync) {
         if (mAllAppsStore == null) {
             return;
         }
-        // Sort the list of apps
-        mApps.clear();
-
-        Stream<AppInfo> appSteam = Stream.of(mAllAppsStore.getApps());
+        List<AppInfo> apps = Arrays.asList(mAllAppsStore.getApps());
         if (!hasSearchResults() && mItemFilter != null) {
-            appSteam = appSteam.filter(mItemFilter);
+            apps = apps.stream().filter(mItemFilter).collect(Collectors.toList());
         }
-        appSteam = appSteam.sorted(mAppNameComparator);
-
         // As a special case for some languages (currently only Simplified Chinese), we may need to
         // coalesce sections
         Locale curLocale = mActivityContext.getResources().getConfiguration().locale;
         boolean localeRequiresSectionSorting = curLocale.equals(Locale.SIMPLIFIED_CHINESE);
+
+        final List<AppInfo> appsSnapshot = apps;
+        final int generation = ++mAppsGeneration;
+        if (sync) {
+            onAppsSorted(generation, sortApps(appsSnapshot, localeRequiresSectionSorting), true);
+            return;
+        }
+        UI_HELPER_EXECUTOR.execute(() -> {
+            List<AppInfo> sortedApps = sortApps(appsSnapshot, localeRequiresSectionSorting);
+            MAIN_EXECUTOR.execute(() -> onAppsSorted(generation, sortedApps, false));
+        });
+    }
+
+    private List<AppInfo> sortApps(List<AppInfo> apps, boolean localeRequiresSectionSorting) {
+        Stream<AppInfo> appSteam = apps.stream().sorted(mAppNameComparator);
         if (localeRequiresSectionSorting) {
             // Compute the section headers. We use a TreeMap with the section name comparator to
             // ensure that the sections are ordered when we iterate over it later
@@ -219,51 +249,116 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
                     .stream()
                     .flatMap(ArrayList::stream);
         }
+        return appSteam.collect(Collectors.toList());
+    }
 
-        appSteam.forEachOrdered(mApps::add);
+    private void onAppsSorted(int generation, List<AppInfo> sortedApps, boolean sync) {
+        if (generation != mAppsGeneration) {
+            // A newer update is already in progress
+            return;
+        }
+        mApps.clear();
+        mApps.addAll(sortedApps);
         // Recompose the set of adapter items from the current set of apps
-        if (mSearchResults.isEmpty()) {
+        if (!mSearchResults.isEmpty()) {
+            return;
+        }
+        if (sync) {
             updateAdapterItems();
+        } else {
+            updateAdapterItemsAsync();
         }
     }
 
     /**
-     * Updates the set of filtered apps with the current filter. At this point, we expect
-     * mCachedSectionNames to have been calculated for the set of all apps in mApps.
+     * Updates the set of filtered apps with the current filter, and applies the new adapter items
+     * before returning. At this point, we expect mCachedSectionNames to have been calculated for
+     * the set of all apps in mApps.
      */
     public void updateAdapterItems() {
+        ArrayList<AdapterItem> newItems = new ArrayList<>();
+        List<FastScrollSectionInfo> newSections = new ArrayList<>();
+        createAdapterItems(newItems, newSections);
+        // Drop any pending diff, as it was computed against older items
+        mAdapterItemsGeneration++;
+        applyAdapterItems(newItems, newSections, null);
+    }
+
+    /**
+     * Same as {@link #updateAdapterItems()}, but diffs the new items against the current ones on
+     * a background thread and applies them later.
+     */
+    private void updateAdapterItemsAsync() {
+        ArrayList<AdapterItem> newItems = new ArrayList<>();
+        List<FastScrollSectionInfo> newSections = new ArrayList<>();
+        createAdapterItems(newItems, newSections);
+
+        final int generation = ++mAdapterItemsGeneration;
+        if (mAdapter == null || mAdapterItems.isEmpty()) {
+            // Nothing to animate, apply the items directly
+            applyAdapterItems(newItems, newSections, null);
+            return;
+        }
+
         List<AdapterItem> oldItems = new ArrayList<>(mAdapterItems);
-        // Prepare to update the list of sections, filtered apps, etc.
-        mFastScrollerSections.clear();
-        mAdapterItems.clear();
-        mAccessibilityResultsCount = 0;
+        UI_HELPER_EXECUTOR.execute(() -> {
+            DiffResult diff =
+                    DiffUtil.calculateDiff(new MyDiffCallback(oldItems, newItems), false);
+            MAIN_EXECUTOR.execute(() -> {
+                if (generation != mAdapterItemsGeneration) {
+                    // A newer update is already in progress
+                    return;
+                }
+                // The adapter items can be modified in place (e.g. when dismissing the work
+                // education card), in which case the diff is no longer valid.
+                applyAdapterItems(newItems, newSections,
+                        isSameItems(oldItems, mAdapterItems) ? diff : null);
+            });
+        });
+    }
 
-        // Recreate the filtered and sectioned apps (for convenience for the grid layout) from the
-        // ordered set of sections
+    /**
+     * Recreates the filtered and sectioned apps (for convenience for the grid layout) from the
+     * ordered set of sections
+     */
+    private void createAdapterItems(
+            ArrayList<AdapterItem> newItems, List<FastScrollSectionInfo> newSections) {
         if (hasSearchResults()) {
-            mAdapterItems.addAll(mSearchResults);
+            newItems.addAll(mSearchResults);
         } else {
             int position = 0;
             boolean addApps = true;
             if (mWorkProviderManager != null) {
-                position += mWorkProviderManager.addWorkItems(mAdapterItems);
+                position += mWorkProviderManager.addWorkItems(newItems);
                 addApps = mWorkProviderManager.shouldShowWorkApps();
             }
             if (addApps) {
                 String lastSectionName = null;
                 for (AppInfo info : mApps) {
-                    mAdapterItems.add(AdapterItem.asApp(info));
+                    newItems.add(AdapterItem.asApp(info));
 
                     String sectionName = info.sectionName;
                     // Create a new section if the section names do not match
                     if (!sectionName.equals(lastSectionName)) {
                         lastSectionName = sectionName;
-                        mFastScrollerSections.add(new FastScrollSectionInfo(sectionName, position));
+                        newSections.add(new FastScrollSectionInfo(sectionName, position));
                     }
                     position++;
                 }
             }
         }
+    }
+
+    private void applyAdapterItems(List<AdapterItem> newItems,
+            List<FastScrollSectionInfo> newSections, @Nullable DiffResult diff) {
+        if (diff == null && mAdapter != null) {
+            diff = DiffUtil.calculateDiff(
+                    new MyDiffCallback(new ArrayList<>(mAdapterItems), newItems), false);
+        }
+        mAdapterItems.clear();
+        mAdapterItems.addAll(newItems);
+        mFastScrollerSections.clear();
+        mFastScrollerSections.addAll(newSections);
         mAccessibilityResultsCount = (int) mAdapterItems.stream()
                 .filter(AdapterItem::isCountedForAccessibility).count();
 
@@ -291,12 +386,24 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
             mNumAppRowsInAdapter = rowIndex + 1;
         }
 
-        if (mAdapter != null) {
-            DiffUtil.calculateDiff(new MyDiffCallback(oldItems, mAdapterItems), false)
-                    .dispatchUpdatesTo(mAdapter);
+        if (mAdapter != null && diff != null) {
+            diff.dispatchUpdatesTo(mAdapter);
         }
     }
 
+    private static boolean isSameItems(List<AdapterItem> a, List<AdapterItem> b) {
+        int size = a.size();
+        if (size != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (a.get(i) != b.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static class MyDiffCallback extends DiffUtil.Callback {
 
         private final List<AdapterItem> mOldList;
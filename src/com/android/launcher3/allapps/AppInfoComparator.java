@@ -21,7 +21,6 @@ import android.os.UserHandle;
 
 import com.android.launcher3.model.data.AppInfo;
 import com.android.launcher3.pm.UserCache;
-import com.android.launcher3.util.LabelComparator;
 
 import java.util.Comparator;
 
@@ -32,20 +31,16 @@ public class AppInfoComparator implements Comparator<AppInfo> {
 
     private final UserCache mUserManager;
     private final UserHandle mMyUser;
-    private final LabelComparator mLabelComparator;
 
     public AppInfoComparator(Context context) {
         mUserManager = UserCache.INSTANCE.get(context);
         mMyUser = Process.myUserHandle();
-        mLabelComparator = new LabelComparator();
     }
 
     @Override
     public int compare(AppInfo a, AppInfo b) {
         // Order by the title in the current locale
-        int result = mLabelComparator.compare(
-                a.title == null ? "" : a.title.toString(),
-                b.title == null ? "" : b.title.toString());
+        int result = a.getTitleSortKey().compareTo(b.getTitleSortKey());
         if (result != 0) {
             return result;
         }
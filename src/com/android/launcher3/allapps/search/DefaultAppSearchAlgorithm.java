@@ -102,7 +102,8 @@ public class DefaultAppSearchAlgorithm implements SearchAlgorithm<AdapterItem> {
         int total = apps.size();
         for (int i = 0; i < total; i++) {
             AppInfo info = apps.get(i);
-            if (StringMatcherUtility.matches(queryTextLower, info.title.toString(), matcher)) {
+            if (StringMatcherUtility.matches(queryTextLower, info.title.toString(),
+                    info.getTitleLowerCase(), matcher)) {
                 result.add(AdapterItem.asApp(info));
             }
         }
@@ -65,6 +65,21 @@ public class MulticellReorderAlgorithm extends ReorderAlgorithm {
                         direction, dragView, decX, solution)));
     }
 
+    @Override
+    public SpeculativeReorderSolver.Request createReorderRequest(int pixelX, int pixelY,
+            int minSpanX, int minSpanY, int spanX, int spanY, int[] direction, View dragView) {
+        return simulateSeam(
+                () -> super.createReorderRequest(pixelX, pixelY, minSpanX, minSpanY, spanX, spanY,
+                        direction, dragView));
+    }
+
+    @Override
+    public CellLayout.ItemConfiguration createSolution(SpeculativeReorderSolver.Result result,
+            int[] direction) {
+        return removeSeamFromSolution(simulateSeam(
+                () -> super.createSolution(result, direction)));
+    }
+
     @Override
     public CellLayout.ItemConfiguration dropInPlaceSolution(int pixelX, int pixelY, int spanX,
             int spanY,
@@ -15,9 +15,15 @@
  */
 package com.android.launcher3.celllayout;
 
+import android.util.ArrayMap;
 import android.view.View;
 
 import com.android.launcher3.CellLayout;
+import com.android.launcher3.util.CellAndSpan;
+import com.android.launcher3.util.IntArray;
+
+import java.util.ArrayList;
+import java.util.Comparator;
 
 /**
  * Contains the logic of a reorder.
@@ -27,6 +33,14 @@ import com.android.launcher3.CellLayout;
  */
 public class ReorderAlgorithm {
 
+    /**
+     * Order in which the views are identified in a reorder. The views are sorted by their
+     * position so that the results are deterministic and not dependent on the views hash.
+     */
+    public static final Comparator<View> VIEW_POSITION_COMPARATOR = Comparator
+            .comparing((View view) -> ((CellLayoutLayoutParams) view.getLayoutParams()).getCellX())
+            .thenComparing(view -> ((CellLayoutLayoutParams) view.getLayoutParams()).getCellY());
+
     CellLayout mCellLayout;
 
     public ReorderAlgorithm(CellLayout cellLayout) {
@@ -97,6 +111,115 @@ public class ReorderAlgorithm {
         return solution;
     }
 
+    /**
+     * Same as {@link #findReorderSolution(int, int, int, int, int, int, int[], View, boolean,
+     * CellLayout.ItemConfiguration)} starting by decreasing the horizontal span, but reuses the
+     * solution prepared by {@link #prepareReorder} if the layout and the drag did not change.
+     */
+    public CellLayout.ItemConfiguration findReorderSolution(int pixelX, int pixelY, int minSpanX,
+            int minSpanY, int spanX, int spanY, int[] direction, View dragView) {
+        SpeculativeReorderSolver.Request request = createReorderRequest(pixelX, pixelY, minSpanX,
+                minSpanY, spanX, spanY, direction, dragView);
+        return createSolution(mCellLayout.getReorderSolver().solve(request), direction);
+    }
+
+    /**
+     * Starts finding the solution of {@link #findReorderSolution} for the given drag position in
+     * the background, so that it is ready if the reorder happens at the same position.
+     */
+    public void prepareReorder(int pixelX, int pixelY, int minSpanX, int minSpanY, int spanX,
+            int spanY, View dragView) {
+        int[] direction = new int[2];
+        mCellLayout.getDirectionVectorForDrop(pixelX, pixelY, spanX, spanY, dragView, direction);
+        mCellLayout.getReorderSolver().prepare(createReorderRequest(pixelX, pixelY, minSpanX,
+                minSpanY, spanX, spanY, direction, dragView));
+    }
+
+    /**
+     * Captures the current state of the layout needed to find a reorder solution, including the
+     * drop region of every span tried by {@link #findReorderSolution}.
+     */
+    public SpeculativeReorderSolver.Request createReorderRequest(int pixelX, int pixelY,
+            int minSpanX, int minSpanY, int spanX, int spanY, int[] direction, View dragView) {
+        CellLayout.ItemConfiguration state = new CellLayout.ItemConfiguration();
+        mCellLayout.copyCurrentStateToSolution(state, false);
+
+        View[] views = state.map.keySet().stream().sorted(VIEW_POSITION_COMPARATOR)
+                .toArray(View[]::new);
+        ArrayMap<View, Integer> ids = new ArrayMap<>(views.length);
+        int[] cells = new int[views.length * 4];
+        boolean[] canReorder = new boolean[views.length];
+        for (int i = 0; i < views.length; i++) {
+            CellAndSpan c = state.map.get(views[i]);
+            cells[i * 4] = c.cellX;
+            cells[i * 4 + 1] = c.cellY;
+            cells[i * 4 + 2] = c.spanX;
+            cells[i * 4 + 3] = c.spanY;
+            canReorder[i] = ((CellLayoutLayoutParams) views[i].getLayoutParams()).canReorder;
+            ids.put(views[i], i);
+        }
+        int[] childOrder = new int[state.sortedViews.size()];
+        for (int i = 0; i < childOrder.length; i++) {
+            childOrder[i] = ids.get(state.sortedViews.get(i));
+        }
+        Integer ignoreItem = dragView != null ? ids.get(dragView) : null;
+
+        // Shrink the span in the same alternating pattern as findReorderSolution
+        IntArray attempts = new IntArray();
+        int[] result = new int[2];
+        boolean decX = true;
+        while (true) {
+            mCellLayout.findNearestAreaIgnoreOccupied(pixelX, pixelY, spanX, spanY, result);
+            attempts.add(result[0]);
+            attempts.add(result[1]);
+            attempts.add(spanX);
+            attempts.add(spanY);
+            if (spanX > minSpanX && (minSpanY == spanY || decX)) {
+                spanX--;
+                decX = false;
+            } else if (spanY > minSpanY) {
+                spanY--;
+                decX = true;
+            } else {
+                break;
+            }
+        }
+        return new SpeculativeReorderSolver.Request(mCellLayout.getCountX(),
+                mCellLayout.getCountY(), mCellLayout.getOccupied(), views, cells, canReorder,
+                childOrder, ignoreItem != null ? ignoreItem : ReorderEngine.NO_ITEM, direction,
+                attempts.toArray());
+    }
+
+    /**
+     * Converts the result of a reorder request to a solution, and leaves the layout temporary
+     * state and the direction as {@link #findReorderSolution} would.
+     */
+    public CellLayout.ItemConfiguration createSolution(SpeculativeReorderSolver.Result result,
+            int[] direction) {
+        SpeculativeReorderSolver.Request request = result.request;
+        CellLayout.ItemConfiguration solution = new CellLayout.ItemConfiguration();
+        for (int item : request.getChildOrder()) {
+            solution.add(request.getView(item), new CellAndSpan(result.getCellX(item),
+                    result.getCellY(item), request.getSpanX(item), request.getSpanY(item)));
+        }
+        int[] intersectingItems = result.getIntersectingItems();
+        solution.intersectingViews = new ArrayList<>(intersectingItems.length);
+        for (int item : intersectingItems) {
+            solution.intersectingViews.add(request.getView(item));
+        }
+        result.copyOccupiedTo(mCellLayout.mTmpOccupied);
+        result.copyDirectionTo(direction);
+
+        solution.isSolution = result.isSolution;
+        if (result.dropRegion != null) {
+            solution.cellX = result.dropRegion[0];
+            solution.cellY = result.dropRegion[1];
+            solution.spanX = result.dropRegion[2];
+            solution.spanY = result.dropRegion[3];
+        }
+        return solution;
+    }
+
     /**
      * Returns a "reorder" if there is empty space without rearranging anything.
      *
@@ -183,8 +306,7 @@ public class ReorderAlgorithm {
 
         // Find a solution involving pushing / displacing any items in the way
         CellLayout.ItemConfiguration swapSolution = findReorderSolution(pixelX, pixelY, minSpanX,
-                minSpanY, spanX, spanY, mCellLayout.mDirectionVector, dragView, true,
-                new CellLayout.ItemConfiguration());
+                minSpanY, spanX, spanY, mCellLayout.mDirectionVector, dragView);
 
         // We attempt the approach which doesn't shuffle views at all
         CellLayout.ItemConfiguration closestSpaceSolution = closestEmptySpaceReorder(
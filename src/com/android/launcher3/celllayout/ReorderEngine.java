@@ -0,0 +1,727 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.celllayout;
+
+import android.graphics.Rect;
+
+import com.android.launcher3.CellLayout;
+import com.android.launcher3.util.GridOccupancy;
+import com.android.launcher3.util.IntArray;
+
+import java.util.Arrays;
+
+/**
+ * View independent implementation of the logic which moves the items of a grid out of the way of
+ * an item being dropped.
+ *
+ * Items are identified by the order in which they are added to the engine, and are stored as
+ * arrays of positions and spans so that trying a reorder in every direction does not allocate.
+ * The content of this class was extracted from {@link CellLayout} and should mimic the exact
+ * same behaviour.
+ */
+public class ReorderEngine {
+
+    public static final int NO_ITEM = -1;
+
+    private static final int LEFT = 1 << 0;
+    private static final int TOP = 1 << 1;
+    private static final int RIGHT = 1 << 2;
+    private static final int BOTTOM = 1 << 3;
+
+    private int mCountX;
+    private int mCountY;
+    private GridOccupancy mOccupied;
+
+    private int mItemCount;
+    private int[] mCellX = new int[0];
+    private int[] mCellY = new int[0];
+    private int[] mSpanX = new int[0];
+    private int[] mSpanY = new int[0];
+    private boolean[] mCanReorder = new boolean[0];
+    private int[] mSavedCellX = new int[0];
+    private int[] mSavedCellY = new int[0];
+
+    // Order in which the items are considered when pushing a cluster. It is sorted in place for
+    // every push and the order is kept between pushes, as it determines the result of a push.
+    private final IntArray mSortedItems = new IntArray();
+    private final IntArray mIntersectingItems = new IntArray();
+
+    // The cluster of items being pushed, with the edges of the cluster on each side
+    private final IntArray mClusterItems = new IntArray();
+    private boolean[] mInCluster = new boolean[0];
+    private int[] mLeftEdge = new int[0];
+    private int[] mRightEdge = new int[0];
+    private int[] mTopEdge = new int[0];
+    private int[] mBottomEdge = new int[0];
+    private int mDirtyEdges;
+
+    private GridOccupancy mBlockOccupied;
+    private final Rect mOccupiedRect = new Rect();
+    private final Rect mBoundingRect = new Rect();
+    private final Rect mTmpRect = new Rect();
+    private final int[] mTempLocation = new int[2];
+    private final int[] mTmpDirection = new int[2];
+
+    /**
+     * Clears all the items and sets the grid on which the next items are placed.
+     *
+     * @param occupied the occupancy of the grid, which is updated as the items are moved.
+     */
+    public void reset(int countX, int countY, GridOccupancy occupied) {
+        if (mCountX != countX || mCountY != countY || mBlockOccupied == null) {
+            mCountX = countX;
+            mCountY = countY;
+            mLeftEdge = new int[countY];
+            mRightEdge = new int[countY];
+            mTopEdge = new int[countX];
+            mBottomEdge = new int[countX];
+            mBlockOccupied = new GridOccupancy(countX, countY);
+        }
+        mOccupied = occupied;
+        mItemCount = 0;
+        mSortedItems.clear();
+        mIntersectingItems.clear();
+    }
+
+    /**
+     * Adds an item to the grid and returns its id. The item is also added at the end of the
+     * sorted items.
+     */
+    public int addItem(int cellX, int cellY, int spanX, int spanY, boolean canReorder) {
+        if (mItemCount == mCellX.length) {
+            int capacity = Math.max(16, mItemCount * 2);
+            mCellX = Arrays.copyOf(mCellX, capacity);
+            mCellY = Arrays.copyOf(mCellY, capacity);
+            mSpanX = Arrays.copyOf(mSpanX, capacity);
+            mSpanY = Arrays.copyOf(mSpanY, capacity);
+            mCanReorder = Arrays.copyOf(mCanReorder, capacity);
+            mSavedCellX = Arrays.copyOf(mSavedCellX, capacity);
+            mSavedCellY = Arrays.copyOf(mSavedCellY, capacity);
+            mInCluster = Arrays.copyOf(mInCluster, capacity);
+        }
+        int id = mItemCount++;
+        mCellX[id] = cellX;
+        mCellY[id] = cellY;
+        mSpanX[id] = spanX;
+        mSpanY[id] = spanY;
+        mCanReorder[id] = canReorder;
+        mSortedItems.add(id);
+        return id;
+    }
+
+    public int getItemCount() {
+        return mItemCount;
+    }
+
+    public int getCellX(int id) {
+        return mCellX[id];
+    }
+
+    public int getCellY(int id) {
+        return mCellY[id];
+    }
+
+    public int getSpanX(int id) {
+        return mSpanX[id];
+    }
+
+    public int getSpanY(int id) {
+        return mSpanY[id];
+    }
+
+    public boolean canReorder(int id) {
+        return mCanReorder[id];
+    }
+
+    /**
+     * Returns the order in which the items are considered when pushed. It can be replaced before
+     * calling {@link #rearrangementExists}, and may contain an item more than once.
+     */
+    public IntArray getSortedItems() {
+        return mSortedItems;
+    }
+
+    /**
+     * Returns the items which intersected the drop region in the last call to
+     * {@link #rearrangementExists}
+     */
+    public IntArray getIntersectingItems() {
+        return mIntersectingItems;
+    }
+
+    /**
+     * Tries to move the items intersecting the given region out of the way, first by pushing
+     * them, then by moving them as a block and finally one by one. The items keep their new
+     * position if this succeeds.
+     *
+     * @param direction the preferred direction in which to move the items. It can be modified if
+     *                  a solution is found in another direction.
+     * @param ignoreItem the item being dropped, which is placed at the region, or NO_ITEM
+     */
+    public boolean rearrangementExists(int cellX, int cellY, int spanX, int spanY,
+            int[] direction, int ignoreItem) {
+        // Return early if get invalid cell positions
+        if (cellX < 0 || cellY < 0) return false;
+
+        mIntersectingItems.clear();
+        mOccupiedRect.set(cellX, cellY, cellX + spanX, cellY + spanY);
+
+        // Mark the desired location of the item currently being dragged.
+        if (ignoreItem != NO_ITEM) {
+            mCellX[ignoreItem] = cellX;
+            mCellY[ignoreItem] = cellY;
+        }
+        for (int id = 0; id < mItemCount; id++) {
+            if (id == ignoreItem) continue;
+            if (intersects(id, mOccupiedRect)) {
+                if (!mCanReorder[id]) {
+                    return false;
+                }
+                mIntersectingItems.add(id);
+            }
+        }
+
+        // First we try to find a solution which respects the push mechanic. That is,
+        // we try to find a solution such that no displaced item travels through another item
+        // without also displacing that item.
+        if (attemptPushInDirection(mIntersectingItems, mOccupiedRect, direction, ignoreItem)) {
+            return true;
+        }
+
+        // Next we try moving the items as a block, but without requiring the push mechanic.
+        if (addItemsToTempLocation(mIntersectingItems, mOccupiedRect, direction)) {
+            return true;
+        }
+
+        // Ok, they couldn't move as a block, let's move them individually
+        for (int i = 0; i < mIntersectingItems.size(); i++) {
+            if (!addItemToTempLocation(mIntersectingItems.get(i), mOccupiedRect, direction)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean intersects(int id, Rect r) {
+        return mCellX[id] < r.right && r.left < mCellX[id] + mSpanX[id]
+                && mCellY[id] < r.bottom && r.top < mCellY[id] + mSpanY[id];
+    }
+
+    private void markCells(int id, boolean value) {
+        mOccupied.markCells(mCellX[id], mCellY[id], mSpanX[id], mSpanY[id], value);
+    }
+
+    // This method tries to find a reordering solution which satisfies the push mechanic by trying
+    // to push items in each of the cardinal directions, in an order based on the direction vector
+    // passed.
+    private boolean attemptPushInDirection(IntArray intersectingItems, Rect occupied,
+            int[] direction, int ignoreItem) {
+        if ((Math.abs(direction[0]) + Math.abs(direction[1])) > 1) {
+            // If the direction vector has two non-zero components, we try pushing
+            // separately in each of the components.
+            int temp = direction[1];
+            direction[1] = 0;
+
+            if (pushItemsToTempLocation(intersectingItems, occupied, direction, ignoreItem)) {
+                return true;
+            }
+            direction[1] = temp;
+            temp = direction[0];
+            direction[0] = 0;
+
+            if (pushItemsToTempLocation(intersectingItems, occupied, direction, ignoreItem)) {
+                return true;
+            }
+            // Revert the direction
+            direction[0] = temp;
+
+            // Now we try pushing in each component of the opposite direction
+            direction[0] *= -1;
+            direction[1] *= -1;
+            temp = direction[1];
+            direction[1] = 0;
+            if (pushItemsToTempLocation(intersectingItems, occupied, direction, ignoreItem)) {
+                return true;
+            }
+
+            direction[1] = temp;
+            temp = direction[0];
+            direction[0] = 0;
+            if (pushItemsToTempLocation(intersectingItems, occupied, direction, ignoreItem)) {
+                return true;
+            }
+            // revert the direction
+            direction[0] = temp;
+            direction[0] *= -1;
+            direction[1] *= -1;
+
+        } else {
+            // If the direction vector has a single non-zero component, we push first in the
+            // direction of the vector
+            if (pushItemsToTempLocation(intersectingItems, occupied, direction, ignoreItem)) {
+                return true;
+            }
+            // Then we try the opposite direction
+            direction[0] *= -1;
+            direction[1] *= -1;
+            if (pushItemsToTempLocation(intersectingItems, occupied, direction, ignoreItem)) {
+                return true;
+            }
+            // Switch the direction back
+            direction[0] *= -1;
+            direction[1] *= -1;
+
+            // If we have failed to find a push solution with the above, then we try
+            // to find a solution by pushing along the perpendicular axis.
+
+            // Swap the components
+            int temp = direction[1];
+            direction[1] = direction[0];
+            direction[0] = temp;
+            if (pushItemsToTempLocation(intersectingItems, occupied, direction, ignoreItem)) {
+                return true;
+            }
+
+            // Then we try the opposite direction
+            direction[0] *= -1;
+            direction[1] *= -1;
+            if (pushItemsToTempLocation(intersectingItems, occupied, direction, ignoreItem)) {
+                return true;
+            }
+            // Switch the direction back
+            direction[0] *= -1;
+            direction[1] *= -1;
+
+            // Swap the components back
+            temp = direction[1];
+            direction[1] = direction[0];
+            direction[0] = temp;
+        }
+        return false;
+    }
+
+    private boolean pushItemsToTempLocation(IntArray items, Rect rectOccupiedByPotentialDrop,
+            int[] direction, int ignoreItem) {
+        startCluster(items);
+        Rect clusterRect = getBoundingRect(mClusterItems, mBoundingRect);
+        int whichEdge;
+        int pushDistance;
+        boolean fail = false;
+
+        // Determine the edge of the cluster that will be leading the push and how far
+        // the cluster must be shifted.
+        if (direction[0] < 0) {
+            whichEdge = LEFT;
+            pushDistance = clusterRect.right - rectOccupiedByPotentialDrop.left;
+        } else if (direction[0] > 0) {
+            whichEdge = RIGHT;
+            pushDistance = rectOccupiedByPotentialDrop.right - clusterRect.left;
+        } else if (direction[1] < 0) {
+            whichEdge = TOP;
+            pushDistance = clusterRect.bottom - rectOccupiedByPotentialDrop.top;
+        } else {
+            whichEdge = BOTTOM;
+            pushDistance = rectOccupiedByPotentialDrop.bottom - clusterRect.top;
+        }
+
+        // Break early for invalid push distance.
+        if (pushDistance <= 0) {
+            return false;
+        }
+
+        // Mark the occupied state as false for the group of items we want to move.
+        for (int i = 0; i < items.size(); i++) {
+            markCells(items.get(i), false);
+        }
+
+        // We save the current configuration -- if we fail to find a solution we will revert
+        // to the initial state. The process of finding a solution modifies the configuration
+        // in place, hence the need for revert in the failure case.
+        System.arraycopy(mCellX, 0, mSavedCellX, 0, mItemCount);
+        System.arraycopy(mCellY, 0, mSavedCellY, 0, mItemCount);
+
+        // The pushing algorithm is simplified by considering the items in the order in which
+        // they would be pushed by the cluster. For example, if the cluster is leading with its
+        // left edge, we consider sort the items by their right edge, from right to left.
+        sortItemsForEdgePush(whichEdge);
+
+        while (pushDistance > 0 && !fail) {
+            for (int i = 0; i < mSortedItems.size(); i++) {
+                int id = mSortedItems.get(i);
+                // For each item that isn't in the cluster, we see if the leading edge of the
+                // cluster is contacting the edge of that item. If so, we add that item to the
+                // cluster.
+                if (!mInCluster[id] && id != ignoreItem) {
+                    if (isItemTouchingEdge(id, whichEdge)) {
+                        if (!mCanReorder[id]) {
+                            // The push solution includes the all apps button, this is not viable.
+                            fail = true;
+                            break;
+                        }
+                        addToCluster(id);
+
+                        // Adding item to cluster, mark it as not occupied.
+                        markCells(id, false);
+                    }
+                }
+            }
+            pushDistance--;
+
+            // The cluster has been completed, now we move the whole thing over in the appropriate
+            // direction.
+            shiftCluster(whichEdge, 1);
+        }
+
+        boolean foundSolution = false;
+        clusterRect = getBoundingRect(mClusterItems, mBoundingRect);
+
+        // Due to the nature of the algorithm, the only check required to verify a valid solution
+        // is to ensure that completed shifted cluster lies completely within the grid.
+        if (!fail && clusterRect.left >= 0 && clusterRect.right <= mCountX && clusterRect.top >= 0
+                && clusterRect.bottom <= mCountY) {
+            foundSolution = true;
+        } else {
+            System.arraycopy(mSavedCellX, 0, mCellX, 0, mItemCount);
+            System.arraycopy(mSavedCellY, 0, mCellY, 0, mItemCount);
+        }
+
+        // In either case, we set the occupied array as marked for the location of the items
+        for (int i = 0; i < mClusterItems.size(); i++) {
+            markCells(mClusterItems.get(i), true);
+        }
+
+        return foundSolution;
+    }
+
+    private void startCluster(IntArray items) {
+        Arrays.fill(mInCluster, 0, mItemCount, false);
+        mClusterItems.clear();
+        for (int i = 0; i < items.size(); i++) {
+            int id = items.get(i);
+            mClusterItems.add(id);
+            mInCluster[id] = true;
+        }
+        resetEdges();
+    }
+
+    private void addToCluster(int id) {
+        mClusterItems.add(id);
+        mInCluster[id] = true;
+        resetEdges();
+    }
+
+    private void resetEdges() {
+        Arrays.fill(mTopEdge, -1);
+        Arrays.fill(mBottomEdge, -1);
+        Arrays.fill(mLeftEdge, -1);
+        Arrays.fill(mRightEdge, -1);
+        mDirtyEdges = LEFT | TOP | RIGHT | BOTTOM;
+    }
+
+    private void computeEdge(int which) {
+        for (int i = 0; i < mClusterItems.size(); i++) {
+            int id = mClusterItems.get(i);
+            int cellX = mCellX[id];
+            int cellY = mCellY[id];
+            switch (which) {
+                case LEFT:
+                    for (int j = cellY; j < cellY + mSpanY[id]; j++) {
+                        if (cellX < mLeftEdge[j] || mLeftEdge[j] < 0) {
+                            mLeftEdge[j] = cellX;
+                        }
+                    }
+                    break;
+                case RIGHT:
+                    int right = cellX + mSpanX[id];
+                    for (int j = cellY; j < cellY + mSpanY[id]; j++) {
+                        if (right > mRightEdge[j]) {
+                            mRightEdge[j] = right;
+                        }
+                    }
+                    break;
+                case TOP:
+                    for (int j = cellX; j < cellX + mSpanX[id]; j++) {
+                        if (cellY < mTopEdge[j] || mTopEdge[j] < 0) {
+                            mTopEdge[j] = cellY;
+                        }
+                    }
+                    break;
+                case BOTTOM:
+                    int bottom = cellY + mSpanY[id];
+                    for (int j = cellX; j < cellX + mSpanX[id]; j++) {
+                        if (bottom > mBottomEdge[j]) {
+                            mBottomEdge[j] = bottom;
+                        }
+                    }
+                    break;
+            }
+        }
+    }
+
+    private boolean isItemTouchingEdge(int id, int whichEdge) {
+        if ((mDirtyEdges & whichEdge) == whichEdge) {
+            computeEdge(whichEdge);
+            mDirtyEdges &= ~whichEdge;
+        }
+
+        int cellX = mCellX[id];
+        int cellY = mCellY[id];
+        switch (whichEdge) {
+            case LEFT:
+                for (int i = cellY; i < cellY + mSpanY[id]; i++) {
+                    if (mLeftEdge[i] == cellX + mSpanX[id]) {
+                        return true;
+                    }
+                }
+                break;
+            case RIGHT:
+                for (int i = cellY; i < cellY + mSpanY[id]; i++) {
+                    if (mRightEdge[i] == cellX) {
+                        return true;
+                    }
+                }
+                break;
+            case TOP:
+                for (int i = cellX; i < cellX + mSpanX[id]; i++) {
+                    if (mTopEdge[i] == cellY + mSpanY[id]) {
+                        return true;
+                    }
+                }
+                break;
+            case BOTTOM:
+                for (int i = cellX; i < cellX + mSpanX[id]; i++) {
+                    if (mBottomEdge[i] == cellY) {
+                        return true;
+                    }
+                }
+                break;
+        }
+        return false;
+    }
+
+    private void shiftCluster(int whichEdge, int delta) {
+        for (int i = 0; i < mClusterItems.size(); i++) {
+            int id = mClusterItems.get(i);
+            switch (whichEdge) {
+                case LEFT:
+                    mCellX[id] -= delta;
+                    break;
+                case RIGHT:
+                    mCellX[id] += delta;
+                    break;
+                case TOP:
+                    mCellY[id] -= delta;
+                    break;
+                case BOTTOM:
+                default:
+                    mCellY[id] += delta;
+                    break;
+            }
+        }
+        resetEdges();
+    }
+
+    /**
+     * Sorts the items in the order in which they would be pushed by the given edge of the
+     * cluster. The sort is stable, as items with the same edge keep their previous order.
+     */
+    private void sortItemsForEdgePush(int whichEdge) {
+        // Insertion sort, which is stable and fast on the few items of a grid
+        for (int i = 1; i < mSortedItems.size(); i++) {
+            int id = mSortedItems.get(i);
+            int j = i - 1;
+            while (j >= 0 && compareForEdgePush(mSortedItems.get(j), id, whichEdge) > 0) {
+                mSortedItems.set(j + 1, mSortedItems.get(j));
+                j--;
+            }
+            mSortedItems.set(j + 1, id);
+        }
+    }
+
+    private int compareForEdgePush(int left, int right, int whichEdge) {
+        switch (whichEdge) {
+            case LEFT:
+                return (mCellX[right] + mSpanX[right]) - (mCellX[left] + mSpanX[left]);
+            case RIGHT:
+                return mCellX[left] - mCellX[right];
+            case TOP:
+                return (mCellY[right] + mSpanY[right]) - (mCellY[left] + mSpanY[left]);
+            case BOTTOM:
+            default:
+                return mCellY[left] - mCellY[right];
+        }
+    }
+
+    private boolean addItemsToTempLocation(IntArray items, Rect rectOccupiedByPotentialDrop,
+            int[] direction) {
+        if (items.size() == 0) return true;
+
+        boolean success = false;
+        // We construct a rect which represents the entire group of items passed in
+        Rect boundingRect = getBoundingRect(items, mTmpRect);
+
+        // Mark the occupied state as false for the group of items we want to move.
+        for (int i = 0; i < items.size(); i++) {
+            markCells(items.get(i), false);
+        }
+
+        GridOccupancy blockOccupied = mBlockOccupied;
+        blockOccupied.markCells(0, 0, boundingRect.width(), boundingRect.height(), false);
+        int top = boundingRect.top;
+        int left = boundingRect.left;
+        // We mark more precisely which parts of the bounding rect are truly occupied, allowing
+        // for interlocking.
+        for (int i = 0; i < items.size(); i++) {
+            int id = items.get(i);
+            blockOccupied.markCells(mCellX[id] - left, mCellY[id] - top, mSpanX[id], mSpanY[id],
+                    true);
+        }
+
+        mOccupied.markCells(rectOccupiedByPotentialDrop, true);
+
+        findNearestArea(boundingRect.left, boundingRect.top, boundingRect.width(),
+                boundingRect.height(), direction, mOccupied.cells, blockOccupied.cells,
+                mTempLocation);
+
+        // If we successfully found a location by pushing the block of items, we commit it
+        if (mTempLocation[0] >= 0 && mTempLocation[1] >= 0) {
+            int deltaX = mTempLocation[0] - boundingRect.left;
+            int deltaY = mTempLocation[1] - boundingRect.top;
+            for (int i = 0; i < items.size(); i++) {
+                int id = items.get(i);
+                mCellX[id] += deltaX;
+                mCellY[id] += deltaY;
+            }
+            success = true;
+        }
+
+        // In either case, we set the occupied array as marked for the location of the items
+        for (int i = 0; i < items.size(); i++) {
+            markCells(items.get(i), true);
+        }
+        return success;
+    }
+
+    private boolean addItemToTempLocation(int id, Rect rectOccupiedByPotentialDrop,
+            int[] direction) {
+        boolean success = false;
+        markCells(id, false);
+        mOccupied.markCells(rectOccupiedByPotentialDrop, true);
+
+        findNearestArea(mCellX[id], mCellY[id], mSpanX[id], mSpanY[id], direction,
+                mOccupied.cells, null, mTempLocation);
+
+        if (mTempLocation[0] >= 0 && mTempLocation[1] >= 0) {
+            mCellX[id] = mTempLocation[0];
+            mCellY[id] = mTempLocation[1];
+            success = true;
+        }
+        markCells(id, true);
+        return success;
+    }
+
+    private Rect getBoundingRect(IntArray items, Rect outRect) {
+        outRect.setEmpty();
+        for (int i = 0; i < items.size(); i++) {
+            int id = items.get(i);
+            if (i == 0) {
+                outRect.set(mCellX[id], mCellY[id], mCellX[id] + mSpanX[id],
+                        mCellY[id] + mSpanY[id]);
+            } else {
+                outRect.union(mCellX[id], mCellY[id], mCellX[id] + mSpanX[id],
+                        mCellY[id] + mSpanY[id]);
+            }
+        }
+        return outRect;
+    }
+
+    /**
+     * Find a vacant area that will fit the given bounds nearest the requested
+     * cell location, and will also weigh in a suggested direction vector of the
+     * desired location. This method computers distance based on unit grid distances,
+     * not pixel distances.
+     *
+     * @param cellX The X cell nearest to which you want to search for a vacant area.
+     * @param cellY The Y cell nearest which you want to search for a vacant area.
+     * @param spanX Horizontal span of the object.
+     * @param spanY Vertical span of the object.
+     * @param direction The favored direction in which the items should move from x, y
+     * @param occupied The array which represents which cells in the grid are occupied
+     * @param blockOccupied The array which represents which cells in the specified block (cellX,
+     *        cellY, spanX, spanY) are occupied. This is used when try to move a group of items.
+     * @param result Array in which to place the result
+     */
+    private void findNearestArea(int cellX, int cellY, int spanX, int spanY, int[] direction,
+            boolean[][] occupied, boolean[][] blockOccupied, int[] result) {
+        // Keep track of best-scoring drop area
+        float bestDistance = Float.MAX_VALUE;
+        int bestDirectionScore = Integer.MIN_VALUE;
+
+        for (int y = 0; y < mCountY - (spanY - 1); y++) {
+            inner:
+            for (int x = 0; x < mCountX - (spanX - 1); x++) {
+                // First, let's see if this thing fits anywhere
+                for (int i = 0; i < spanX; i++) {
+                    for (int j = 0; j < spanY; j++) {
+                        if (occupied[x + i][y + j]
+                                && (blockOccupied == null || blockOccupied[i][j])) {
+                            continue inner;
+                        }
+                    }
+                }
+
+                float distance = (float) Math.hypot(x - cellX, y - cellY);
+                int[] curDirection = mTmpDirection;
+                computeDirectionVector(x - cellX, y - cellY, curDirection);
+                // The direction score is just the dot product of the two candidate direction
+                // and that passed in.
+                int curDirectionScore = direction[0] * curDirection[0]
+                        + direction[1] * curDirection[1];
+                if (Float.compare(distance, bestDistance) < 0
+                        || (Float.compare(distance, bestDistance) == 0
+                                && curDirectionScore > bestDirectionScore)) {
+                    bestDistance = distance;
+                    bestDirectionScore = curDirectionScore;
+                    result[0] = x;
+                    result[1] = y;
+                }
+            }
+        }
+
+        // Return -1, -1 if no suitable location found
+        if (bestDistance == Float.MAX_VALUE) {
+            result[0] = -1;
+            result[1] = -1;
+        }
+    }
+
+    /**
+     * Returns a pair (x, y), where x,y are in {-1, 0, 1} corresponding to vector between
+     * the provided point and the provided cell
+     */
+    public static void computeDirectionVector(float deltaX, float deltaY, int[] result) {
+        double angle = Math.atan(deltaY / deltaX);
+
+        result[0] = 0;
+        result[1] = 0;
+        if (Math.abs(Math.cos(angle)) > 0.5f) {
+            result[0] = (int) Math.signum(deltaX);
+        }
+        if (Math.abs(Math.sin(angle)) > 0.5f) {
+            result[1] = (int) Math.signum(deltaY);
+        }
+    }
+}
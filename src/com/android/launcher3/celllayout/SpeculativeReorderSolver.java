@@ -0,0 +1,302 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.celllayout;
+
+import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
+import static com.android.launcher3.util.Executors.THREAD_POOL_EXECUTOR;
+
+import android.view.View;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
+
+import com.android.launcher3.util.GridOccupancy;
+import com.android.launcher3.util.IntArray;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Solves the push reorder of a CellLayout ahead of time on a background thread, so that the
+ * solution is ready when the reorder starts instead of being computed on the UI thread.
+ *
+ * A {@link Request} captures everything the push reorder depends on, so a result can be reused
+ * for any later request which is equal to the one it was computed for.
+ */
+@UiThread
+public class SpeculativeReorderSolver {
+
+    private final ReorderEngine mEngine = new ReorderEngine();
+
+    // Request being solved in the background, any other request in progress is stale
+    private volatile Request mPendingRequest;
+    private Result mResult;
+
+    /**
+     * Starts solving the request in the background, cancelling the request previously prepared.
+     * This is a no-op if the request is already solved or being solved.
+     */
+    public void prepare(Request request) {
+        if (request.equals(mPendingRequest)
+                || (mResult != null && request.equals(mResult.request))) {
+            return;
+        }
+        mPendingRequest = request;
+        THREAD_POOL_EXECUTOR.execute(() -> {
+            Result result = request.solve(new ReorderEngine(), () -> mPendingRequest != request);
+            if (result != null) {
+                MAIN_EXECUTOR.execute(() -> {
+                    if (mPendingRequest == request) {
+                        mPendingRequest = null;
+                        mResult = result;
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Returns the solution of the request, reusing the prepared one if available or solving it on
+     * the calling thread otherwise.
+     */
+    public Result solve(Request request) {
+        if (mResult != null && request.equals(mResult.request)) {
+            return mResult;
+        }
+        // The pending request would be too late to be used at this point
+        mPendingRequest = null;
+        mResult = request.solve(mEngine, () -> false);
+        return mResult;
+    }
+
+    /**
+     * Cancels any pending request and drops the cached result
+     */
+    public void clear() {
+        mPendingRequest = null;
+        mResult = null;
+    }
+
+    /**
+     * Snapshot of the state of a CellLayout needed to find a push reorder for a drag position.
+     * It does not access the views, which are only kept to map the result back to them.
+     */
+    public static class Request {
+
+        private final int mCountX;
+        private final int mCountY;
+        private final GridOccupancy mOccupied;
+
+        // Items in the order of their id in the engine, with 4 values (cellX, cellY, spanX,
+        // spanY) per item
+        private final View[] mViews;
+        private final int[] mItems;
+        private final boolean[] mCanReorder;
+        // Order of the items in the layout, in which they are appended to the push order for
+        // every attempt
+        private final int[] mChildOrder;
+        private final int mIgnoreItem;
+        private final int mDirectionX;
+        private final int mDirectionY;
+        // Positions and spans to try one after the other, with 4 values per attempt
+        private final int[] mAttempts;
+
+        private final int mHashCode;
+
+        /**
+         * @param occupied the occupied cells of the layout, which are copied
+         * @param views the views of the layout in the order they should be identified in the
+         *              reorder
+         * @param cells the cell and span of every view, with 4 values per view
+         * @param childOrder the ids of the views in the order of the layout children
+         * @param ignoreItem the id of the item being dragged or {@link ReorderEngine#NO_ITEM}
+         * @param attempts the cell and span of the drop region for every attempt, tried in order
+         */
+        public Request(int countX, int countY, GridOccupancy occupied, View[] views,
+                int[] cells, boolean[] canReorder, int[] childOrder, int ignoreItem,
+                int[] direction, int[] attempts) {
+            mCountX = countX;
+            mCountY = countY;
+            mOccupied = new GridOccupancy(countX, countY);
+            occupied.copyTo(mOccupied);
+            mViews = views;
+            mItems = cells;
+            mCanReorder = canReorder;
+            mChildOrder = childOrder;
+            mIgnoreItem = ignoreItem;
+            mDirectionX = direction[0];
+            mDirectionY = direction[1];
+            mAttempts = attempts;
+            mHashCode = 31 * Arrays.hashCode(mItems) + Arrays.hashCode(mAttempts);
+        }
+
+        public View getView(int item) {
+            return mViews[item];
+        }
+
+        public int getSpanX(int item) {
+            return mItems[item * 4 + 2];
+        }
+
+        public int getSpanY(int item) {
+            return mItems[item * 4 + 3];
+        }
+
+        public int[] getChildOrder() {
+            return mChildOrder;
+        }
+
+        /**
+         * Tries every attempt in order until a reorder is found, replicating the state the
+         * recursive search of {@link ReorderAlgorithm#findReorderSolution} leaves behind.
+         *
+         * @return the result of the last attempt, or null if the request was cancelled
+         */
+        @Nullable
+        Result solve(ReorderEngine engine, BooleanSupplier isCancelled) {
+            int itemCount = mViews.length;
+            GridOccupancy occupied = new GridOccupancy(mCountX, mCountY);
+            int[] direction = new int[] {mDirectionX, mDirectionY};
+            // The items are added to the push order again for every attempt, and the order
+            // resulting from an attempt is the starting point of the next one.
+            IntArray sortedItems = new IntArray();
+            int[] cells = Arrays.copyOf(mItems, mItems.length);
+            IntArray intersectingItems = new IntArray();
+
+            int attempt = 0;
+            boolean success = false;
+            for (; attempt < mAttempts.length; attempt += 4) {
+                if (isCancelled.getAsBoolean()) {
+                    return null;
+                }
+                mOccupied.copyTo(occupied);
+                sortedItems.addAll(IntArray.wrap(mChildOrder));
+                System.arraycopy(mItems, 0, cells, 0, mItems.length);
+
+                int cellX = mAttempts[attempt];
+                int cellY = mAttempts[attempt + 1];
+                if (cellX < 0 || cellY < 0) {
+                    success = false;
+                } else {
+                    engine.reset(mCountX, mCountY, occupied);
+                    for (int i = 0; i < itemCount; i++) {
+                        engine.addItem(mItems[i * 4], mItems[i * 4 + 1], mItems[i * 4 + 2],
+                                mItems[i * 4 + 3], mCanReorder[i]);
+                    }
+                    IntArray engineOrder = engine.getSortedItems();
+                    engineOrder.clear();
+                    engineOrder.addAll(sortedItems);
+
+                    success = engine.rearrangementExists(cellX, cellY, mAttempts[attempt + 2],
+                            mAttempts[attempt + 3], direction, mIgnoreItem);
+
+                    sortedItems.clear();
+                    sortedItems.addAll(engineOrder);
+                    for (int i = 0; i < itemCount; i++) {
+                        cells[i * 4] = engine.getCellX(i);
+                        cells[i * 4 + 1] = engine.getCellY(i);
+                    }
+                    intersectingItems.clear();
+                    intersectingItems.addAll(engine.getIntersectingItems());
+                }
+                if (success) {
+                    break;
+                }
+            }
+            int[] dropRegion = success
+                    ? Arrays.copyOfRange(mAttempts, attempt, attempt + 4) : null;
+            return new Result(this, success, dropRegion, cells, intersectingItems.toArray(),
+                    occupied, direction);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Request r
+                    && mHashCode == r.mHashCode
+                    && mCountX == r.mCountX
+                    && mCountY == r.mCountY
+                    && mIgnoreItem == r.mIgnoreItem
+                    && mDirectionX == r.mDirectionX
+                    && mDirectionY == r.mDirectionY
+                    && Arrays.equals(mItems, r.mItems)
+                    && Arrays.equals(mAttempts, r.mAttempts)
+                    && Arrays.equals(mCanReorder, r.mCanReorder)
+                    && Arrays.equals(mChildOrder, r.mChildOrder)
+                    && Arrays.equals(mViews, r.mViews)
+                    && Arrays.deepEquals(mOccupied.cells, r.mOccupied.cells);
+        }
+
+        @Override
+        public int hashCode() {
+            return mHashCode;
+        }
+    }
+
+    /**
+     * Outcome of a {@link Request}
+     */
+    public static class Result {
+
+        public final Request request;
+        public final boolean isSolution;
+        // Cell and span of the item being dropped, with 4 values, or null if there is no solution
+        @Nullable
+        public final int[] dropRegion;
+        private final int[] mCells;
+        private final int[] mIntersectingItems;
+        private final GridOccupancy mOccupied;
+        private final int[] mDirection;
+
+        Result(Request request, boolean isSolution, @Nullable int[] dropRegion, int[] cells,
+                int[] intersectingItems, GridOccupancy occupied, int[] direction) {
+            this.request = request;
+            this.isSolution = isSolution;
+            this.dropRegion = dropRegion;
+            mCells = cells;
+            mIntersectingItems = intersectingItems;
+            mOccupied = occupied;
+            mDirection = direction;
+        }
+
+        public int getCellX(int item) {
+            return mCells[item * 4];
+        }
+
+        public int getCellY(int item) {
+            return mCells[item * 4 + 1];
+        }
+
+        public int[] getIntersectingItems() {
+            return mIntersectingItems;
+        }
+
+        /**
+         * Copies the occupied cells at the end of the search, which must have the same size
+         */
+        public void copyOccupiedTo(GridOccupancy dest) {
+            mOccupied.copyTo(dest);
+        }
+
+        /**
+         * Copies the push direction, which the search can change when an item can not be pushed
+         * in the requested direction
+         */
+        public void copyDirectionTo(int[] dest) {
+            dest[0] = mDirection[0];
+            dest[1] = mDirection[1];
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.launcher3.dot;
+
+import android.util.ArraySet;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
+
+import com.android.launcher3.model.data.ItemInfo;
+import com.android.launcher3.util.PackageUserKey;
+import com.android.launcher3.util.ShortcutUtil;
+
+import java.util.HashMap;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Index of the attached views which can show a notification dot, by the package of the items
+ * they display. This allows a dot change to only update the views of the affected packages
+ * instead of traversing every icon.
+ *
+ * Views which are detached when a dot changes are not notified, they should compare
+ * {@link #getGeneration()} with the value of their last update when attached again.
+ */
+@UiThread
+public class DotViewIndex {
+
+    private final HashMap<PackageUserKey, ArraySet<View>> mViews = new HashMap<>();
+    private int mGeneration = 0;
+
+    /**
+     * Returns the key under which a view displaying the item should be indexed, or null if the
+     * item can not have a dot.
+     */
+    @Nullable
+    public static PackageUserKey getKey(@Nullable ItemInfo info) {
+        return info != null && ShortcutUtil.supportsShortcuts(info)
+                ? PackageUserKey.fromItemInfo(info) : null;
+    }
+
+    public void add(@Nullable PackageUserKey key, View view) {
+        if (key != null) {
+            mViews.computeIfAbsent(key, k -> new ArraySet<>()).add(view);
+        }
+    }
+
+    public void remove(@Nullable PackageUserKey key, View view) {
+        if (key == null) {
+            return;
+        }
+        ArraySet<View> views = mViews.get(key);
+        if (views != null && views.remove(view) && views.isEmpty()) {
+            mViews.remove(key);
+        }
+    }
+
+    /**
+     * Returns a value which changes every time dots are updated
+     */
+    public int getGeneration() {
+        return mGeneration;
+    }
+
+    /**
+     * Calls {@param callback} once for every view indexed under any of the updated keys
+     */
+    public void onDotsUpdated(Set<PackageUserKey> updatedKeys, Consumer<View> callback) {
+        mGeneration++;
+        ArraySet<View> affectedViews = new ArraySet<>();
+        for (PackageUserKey key : updatedKeys) {
+            ArraySet<View> views = mViews.get(key);
+            if (views != null) {
+                affectedViews.addAll(views);
+            }
+        }
+        // The callbacks could change the index, so iterate over a copy.
+        for (int i = 0; i < affectedViews.size(); i++) {
+            callback.accept(affectedViews.valueAt(i));
+        }
+    }
+}
@@ -31,6 +31,7 @@ import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
+import android.util.ArraySet;
 import android.util.AttributeSet;
 import android.util.Property;
 import android.view.LayoutInflater;
@@ -59,6 +60,7 @@ import com.android.launcher3.Utilities;
 import com.android.launcher3.Workspace;
 import com.android.launcher3.allapps.ActivityAllAppsContainerView;
 import com.android.launcher3.celllayout.CellLayoutLayoutParams;
+import com.android.launcher3.dot.DotViewIndex;
 import com.android.launcher3.dot.FolderDotInfo;
 import com.android.launcher3.dragndrop.BaseItemDragListener;
 import com.android.launcher3.dragndrop.DragLayer;
@@ -77,6 +79,7 @@ import com.android.launcher3.model.data.WorkspaceItemFactory;
 import com.android.launcher3.model.data.WorkspaceItemInfo;
 import com.android.launcher3.util.Executors;
 import com.android.launcher3.util.MultiTranslateDelegate;
+import com.android.launcher3.util.PackageUserKey;
 import com.android.launcher3.util.Thunk;
 import com.android.launcher3.views.ActivityContext;
 import com.android.launcher3.views.IconLabelDotView;
@@ -126,6 +129,9 @@ public class FolderIcon extends FrameLayout implements FolderListener, IconLabel
     private boolean mForceHideDot;
     @ViewDebug.ExportedProperty(category = "launcher", deepExport = true)
     private FolderDotInfo mDotInfo = new FolderDotInfo();
+    // Keys of the contents under which this icon is registered in the DotViewIndex
+    private final ArraySet<PackageUserKey> mDotIndexKeys = new ArraySet<>();
+    private int mDotGeneration = -1;
     private DotRenderer mDotRenderer;
     @ViewDebug.ExportedProperty(category = "launcher", deepExport = true)
     private DotRenderer.DrawParams mDotParams;
@@ -216,11 +222,7 @@ public class FolderIcon extends FrameLayout implements FolderListener, IconLabel
         icon.setContentDescription(icon.getAccessiblityTitle(folderInfo.title));
 
         // Keep the notification dot up to date with the sum of all the content's dots.
-        FolderDotInfo folderDotInfo = new FolderDotInfo();
-        for (WorkspaceItemInfo si : folderInfo.contents) {
-            folderDotInfo.addDotInfo(activity.getDotInfoForItem(si));
-        }
-        icon.setDotInfo(folderDotInfo);
+        icon.updateDotInfo();
 
         icon.setAccessibilityDelegate(activity.getAccessibilityDelegate());
 
@@ -494,6 +496,73 @@ public class FolderIcon extends FrameLayout implements FolderListener, IconLabel
         );
     }
 
+    /**
+     * Recomputes the dot as the sum of the dots of the folder contents
+     */
+    public void updateDotInfo() {
+        FolderDotInfo folderDotInfo = new FolderDotInfo();
+        for (WorkspaceItemInfo si : mInfo.contents) {
+            folderDotInfo.addDotInfo(mActivity.getDotInfoForItem(si));
+        }
+        setDotInfo(folderDotInfo);
+        DotViewIndex index = mActivity.getDotViewIndex();
+        if (index != null) {
+            mDotGeneration = index.getGeneration();
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        DotViewIndex index = mActivity.getDotViewIndex();
+        if (index != null) {
+            updateDotIndexKeys(index);
+            if (mDotGeneration != index.getGeneration()) {
+                // Dots changed while detached
+                updateDotInfo();
+            }
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        DotViewIndex index = mActivity.getDotViewIndex();
+        if (index != null) {
+            for (int i = 0; i < mDotIndexKeys.size(); i++) {
+                index.remove(mDotIndexKeys.valueAt(i), this);
+            }
+        }
+        mDotIndexKeys.clear();
+    }
+
+    private void updateDotIndexKeys(DotViewIndex index) {
+        ArraySet<PackageUserKey> keys = new ArraySet<>();
+        for (WorkspaceItemInfo si : mInfo.contents) {
+            PackageUserKey key = DotViewIndex.getKey(si);
+            if (key != null) {
+                keys.add(key);
+            }
+        }
+        for (int i = 0; i < mDotIndexKeys.size(); i++) {
+            if (!keys.contains(mDotIndexKeys.valueAt(i))) {
+                index.remove(mDotIndexKeys.valueAt(i), this);
+            }
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            index.add(keys.valueAt(i), this);
+        }
+        mDotIndexKeys.clear();
+        mDotIndexKeys.addAll(keys);
+    }
+
+    private void onContentsChanged() {
+        DotViewIndex index = mActivity.getDotViewIndex();
+        if (index != null && isAttachedToWindow()) {
+            updateDotIndexKeys(index);
+        }
+    }
+
     public void setDotInfo(FolderDotInfo dotInfo) {
         updateDotScale(mDotInfo.hasDot(), dotInfo.hasDot());
         mDotInfo = dotInfo;
@@ -661,6 +730,12 @@ public class FolderIcon extends FrameLayout implements FolderListener, IconLabel
         return mPreviewItemManager.verifyDrawable(who) || super.verifyDrawable(who);
     }
 
+    @Override
+    public void invalidateDrawable(@NonNull Drawable drawable) {
+        mPreviewItemManager.onDrawableInvalidated(drawable);
+        super.invalidateDrawable(drawable);
+    }
+
     @Override
     public void onItemsChanged(boolean animate) {
         updatePreviewItems(animate);
@@ -688,6 +763,7 @@ public class FolderIcon extends FrameLayout implements FolderListener, IconLabel
         mDotInfo.addDotInfo(mActivity.getDotInfoForItem(item));
         boolean isDotted = mDotInfo.hasDot();
         updateDotScale(wasDotted, isDotted);
+        onContentsChanged();
         setContentDescription(getAccessiblityTitle(mInfo.title));
         invalidate();
         requestLayout();
@@ -700,6 +776,7 @@ public class FolderIcon extends FrameLayout implements FolderListener, IconLabel
         items.stream().map(mActivity::getDotInfoForItem).forEach(mDotInfo::subtractDotInfo);
         boolean isDotted = mDotInfo.hasDot();
         updateDotScale(wasDotted, isDotted);
+        onContentsChanged();
         setContentDescription(getAccessiblityTitle(mInfo.title));
         invalidate();
         requestLayout();
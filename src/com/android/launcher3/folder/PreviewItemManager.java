@@ -28,13 +28,17 @@ import android.animation.AnimatorListenerAdapter;
 import android.animation.ObjectAnimator;
 import android.animation.ValueAnimator;
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.PointF;
 import android.graphics.Rect;
+import android.graphics.RectF;
 import android.graphics.drawable.Drawable;
 import android.util.FloatProperty;
 import android.view.View;
+import android.view.ViewParent;
 
 import androidx.annotation.NonNull;
 
@@ -42,6 +46,7 @@ import com.android.launcher3.BubbleTextView;
 import com.android.launcher3.Utilities;
 import com.android.launcher3.graphics.DrawableFactory;
 import com.android.launcher3.graphics.PreloadIconDrawable;
+import com.android.launcher3.icons.BitmapRenderer;
 import com.android.launcher3.model.data.ItemInfoWithIcon;
 import com.android.launcher3.model.data.WorkspaceItemInfo;
 import com.android.launcher3.views.ActivityContext;
@@ -95,12 +100,23 @@ public class PreviewItemManager {
     private float mCurrentPageItemsTransX = 0;
     private boolean mShouldSlideInFirstPage;
 
+    // Pre-rendered first page items, drawn instead of the individual items while the preview is
+    // static. It is cleared whenever the items, their drawing params or their drawables change.
+    private Bitmap mPreviewBitmap;
+    private final RectF mPreviewBitmapBounds = new RectF();
+    private final Paint mPreviewBitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    // Set when a preview drawable redraws itself (e.g. a clock), in which case the items are drawn
+    // individually until the drawables change, instead of rendering a bitmap on every update.
+    private boolean mHasSelfInvalidatingDrawable;
+
     static final int INITIAL_ITEM_ANIMATION_DURATION = 350;
     private static final int FINAL_ITEM_ANIMATION_DURATION = 200;
 
     private static final int SLIDE_IN_FIRST_PAGE_ANIMATION_DURATION_DELAY = 100;
     private static final int SLIDE_IN_FIRST_PAGE_ANIMATION_DURATION = 300;
     private static final int ITEM_SLIDE_IN_OUT_DISTANCE_PX = 200;
+    // Scale difference below which the preview bitmap is drawn without visible resampling
+    private static final float SCALE_EPSILON = 0.001f;
 
     public PreviewItemManager(FolderIcon icon) {
         mContext = icon.getContext();
@@ -151,6 +167,7 @@ public class PreviewItemManager {
             mIcon.mPreviewLayoutRule.init(mIcon.mBackground.previewSize, mIntrinsicIconSize,
                     Utilities.isRtl(mIcon.getResources()));
 
+            invalidatePreviewBitmap();
             updatePreviewItems(false);
         }
     }
@@ -195,6 +212,19 @@ public class PreviewItemManager {
         int saveCount = canvas.getSaveCount();
         // The items are drawn in coordinates relative to the preview offset
         PreviewBackground bg = mIcon.getFolderBackground();
+        // Hardware bitmaps can only be drawn on a hardware accelerated canvas
+        if (canvas.isHardwareAccelerated() && canUsePreviewBitmap()) {
+            if (mPreviewBitmap == null) {
+                mPreviewBitmap = createPreviewBitmap();
+            }
+            if (mPreviewBitmap != null) {
+                canvas.drawBitmap(mPreviewBitmap,
+                        bg.basePreviewOffsetX + mPreviewBitmapBounds.left,
+                        bg.basePreviewOffsetY + mPreviewBitmapBounds.top,
+                        mPreviewBitmapPaint);
+                return;
+            }
+        }
         Path clipPath = bg.getClipPath();
         float firstPageItemsTransX = 0;
         if (mShouldSlideInFirstPage) {
@@ -213,9 +243,87 @@ public class PreviewItemManager {
     }
 
     public void onParamsChanged() {
+        invalidatePreviewBitmap();
         mIcon.invalidate();
     }
 
+    /**
+     * Returns true if the first page items are at rest and drawn without any clipping or scaling,
+     * so that they can be drawn from a pre-rendered bitmap.
+     */
+    private boolean canUsePreviewBitmap() {
+        if (mShouldSlideInFirstPage || mHasSelfInvalidatingDrawable || mFirstPageParams.isEmpty()
+                || mIntrinsicIconSize <= 0) {
+            return false;
+        }
+        // The bitmap is rendered at 1x and would be blurry if the icon is scaled up, and it would
+        // be rendered again on every frame of a scale animation if rendered at the current scale.
+        if (isScaledInWindow()) {
+            return false;
+        }
+        for (int i = 0; i < mFirstPageParams.size(); i++) {
+            PreviewItemDrawingParams p = mFirstPageParams.get(i);
+            if (p.anim != null || p.index == EXIT_INDEX
+                    || p.drawable instanceof PreloadIconDrawable) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Bitmap createPreviewBitmap() {
+        RectF bounds = mPreviewBitmapBounds;
+        bounds.setEmpty();
+        for (int i = 0; i < mFirstPageParams.size(); i++) {
+            PreviewItemDrawingParams p = mFirstPageParams.get(i);
+            if (!p.hidden && p.drawable != null) {
+                float size = mIntrinsicIconSize * p.scale;
+                bounds.union(p.transX, p.transY, p.transX + size, p.transY + size);
+            }
+        }
+        if (bounds.isEmpty()) {
+            return null;
+        }
+        // Align the bitmap to the pixel grid so that it is drawn without resampling
+        bounds.set((float) Math.floor(bounds.left), (float) Math.floor(bounds.top),
+                (float) Math.ceil(bounds.right), (float) Math.ceil(bounds.bottom));
+        PointF offset = new PointF(-bounds.left, -bounds.top);
+        return BitmapRenderer.createHardwareBitmap((int) bounds.width(), (int) bounds.height(),
+                c -> drawParams(c, mFirstPageParams, offset, false, null));
+    }
+
+    /**
+     * Returns true if the folder icon is drawn scaled, by its own scale or its parents' scale
+     */
+    private boolean isScaledInWindow() {
+        float scaleX = 1;
+        float scaleY = 1;
+        for (View v = mIcon; v != null; ) {
+            scaleX *= v.getScaleX();
+            scaleY *= v.getScaleY();
+            ViewParent parent = v.getParent();
+            v = parent instanceof View ? (View) parent : null;
+        }
+        return Math.abs(scaleX - 1) > SCALE_EPSILON || Math.abs(scaleY - 1) > SCALE_EPSILON;
+    }
+
+    /**
+     * Discards the pre-rendered preview, it will be recreated on the next static frame
+     */
+    void invalidatePreviewBitmap() {
+        mPreviewBitmap = null;
+    }
+
+    /**
+     * Called when a drawable with the folder icon as callback requests to be redrawn
+     */
+    void onDrawableInvalidated(@NonNull Drawable who) {
+        if (mPreviewBitmap != null && verifyDrawable(who)) {
+            invalidatePreviewBitmap();
+            mHasSelfInvalidatingDrawable = true;
+        }
+    }
+
     /**
      * Draws each preview item.
      *
@@ -252,13 +360,18 @@ public class PreviewItemManager {
 
         PreviewItemDrawingParams params = index < mFirstPageParams.size() ?
                 mFirstPageParams.get(index) : null;
-        if (params != null) {
+        if (params != null && params.hidden != hidden) {
             params.hidden = hidden;
+            invalidatePreviewBitmap();
         }
     }
 
     void buildParamsForPage(int page, ArrayList<PreviewItemDrawingParams> params, boolean animate) {
         List<WorkspaceItemInfo> items = mIcon.getPreviewItemsOnPage(page);
+        if (params == mFirstPageParams) {
+            invalidatePreviewBitmap();
+            mHasSelfInvalidatingDrawable = false;
+        }
 
         // We adjust the size of the list to match the number of items in the preview.
         while (items.size() < params.size()) {
@@ -431,6 +544,8 @@ public class PreviewItemManager {
     }
 
     private void setDrawable(PreviewItemDrawingParams p, WorkspaceItemInfo item) {
+        invalidatePreviewBitmap();
+        mHasSelfInvalidatingDrawable = false;
         if (item.hasPromiseIconUi() || (item.runtimeStatusFlags
                     & ItemInfoWithIcon.FLAG_SHOW_DOWNLOAD_PROGRESS_MASK) != 0) {
             PreloadIconDrawable drawable = mDrawableFactory.newPendingIcon(mContext, item);
@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.launcher3.graphics;
+
+import static com.android.launcher3.util.Themes.getThemedIconPack;
+import static com.android.launcher3.util.Themes.isThemedIconEnabled;
+
+import android.app.WallpaperColors;
+import android.appwidget.AppWidgetHostView;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.util.Log;
+import android.util.LruCache;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
+
+import com.android.launcher3.model.BgDataModel;
+import com.android.launcher3.model.data.ItemInfo;
+import com.android.launcher3.model.data.ItemInfoWithIcon;
+import com.android.launcher3.util.MainThreadInitializedObject;
+
+import java.util.Objects;
+
+/**
+ * Cache of software rendered grid previews, so that the picker can show a preview without
+ * inflating a full {@link LauncherPreviewRenderer} view tree every time.
+ *
+ * Entries are keyed by everything that affects the rendered output: the grid name, the preview
+ * size, the icon theme state, the wallpaper colors and a signature of the workspace items. If any
+ * of these change, the lookup misses and the caller falls back to live rendering.
+ *
+ * Previews containing widgets, including the search widget, are not cached as their content is
+ * updated without any change to the key.
+ */
+public class PreviewBitmapCache implements ComponentCallbacks2 {
+
+    public static final MainThreadInitializedObject<PreviewBitmapCache> INSTANCE =
+            new MainThreadInitializedObject<>(PreviewBitmapCache::new);
+
+    private static final String TAG = "PreviewBitmapCache";
+
+    // Previews are roughly screen sized, keep a handful of them around
+    private static final int MAX_CACHE_SIZE_BYTES = 32 * 1024 * 1024;
+    private static final int MAX_UNCACHEABLE_KEYS = 16;
+
+    private final Context mContext;
+    private final LruCache<String, Bitmap> mCache =
+            new LruCache<String, Bitmap>(MAX_CACHE_SIZE_BYTES) {
+                @Override
+                protected int sizeOf(String key, Bitmap value) {
+                    return value.getAllocationByteCount();
+                }
+            };
+    // Keys of previews which could not be cached, to not try rendering them again on a miss
+    private final LruCache<String, Boolean> mUncacheableKeys =
+            new LruCache<>(MAX_UNCACHEABLE_KEYS);
+
+    private PreviewBitmapCache(Context context) {
+        mContext = context;
+        context.registerComponentCallbacks(this);
+    }
+
+    /**
+     * Returns the cache key for a preview with the provided params
+     */
+    @NonNull
+    public String getKey(@NonNull String gridName, int width, int height, boolean hideBottomRow,
+            @Nullable WallpaperColors colors, @NonNull BgDataModel dataModel) {
+        return gridName
+                + "|" + width + "x" + height
+                + "|" + hideBottomRow
+                + "|" + isThemedIconEnabled(mContext)
+                + "|" + getThemedIconPack(mContext)
+                + "|" + getColorsSignature(colors)
+                + "|" + Long.toHexString(getModelSignature(dataModel));
+    }
+
+    /**
+     * Returns the cached preview for the key or null
+     */
+    @Nullable
+    public Bitmap get(@NonNull String key) {
+        return mCache.get(key);
+    }
+
+    /**
+     * Returns whether the preview for the key can be cached, which is false after {@link #put}
+     * failed to cache it
+     */
+    public boolean isCacheable(@NonNull String key) {
+        return mUncacheableKeys.get(key) == null;
+    }
+
+    /**
+     * Renders the laid out view on a software canvas and caches the result for the key, unless
+     * the view contains widgets
+     */
+    @UiThread
+    public void put(@NonNull String key, @NonNull View view) {
+        int width = view.getMeasuredWidth();
+        int height = view.getMeasuredHeight();
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        if (containsWidget(view)) {
+            mUncacheableKeys.put(key, Boolean.TRUE);
+            return;
+        }
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        try {
+            view.draw(new Canvas(bitmap));
+        } catch (RuntimeException e) {
+            // Some content (like hardware bitmaps) cannot be drawn on a software canvas
+            Log.w(TAG, "Unable to snapshot preview", e);
+            bitmap.recycle();
+            mUncacheableKeys.put(key, Boolean.TRUE);
+            return;
+        }
+        mCache.put(key, bitmap);
+    }
+
+    /**
+     * Removes all cached previews
+     */
+    public void clear() {
+        mCache.evictAll();
+        mUncacheableKeys.evictAll();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_BACKGROUND) {
+            clear();
+        }
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration configuration) {
+        clear();
+    }
+
+    @Override
+    public void onLowMemory() {
+        clear();
+    }
+
+    private static boolean containsWidget(View view) {
+        if (view instanceof AppWidgetHostView) {
+            return true;
+        }
+        if (view instanceof ViewGroup vg) {
+            for (int i = vg.getChildCount() - 1; i >= 0; i--) {
+                if (containsWidget(vg.getChildAt(i))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int getColorsSignature(@Nullable WallpaperColors colors) {
+        if (colors == null) {
+            return 0;
+        }
+        return Objects.hash(colors.getPrimaryColor(), colors.getSecondaryColor(),
+                colors.getTertiaryColor(), colors.getColorHints());
+    }
+
+    private static long getModelSignature(@NonNull BgDataModel dataModel) {
+        long signature = 17;
+        synchronized (dataModel) {
+            for (ItemInfo info : dataModel.itemsIdMap) {
+                signature = 31 * signature + Objects.hash(info.id, info.itemType, info.container,
+                        info.screenId, info.cellX, info.cellY, info.spanX, info.spanY, info.rank,
+                        Objects.toString(info.title));
+                if (info instanceof ItemInfoWithIcon iwi) {
+                    // Icon updates always create a new BitmapInfo
+                    signature = 31 * signature + System.identityHashCode(iwi.bitmap);
+                }
+            }
+        }
+        return signature;
+    }
+}
@@ -17,6 +17,8 @@
 package com.android.launcher3.graphics;
 
 import static android.view.Display.DEFAULT_DISPLAY;
+import static android.view.View.MeasureSpec.EXACTLY;
+import static android.view.View.MeasureSpec.makeMeasureSpec;
 
 import static com.android.launcher3.LauncherSettings.Favorites.TABLE_NAME;
 import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
@@ -26,6 +28,7 @@ import android.app.WallpaperColors;
 import android.appwidget.AppWidgetProviderInfo;
 import android.content.Context;
 import android.database.Cursor;
+import android.graphics.Bitmap;
 import android.hardware.display.DisplayManager;
 import android.os.Bundle;
 import android.os.IBinder;
@@ -39,6 +42,7 @@ import android.view.SurfaceControlViewHost.SurfacePackage;
 import android.view.View;
 import android.view.WindowManager.LayoutParams;
 import android.view.animation.AccelerateDecelerateInterpolator;
+import android.widget.ImageView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -96,6 +100,9 @@ public class PreviewSurfaceRenderer {
 
     private boolean mDestroyed = false;
     private LauncherPreviewRenderer mRenderer;
+    // Non-null while a cached snapshot is shown instead of the live preview
+    @Nullable
+    private Runnable mLiveRenderer;
     private boolean mHideQsb;
 
     public PreviewSurfaceRenderer(Context context, Bundle bundle) throws Exception {
@@ -191,6 +198,17 @@ public class PreviewSurfaceRenderer {
      * @param hide True to hide and false to show.
      */
     public void hideBottomRow(boolean hide) {
+        if (mLiveRenderer != null && hide != mHideQsb) {
+            // Showing a cached snapshot for different params, switch to live rendering
+            mHideQsb = hide;
+            MAIN_EXECUTOR.execute(() -> {
+                if (!mDestroyed && mLiveRenderer != null) {
+                    mLiveRenderer.run();
+                }
+            });
+            return;
+        }
+        mHideQsb = hide;
         if (mRenderer != null) {
             mRenderer.hideBottomRow(hide);
         }
@@ -285,10 +303,45 @@ public class PreviewSurfaceRenderer {
         if (mDestroyed) {
             return;
         }
+        PreviewBitmapCache cache = PreviewBitmapCache.INSTANCE.get(mContext);
+        String snapshotKey = cache.getKey(mGridName, mWidth, mHeight, mHideQsb,
+                mWallpaperColors, dataModel);
+        Bitmap snapshot = cache.get(snapshotKey);
+        if (snapshot != null) {
+            // Show the cached preview right away, only inflate the real views if the inputs
+            // change while the preview is visible.
+            mLiveRenderer = () -> renderLiveView(inflationContext, dataModel,
+                    widgetProviderInfoMap, launcherWidgetSpanInfo, idp, null);
+            ImageView view = new ImageView(inflationContext);
+            view.setImageBitmap(snapshot);
+            view.measure(makeMeasureSpec(snapshot.getWidth(), EXACTLY),
+                    makeMeasureSpec(snapshot.getHeight(), EXACTLY));
+            view.layout(0, 0, snapshot.getWidth(), snapshot.getHeight());
+            attachView(view);
+            return;
+        }
+        renderLiveView(inflationContext, dataModel, widgetProviderInfoMap,
+                launcherWidgetSpanInfo, idp, cache.isCacheable(snapshotKey) ? snapshotKey : null);
+    }
+
+    @UiThread
+    private void renderLiveView(Context inflationContext, BgDataModel dataModel,
+            Map<ComponentKey, AppWidgetProviderInfo> widgetProviderInfoMap,
+            @Nullable final SparseArray<Size> launcherWidgetSpanInfo, InvariantDeviceProfile idp,
+            @Nullable String snapshotKey) {
+        mLiveRenderer = null;
         mRenderer = new LauncherPreviewRenderer(inflationContext, idp,
                 mWallpaperColors, launcherWidgetSpanInfo);
         mRenderer.hideBottomRow(mHideQsb);
         View view = mRenderer.getRenderedView(dataModel, widgetProviderInfoMap);
+        if (snapshotKey != null) {
+            PreviewBitmapCache.INSTANCE.get(mContext).put(snapshotKey, view);
+        }
+        attachView(view);
+    }
+
+    @UiThread
+    private void attachView(View view) {
         // This aspect scales the view to fit in the surface and centers it
         final float scale = Math.min(mWidth / (float) view.getMeasuredWidth(),
                 mHeight / (float) view.getMeasuredHeight());
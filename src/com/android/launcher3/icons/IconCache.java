@@ -56,6 +56,7 @@ import com.android.launcher3.icons.ComponentWithLabel.ComponentCachingLogic;
 import com.android.launcher3.icons.cache.BaseIconCache;
 import com.android.launcher3.icons.cache.CachingLogic;
 import com.android.launcher3.icons.cache.HandlerRunnable;
+import com.android.launcher3.logging.EventTrace;
 import com.android.launcher3.model.data.AppInfo;
 import com.android.launcher3.model.data.IconRequestInfo;
 import com.android.launcher3.model.data.ItemInfoWithIcon;
@@ -91,6 +92,10 @@ public class IconCache extends BaseIconCache {
 
     private static final String TAG = "Launcher.IconCache";
 
+    private static final String SPAN_GET_TITLE_AND_ICON = "iconCache.getTitleAndIcon";
+    private static final String SPAN_GET_TITLE_AND_ICON_LOW_RES =
+            "iconCache.getTitleAndIcon.lowRes";
+
     private final Predicate<ItemInfoWithIcon> mIsUsingFallbackOrNonDefaultIconCheck = w ->
             w.bitmap != null && (w.bitmap.isNullOrLowRes() || !isDefaultIcon(w.bitmap, w.user));
 
@@ -331,10 +336,13 @@ public class IconCache extends BaseIconCache {
             @NonNull ItemInfoWithIcon infoInOut,
             @NonNull Supplier<LauncherActivityInfo> activityInfoProvider,
             boolean usePkgIcon, boolean useLowResIcon) {
+        long start = EventTrace.now();
         CacheEntry entry = cacheLocked(infoInOut.getTargetComponent(), infoInOut.user,
                 activityInfoProvider, mLauncherActivityInfoCachingLogic, usePkgIcon,
                 useLowResIcon);
         applyCacheEntry(entry, infoInOut);
+        EventTrace.recordSpan(useLowResIcon
+                ? SPAN_GET_TITLE_AND_ICON_LOW_RES : SPAN_GET_TITLE_AND_ICON, start);
     }
 
     /**
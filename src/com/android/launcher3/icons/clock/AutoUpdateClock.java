@@ -2,7 +2,6 @@ package com.android.launcher3.icons.clock;
 
 import android.graphics.Canvas;
 import android.graphics.Rect;
-import android.os.SystemClock;
 
 import com.android.launcher3.icons.FastBitmapDrawable;
 import com.android.launcher3.model.data.ItemInfoWithIcon;
@@ -10,19 +9,16 @@ import com.android.launcher3.Utilities;
 
 import java.util.TimeZone;
 
-class AutoUpdateClock extends FastBitmapDrawable implements Runnable {
+class AutoUpdateClock extends FastBitmapDrawable {
+    private final ClockTickScheduler mScheduler;
     private ClockLayers mLayers;
+    // Whether the clock was invalidated by a tick and has not been drawn since
+    private boolean mWaitingForDraw;
 
-    AutoUpdateClock(ItemInfoWithIcon info, ClockLayers layers) {
+    AutoUpdateClock(ItemInfoWithIcon info, ClockLayers layers, ClockTickScheduler scheduler) {
         super(info.bitmap);
         mLayers = layers;
-    }
-
-    private void rescheduleUpdate() {
-        long millisInSecond = 1000L;
-        unscheduleSelf(this);
-        long uptimeMillis = SystemClock.uptimeMillis();
-        scheduleSelf(this, uptimeMillis - uptimeMillis % millisInSecond + millisInSecond);
+        mScheduler = scheduler;
     }
 
     // Used only by Google Clock
@@ -53,8 +49,22 @@ class AutoUpdateClock extends FastBitmapDrawable implements Runnable {
                     rect.exactCenterY() + mLayers.offset);
             canvas.clipPath(mLayers.mDrawable.getIconMask());
             mLayers.mDrawable.getForeground().draw(canvas);
-            rescheduleUpdate();
+            mWaitingForDraw = false;
+            mScheduler.register(this);
+        }
+    }
+
+    @Override
+    public boolean setVisible(boolean visible, boolean restart) {
+        boolean changed = super.setVisible(visible, restart);
+        if (!visible) {
+            mScheduler.unregister(this);
         }
+        return changed;
+    }
+
+    boolean hasSecondHand() {
+        return mLayers != null && mLayers.mSecondIndex != -1;
     }
 
     @Override
@@ -65,12 +75,21 @@ class AutoUpdateClock extends FastBitmapDrawable implements Runnable {
         }
     }
 
-    @Override
-    public void run() {
-        if (mLayers.updateAngles()) {
+    /**
+     * Called by {@link ClockTickScheduler} every second or minute while the clock is visible
+     */
+    void onTick() {
+        if (mLayers != null && mLayers.updateAngles()) {
+            mWaitingForDraw = true;
             invalidateSelf();
-        } else {
-            rescheduleUpdate();
         }
     }
+
+    /**
+     * Returns whether the clock was not drawn since the last tick invalidated it, e.g. as it is
+     * on an offscreen page
+     */
+    boolean isWaitingForDraw() {
+        return mWaitingForDraw;
+    }
 }
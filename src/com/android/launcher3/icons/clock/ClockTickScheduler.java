@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.icons.clock;
+
+import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.ArraySet;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.android.launcher3.util.MainThreadInitializedObject;
+import com.android.launcher3.util.SafeCloseable;
+import com.android.launcher3.util.ScreenOnTracker;
+import com.android.launcher3.util.ScreenOnTracker.ScreenOnListener;
+
+import java.util.ArrayList;
+
+/**
+ * Single tick source for all the {@link AutoUpdateClock} icons, instead of each icon scheduling
+ * its own update every second.
+ *
+ * Clocks register themselves when they are drawn and are dropped once they are no longer
+ * visible or attached, or are not redrawn after a tick invalidated them. Ticks are aligned to the wall clock second, or minute when none of the registered
+ * clocks has a second hand, and stop while the screen is off.
+ */
+class ClockTickScheduler implements Runnable, ScreenOnListener, SafeCloseable {
+
+    static final MainThreadInitializedObject<ClockTickScheduler> INSTANCE =
+            new MainThreadInitializedObject<>(ClockTickScheduler::new);
+
+    private static final long SECOND_MILLIS = 1000L;
+    private static final long MINUTE_MILLIS = 60 * SECOND_MILLIS;
+    private static final long NOT_SCHEDULED = -1;
+
+    private final ArraySet<AutoUpdateClock> mClocks = new ArraySet<>();
+    private final ArrayList<AutoUpdateClock> mTickList = new ArrayList<>();
+    private final Handler mHandler = MAIN_EXECUTOR.getHandler();
+    private final ScreenOnTracker mScreenOnTracker;
+
+    private boolean mIsScreenOn;
+    // Uptime of the next tick
+    private long mNextTickTime = NOT_SCHEDULED;
+
+    private ClockTickScheduler(Context context) {
+        mScreenOnTracker = ScreenOnTracker.INSTANCE.get(context);
+        mIsScreenOn = mScreenOnTracker.isScreenOn();
+        mScreenOnTracker.addListener(this);
+    }
+
+    /**
+     * Registers the clock for updates, until it is no longer visible or drawn
+     */
+    void register(AutoUpdateClock clock) {
+        if (!isMainThread()) {
+            // Clocks drawn on other threads (e.g. previews) are not updated
+            return;
+        }
+        mClocks.add(clock);
+        scheduleTick();
+    }
+
+    /**
+     * Stops updating the clock
+     */
+    void unregister(AutoUpdateClock clock) {
+        if (isMainThread() && mClocks.remove(clock) && mClocks.isEmpty()) {
+            cancelTick();
+        }
+    }
+
+    @Override
+    public void onScreenOnChanged(boolean isOn) {
+        mIsScreenOn = isOn;
+        if (isOn) {
+            // Catch up with the time elapsed while the screen was off
+            cancelTick();
+            run();
+        } else {
+            cancelTick();
+        }
+    }
+
+    @Override
+    public void run() {
+        mNextTickTime = NOT_SCHEDULED;
+        // Copy the clocks as they can register or unregister while being updated
+        mTickList.addAll(mClocks);
+        for (int i = mTickList.size() - 1; i >= 0; i--) {
+            AutoUpdateClock clock = mTickList.get(i);
+            if (clock.getCallback() == null || !clock.isVisible() || clock.isWaitingForDraw()) {
+                mClocks.remove(clock);
+            } else {
+                clock.onTick();
+            }
+        }
+        mTickList.clear();
+        scheduleTick();
+    }
+
+    private void scheduleTick() {
+        if (!mIsScreenOn || mClocks.isEmpty()) {
+            cancelTick();
+            return;
+        }
+        long tickTime = SystemClock.uptimeMillis()
+                + getDelayToNextTick(System.currentTimeMillis(), hasSecondHand());
+        if (mNextTickTime != NOT_SCHEDULED && mNextTickTime <= tickTime) {
+            // Already scheduled early enough
+            return;
+        }
+        mHandler.removeCallbacks(this);
+        mHandler.postAtTime(this, tickTime);
+        mNextTickTime = tickTime;
+    }
+
+    private void cancelTick() {
+        mHandler.removeCallbacks(this);
+        mNextTickTime = NOT_SCHEDULED;
+    }
+
+    private static boolean isMainThread() {
+        return Looper.myLooper() == Looper.getMainLooper();
+    }
+
+    private boolean hasSecondHand() {
+        for (int i = mClocks.size() - 1; i >= 0; i--) {
+            if (mClocks.valueAt(i).hasSecondHand()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the delay until the start of the next second or minute, in wall clock time
+     */
+    @VisibleForTesting
+    static long getDelayToNextTick(long currentTimeMillis, boolean hasSecondHand) {
+        long interval = hasSecondHand ? SECOND_MILLIS : MINUTE_MILLIS;
+        return interval - currentTimeMillis % interval;
+    }
+
+    @Override
+    public void close() {
+        mScreenOnTracker.removeListener(this);
+        cancelTick();
+        mClocks.clear();
+    }
+}
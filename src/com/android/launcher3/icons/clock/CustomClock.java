@@ -28,9 +28,11 @@ import java.util.WeakHashMap;
 public class CustomClock {
     private final Context mContext;
     private final Set<AutoUpdateClock> mUpdaters = Collections.newSetFromMap(new WeakHashMap<>());
+    private final ClockTickScheduler mTickScheduler;
 
     public CustomClock(Context context) {
         mContext = context;
+        mTickScheduler = ClockTickScheduler.INSTANCE.get(context);
 
         mContext.registerReceiver(new BroadcastReceiver() {
             @Override
@@ -93,7 +95,8 @@ public class CustomClock {
     public FastBitmapDrawable drawIcon(ItemInfoWithIcon info, Drawable drawableForDensity,
                                        Metadata metadata) {
         final AutoUpdateClock updater = new AutoUpdateClock(info,
-                getClockLayers(mContext, drawableForDensity, metadata,true).clone()
+                getClockLayers(mContext, drawableForDensity, metadata,true).clone(),
+                mTickScheduler
         );
         mUpdaters.add(updater);
         return updater;
@@ -42,11 +42,13 @@ public class DynamicClock extends BroadcastReceiver {
     private final Set<AutoUpdateClock> mUpdaters;
     private ClockLayers mLayers;
     private final Context mContext;
+    private final ClockTickScheduler mTickScheduler;
 
     public DynamicClock(Context context) {
         mUpdaters = Collections.newSetFromMap(new WeakHashMap<>());
         mLayers = new ClockLayers();
         mContext = context;
+        mTickScheduler = ClockTickScheduler.INSTANCE.get(context);
         final Handler handler = new Handler(MODEL_EXECUTOR.getLooper());
 
         IntentFilter filter = new IntentFilter();
@@ -149,7 +151,7 @@ public class DynamicClock extends BroadcastReceiver {
     }
 
     public AutoUpdateClock drawIcon(ItemInfoWithIcon info) {
-        final AutoUpdateClock updater = new AutoUpdateClock(info, mLayers.clone());
+        final AutoUpdateClock updater = new AutoUpdateClock(info, mLayers.clone(), mTickScheduler);
         mUpdaters.add(updater);
         return updater;
     }
@@ -22,6 +22,7 @@ class IconPack {
     private final CharSequence mPackageLabel;
     private Data mData;
     private Resources mRes;
+    private MaskLayerCache mMaskLayers;
 
     IconPack(ApplicationInfo ai, CharSequence label) {
         mAi = ai;
@@ -56,6 +57,14 @@ class IconPack {
         return res.getIdentifier(data.drawables.get(name), "drawable", pkg);
     }
 
+    synchronized MaskLayerCache getMaskLayers(PackageManager pm)
+            throws PackageManager.NameNotFoundException {
+        if (mMaskLayers == null) {
+            mMaskLayers = new MaskLayerCache(getResources(pm));
+        }
+        return mMaskLayers;
+    }
+
     private Resources getResources(PackageManager pm) throws PackageManager.NameNotFoundException {
         if (mRes == null) {
             mRes = pm.getResourcesForApplication(getPackage());
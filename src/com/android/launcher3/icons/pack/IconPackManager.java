@@ -184,7 +184,8 @@ public class IconPackManager extends BroadcastReceiver {
                     }
                 }
                 if (data.hasMasking()) {
-                    return new IconResolverMasked(mContext, data, pack.getAi(), key.hashCode());
+                    return new IconResolverMasked(mContext, data,
+                            pack.getMaskLayers(mContext.getPackageManager()), key.hashCode());
                 }
             } catch (PackageManager.NameNotFoundException | XmlPullParserException | IOException ignored) {
             }
@@ -1,10 +1,6 @@
 package com.android.launcher3.icons.pack;
 
-import android.annotation.SuppressLint;
 import android.content.Context;
-import android.content.pm.ApplicationInfo;
-import android.content.pm.PackageManager;
-import android.content.res.Resources;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
@@ -12,29 +8,36 @@ import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.PorterDuff;
 import android.graphics.PorterDuffXfermode;
+import android.graphics.Xfermode;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 
 import com.android.launcher3.icons.BaseIconFactory;
 import com.android.launcher3.icons.LauncherIcons;
-import static com.android.launcher3.icons.LauncherIcons.CONFIG_HINT_NO_WRAP;
 
 import com.android.launcher3.icons.clock.CustomClock;
 
+import java.util.List;
+
 public class IconResolverMasked implements IconResolver {
+    private static final Xfermode MODE_MASK = new PorterDuffXfermode(PorterDuff.Mode.DST_OUT);
+    private static final Xfermode MODE_BACK = new PorterDuffXfermode(PorterDuff.Mode.DST_OVER);
+    private static final Xfermode MODE_UPON = new PorterDuffXfermode(PorterDuff.Mode.SRC_ATOP);
+
+    // Icons can be generated on multiple threads, each of them reuses its own buffers.
+    private static final ThreadLocal<Compositor> sCompositor =
+            ThreadLocal.withInitial(Compositor::new);
+
     private final Context mContext;
     private final IconPack.Data mData;
-    private final ApplicationInfo mPackInfo;
+    private final MaskLayerCache mLayers;
     private final int mHashCode;
 
-    private final Canvas mCanvas = new Canvas();
-    private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
-
-    IconResolverMasked(Context context, IconPack.Data data, ApplicationInfo packInfo,
+    IconResolverMasked(Context context, IconPack.Data data, MaskLayerCache layers,
                        int hashCode) {
         mContext = context;
         mData = data;
-        mPackInfo = packInfo;
+        mLayers = layers;
         mHashCode = hashCode & 0xFFFF;
     }
 
@@ -58,117 +61,81 @@ public class IconResolverMasked implements IconResolver {
         Drawable icon = fallback.get();
 
         LauncherIcons li = LauncherIcons.obtain(mContext);
-        PackageManager pm = mContext.getPackageManager();
+        Compositor c = sCompositor.get();
         try {
-            Resources res = pm.getResourcesForApplication(mPackInfo);
-
             // Re-render without scaling after creating the bitmap in the right dimensions.
             Bitmap iconBm = li.createScaledBitmap(icon, BaseIconFactory.MODE_WITH_SHADOW);
-            mCanvas.setBitmap(iconBm);
-            icon.setBounds(0, 0, iconBm.getWidth(), iconBm.getHeight());
-            icon.draw(mCanvas);
+            int size = iconBm.getWidth();
+            c.canvas.setBitmap(iconBm);
+            icon.setBounds(0, 0, size, iconBm.getHeight());
+            icon.draw(c.canvas);
+
+            // Render the other layers of the pack in the background while this icon is drawn.
+            mLayers.preload(mData, iconDpi, size);
 
             // Scale the bitmap using the icon pack scale.
-            scaleBitmap(iconBm, mData.scale);
+            scaleBitmap(c, iconBm, mData.scale);
 
             // Cut parts off using the mask image.
-            if (!mData.iconMasks.isEmpty()) {
-                int iconMask = mData.iconMasks.get(mHashCode % mData.iconMasks.size());
-                maskBitmap(iconBm, res.getDrawableForDensity(iconMask, iconDpi, null));
-            }
+            drawLayer(c, iconBm, mData.iconMasks, iconDpi, MODE_MASK);
 
             // Add icon back after scaling.
-            if (!mData.iconBacks.isEmpty()) {
-                int iconBack = mData.iconBacks.get(mHashCode % mData.iconBacks.size());
-                backBitmap(iconBm, res.getDrawableForDensity(iconBack, iconDpi, null), li);
-            }
+            drawLayer(c, iconBm, mData.iconBacks, iconDpi, MODE_BACK);
 
             // Render upon image onto icon. We use SRC_ATOP to make sure it stays within bounds.
-            if (!mData.iconUpons.isEmpty()) {
-                int iconUpon = mData.iconUpons.get(mHashCode % mData.iconUpons.size());
-                uponBitmap(iconBm, res.getDrawableForDensity(iconUpon, iconDpi, null));
-            }
+            drawLayer(c, iconBm, mData.iconUpons, iconDpi, MODE_UPON);
 
             return new BitmapDrawable(mContext.getResources(), iconBm);
-        } catch (PackageManager.NameNotFoundException | Resources.NotFoundException e) {
-            e.printStackTrace();
+        } finally {
+            c.canvas.setBitmap(null);
+            li.recycle();
         }
-
-        li.recycle();
-        return icon;
     }
 
-    private void scaleBitmap(Bitmap bitmap, float scale) {
+    private void scaleBitmap(Compositor c, Bitmap bitmap, float scale) {
         if (scale != 1f) {
-            Bitmap iconBmScaled = Bitmap.createScaledBitmap(bitmap,
-                    (int)(bitmap.getWidth() * mData.scale),
-                    (int)(bitmap.getHeight() * mData.scale),
-                    true);
+            Bitmap copy = c.getScratch(bitmap.getWidth(), bitmap.getHeight());
+            c.canvas.setBitmap(copy);
+            c.canvas.drawBitmap(bitmap, 0f, 0f, null);
 
-            float move = 0.5f * (1f - mData.scale);
-
-            Matrix matrix = new Matrix();
-            matrix.postTranslate(move * bitmap.getWidth(), move * bitmap.getHeight());
+            float move = 0.5f * (1f - scale);
+            c.matrix.setScale(scale, scale);
+            c.matrix.postTranslate(move * bitmap.getWidth(), move * bitmap.getHeight());
 
             bitmap.eraseColor(Color.TRANSPARENT);
-            mCanvas.setBitmap(bitmap);
-            mCanvas.drawBitmap(iconBmScaled, matrix, null);
-
-            iconBmScaled.recycle();
-        }
-    }
-
-    private void maskBitmap(Bitmap bitmap, Drawable mask) {
-        if (mask != null) {
-            Bitmap maskBm = Bitmap.createBitmap(
-                    bitmap.getWidth(), bitmap.getHeight(), Bitmap.Config.ARGB_8888);
-
-            // Render the mask image to a bitmap.
-            mCanvas.setBitmap(maskBm);
-            mask.setBounds(0, 0, bitmap.getWidth(), bitmap.getHeight());
-            mask.draw(mCanvas);
-
-            // Then use PorterDuff to remove black mask parts.
-            mPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.DST_OUT));
-            mCanvas.setBitmap(bitmap);
-            mCanvas.drawBitmap(maskBm, 0f, 0f, mPaint);
-
-            maskBm.recycle();
+            c.canvas.setBitmap(bitmap);
+            c.paint.setXfermode(null);
+            c.canvas.drawBitmap(copy, c.matrix, c.paint);
         }
     }
 
-    @SuppressLint("WrongConstant")
-    private void backBitmap(Bitmap bitmap, Drawable back, LauncherIcons li) {
-        if (back != null) {
-            Bitmap backBm = Bitmap.createBitmap(
-                    bitmap.getWidth(), bitmap.getHeight(), Bitmap.Config.ARGB_8888);
-
-            mCanvas.setBitmap(backBm);
-            back.setBounds(0, 0, bitmap.getWidth(), bitmap.getHeight());
-            back.draw(mCanvas);
-
-            mPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.DST_OVER));
-            mCanvas.setBitmap(bitmap);
-            mCanvas.drawBitmap(backBm, 0f, 0f, mPaint);
-
-            backBm.recycle();
+    private void drawLayer(Compositor c, Bitmap bitmap, List<Integer> ids, int iconDpi,
+            Xfermode mode) {
+        if (!ids.isEmpty()) {
+            int id = ids.get(mHashCode % ids.size());
+            Bitmap layer = mLayers.get(id, iconDpi, bitmap.getWidth());
+            if (layer != null) {
+                c.paint.setXfermode(mode);
+                c.canvas.setBitmap(bitmap);
+                c.canvas.drawBitmap(layer, 0f, 0f, c.paint);
+            }
         }
     }
 
-    private void uponBitmap(Bitmap bitmap, Drawable upon) {
-        if (upon != null) {
-            Bitmap uponBm = Bitmap.createBitmap(
-                    bitmap.getWidth(), bitmap.getHeight(), Bitmap.Config.ARGB_8888);
-
-            mCanvas.setBitmap(uponBm);
-            upon.setBounds(0, 0, bitmap.getWidth(), bitmap.getHeight());
-            upon.draw(mCanvas);
-
-            mPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC_ATOP));
-            mCanvas.setBitmap(bitmap);
-            mCanvas.drawBitmap(uponBm, 0f, 0f, mPaint);
-
-            uponBm.recycle();
+    private static class Compositor {
+        final Canvas canvas = new Canvas();
+        final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+        final Matrix matrix = new Matrix();
+        private Bitmap mScratch;
+
+        Bitmap getScratch(int width, int height) {
+            if (mScratch == null
+                    || mScratch.getWidth() != width || mScratch.getHeight() != height) {
+                mScratch = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            } else {
+                mScratch.eraseColor(Color.TRANSPARENT);
+            }
+            return mScratch;
         }
     }
 }
@@ -0,0 +1,144 @@
+package com.android.launcher3.icons.pack;
+
+import static com.android.launcher3.util.Executors.THREAD_POOL_EXECUTOR;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.util.Log;
+import android.util.SparseArray;
+
+import com.android.launcher3.util.IntArray;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Caches the iconback, iconmask and iconupon layers of an icon pack, rendered at the size of the
+ * icon bitmaps, so they are decoded once per pack and density instead of once for every icon.
+ * The layers are shared between threads and must not be modified.
+ *
+ * Layers are cached per density and size, so that callers rendering icons at different sizes do
+ * not evict each other. Only the most recently used configurations are kept.
+ */
+class MaskLayerCache {
+    private static final String TAG = "MaskLayerCache";
+
+    // Number of density and size configurations kept in the cache
+    private static final int MAX_CONFIGS = 3;
+
+    private final Resources mRes;
+    // Rendered layers by resource id, for each configuration
+    private final SparseArray<SparseArray<FutureTask<Bitmap>>> mLayers = new SparseArray<>();
+    // Configurations in the cache, the most recently used last
+    private final IntArray mConfigs = new IntArray(MAX_CONFIGS + 1);
+    private final IntArray mPreloadedConfigs = new IntArray(MAX_CONFIGS);
+
+    MaskLayerCache(Resources res) {
+        mRes = res;
+    }
+
+    /**
+     * Starts rendering all layers of the pack in parallel, so that a bulk icon update does not
+     * have to decode every iconback variant one after the other.
+     */
+    void preload(IconPack.Data data, int iconDpi, int size) {
+        synchronized (mLayers) {
+            int config = getConfig(iconDpi, size);
+            SparseArray<FutureTask<Bitmap>> layers = getLayersLocked(config);
+            if (mPreloadedConfigs.contains(config)) {
+                return;
+            }
+            mPreloadedConfigs.add(config);
+            preloadLocked(layers, data.iconMasks, iconDpi, size);
+            preloadLocked(layers, data.iconBacks, iconDpi, size);
+            preloadLocked(layers, data.iconUpons, iconDpi, size);
+        }
+    }
+
+    private void preloadLocked(SparseArray<FutureTask<Bitmap>> layers, List<Integer> ids,
+            int iconDpi, int size) {
+        for (int id : ids) {
+            if (layers.get(id) == null) {
+                FutureTask<Bitmap> task = createTaskLocked(layers, id, iconDpi, size);
+                THREAD_POOL_EXECUTOR.execute(task);
+            }
+        }
+    }
+
+    /**
+     * Returns the layer rendered at the given density and size, or null if it cannot be loaded.
+     * Blocks if the layer is being rendered on another thread.
+     */
+    Bitmap get(int id, int iconDpi, int size) {
+        FutureTask<Bitmap> task;
+        synchronized (mLayers) {
+            SparseArray<FutureTask<Bitmap>> layers = getLayersLocked(getConfig(iconDpi, size));
+            task = layers.get(id);
+            if (task == null) {
+                task = createTaskLocked(layers, id, iconDpi, size);
+            }
+        }
+        // Renders the layer on this thread, unless it is already started elsewhere.
+        task.run();
+        try {
+            return task.get();
+        } catch (InterruptedException | ExecutionException e) {
+            Log.e(TAG, "Unable to render layer " + id, e);
+            return null;
+        }
+    }
+
+    private static int getConfig(int iconDpi, int size) {
+        // Both values are well below 16 bits
+        return (iconDpi << 16) | (size & 0xFFFF);
+    }
+
+    /**
+     * Returns the layers for the configuration, marking it as the most recently used and evicting
+     * the least recently used configuration if needed.
+     */
+    private SparseArray<FutureTask<Bitmap>> getLayersLocked(int config) {
+        SparseArray<FutureTask<Bitmap>> layers = mLayers.get(config);
+        if (layers == null) {
+            layers = new SparseArray<>();
+            mLayers.put(config, layers);
+        } else {
+            mConfigs.removeValue(config);
+        }
+        mConfigs.add(config);
+        if (mConfigs.size() > MAX_CONFIGS) {
+            int evicted = mConfigs.get(0);
+            mConfigs.removeIndex(0);
+            mLayers.remove(evicted);
+            mPreloadedConfigs.removeValue(evicted);
+        }
+        return layers;
+    }
+
+    private FutureTask<Bitmap> createTaskLocked(SparseArray<FutureTask<Bitmap>> layers, int id,
+            int iconDpi, int size) {
+        FutureTask<Bitmap> task = new FutureTask<>(() -> render(id, iconDpi, size));
+        layers.put(id, task);
+        return task;
+    }
+
+    private Bitmap render(int id, int iconDpi, int size) {
+        Drawable layer;
+        try {
+            layer = mRes.getDrawableForDensity(id, iconDpi, null);
+        } catch (Resources.NotFoundException e) {
+            e.printStackTrace();
+            return null;
+        }
+        if (layer == null) {
+            return null;
+        }
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        layer.setBounds(0, 0, size, size);
+        layer.draw(new Canvas(bitmap));
+        return bitmap;
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.logging;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.launcher3.util.SafeCloseable;
+
+import java.io.PrintWriter;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Lightweight instrumentation for recording named timing spans and counters across subsystems
+ * (model loading, binding, icon cache, thumbnails, gestures).
+ *
+ * Events are recorded in a fixed size buffer owned by the calling thread, and only aggregated
+ * into per name histograms when the buffer fills up or when the stats are dumped. Buffers of
+ * threads which have terminated are dropped once aggregated. Span names are
+ * expected to be constants, prefixed by the subsystem, e.g. "loader.loadWorkspace".
+ */
+public final class EventTrace {
+
+    private static final int BUFFER_SIZE = 128;
+    private static final long NO_DURATION = -1;
+
+    private static final ThreadLocal<ThreadBuffer> sThreadBuffer =
+            ThreadLocal.withInitial(ThreadBuffer::new);
+    private static final ArrayList<ThreadBuffer> sAllBuffers = new ArrayList<>();
+
+    // Aggregated values, guarded by sAllBuffers
+    private static final TreeMap<String, Histogram> sSpans = new TreeMap<>();
+    private static final TreeMap<String, long[]> sCounters = new TreeMap<>();
+
+    private EventTrace() { }
+
+    /**
+     * Returns the current time to be used as the start of a span
+     */
+    public static long now() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a span which started at {@code startNanos} (as returned by {@link #now()}) and ends
+     * now.
+     */
+    public static void recordSpan(@NonNull String name, long startNanos) {
+        recordDuration(name, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records a span with the provided duration
+     */
+    public static void recordDuration(@NonNull String name, long durationNanos) {
+        sThreadBuffer.get().add(name, Math.max(durationNanos, 0));
+    }
+
+    /**
+     * Increments the counter with the provided name
+     */
+    public static void incrementCounter(@NonNull String name) {
+        sThreadBuffer.get().add(name, NO_DURATION);
+    }
+
+    /**
+     * Returns a SafeCloseable which records a span from now until it is closed
+     */
+    public static SafeCloseable span(@NonNull String name) {
+        long start = System.nanoTime();
+        return () -> recordSpan(name, start);
+    }
+
+    /**
+     * Dumps the aggregated stats
+     */
+    public static void dump(String prefix, PrintWriter writer) {
+        synchronized (sAllBuffers) {
+            aggregateLocked();
+            writer.println(prefix + "EventTrace spans (count, p50/p95/p99/max in us):");
+            for (Map.Entry<String, Histogram> e : sSpans.entrySet()) {
+                Histogram h = e.getValue();
+                writer.println(prefix + "  " + e.getKey()
+                        + ": count=" + h.mCount
+                        + " p50=" + h.getPercentileMicros(0.50f)
+                        + " p95=" + h.getPercentileMicros(0.95f)
+                        + " p99=" + h.getPercentileMicros(0.99f)
+                        + " max=" + h.mMaxNanos / 1000
+                        + " total=" + h.mTotalNanos / 1000);
+            }
+            writer.println(prefix + "EventTrace counters:");
+            for (Map.Entry<String, long[]> e : sCounters.entrySet()) {
+                writer.println(prefix + "  " + e.getKey() + ": " + e.getValue()[0]);
+            }
+        }
+    }
+
+    /**
+     * Returns the aggregated histogram for the span or null if it was never recorded
+     */
+    @VisibleForTesting
+    static Histogram getSpan(String name) {
+        synchronized (sAllBuffers) {
+            aggregateLocked();
+            return sSpans.get(name);
+        }
+    }
+
+    /**
+     * Returns the value of the counter
+     */
+    @VisibleForTesting
+    static long getCounter(String name) {
+        synchronized (sAllBuffers) {
+            aggregateLocked();
+            long[] value = sCounters.get(name);
+            return value == null ? 0 : value[0];
+        }
+    }
+
+    /**
+     * Returns the number of thread buffers which are not yet dropped
+     */
+    @VisibleForTesting
+    static int getBufferCount() {
+        synchronized (sAllBuffers) {
+            aggregateLocked();
+            return sAllBuffers.size();
+        }
+    }
+
+    /**
+     * Clears all the recorded data
+     */
+    @VisibleForTesting
+    static void reset() {
+        synchronized (sAllBuffers) {
+            aggregateLocked();
+            sSpans.clear();
+            sCounters.clear();
+        }
+    }
+
+    private static void aggregateLocked() {
+        for (int i = sAllBuffers.size() - 1; i >= 0; i--) {
+            ThreadBuffer buffer = sAllBuffers.get(i);
+            buffer.flushLocked();
+            if (!buffer.isOwnerAlive()) {
+                // The owner can no longer record events, drop the buffer once aggregated
+                sAllBuffers.remove(i);
+            }
+        }
+    }
+
+    private static void addLocked(String name, long value) {
+        if (value == NO_DURATION) {
+            long[] counter = sCounters.get(name);
+            if (counter == null) {
+                counter = new long[1];
+                sCounters.put(name, counter);
+            }
+            counter[0]++;
+        } else {
+            Histogram h = sSpans.get(name);
+            if (h == null) {
+                h = new Histogram();
+                sSpans.put(name, h);
+            }
+            h.add(value);
+        }
+    }
+
+    /**
+     * Events recorded by a single thread, which are not yet aggregated
+     */
+    private static class ThreadBuffer {
+
+        private final String[] mNames = new String[BUFFER_SIZE];
+        private final long[] mValues = new long[BUFFER_SIZE];
+        private final WeakReference<Thread> mOwner = new WeakReference<>(Thread.currentThread());
+        private int mCount = 0;
+
+        ThreadBuffer() {
+            synchronized (sAllBuffers) {
+                sAllBuffers.add(this);
+            }
+        }
+
+        boolean isOwnerAlive() {
+            Thread owner = mOwner.get();
+            return owner != null && owner.isAlive();
+        }
+
+        void add(String name, long value) {
+            synchronized (this) {
+                if (mCount < BUFFER_SIZE) {
+                    mNames[mCount] = name;
+                    mValues[mCount] = value;
+                    mCount++;
+                    return;
+                }
+            }
+            synchronized (sAllBuffers) {
+                flushLocked();
+                addLocked(name, value);
+            }
+        }
+
+        /**
+         * Moves all the events to the aggregated values, should be called with sAllBuffers lock
+         */
+        synchronized void flushLocked() {
+            for (int i = 0; i < mCount; i++) {
+                addLocked(mNames[i], mValues[i]);
+                mNames[i] = null;
+            }
+            mCount = 0;
+        }
+    }
+
+    /**
+     * Histogram of durations with logarithmic buckets, each power of 2 is split in
+     * {@link #SUB_BUCKETS} linear buckets, giving a relative error below 12.5%.
+     */
+    @VisibleForTesting
+    static class Histogram {
+
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        // Enough to cover a few hours in micro seconds
+        private static final int NUM_BUCKETS = SUB_BUCKETS * 32;
+
+        private final int[] mBuckets = new int[NUM_BUCKETS];
+        long mCount;
+        long mTotalNanos;
+        long mMaxNanos;
+
+        void add(long nanos) {
+            mBuckets[getBucket(nanos / 1000)]++;
+            mCount++;
+            mTotalNanos += nanos;
+            mMaxNanos = Math.max(mMaxNanos, nanos);
+        }
+
+        /**
+         * Returns the upper bound of the bucket containing the percentile, in micro seconds
+         */
+        long getPercentileMicros(float percentile) {
+            if (mCount == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(percentile * mCount);
+            long seen = 0;
+            for (int i = 0; i < NUM_BUCKETS; i++) {
+                seen += mBuckets[i];
+                if (seen >= target) {
+                    return Math.min(getBucketLowerBound(i + 1) - 1, mMaxNanos / 1000);
+                }
+            }
+            return mMaxNanos / 1000;
+        }
+
+        static int getBucket(long micros) {
+            if (micros < SUB_BUCKETS) {
+                return (int) Math.max(micros, 0);
+            }
+            int msb = 63 - Long.numberOfLeadingZeros(micros);
+            int shift = msb - SUB_BUCKET_BITS;
+            int sub = (int) ((micros >>> shift) & (SUB_BUCKETS - 1));
+            return Math.min(SUB_BUCKETS + shift * SUB_BUCKETS + sub, NUM_BUCKETS - 1);
+        }
+
+        static long getBucketLowerBound(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+            int sub = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+            return ((long) (SUB_BUCKETS + sub)) << shift;
+        }
+    }
+}
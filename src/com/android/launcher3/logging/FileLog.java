@@ -13,6 +13,7 @@ import androidx.annotation.VisibleForTesting;
 import com.android.launcher3.util.IOUtils;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
@@ -27,6 +28,9 @@ import java.util.concurrent.TimeUnit;
  * Wrapper around {@link Log} to allow writing to a file.
  * This class can safely be called from main thread.
  *
+ * Logs are recorded in a preallocated in-memory ring buffer without any formatting, and are
+ * formatted and written to the file in batches on a background thread.
+ *
  * Note: This should only be used for logging errors which have a persistent effect on user's data,
  * but whose effect may not be visible immediately.
  */
@@ -39,6 +43,18 @@ public final class FileLog {
 
     private static final long MAX_LOG_FILE_SIZE = 8 << 20;  // 4 mb
 
+    // Number of log records kept in memory before being written to the file. If the writer falls
+    // behind, the oldest records are dropped.
+    @VisibleForTesting
+    static final int BUFFER_SIZE = 512;
+    // Delay before writing the pending logs, so that bursts of logs are written together
+    private static final long WRITE_DELAY = 1000;  // 1 second
+
+    private static final Object LOCK = new Object();
+    private static final LogBuffer sPendingLogs = new LogBuffer(BUFFER_SIZE);
+    // Whether a write of the pending logs is scheduled, guarded by sPendingLogs
+    private static boolean sWriteScheduled = false;
+
     private static Handler sHandler = null;
     private static File sLogsDirectory = null;
 
@@ -46,15 +62,23 @@ public final class FileLog {
 
     public static void setDir(File logsDir) {
         if (ENABLED) {
-            synchronized (DATE_FORMAT) {
+            synchronized (LOCK) {
                 // If the target directory changes, stop any active thread.
                 if (sHandler != null && !logsDir.equals(sLogsDirectory)) {
                     ((HandlerThread) sHandler.getLooper().getThread()).quit();
                     sHandler = null;
+                    // The scheduled write was dropped with the thread
+                    synchronized (sPendingLogs) {
+                        sWriteScheduled = false;
+                    }
                 }
             }
         }
         sLogsDirectory = logsDir;
+        if (ENABLED) {
+            // Write the logs recorded before the directory was set, or while it changed
+            scheduleWrite(false /* immediately */);
+        }
     }
 
     public static void d(String tag, String msg, Exception e) {
@@ -105,16 +129,39 @@ public final class FileLog {
         if (!ENABLED) {
             return;
         }
-        String out = String.format("%s %s %s", DATE_FORMAT.format(new Date()), tag, msg);
-        if (e != null) {
-            out += "\n" + Log.getStackTraceString(e);
+        int pendingCount;
+        synchronized (sPendingLogs) {
+            pendingCount = sPendingLogs.add(System.currentTimeMillis(), tag, msg, e);
+        }
+        // Write early to avoid dropping logs
+        scheduleWrite(pendingCount == BUFFER_SIZE / 2);
+    }
+
+    /**
+     * Schedules a write of the pending logs if one is not already scheduled, or moves it to now
+     */
+    private static void scheduleWrite(boolean immediately) {
+        synchronized (sPendingLogs) {
+            if (sPendingLogs.mCount == 0 && sPendingLogs.mDropped == 0) {
+                return;
+            }
+            if (sWriteScheduled && !immediately) {
+                return;
+            }
+            sWriteScheduled = true;
+        }
+        Handler handler = getHandler();
+        if (immediately) {
+            handler.removeMessages(LogWriterCallback.MSG_WRITE);
+            handler.sendEmptyMessage(LogWriterCallback.MSG_WRITE);
+        } else {
+            handler.sendEmptyMessageDelayed(LogWriterCallback.MSG_WRITE, WRITE_DELAY);
         }
-        Message.obtain(getHandler(), LogWriterCallback.MSG_WRITE, out).sendToTarget();
     }
 
     @VisibleForTesting
     static Handler getHandler() {
-        synchronized (DATE_FORMAT) {
+        synchronized (LOCK) {
             if (sHandler == null) {
                 sHandler = new Handler(createAndStartNewLooper("file-logger"),
                         new LogWriterCallback());
@@ -152,6 +199,12 @@ public final class FileLog {
         private static final int MSG_CLOSE = 2;
         private static final int MSG_FLUSH = 3;
 
+        private static final int WRITE_BUFFER_SIZE = 16 * 1024;
+
+        private final LogBuffer mLogsToWrite = new LogBuffer(BUFFER_SIZE);
+        private final Date mDate = new Date();
+        private final StringBuilder mLine = new StringBuilder();
+
         private String mCurrentFileName = null;
         private PrintWriter mCurrentWriter = null;
 
@@ -163,48 +216,17 @@ public final class FileLog {
         @Override
         public boolean handleMessage(Message msg) {
             if (sLogsDirectory == null || !ENABLED) {
+                if (msg.what == MSG_WRITE) {
+                    // Written once the directory is set
+                    synchronized (sPendingLogs) {
+                        sWriteScheduled = false;
+                    }
+                }
                 return true;
             }
             switch (msg.what) {
                 case MSG_WRITE: {
-                    Calendar cal = Calendar.getInstance();
-                    // suffix with 0 or 1 based on the day of the year.
-                    String fileName = FILE_NAME_PREFIX + (cal.get(Calendar.DAY_OF_YEAR) % LOG_DAYS);
-
-                    if (!fileName.equals(mCurrentFileName)) {
-                        closeWriter();
-                    }
-
-                    try {
-                        if (mCurrentWriter == null) {
-                            mCurrentFileName = fileName;
-
-                            boolean append = false;
-                            File logFile = new File(sLogsDirectory, fileName);
-                            if (logFile.exists()) {
-                                Calendar modifiedTime = Calendar.getInstance();
-                                modifiedTime.setTimeInMillis(logFile.lastModified());
-
-                                // If the file was modified more that 36 hours ago, purge the file.
-                                // We use instead of 24 to account for day-365 followed by day-1
-                                modifiedTime.add(Calendar.HOUR, 36);
-                                append = cal.before(modifiedTime)
-                                        && logFile.length() < MAX_LOG_FILE_SIZE;
-                            }
-                            mCurrentWriter = new PrintWriter(new FileWriter(logFile, append));
-                        }
-
-                        mCurrentWriter.println((String) msg.obj);
-                        mCurrentWriter.flush();
-
-                        // Auto close file stream after some time.
-                        sHandler.removeMessages(MSG_CLOSE);
-                        sHandler.sendEmptyMessageDelayed(MSG_CLOSE, CLOSE_DELAY);
-                    } catch (Exception e) {
-                        Log.e("FileLog", "Error writing logs to file", e);
-                        // Close stream, will try reopening during next log
-                        closeWriter();
-                    }
+                    writePendingLogs();
                     return true;
                 }
                 case MSG_CLOSE: {
@@ -212,6 +234,7 @@ public final class FileLog {
                     return true;
                 }
                 case MSG_FLUSH: {
+                    writePendingLogs();
                     closeWriter();
                     Pair<PrintWriter, CountDownLatch> p =
                             (Pair<PrintWriter, CountDownLatch>) msg.obj;
@@ -227,6 +250,155 @@ public final class FileLog {
             }
             return true;
         }
+
+        private void writePendingLogs() {
+            synchronized (sPendingLogs) {
+                sPendingLogs.moveTo(mLogsToWrite);
+                sWriteScheduled = false;
+            }
+            if (mLogsToWrite.mCount == 0 && mLogsToWrite.mDropped == 0) {
+                return;
+            }
+
+            Calendar cal = Calendar.getInstance();
+            // suffix with 0 or 1 based on the day of the year.
+            String fileName = FILE_NAME_PREFIX + (cal.get(Calendar.DAY_OF_YEAR) % LOG_DAYS);
+
+            if (!fileName.equals(mCurrentFileName)) {
+                closeWriter();
+            }
+
+            try {
+                if (mCurrentWriter == null) {
+                    mCurrentFileName = fileName;
+
+                    boolean append = false;
+                    File logFile = new File(sLogsDirectory, fileName);
+                    if (logFile.exists()) {
+                        Calendar modifiedTime = Calendar.getInstance();
+                        modifiedTime.setTimeInMillis(logFile.lastModified());
+
+                        // If the file was modified more that 36 hours ago, purge the file.
+                        // We use instead of 24 to account for day-365 followed by day-1
+                        modifiedTime.add(Calendar.HOUR, 36);
+                        append = cal.before(modifiedTime)
+                                && logFile.length() < MAX_LOG_FILE_SIZE;
+                    }
+                    mCurrentWriter = new PrintWriter(new BufferedWriter(
+                            new FileWriter(logFile, append), WRITE_BUFFER_SIZE));
+                }
+
+                if (mLogsToWrite.mDropped > 0) {
+                    mCurrentWriter.println("--- dropped " + mLogsToWrite.mDropped + " logs ---");
+                }
+                for (int i = 0; i < mLogsToWrite.mCount; i++) {
+                    mDate.setTime(mLogsToWrite.mTimes[i]);
+                    mLine.setLength(0);
+                    mLine.append(DATE_FORMAT.format(mDate))
+                            .append(' ').append(mLogsToWrite.mTags[i])
+                            .append(' ').append(mLogsToWrite.mMessages[i]);
+                    if (mLogsToWrite.mErrors[i] != null) {
+                        mLine.append('\n')
+                                .append(Log.getStackTraceString(mLogsToWrite.mErrors[i]));
+                    }
+                    mCurrentWriter.println(mLine);
+                }
+                mCurrentWriter.flush();
+
+                // Auto close file stream after some time.
+                sHandler.removeMessages(MSG_CLOSE);
+                sHandler.sendEmptyMessageDelayed(MSG_CLOSE, CLOSE_DELAY);
+            } catch (Exception e) {
+                Log.e("FileLog", "Error writing logs to file", e);
+                // Close stream, will try reopening during next log
+                closeWriter();
+            } finally {
+                mLogsToWrite.clear();
+            }
+        }
+    }
+
+    /**
+     * Fixed size ring buffer of unformatted log records
+     */
+    private static class LogBuffer {
+
+        final long[] mTimes;
+        final String[] mTags;
+        final String[] mMessages;
+        final Exception[] mErrors;
+
+        // Index of the oldest record
+        int mStart = 0;
+        int mCount = 0;
+        int mDropped = 0;
+
+        LogBuffer(int size) {
+            mTimes = new long[size];
+            mTags = new String[size];
+            mMessages = new String[size];
+            mErrors = new Exception[size];
+        }
+
+        /**
+         * Adds a record, overwriting the oldest one if the buffer is full.
+         * @return the number of records in the buffer
+         */
+        int add(long time, String tag, String msg, Exception e) {
+            int size = mTimes.length;
+            int index;
+            if (mCount == size) {
+                index = mStart;
+                mStart = (mStart + 1) % size;
+                mDropped++;
+            } else {
+                index = (mStart + mCount) % size;
+                mCount++;
+            }
+            mTimes[index] = time;
+            mTags[index] = tag;
+            mMessages[index] = msg;
+            mErrors[index] = e;
+            return mCount;
+        }
+
+        /**
+         * Moves all the records to the provided empty buffer in order, and clears this buffer
+         */
+        void moveTo(LogBuffer out) {
+            int size = mTimes.length;
+            for (int i = 0; i < mCount; i++) {
+                int index = (mStart + i) % size;
+                out.mTimes[i] = mTimes[index];
+                out.mTags[i] = mTags[index];
+                out.mMessages[i] = mMessages[index];
+                out.mErrors[i] = mErrors[index];
+                mTags[index] = null;
+                mMessages[index] = null;
+                mErrors[index] = null;
+            }
+            out.mStart = 0;
+            out.mCount = mCount;
+            out.mDropped = mDropped;
+            mStart = 0;
+            mCount = 0;
+            mDropped = 0;
+        }
+
+        /**
+         * Clears a buffer filled by {@link #moveTo(LogBuffer)}
+         */
+        void clear() {
+            // Release references so that the messages can be garbage collected
+            for (int i = 0; i < mCount; i++) {
+                mTags[i] = null;
+                mMessages[i] = null;
+                mErrors[i] = null;
+            }
+            mStart = 0;
+            mCount = 0;
+            mDropped = 0;
+        }
     }
 
     private static void dumpFile(PrintWriter out, String fileName) {
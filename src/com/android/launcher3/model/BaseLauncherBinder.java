@@ -30,6 +30,7 @@ import com.android.launcher3.LauncherModel.CallbackTask;
 import com.android.launcher3.LauncherSettings;
 import com.android.launcher3.Workspace;
 import com.android.launcher3.config.FeatureFlags;
+import com.android.launcher3.logging.EventTrace;
 import com.android.launcher3.model.BgDataModel.Callbacks;
 import com.android.launcher3.model.BgDataModel.FixedContainerItems;
 import com.android.launcher3.model.data.AppInfo;
@@ -46,7 +47,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -59,7 +59,10 @@ import java.util.stream.Collectors;
 public abstract class BaseLauncherBinder {
 
     protected static final String TAG = "LauncherBinder";
-    private static final int ITEMS_CHUNK = 6; // batch size for the workspace icons
+
+    // Time from the start of the bind until the current pages and all the pages are bound
+    private static final String SPAN_BIND_CURRENT_PAGES = "bind.currentPages";
+    private static final String SPAN_BIND_ALL_PAGES = "bind.allPages";
 
     protected final LooperExecutor mUiExecutor;
 
@@ -120,6 +123,7 @@ public abstract class BaseLauncherBinder {
     }
 
     private void bindWorkspaceAllAtOnce(boolean incrementBindId, boolean isBindSync) {
+        final long bindStartTime = EventTrace.now();
         // Save a copy of all the bg-thread collections
         ArrayList<ItemInfo> workspaceItems = new ArrayList<>();
         ArrayList<LauncherAppWidgetInfo> appWidgets = new ArrayList<>();
@@ -142,7 +146,7 @@ public abstract class BaseLauncherBinder {
         for (Callbacks cb : mCallbacksList) {
             new UnifiedWorkspaceBinder(cb, mUiExecutor, mApp, mBgDataModel, mMyBindingId,
                     workspaceItems, appWidgets, extraItems, orderedScreenIds)
-                    .bind(isBindSync, workspaceItemCount);
+                    .bind(isBindSync, workspaceItemCount, bindStartTime);
         }
     }
 
@@ -208,15 +212,34 @@ public abstract class BaseLauncherBinder {
     }
 
     protected void executeCallbacksTask(CallbackTask task, Executor executor) {
-        executor.execute(() -> {
-            if (mMyBindingId != mBgDataModel.lastBindId) {
-                Log.d(TAG, "Too many consecutive reloads, skipping obsolete data-bind");
-                return;
-            }
-            for (Callbacks cb : mCallbacksList) {
-                task.execute(cb);
+        executor.execute(() -> runCallbacksTask(task));
+    }
+
+    private void runCallbacksTask(CallbackTask task) {
+        if (mMyBindingId != mBgDataModel.lastBindId) {
+            Log.d(TAG, "Too many consecutive reloads, skipping obsolete data-bind");
+            return;
+        }
+        for (Callbacks cb : mCallbacksList) {
+            task.execute(cb);
+        }
+    }
+
+    /**
+     * Returns whether the bind is still the latest one and any of the callbacks is still
+     * registered with the model, so that binding can stop after the callbacks are destroyed.
+     */
+    private boolean isBindValid(int bindingId, Callbacks... callbacksList) {
+        if (bindingId != mBgDataModel.lastBindId) {
+            return false;
+        }
+        Callbacks[] registered = mApp.getModel().getCallbacks();
+        for (Callbacks cb : callbacksList) {
+            if (Arrays.asList(registered).contains(cb)) {
+                return true;
             }
-        });
+        }
+        return false;
     }
 
     /**
@@ -234,6 +257,7 @@ public abstract class BaseLauncherBinder {
     private class UnifiedWorkspaceBinder {
 
         private final Executor mUiExecutor;
+        private final Executor mYieldExecutor;
         private final Callbacks mCallbacks;
 
         private final LauncherAppState mApp;
@@ -246,7 +270,7 @@ public abstract class BaseLauncherBinder {
         private final ArrayList<FixedContainerItems> mExtraItems;
 
         UnifiedWorkspaceBinder(Callbacks callbacks,
-                Executor uiExecutor,
+                LooperExecutor uiExecutor,
                 LauncherAppState app,
                 BgDataModel bgDataModel,
                 int myBindingId,
@@ -256,6 +280,7 @@ public abstract class BaseLauncherBinder {
                 IntArray orderedScreenIds) {
             mCallbacks = callbacks;
             mUiExecutor = uiExecutor;
+            mYieldExecutor = uiExecutor::post;
             mApp = app;
             mBgDataModel = bgDataModel;
             mMyBindingId = myBindingId;
@@ -265,7 +290,7 @@ public abstract class BaseLauncherBinder {
             mOrderedScreenIds = orderedScreenIds;
         }
 
-        private void bind(boolean isBindSync, int workspaceItemCount) {
+        private void bind(boolean isBindSync, int workspaceItemCount, long bindStartTime) {
             final IntSet currentScreenIds =
                     mCallbacks.getPagesToBindSynchronously(mOrderedScreenIds);
             Objects.requireNonNull(currentScreenIds, "Null screen ids provided by " + mCallbacks);
@@ -294,67 +319,67 @@ public abstract class BaseLauncherBinder {
             executeCallbacksTask(c -> c.bindScreens(mOrderedScreenIds), mUiExecutor);
 
             // Load items on the current page.
-            bindWorkspaceItems(currentWorkspaceItems, mUiExecutor);
-            bindAppWidgets(currentAppWidgets, mUiExecutor);
+            FrameBudgetBindQueue currentQueue = new FrameBudgetBindQueue(
+                    mYieldExecutor, this::runCallbacksTask, this::isBindValid);
+            currentQueue.addItems(currentWorkspaceItems, false /* isWidget */);
+            currentQueue.addItems(currentAppWidgets, true /* isWidget */);
             if (!FeatureFlags.CHANGE_MODEL_DELEGATE_LOADING_ORDER.get()) {
                 mExtraItems.forEach(item ->
-                        executeCallbacksTask(c -> c.bindExtraContainerItems(item), mUiExecutor));
+                        currentQueue.addTask(c -> c.bindExtraContainerItems(item)));
             }
 
+            // The remaining items are bound once the pending tasks are executed. The tasks added
+            // to the pending tasks by the callbacks expect all the items to be bound, so they are
+            // bound without yielding. The pending tasks are not executed if they are cancelled.
             RunnableList pendingTasks = new RunnableList();
-            Executor pendingExecutor = pendingTasks::add;
-            bindWorkspaceItems(otherWorkspaceItems, pendingExecutor);
-            bindAppWidgets(otherAppWidgets, pendingExecutor);
-            executeCallbacksTask(c -> c.finishBindingItems(currentScreenIds), pendingExecutor);
-            pendingExecutor.execute(
+            FrameBudgetBindQueue pendingQueue = new FrameBudgetBindQueue(
+                    mYieldExecutor, this::runCallbacksTask, this::isBindValid);
+            pendingQueue.addItems(otherWorkspaceItems, false /* isWidget */);
+            pendingQueue.addItems(otherAppWidgets, true /* isWidget */);
+            pendingQueue.addTask(c -> {
+                c.finishBindingItems(currentScreenIds);
+                EventTrace.recordSpan(SPAN_BIND_ALL_PAGES, bindStartTime);
+            });
+            pendingQueue.addRunnable(
                     () -> {
                         MODEL_EXECUTOR.setThreadPriority(Process.THREAD_PRIORITY_DEFAULT);
                         ItemInstallQueue.INSTANCE.get(mApp.getContext())
                                 .resumeModelPush(FLAG_LOADER_RUNNING);
                     });
 
-            executeCallbacksTask(
+            currentQueue.addTask(
                     c -> {
                         MODEL_EXECUTOR.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
                         c.onInitialBindComplete(
                                 currentScreenIds, pendingTasks, workspaceItemCount, isBindSync);
-                    }, mUiExecutor);
+                        EventTrace.recordSpan(SPAN_BIND_CURRENT_PAGES, bindStartTime);
+                    });
 
             StringCache cacheClone = mBgDataModel.stringCache.clone();
-            executeCallbacksTask(c -> c.bindStringCache(cacheClone), pendingExecutor);
+            pendingQueue.addTask(c -> c.bindStringCache(cacheClone));
+
+            pendingQueue.markAddedStepsUrgent();
+            pendingQueue.scheduleOn(pendingTasks::add);
+            // All-apps, widgets and shortcuts are posted after the workspace, and must not be
+            // bound before the current pages
+            currentQueue.markAddedStepsUrgent();
+            currentQueue.scheduleOn(mUiExecutor);
         }
 
-        private void bindWorkspaceItems(
-                final ArrayList<ItemInfo> workspaceItems, final Executor executor) {
-            // Bind the workspace items
-            int count = workspaceItems.size();
-            for (int i = 0; i < count; i += ITEMS_CHUNK) {
-                final int start = i;
-                final int chunkSize = (i + ITEMS_CHUNK <= count) ? ITEMS_CHUNK : (count - i);
-                executeCallbacksTask(
-                        c -> c.bindItems(workspaceItems.subList(start, start + chunkSize), false),
-                        executor);
-            }
+        protected void executeCallbacksTask(CallbackTask task, Executor executor) {
+            executor.execute(() -> runCallbacksTask(task));
         }
 
-        private void bindAppWidgets(List<LauncherAppWidgetInfo> appWidgets, Executor executor) {
-            // Bind the widgets, one at a time
-            int count = appWidgets.size();
-            for (int i = 0; i < count; i++) {
-                final ItemInfo widget = appWidgets.get(i);
-                executeCallbacksTask(
-                        c -> c.bindItems(Collections.singletonList(widget), false), executor);
+        private void runCallbacksTask(CallbackTask task) {
+            if (mMyBindingId != mBgDataModel.lastBindId) {
+                Log.d(TAG, "Too many consecutive reloads, skipping obsolete data-bind");
+                return;
             }
+            task.execute(mCallbacks);
         }
 
-        protected void executeCallbacksTask(CallbackTask task, Executor executor) {
-            executor.execute(() -> {
-                if (mMyBindingId != mBgDataModel.lastBindId) {
-                    Log.d(TAG, "Too many consecutive reloads, skipping obsolete data-bind");
-                    return;
-                }
-                task.execute(mCallbacks);
-            });
+        private boolean isBindValid() {
+            return BaseLauncherBinder.this.isBindValid(mMyBindingId, mCallbacks);
         }
     }
 
@@ -362,6 +387,11 @@ public abstract class BaseLauncherBinder {
         private final IntArray mOrderedScreenIds;
         private final IntSet mCurrentScreenIds = new IntSet();
         private final Set<Integer> mBoundItemIds = new HashSet<>();
+        // Shared by both the current and other pages so that all the binds happen in order
+        private final FrameBudgetBindQueue mBindQueue = new FrameBudgetBindQueue(
+                mUiExecutor::post, BaseLauncherBinder.this::runCallbacksTask,
+                () -> isBindValid(mMyBindingId, mCallbacksList));
+        private final long mBindStartTime = EventTrace.now();
 
         protected DisjointWorkspaceBinder(IntArray orderedScreenIds) {
             mOrderedScreenIds = orderedScreenIds;
@@ -415,13 +445,18 @@ public abstract class BaseLauncherBinder {
             // Bind workspace screens
             executeCallbacksTask(c -> c.bindScreens(mOrderedScreenIds), mUiExecutor);
 
-            bindWorkspaceItems(workspaceItems);
-            bindAppWidgets(appWidgets);
-            executeCallbacksTask(c -> {
+            mBindQueue.addItems(workspaceItems, false /* isWidget */);
+            mBindQueue.addItems(appWidgets, true /* isWidget */);
+            mBindQueue.addTask(c -> {
                 MODEL_EXECUTOR.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
                 c.onInitialBindComplete(
                         mCurrentScreenIds, new RunnableList(), workspaceItemCount, isBindSync);
-            }, mUiExecutor);
+                EventTrace.recordSpan(SPAN_BIND_CURRENT_PAGES, mBindStartTime);
+            });
+            // All-apps, widgets and shortcuts are posted after the workspace, and must not be
+            // bound before the current pages
+            mBindQueue.markAddedStepsUrgent();
+            mBindQueue.scheduleOn(mUiExecutor);
         }
 
         protected void bindOtherWorkspacePages() {
@@ -439,41 +474,22 @@ public abstract class BaseLauncherBinder {
 
             sortWorkspaceItemsSpatially(mApp.getInvariantDeviceProfile(), workspaceItems);
 
-            bindWorkspaceItems(workspaceItems);
-            bindAppWidgets(appWidgets);
+            mBindQueue.addItems(workspaceItems, false /* isWidget */);
+            mBindQueue.addItems(appWidgets, true /* isWidget */);
 
-            executeCallbacksTask(c -> c.finishBindingItems(mCurrentScreenIds), mUiExecutor);
-            mUiExecutor.execute(() -> {
+            mBindQueue.addTask(c -> {
+                c.finishBindingItems(mCurrentScreenIds);
+                EventTrace.recordSpan(SPAN_BIND_ALL_PAGES, mBindStartTime);
+            });
+            mBindQueue.addRunnable(() -> {
                 MODEL_EXECUTOR.setThreadPriority(Process.THREAD_PRIORITY_DEFAULT);
                 ItemInstallQueue.INSTANCE.get(mApp.getContext())
                         .resumeModelPush(FLAG_LOADER_RUNNING);
             });
 
             StringCache cacheClone = mBgDataModel.stringCache.clone();
-            executeCallbacksTask(c -> c.bindStringCache(cacheClone), mUiExecutor);
-        }
-
-        private void bindWorkspaceItems(final ArrayList<ItemInfo> workspaceItems) {
-            // Bind the workspace items
-            int count = workspaceItems.size();
-            for (int i = 0; i < count; i += ITEMS_CHUNK) {
-                final int start = i;
-                final int chunkSize = (i + ITEMS_CHUNK <= count) ? ITEMS_CHUNK : (count - i);
-                executeCallbacksTask(
-                        c -> c.bindItems(workspaceItems.subList(start, start + chunkSize), false),
-                        mUiExecutor);
-            }
-        }
-
-        private void bindAppWidgets(List<LauncherAppWidgetInfo> appWidgets) {
-            // Bind the widgets, one at a time
-            int count = appWidgets.size();
-            for (int i = 0; i < count; i++) {
-                final ItemInfo widget = appWidgets.get(i);
-                executeCallbacksTask(
-                        c -> c.bindItems(Collections.singletonList(widget), false),
-                        mUiExecutor);
-            }
+            mBindQueue.addTask(c -> c.bindStringCache(cacheClone));
+            mBindQueue.scheduleOn(mUiExecutor);
         }
     }
 }
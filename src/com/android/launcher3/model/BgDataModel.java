@@ -368,6 +368,21 @@ public class BgDataModel {
         return folderInfo;
     }
 
+    /**
+     * Returns a copy of the folder with the id, without its contents, which can be read on any
+     * thread, or null if there is no such folder.
+     */
+    @Nullable
+    public synchronized FolderInfo copyFolder(int id) {
+        FolderInfo folderInfo = folders.get(id);
+        if (folderInfo == null) {
+            return null;
+        }
+        FolderInfo copy = new FolderInfo();
+        copy.copyFrom(folderInfo);
+        return copy;
+    }
+
     /**
      * Clear all the deep shortcut counts for the given package, and re-add the new shortcut counts.
      */
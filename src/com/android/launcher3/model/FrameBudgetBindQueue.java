@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.model;
+
+import androidx.annotation.UiThread;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.launcher3.LauncherModel.CallbackTask;
+import com.android.launcher3.logging.EventTrace;
+import com.android.launcher3.model.data.ItemInfo;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Runs bind tasks in order on the UI thread, executing as many of them as fit in a per-frame time
+ * budget before yielding the looper so that frames can be drawn in between.
+ *
+ * Lists of items are bound in chunks sized using the bind cost measured for previous chunks of
+ * the same type, so that a chunk of widgets is not as large as a chunk of icons.
+ *
+ * The bind is checked before every step, and all the remaining steps are dropped once it is no
+ * longer valid, as the slices after the first one are not posted through the executor the queue
+ * was scheduled on.
+ *
+ * Yielding posts the rest of the queue behind the tasks already queued on the UI thread, so steps
+ * that other tasks depend on can be marked urgent with {@link #markAddedStepsUrgent()} to run them
+ * without yielding.
+ */
+class FrameBudgetBindQueue implements Runnable {
+
+    private static final String SPAN_BIND_ITEMS_CHUNK = "bind.itemsChunk";
+    private static final String SPAN_BIND_WIDGETS_CHUNK = "bind.widgetsChunk";
+
+    @VisibleForTesting
+    static final long FRAME_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(8);
+    @VisibleForTesting
+    static final int MAX_CHUNK_SIZE = 24;
+
+    // Estimated cost of binding a single item, updated from measurements. These are only
+    // accessed on the UI thread and kept across binds since they mostly depend on the device.
+    private static long sItemCostNanos = TimeUnit.MICROSECONDS.toNanos(500);
+    private static long sWidgetCostNanos = TimeUnit.MILLISECONDS.toNanos(4);
+
+    private final ArrayDeque<Object> mSteps = new ArrayDeque<>();
+    private final Executor mYieldExecutor;
+    private final Consumer<CallbackTask> mTaskRunner;
+    private final BooleanSupplier mIsBindValid;
+
+    private boolean mScheduled = false;
+    // Number of steps at the head of the queue which are run without yielding
+    private int mUrgentSteps = 0;
+
+    /**
+     * @param yieldExecutor executor used to continue binding after yielding, which must post to
+     *                      the UI thread rather than run inline
+     * @param taskRunner runs a callback task for all the callbacks
+     * @param isBindValid returns whether the bind is still valid, checked before every step
+     */
+    FrameBudgetBindQueue(Executor yieldExecutor, Consumer<CallbackTask> taskRunner,
+            BooleanSupplier isBindValid) {
+        mYieldExecutor = yieldExecutor;
+        mTaskRunner = taskRunner;
+        mIsBindValid = isBindValid;
+    }
+
+    /**
+     * Adds a task to be executed for all callbacks
+     */
+    void addTask(CallbackTask task) {
+        addStep((Runnable) () -> mTaskRunner.accept(task));
+    }
+
+    /**
+     * Adds a runnable to be executed in order with other tasks
+     */
+    void addRunnable(Runnable runnable) {
+        addStep(runnable);
+    }
+
+    /**
+     * Adds items to be bound in adaptive chunks
+     */
+    void addItems(List<? extends ItemInfo> items, boolean isWidget) {
+        if (!items.isEmpty()) {
+            addStep(new ItemsStep(Collections.unmodifiableList(items), isWidget));
+        }
+    }
+
+    /**
+     * Marks all the steps added so far as urgent, so that they are run without yielding and no
+     * task posted on the UI thread after scheduling the queue can run in between them
+     */
+    void markAddedStepsUrgent() {
+        synchronized (mSteps) {
+            mUrgentSteps = mSteps.size();
+        }
+    }
+
+    private void addStep(Object step) {
+        synchronized (mSteps) {
+            mSteps.add(step);
+        }
+    }
+
+    /**
+     * Schedules the queue on the provided executor if it is not already scheduled
+     */
+    void scheduleOn(Executor executor) {
+        synchronized (mSteps) {
+            if (mScheduled) {
+                return;
+            }
+            mScheduled = true;
+        }
+        executor.execute(this);
+    }
+
+    @UiThread
+    @Override
+    public void run() {
+        long sliceStart = System.nanoTime();
+        boolean didWork = false;
+        while (true) {
+            Object step;
+            boolean isUrgent;
+            synchronized (mSteps) {
+                step = mSteps.peekFirst();
+                if (step == null) {
+                    mScheduled = false;
+                    return;
+                }
+                isUrgent = mUrgentSteps > 0;
+            }
+            if (!mIsBindValid.getAsBoolean()) {
+                synchronized (mSteps) {
+                    mSteps.clear();
+                    mUrgentSteps = 0;
+                    mScheduled = false;
+                }
+                return;
+            }
+
+            long remaining = FRAME_BUDGET_NANOS - (System.nanoTime() - sliceStart);
+            if (step instanceof ItemsStep items) {
+                long itemCost = items.mIsWidget ? sWidgetCostNanos : sItemCostNanos;
+                if (didWork && !isUrgent && remaining < itemCost) {
+                    break;
+                }
+                bindChunk(items, isUrgent ? MAX_CHUNK_SIZE : getChunkSize(remaining, itemCost));
+                if (items.mNextIndex >= items.mItems.size()) {
+                    removeFirst();
+                }
+            } else {
+                if (didWork && !isUrgent && remaining <= 0) {
+                    break;
+                }
+                removeFirst();
+                ((Runnable) step).run();
+            }
+            didWork = true;
+        }
+        // Yield to let the looper draw a frame
+        mYieldExecutor.execute(this);
+    }
+
+    private void removeFirst() {
+        synchronized (mSteps) {
+            mSteps.pollFirst();
+            if (mUrgentSteps > 0) {
+                mUrgentSteps--;
+            }
+        }
+    }
+
+    private void bindChunk(ItemsStep step, int chunkSize) {
+        int start = step.mNextIndex;
+        int end = Math.min(start + chunkSize, step.mItems.size());
+        step.mNextIndex = end;
+        List<ItemInfo> chunk = step.mItems.subList(start, end);
+
+        long bindStart = System.nanoTime();
+        mTaskRunner.accept(c -> c.bindItems(chunk, false));
+        long elapsed = System.nanoTime() - bindStart;
+
+        // Exponential moving average of the per item cost
+        long perItem = elapsed / (end - start);
+        if (step.mIsWidget) {
+            sWidgetCostNanos = (3 * sWidgetCostNanos + perItem) / 4;
+            EventTrace.recordDuration(SPAN_BIND_WIDGETS_CHUNK, elapsed);
+        } else {
+            sItemCostNanos = (3 * sItemCostNanos + perItem) / 4;
+            EventTrace.recordDuration(SPAN_BIND_ITEMS_CHUNK, elapsed);
+        }
+    }
+
+    @VisibleForTesting
+    static int getChunkSize(long remainingNanos, long itemCostNanos) {
+        long size = remainingNanos / Math.max(itemCostNanos, 1);
+        return (int) Math.max(1, Math.min(size, MAX_CHUNK_SIZE));
+    }
+
+    private static class ItemsStep {
+
+        final List<ItemInfo> mItems;
+        final boolean mIsWidget;
+        int mNextIndex = 0;
+
+        ItemsStep(List<ItemInfo> items, boolean isWidget) {
+            mItems = items;
+            mIsWidget = isWidget;
+        }
+    }
+}
@@ -25,7 +25,6 @@ import android.content.ComponentName;
 import android.content.ContentValues;
 import android.content.Context;
 import android.content.Intent;
-import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.database.Cursor;
 import android.database.DatabaseUtils;
@@ -35,6 +34,7 @@ import android.util.ArrayMap;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.android.launcher3.InvariantDeviceProfile;
 import com.android.launcher3.LauncherSettings;
@@ -43,7 +43,7 @@ import com.android.launcher3.config.FeatureFlags;
 import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.pm.InstallSessionHelper;
 import com.android.launcher3.provider.LauncherDbUtils.SQLiteTransaction;
-import com.android.launcher3.util.GridOccupancy;
+import com.android.launcher3.util.BitGridOccupancy;
 import com.android.launcher3.util.IntArray;
 import com.android.launcher3.widget.LauncherAppWidgetProviderInfo;
 import com.android.launcher3.widget.WidgetManagerHelper;
@@ -97,13 +97,16 @@ public class GridSizeMigrationUtil {
      * to migrate the later to the former, and load the workspace from the default
      * {@link LauncherSettings.Favorites#TABLE_NAME}.
      *
+     * @param loadedModel the previously loaded model, if any. Packages referenced by it are
+     *                    considered valid without querying the package manager.
      * @return false if the migration failed.
      */
     public static boolean migrateGridIfNeeded(
             @NonNull Context context,
             @NonNull InvariantDeviceProfile idp,
             @NonNull DatabaseHelper target,
-            @NonNull SQLiteDatabase source) {
+            @NonNull SQLiteDatabase source,
+            @Nullable BgDataModel loadedModel) {
 
         DeviceGridState srcDeviceState = new DeviceGridState(context);
         DeviceGridState destDeviceState = new DeviceGridState(idp);
@@ -112,7 +115,8 @@ public class GridSizeMigrationUtil {
         }
         copyTable(source, TABLE_NAME, target.getWritableDatabase(), TMP_TABLE, context);
 
-        HashSet<String> validPackages = getValidPackages(context);
+        HashSet<String> validPackages = getValidPackages(
+                context, target.getWritableDatabase(), loadedModel);
         long migrationStartTime = System.currentTimeMillis();
         try (SQLiteTransaction t = new SQLiteTransaction(target.getWritableDatabase())) {
             DbReader srcReader = new DbReader(t.getDb(), TMP_TABLE, context, validPackages);
@@ -239,13 +243,16 @@ public class GridSizeMigrationUtil {
     private static void calcDiff(@NonNull final List<DbEntry> src,
             @NonNull final List<DbEntry> dest, @NonNull final List<DbEntry> toBeAdded,
             @NonNull final IntArray toBeRemoved) {
+        // Use sets for lookups, computing the migration id of an entry involves parsing intents
+        final Set<DbEntry> srcSet = new HashSet<>(src);
+        final Set<DbEntry> destSet = new HashSet<>(dest);
         src.forEach(entry -> {
-            if (!dest.contains(entry)) {
+            if (!destSet.contains(entry)) {
                 toBeAdded.add(entry);
             }
         });
         dest.forEach(entry -> {
-            if (!src.contains(entry)) {
+            if (!srcSet.contains(entry)) {
                 toBeRemoved.add(entry.id);
                 if (entry.itemType == LauncherSettings.Favorites.ITEM_TYPE_FOLDER) {
                     entry.mFolderItems.values().forEach(ids -> ids.forEach(toBeRemoved::add));
@@ -304,28 +311,83 @@ public class GridSizeMigrationUtil {
                 Utilities.createDbSelectionQuery(LauncherSettings.Favorites._ID, entryIds), null);
     }
 
-    private static HashSet<String> getValidPackages(Context context) {
+    private static HashSet<String> getValidPackages(Context context, SQLiteDatabase db,
+            @Nullable BgDataModel loadedModel) {
         // Initialize list of valid packages. This contain all the packages which are already on
         // the device and packages which are being installed. Any item which doesn't belong to
         // this set is removed.
         // Since the loader removes such items anyway, removing these items here doesn't cause
         // any extra data loss and gives us more free space on the grid for better migration.
         HashSet<String> validPackages = new HashSet<>();
-        for (PackageInfo info : context.getPackageManager()
-                .getInstalledPackages(PackageManager.GET_UNINSTALLED_PACKAGES)) {
-            validPackages.add(info.packageName);
+        if (loadedModel != null) {
+            // Items which survived the last load already belong to valid packages
+            synchronized (loadedModel) {
+                for (ItemInfo info : loadedModel.itemsIdMap) {
+                    String packageName = info.getTargetPackage();
+                    if (packageName != null) {
+                        validPackages.add(packageName);
+                    }
+                }
+            }
         }
         InstallSessionHelper.INSTANCE.get(context)
                 .getActiveSessions().keySet()
                 .forEach(packageUserKey -> validPackages.add(packageUserKey.mPackageName));
+
+        // Only query the packages referenced by the workspace instead of listing all the
+        // packages installed on the device
+        PackageManager pm = context.getPackageManager();
+        for (String packageName : getReferencedPackages(db)) {
+            if (validPackages.contains(packageName)) {
+                continue;
+            }
+            try {
+                pm.getPackageInfo(packageName, PackageManager.MATCH_UNINSTALLED_PACKAGES);
+                validPackages.add(packageName);
+            } catch (PackageManager.NameNotFoundException e) {
+                // Package is not installed, items will be removed
+            }
+        }
         return validPackages;
     }
 
+    private static HashSet<String> getReferencedPackages(SQLiteDatabase db) {
+        HashSet<String> packages = new HashSet<>();
+        for (String tableName : new String[] {TMP_TABLE, TABLE_NAME}) {
+            try (Cursor c = db.query(tableName, new String[]{
+                    LauncherSettings.Favorites.INTENT,
+                    LauncherSettings.Favorites.APPWIDGET_PROVIDER},
+                    null, null, null, null, null)) {
+                while (c.moveToNext()) {
+                    String intentStr = c.getString(0);
+                    if (intentStr != null) {
+                        try {
+                            Intent intent = Intent.parseUri(intentStr, 0);
+                            if (intent.getComponent() != null) {
+                                packages.add(intent.getComponent().getPackageName());
+                            } else if (intent.getPackage() != null) {
+                                packages.add(intent.getPackage());
+                            }
+                        } catch (URISyntaxException e) {
+                            // Invalid intents are removed by the reader
+                        }
+                    }
+                    ComponentName provider = c.isNull(1)
+                            ? null : ComponentName.unflattenFromString(c.getString(1));
+                    if (provider != null) {
+                        packages.add(provider.getPackageName());
+                    }
+                }
+            }
+        }
+        return packages;
+    }
+
     private static void solveGridPlacement(@NonNull final DatabaseHelper helper,
             @NonNull final DbReader srcReader, @NonNull final DbReader destReader,
             final int screenId, final int trgX, final int trgY,
             @NonNull final List<DbEntry> sortedItemsToPlace, final boolean matchingScreenIdOnly) {
-        final GridOccupancy occupied = new GridOccupancy(trgX, trgY);
+        final BitGridOccupancy occupied = new BitGridOccupancy(trgX, trgY);
         final Point trg = new Point(trgX, trgY);
         final Point next = new Point(0, screenId == 0 && FeatureFlags.QSB_ON_FIRST_SCREEN
                 ? 1 /* smartspace */ : 0);
@@ -358,24 +420,24 @@ public class GridSizeMigrationUtil {
      */
     private static boolean findPlacementForEntry(@NonNull final DbEntry entry,
             @NonNull final Point next, @NonNull final Point trg,
-            @NonNull final GridOccupancy occupied, final int screenId) {
+            @NonNull final BitGridOccupancy occupied, final int screenId) {
         for (int y = next.y; y <  trg.y; y++) {
-            for (int x = next.x; x < trg.x; x++) {
-                boolean fits = occupied.isRegionVacant(x, y, entry.spanX, entry.spanY);
-                boolean minFits = occupied.isRegionVacant(x, y, entry.minSpanX,
-                        entry.minSpanY);
-                if (minFits) {
+            // All the columns where either the full span or the min span fits
+            long positions = occupied.getVacantPositions(y, entry.spanX, entry.spanY)
+                    | occupied.getVacantPositions(y, entry.minSpanX, entry.minSpanY);
+            positions &= BitGridOccupancy.getStartMask(next.x);
+            if (positions != 0) {
+                int x = Long.numberOfTrailingZeros(positions);
+                if (occupied.isRegionVacant(x, y, entry.minSpanX, entry.minSpanY)) {
                     entry.spanX = entry.minSpanX;
                     entry.spanY = entry.minSpanY;
                 }
-                if (fits || minFits) {
-                    entry.screenId = screenId;
-                    entry.cellX = x;
-                    entry.cellY = y;
-                    occupied.markCells(entry, true);
-                    next.set(x + entry.spanX, y);
-                    return true;
-                }
+                entry.screenId = screenId;
+                entry.cellX = x;
+                entry.cellY = y;
+                occupied.markCells(entry, true);
+                next.set(x + entry.spanX, y);
+                return true;
             }
             next.set(0, next.y);
         }
@@ -70,6 +70,7 @@ import com.android.launcher3.icons.IconCache;
 import com.android.launcher3.icons.LauncherActivityCachingLogic;
 import com.android.launcher3.icons.ShortcutCachingLogic;
 import com.android.launcher3.icons.cache.IconCacheUpdateHandler;
+import com.android.launcher3.logging.EventTrace;
 import com.android.launcher3.logging.FileLog;
 import com.android.launcher3.model.data.AppInfo;
 import com.android.launcher3.model.data.FolderInfo;
@@ -117,6 +118,9 @@ public class LoaderTask implements Runnable {
 
     private static final boolean DEBUG = true;
 
+    // Prefix for the EventTrace spans of each loading step
+    private static final String SPAN_PREFIX = "loader.";
+
     @NonNull
     protected final LauncherAppState mApp;
     private final AllAppsList mBgAllAppsList;
@@ -144,6 +148,7 @@ public class LoaderTask implements Runnable {
 
     private final Set<PackageUserKey> mPendingPackages = new HashSet<>();
     private boolean mItemsDeleted = false;
+    private long mLastSplitTime = EventTrace.now();
     private String mDbName;
 
     public LoaderTask(@NonNull LauncherAppState app, AllAppsList bgAllAppsList, BgDataModel bgModel,
@@ -200,6 +205,8 @@ public class LoaderTask implements Runnable {
         }
 
         TraceHelper.INSTANCE.beginSection(TAG);
+        long loadStartTime = EventTrace.now();
+        mLastSplitTime = loadStartTime;
         LoaderMemoryLogger memoryLogger = new LoaderMemoryLogger();
         try (LauncherModel.LoaderTransaction transaction = mApp.getModel().beginLoader(this)) {
             List<ShortcutInfo> allShortcuts = new ArrayList<>();
@@ -316,6 +323,7 @@ public class LoaderTask implements Runnable {
             mModelDelegate.modelLoadComplete();
             transaction.commit();
             memoryLogger.clearLogs();
+            EventTrace.recordSpan(SPAN_PREFIX + "total", loadStartTime);
         } catch (CancellationException e) {
             // Loader stopped, ignore
             logASplit("Cancelled");
@@ -363,7 +371,7 @@ public class LoaderTask implements Runnable {
         final WidgetManagerHelper widgetHelper = new WidgetManagerHelper(context);
 
         ModelDbController dbController = mApp.getModel().getModelDbController();
-        dbController.tryMigrateDB();
+        dbController.tryMigrateDB(mBgDataModel);
         Log.d(TAG, "loadWorkspace: loading default favorites");
         dbController.loadDefaultFavoritesIfNecessary();
 
@@ -1045,7 +1053,7 @@ public class LoaderTask implements Runnable {
     private static void logWidgetInfo(InvariantDeviceProfile idp,
             LauncherAppWidgetProviderInfo widgetProviderInfo) {
         Point cellSize = new Point();
-        for (DeviceProfile deviceProfile : idp.supportedProfiles) {
+        for (DeviceProfile deviceProfile : idp.getBuiltProfiles()) {
             deviceProfile.getCellSize(cellSize);
             FileLog.d(TAG, "DeviceProfile available width: " + deviceProfile.availableWidthPx
                     + ", available height: " + deviceProfile.availableHeightPx
@@ -1087,9 +1095,11 @@ public class LoaderTask implements Runnable {
         FileLog.d(TAG, widgetDimension.toString());
     }
 
-    private static void logASplit(String label) {
+    private void logASplit(String label) {
         if (DEBUG) {
             Log.d(TAG, label);
         }
+        EventTrace.recordSpan(SPAN_PREFIX + label, mLastSplitTime);
+        mLastSplitTime = EventTrace.now();
     }
 }
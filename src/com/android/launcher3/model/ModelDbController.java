@@ -48,6 +48,7 @@ import android.util.Base64;
 import android.util.Log;
 import android.util.Xml;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.WorkerThread;
 
 import com.android.launcher3.AutoInstallsLayout;
@@ -260,7 +261,16 @@ public class ModelDbController {
      * Migrates the DB if needed. If the migration failed, it clears the DB.
      */
     public void tryMigrateDB() {
-        if (!migrateGridIfNeeded()) {
+        tryMigrateDB(null);
+    }
+
+    /**
+     * Migrates the DB if needed. If the migration failed, it clears the DB.
+     *
+     * @param loadedModel the previously loaded model, if any, used to speed up the migration
+     */
+    public void tryMigrateDB(@Nullable BgDataModel loadedModel) {
+        if (!migrateGridIfNeeded(loadedModel)) {
             Log.d(TAG, "Migration failed: resetting launcher database");
             createEmptyDB();
             LauncherPrefs.get(mContext).putSync(
@@ -277,7 +287,7 @@ public class ModelDbController {
      * @return true if migration was success or ignored, false if migration failed
      * and the DB should be reset.
      */
-    private boolean migrateGridIfNeeded() {
+    private boolean migrateGridIfNeeded(@Nullable BgDataModel loadedModel) {
         createDbIfNotExists();
         if (LauncherPrefs.get(mContext).get(getEmptyDbCreatedKey())) {
             // If we have already create a new DB, ignore migration
@@ -297,7 +307,7 @@ public class ModelDbController {
                 : createDatabaseHelper(true /* forMigration */);
         try {
             return GridSizeMigrationUtil.migrateGridIfNeeded(mContext, idp, mOpenHelper,
-                   oldHelper.getWritableDatabase());
+                   oldHelper.getWritableDatabase(), loadedModel);
         } finally {
             if (mOpenHelper != oldHelper) {
                 oldHelper.close();
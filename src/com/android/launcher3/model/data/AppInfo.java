@@ -34,7 +34,10 @@ import androidx.annotation.VisibleForTesting;
 
 import com.android.launcher3.LauncherSettings;
 import com.android.launcher3.Utilities;
+import com.android.launcher3.compat.AlphabeticIndexCompat;
 import com.android.launcher3.pm.PackageInstallInfo;
+import com.android.launcher3.util.LabelComparator;
+import com.android.launcher3.util.LabelComparator.SortKey;
 import com.android.launcher3.util.PackageManagerHelper;
 
 import java.util.Comparator;
@@ -61,6 +64,14 @@ public class AppInfo extends ItemInfoWithIcon implements WorkspaceItemFactory {
     // Section name used for indexing.
     public String sectionName = "";
 
+    // Values derived from the title, recomputed when the title changes
+    @Nullable
+    private volatile TitleKeys mTitleKeys;
+    @Nullable
+    private String mSectionNameTitle;
+    @Nullable
+    private AlphabeticIndexCompat mSectionNameIndex;
+
     /**
      * The uid of the application.
      * The kernel user-ID that has been assigned to this application. Currently this is not a unique
@@ -126,6 +137,50 @@ public class AppInfo extends ItemInfoWithIcon implements WorkspaceItemFactory {
         user = installInfo.user;
     }
 
+    /**
+     * Updates {@link #sectionName} using the provided index, if the title or the index changed
+     * since it was last computed. This also precomputes the title sort keys.
+     */
+    public void updateSectionName(@NonNull AlphabeticIndexCompat index) {
+        String title = getTitleString();
+        if (index != mSectionNameIndex || !title.equals(mSectionNameTitle)) {
+            sectionName = index.computeSectionName(title);
+            mSectionNameIndex = index;
+            mSectionNameTitle = title;
+        }
+        getTitleKeys();
+    }
+
+    /**
+     * Returns the key used to sort apps by title in the current locale
+     */
+    @NonNull
+    public SortKey getTitleSortKey() {
+        return getTitleKeys().sortKey;
+    }
+
+    /**
+     * Returns the lower case title, used for matching search queries
+     */
+    @NonNull
+    public String getTitleLowerCase() {
+        return getTitleKeys().lowerCaseTitle;
+    }
+
+    private String getTitleString() {
+        return title == null ? "" : title.toString();
+    }
+
+    private TitleKeys getTitleKeys() {
+        String title = getTitleString();
+        TitleKeys keys = mTitleKeys;
+        if (keys == null || !keys.title.equals(title) || !keys.sortKey.isForCurrentLocale()) {
+            keys = new TitleKeys(title);
+            mTitleKeys = keys;
+        }
+        return keys;
+    }
+
     @Override
     protected String dumpProperties() {
         return super.dumpProperties() + " componentName=" + componentName;
@@ -193,4 +248,20 @@ public class AppInfo extends ItemInfoWithIcon implements WorkspaceItemFactory {
     public AppInfo clone() {
         return new AppInfo(this);
     }
+
+    /**
+     * Immutable set of values derived from a title, so that it can be read without locking
+     */
+    private static class TitleKeys {
+
+        final String title;
+        final SortKey sortKey;
+        final String lowerCaseTitle;
+
+        TitleKeys(String title) {
+            this.title = title;
+            sortKey = LabelComparator.getSortKey(title);
+            lowerCaseTitle = title.toLowerCase();
+        }
+    }
 }
@@ -17,44 +17,116 @@
 package com.android.launcher3.recyclerview
 
 import android.content.Context
+import android.util.SparseIntArray
+import androidx.annotation.VisibleForTesting
 import androidx.recyclerview.widget.RecyclerView
 import androidx.recyclerview.widget.RecyclerView.RecycledViewPool
 import androidx.recyclerview.widget.RecyclerView.ViewHolder
 import com.android.launcher3.BubbleTextView
 import com.android.launcher3.allapps.BaseAllAppsAdapter
 import com.android.launcher3.config.FeatureFlags
+import com.android.launcher3.logging.EventTrace
 import com.android.launcher3.util.Executors.MAIN_EXECUTOR
 import com.android.launcher3.util.Executors.VIEW_PREINFLATION_EXECUTOR
 import com.android.launcher3.views.ActivityContext
 import java.util.concurrent.Future
+import kotlin.math.abs
+import kotlin.math.ceil
 
 const val PREINFLATE_ICONS_ROW_COUNT = 4
 const val EXTRA_ICONS_COUNT = 2
 
+/** Maximum number of icon rows added to the preinflation count based on fling velocity */
+const val MAX_FLING_ICONS_ROW_COUNT = 4
+/** Maximum number of view holders of a given type added based on previous pool misses */
+const val MAX_LEARNED_COUNT = 24
+/** Duration of a fling for which icons are preinflated, in seconds */
+private const val FLING_LOOKAHEAD_SECONDS = 0.1f
+
+private const val COUNTER_MAIN_THREAD_ICONS = "allApps.mainThreadCreateViewHolder.icon"
+private const val COUNTER_MAIN_THREAD_OTHERS = "allApps.mainThreadCreateViewHolder.other"
+
+/** View types which can be created by the preinflation adapter, without search data */
+private val PREINFLATABLE_VIEW_TYPES =
+    intArrayOf(
+        BaseAllAppsAdapter.VIEW_TYPE_ICON,
+        BaseAllAppsAdapter.VIEW_TYPE_ALL_APPS_DIVIDER,
+        BaseAllAppsAdapter.VIEW_TYPE_WORK_EDU_CARD,
+        BaseAllAppsAdapter.VIEW_TYPE_WORK_DISABLED_CARD
+    )
+
 /**
  * An [RecycledViewPool] that preinflates app icons ([ViewHolder] of [BubbleTextView]) of all apps
  * [RecyclerView]. The view inflation will happen on background thread and inflated [ViewHolder]s
  * will be added to [RecycledViewPool] on main thread.
+ *
+ * The number of view holders to preinflate adapts to previous sessions: every time the pool is
+ * empty when a view holder is requested, it has to be created on the main thread, and the
+ * following preinflations include that many more view holders of that type. Fast flings also
+ * increase the number of icons preinflated.
  */
 class AllAppsRecyclerViewPool<T> : RecycledViewPool() {
 
     private var future: Future<Void>? = null
 
+    // Number of view holders created on the main thread since the last preinflation, per type
+    private val mainThreadCreateCounts = SparseIntArray()
+    // Number of view holders to preinflate in addition to the base count, per type
+    private val learnedCounts = SparseIntArray()
+    private val maxRecycledViews = SparseIntArray()
+    // Highest vertical fling velocity since the last preinflation, in px per second
+    private var peakFlingVelocity = 0
+    private var learnedFlingVelocity = 0
+
+    override fun getRecycledView(viewType: Int): ViewHolder? {
+        val holder = super.getRecycledView(viewType)
+        if (holder == null) {
+            // The RecyclerView will create the view holder on the main thread
+            mainThreadCreateCounts.put(viewType, mainThreadCreateCounts[viewType] + 1)
+            EventTrace.incrementCounter(
+                if (viewType == BaseAllAppsAdapter.VIEW_TYPE_ICON) COUNTER_MAIN_THREAD_ICONS
+                else COUNTER_MAIN_THREAD_OTHERS
+            )
+        }
+        return holder
+    }
+
+    override fun setMaxRecycledViews(viewType: Int, max: Int) {
+        maxRecycledViews.put(viewType, max)
+        super.setMaxRecycledViews(viewType, max)
+    }
+
+    /** Returns the number of view holders created on the main thread since last preinflation */
+    @VisibleForTesting
+    fun getMainThreadCreateCount(viewType: Int): Int = mainThreadCreateCounts[viewType]
+
+    /** Called when a RecyclerView using this pool is flung, to adapt the preinflation count. */
+    fun onFling(velocityY: Int) {
+        peakFlingVelocity = maxOf(peakFlingVelocity, abs(velocityY))
+    }
+
     /**
      * Preinflate app icons. If all apps RV cannot be scrolled down, we don't need to preinflate.
      */
     fun <T> preInflateAllAppsViewHolders(context: T) where T : Context, T : ActivityContext {
         val appsView = context.appsView ?: return
         val activeRv: RecyclerView = appsView.activeRecyclerView ?: return
-        val preInflateCount = getPreinflateCount(context)
-        if (preInflateCount <= 0) {
+        updateLearnedCounts()
+        val preInflateCounts = SparseIntArray()
+        for (viewType in PREINFLATABLE_VIEW_TYPES) {
+            val count = getPreinflateCount(context, viewType)
+            if (count > 0) {
+                preInflateCounts.put(viewType, count)
+            }
+        }
+        if (preInflateCounts.size() == 0) {
             return
         }
 
         // Because we perform onCreateViewHolder() on worker thread, we need a separate
         // adapter/inflator object as they are not thread-safe. Note that the adapter
-        // just need to perform onCreateViewHolder(parent, VIEW_TYPE_ICON) so it doesn't need
-        // data source information.
+        // just need to perform onCreateViewHolder(parent, viewType) for view types which don't
+        // depend on the search adapter provider, so it doesn't need data source information.
         val adapter: RecyclerView.Adapter<BaseAllAppsAdapter.ViewHolder> =
             object : BaseAllAppsAdapter<T>(context, context.appsView.layoutInflater, null, null) {
                 override fun setAppsPerRow(appsPerRow: Int) = Unit
@@ -66,12 +138,21 @@ class AllAppsRecyclerViewPool<T> : RecycledViewPool() {
         future =
             VIEW_PREINFLATION_EXECUTOR.submit<Void> {
                 val viewHolders =
-                    Array(preInflateCount) {
-                        adapter.createViewHolder(activeRv, BaseAllAppsAdapter.VIEW_TYPE_ICON)
+                    Array(preInflateCounts.size()) { i ->
+                        val viewType = preInflateCounts.keyAt(i)
+                        Array(preInflateCounts.valueAt(i)) {
+                            adapter.createViewHolder(activeRv, viewType)
+                        }
                     }
                 MAIN_EXECUTOR.execute {
-                    for (i in 0 until minOf(viewHolders.size, getPreinflateCount(context))) {
-                        putRecycledView(viewHolders[i])
+                    for (i in viewHolders.indices) {
+                        val viewType = preInflateCounts.keyAt(i)
+                        val count =
+                            minOf(viewHolders[i].size, getPreinflateCount(context, viewType))
+                        ensureCapacity(viewType, count)
+                        for (j in 0 until count) {
+                            putRecycledView(viewHolders[i][j])
+                        }
                     }
                 }
                 null
@@ -87,17 +168,88 @@ class AllAppsRecyclerViewPool<T> : RecycledViewPool() {
      * app icons in size of one all apps pages, so that opening all apps don't need to inflate app
      * icons.
      */
-    fun <T> getPreinflateCount(context: T): Int where T : Context, T : ActivityContext {
-        var targetPreinflateCount =
-            PREINFLATE_ICONS_ROW_COUNT * context.deviceProfile.numShownAllAppsColumns +
-                EXTRA_ICONS_COUNT
-        if (FeatureFlags.ALL_APPS_GONE_VISIBILITY.get()) {
-            val grid = ActivityContext.lookupContext<T>(context).deviceProfile
-            val approxRows =
-                Math.ceil((grid.availableHeightPx / grid.allAppsIconSizePx).toDouble()).toInt()
-            targetPreinflateCount += (approxRows + 1) * grid.numShownAllAppsColumns
+    fun <T> getPreinflateCount(context: T): Int where T : Context, T : ActivityContext =
+        getPreinflateCount(context, BaseAllAppsAdapter.VIEW_TYPE_ICON)
+
+    /**
+     * Returns the number of view holders of [viewType] to preinflate. For icons this is based on
+     * the heuristic described in [getPreinflateCount] and the fling velocity of previous sessions,
+     * for all view types this also includes the view holders which previously had to be created
+     * on the main thread.
+     */
+    fun <T> getPreinflateCount(context: T, viewType: Int): Int where
+    T : Context,
+    T : ActivityContext {
+        var targetPreinflateCount = learnedCounts[viewType]
+        if (viewType == BaseAllAppsAdapter.VIEW_TYPE_ICON) {
+            val grid = context.deviceProfile
+            targetPreinflateCount +=
+                PREINFLATE_ICONS_ROW_COUNT * grid.numShownAllAppsColumns + EXTRA_ICONS_COUNT
+            if (FeatureFlags.ALL_APPS_GONE_VISIBILITY.get()) {
+                val approxRows =
+                    ceil((grid.availableHeightPx / grid.allAppsIconSizePx).toDouble()).toInt()
+                targetPreinflateCount += (approxRows + 1) * grid.numShownAllAppsColumns
+            }
+            targetPreinflateCount +=
+                getFlingRowCount(learnedFlingVelocity, grid.allAppsCellHeightPx) *
+                    grid.numShownAllAppsColumns
         }
-        val existingPreinflateCount = getRecycledViewCount(BaseAllAppsAdapter.VIEW_TYPE_ICON)
+        val existingPreinflateCount = getRecycledViewCount(viewType)
         return targetPreinflateCount - existingPreinflateCount
     }
+
+    /** Moves the stats of the last session into the counts used for preinflation */
+    private fun updateLearnedCounts() {
+        for (i in 0 until mainThreadCreateCounts.size()) {
+            val viewType = mainThreadCreateCounts.keyAt(i)
+            learnedCounts.put(
+                viewType,
+                getLearnedCount(learnedCounts[viewType], mainThreadCreateCounts.valueAt(i))
+            )
+        }
+        mainThreadCreateCounts.clear()
+        // Slowly forget about fast flings if they don't happen anymore
+        learnedFlingVelocity = maxOf(peakFlingVelocity, learnedFlingVelocity / 2)
+        peakFlingVelocity = 0
+    }
+
+    private fun ensureCapacity(viewType: Int, count: Int) {
+        val max = maxRecycledViews.get(viewType, DEFAULT_MAX_SCRAP)
+        val required = getRecycledViewCount(viewType) + count
+        if (required > max) {
+            setMaxRecycledViews(viewType, required)
+        }
+    }
+
+    companion object {
+        // Matches RecycledViewPool.DEFAULT_MAX_SCRAP
+        private const val DEFAULT_MAX_SCRAP = 5
+
+        /**
+         * Returns the number of view holders to preinflate based on the previous value and the
+         * number of view holders created on the main thread during the last session. Misses are
+         * added right away, but the count only decreases slowly when there are no misses.
+         */
+        @VisibleForTesting
+        @JvmStatic
+        fun getLearnedCount(previousCount: Int, mainThreadCreateCount: Int): Int =
+            if (mainThreadCreateCount > 0) {
+                minOf(previousCount + mainThreadCreateCount, MAX_LEARNED_COUNT)
+            } else {
+                previousCount / 2
+            }
+
+        /** Returns the number of icon rows scrolled during a fling lookahead at [velocity] */
+        @VisibleForTesting
+        @JvmStatic
+        fun getFlingRowCount(velocity: Int, rowHeight: Int): Int {
+            if (rowHeight <= 0) {
+                return 0
+            }
+            return minOf(
+                ceil(velocity * FLING_LOOKAHEAD_SECONDS / rowHeight).toInt(),
+                MAX_FLING_ICONS_ROW_COUNT
+            )
+        }
+    }
 }
@@ -16,9 +16,11 @@
 
 package com.android.launcher3.responsive
 
+import android.content.Context
 import android.content.res.TypedArray
 import com.android.launcher3.R
 import com.android.launcher3.responsive.ResponsiveSpec.SpecType
+import com.android.launcher3.util.ParsedResourceCache
 import com.android.launcher3.util.ResourceHelper
 
 class AllAppsSpecs(widthSpecs: List<AllAppsSpec>, heightSpecs: List<AllAppsSpec>) :
@@ -57,6 +59,17 @@ class AllAppsSpecs(widthSpecs: List<AllAppsSpec>, heightSpecs: List<AllAppsSpec>
     companion object {
         private const val XML_ALL_APPS_SPEC = "allAppsSpec"
 
+        private val cache =
+            ParsedResourceCache<AllAppsSpecs>(ResponsiveSpecsParser.MAX_CACHED_SPECS)
+
+        /**
+         * Returns the specs of [specsFileId] in the resource configuration of [context], which are
+         * only parsed the first time for each configuration.
+         */
+        @JvmStatic
+        fun create(context: Context, specsFileId: Int): AllAppsSpecs =
+            cache.get(context, specsFileId) { create(ResourceHelper(context, specsFileId)) }
+
         @JvmStatic
         fun create(resourceHelper: ResourceHelper): AllAppsSpecs {
             val parser = ResponsiveSpecsParser(resourceHelper)
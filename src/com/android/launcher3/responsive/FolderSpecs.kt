@@ -16,9 +16,11 @@
 
 package com.android.launcher3.responsive
 
+import android.content.Context
 import android.content.res.TypedArray
 import com.android.launcher3.R
 import com.android.launcher3.responsive.ResponsiveSpec.SpecType
+import com.android.launcher3.util.ParsedResourceCache
 import com.android.launcher3.util.ResourceHelper
 
 class FolderSpecs(widthSpecs: List<FolderSpec>, heightSpecs: List<FolderSpec>) :
@@ -58,6 +60,17 @@ class FolderSpecs(widthSpecs: List<FolderSpec>, heightSpecs: List<FolderSpec>) :
 
         private const val XML_FOLDER_SPEC = "folderSpec"
 
+        private val cache =
+            ParsedResourceCache<FolderSpecs>(ResponsiveSpecsParser.MAX_CACHED_SPECS)
+
+        /**
+         * Returns the specs of [specsFileId] in the resource configuration of [context], which are
+         * only parsed the first time for each configuration.
+         */
+        @JvmStatic
+        fun create(context: Context, specsFileId: Int): FolderSpecs =
+            cache.get(context, specsFileId) { create(ResourceHelper(context, specsFileId)) }
+
         @JvmStatic
         fun create(resourceHelper: ResourceHelper): FolderSpecs {
             val parser = ResponsiveSpecsParser(resourceHelper)
@@ -16,9 +16,11 @@
 
 package com.android.launcher3.responsive
 
+import android.content.Context
 import android.content.res.TypedArray
 import android.util.Log
 import com.android.launcher3.R
+import com.android.launcher3.util.ParsedResourceCache
 import com.android.launcher3.util.ResourceHelper
 
 class HotseatSpecs(val specs: List<HotseatSpec>) {
@@ -32,6 +34,17 @@ class HotseatSpecs(val specs: List<HotseatSpec>) {
     companion object {
         private const val XML_HOTSEAT_SPEC = "hotseatSpec"
 
+        private val cache =
+            ParsedResourceCache<HotseatSpecs>(ResponsiveSpecsParser.MAX_CACHED_SPECS)
+
+        /**
+         * Returns the specs of [specsFileId] in the resource configuration of [context], which are
+         * only parsed the first time for each configuration.
+         */
+        @JvmStatic
+        fun create(context: Context, specsFileId: Int): HotseatSpecs =
+            cache.get(context, specsFileId) { create(ResourceHelper(context, specsFileId)) }
+
         @JvmStatic
         fun create(resourceHelper: ResourceHelper): HotseatSpecs {
             val parser = ResponsiveSpecsParser(resourceHelper)
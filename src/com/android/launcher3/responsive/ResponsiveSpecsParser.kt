@@ -83,6 +83,11 @@ class ResponsiveSpecsParser(private val resourceHelper: ResourceHelper) {
             parser.close()
         }
     }
+
+    companion object {
+        /** Number of parsed specs of each type kept in memory, across files and configurations */
+        const val MAX_CACHED_SPECS = 8
+    }
 }
 
 fun Map<String, SizeSpec>.getOrError(key: String): SizeSpec {
@@ -16,10 +16,12 @@
 
 package com.android.launcher3.responsive
 
+import android.content.Context
 import android.content.res.TypedArray
 import android.util.Log
 import com.android.launcher3.R
 import com.android.launcher3.responsive.ResponsiveSpec.SpecType
+import com.android.launcher3.util.ParsedResourceCache
 import com.android.launcher3.util.ResourceHelper
 
 private const val TAG = "WorkspaceSpecs"
@@ -40,6 +42,17 @@ class WorkspaceSpecs(widthSpecs: List<WorkspaceSpec>, heightSpecs: List<Workspac
     companion object {
         private const val XML_WORKSPACE_SPEC = "workspaceSpec"
 
+        private val cache =
+            ParsedResourceCache<WorkspaceSpecs>(ResponsiveSpecsParser.MAX_CACHED_SPECS)
+
+        /**
+         * Returns the specs of [specsFileId] in the resource configuration of [context], which are
+         * only parsed the first time for each configuration.
+         */
+        @JvmStatic
+        fun create(context: Context, specsFileId: Int): WorkspaceSpecs =
+            cache.get(context, specsFileId) { create(ResourceHelper(context, specsFileId)) }
+
         @JvmStatic
         fun create(resourceHelper: ResourceHelper): WorkspaceSpecs {
             val parser = ResponsiveSpecsParser(resourceHelper)
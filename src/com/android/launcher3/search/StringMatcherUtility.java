@@ -18,6 +18,8 @@ package com.android.launcher3.search;
 
 import android.text.TextUtils;
 
+import androidx.annotation.Nullable;
+
 import com.android.launcher3.util.IntArray;
 
 import java.text.Collator;
@@ -35,6 +37,15 @@ public class StringMatcherUtility {
      * break target to valid substring is defined in the given {@code matcher}.
      */
     public static boolean matches(String query, String target, StringMatcher matcher) {
+        return matches(query, target, null, matcher);
+    }
+
+    /**
+     * Same as {@link #matches(String, String, StringMatcher)}, but using a precomputed lower
+     * case form of the target if available.
+     */
+    public static boolean matches(String query, String target, @Nullable String targetLowerCase,
+            StringMatcher matcher) {
         int queryLength = query.length();
 
         int targetLength = target.length();
@@ -44,7 +55,8 @@ public class StringMatcherUtility {
         }
 
         if (requestSimpleFuzzySearch(query)) {
-            return target.toLowerCase().contains(query);
+            return (targetLowerCase != null ? targetLowerCase : target.toLowerCase())
+                    .contains(query);
         }
 
         int lastType;
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import com.android.launcher3.model.data.ItemInfo;
+
+/**
+ * Utility object to manage the occupancy in a grid, similar to {@link GridOccupancy} but storing
+ * each row as a bitmask. This allows checking all the positions of a row for a given span at once
+ * instead of scanning the grid cell by cell.
+ */
+public class BitGridOccupancy {
+
+    private final int mCountX;
+    private final int mCountY;
+    private final long mRowMask;
+
+    private final long[] mRows;
+
+    public BitGridOccupancy(int countX, int countY) {
+        if (countX > Long.SIZE) {
+            throw new IllegalArgumentException("Unsupported number of columns " + countX);
+        }
+        mCountX = countX;
+        mCountY = countY;
+        mRowMask = countX == Long.SIZE ? -1L : (1L << countX) - 1;
+        mRows = new long[countY];
+    }
+
+    public void markCells(int cellX, int cellY, int spanX, int spanY, boolean value) {
+        if (cellX < 0 || cellY < 0) return;
+        long mask = getRunMask(cellX, Math.min(spanX, mCountX - cellX));
+        for (int y = cellY; y < cellY + spanY && y < mCountY; y++) {
+            if (value) {
+                mRows[y] |= mask;
+            } else {
+                mRows[y] &= ~mask;
+            }
+        }
+    }
+
+    public void markCells(ItemInfo item, boolean value) {
+        markCells(item.cellX, item.cellY, item.spanX, item.spanY, value);
+    }
+
+    public boolean isRegionVacant(int x, int y, int spanX, int spanY) {
+        int x2 = x + spanX - 1;
+        int y2 = y + spanY - 1;
+        if (x < 0 || y < 0 || x2 >= mCountX || y2 >= mCountY) {
+            return false;
+        }
+        long mask = getRunMask(x, spanX);
+        for (int j = y; j <= y2; j++) {
+            if ((mRows[j] & mask) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a bitmask of all the columns x in row {@code y} such that the region starting at
+     * (x, y) with the provided span is vacant.
+     */
+    public long getVacantPositions(int y, int spanX, int spanY) {
+        if (y < 0 || spanX <= 0 || spanY <= 0 || spanX > mCountX || y + spanY > mCountY) {
+            return 0;
+        }
+        long free = mRowMask;
+        for (int j = y; j < y + spanY; j++) {
+            free &= ~mRows[j];
+        }
+        // A bit remains set only if the following spanX - 1 columns are also free. Since free is
+        // limited to mCountX bits, positions where the span overflows the row are cleared.
+        long positions = free;
+        for (int i = 1; i < spanX && positions != 0; i++) {
+            positions &= free >>> i;
+        }
+        return positions;
+    }
+
+    /**
+     * Find the first vacant cell in reading order, starting at (startX, startY).
+     *
+     * @param vacantOut Holds the x and y coordinate of the vacant cell
+     * @param spanX Horizontal cell span.
+     * @param spanY Vertical cell span.
+     *
+     * @return true if a vacant cell was found
+     */
+    public boolean findVacantCell(int[] vacantOut, int startX, int startY, int spanX, int spanY) {
+        for (int y = Math.max(startY, 0); y < mCountY; y++) {
+            long positions = getVacantPositions(y, spanX, spanY);
+            if (y == startY) {
+                positions &= getStartMask(startX);
+            }
+            if (positions != 0) {
+                vacantOut[0] = Long.numberOfTrailingZeros(positions);
+                vacantOut[1] = y;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a mask of all the columns at or after {@code startX}
+     */
+    public static long getStartMask(int startX) {
+        return startX <= 0 ? -1L : (startX >= Long.SIZE ? 0 : -1L << startX);
+    }
+
+    private static long getRunMask(int start, int length) {
+        if (length <= 0) {
+            return 0;
+        }
+        return (length == Long.SIZE ? -1L : (1L << length) - 1) << start;
+    }
+
+    public void clear() {
+        for (int y = 0; y < mCountY; y++) {
+            mRows[y] = 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("Grid: \n");
+        for (int y = 0; y < mCountY; y++) {
+            for (int x = 0; x < mCountX; x++) {
+                s.append((mRows[y] >>> x & 1) != 0 ? 1 : 0).append(" ");
+            }
+            s.append("\n");
+        }
+        return s.toString();
+    }
+}
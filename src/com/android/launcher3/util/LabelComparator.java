@@ -15,8 +15,12 @@
  */
 package com.android.launcher3.util;
 
+import androidx.annotation.NonNull;
+
+import java.text.CollationKey;
 import java.text.Collator;
 import java.util.Comparator;
+import java.util.Locale;
 
 /**
  * Extension of {@link java.text.Collator} with special handling for digits. Used for comparing
@@ -24,23 +28,83 @@ import java.util.Comparator;
  */
 public class LabelComparator implements Comparator<String> {
 
+    // Shared collator used to generate sort keys, guarded by LabelComparator.class
+    private static Collator sKeyCollator;
+    private static Locale sKeyCollatorLocale;
+
     private final Collator mCollator = Collator.getInstance();
 
     @Override
     public int compare(String titleA, String titleB) {
         // Ensure that we de-prioritize any titles that don't start with a
         // linguistic letter or digit
-        boolean aStartsWithLetter = (titleA.length() > 0) &&
-                Character.isLetterOrDigit(titleA.codePointAt(0));
-        boolean bStartsWithLetter = (titleB.length() > 0) &&
-                Character.isLetterOrDigit(titleB.codePointAt(0));
+        int result = compareStartsWithLetter(startsWithLetter(titleA), startsWithLetter(titleB));
+        if (result != 0) {
+            return result;
+        }
+
+        // Order by the title in the current locale
+        return mCollator.compare(titleA, titleB);
+    }
+
+    /**
+     * Returns a key for the label, such that comparing two keys gives the same result as
+     * {@link #compare} on their labels. Comparing keys is much cheaper than comparing labels, so
+     * it should be used when the same label is compared multiple times (e.g. when sorting).
+     */
+    @NonNull
+    public static SortKey getSortKey(@NonNull String label) {
+        boolean startsWithLetter = startsWithLetter(label);
+        synchronized (LabelComparator.class) {
+            Locale locale = Locale.getDefault();
+            if (!locale.equals(sKeyCollatorLocale)) {
+                sKeyCollator = Collator.getInstance(locale);
+                sKeyCollatorLocale = locale;
+            }
+            return new SortKey(startsWithLetter, sKeyCollator.getCollationKey(label), locale);
+        }
+    }
+
+    private static boolean startsWithLetter(String title) {
+        return (title.length() > 0) && Character.isLetterOrDigit(title.codePointAt(0));
+    }
+
+    private static int compareStartsWithLetter(boolean aStartsWithLetter,
+            boolean bStartsWithLetter) {
         if (aStartsWithLetter && !bStartsWithLetter) {
             return -1;
         } else if (!aStartsWithLetter && bStartsWithLetter) {
             return 1;
         }
+        return 0;
+    }
 
-        // Order by the title in the current locale
-        return mCollator.compare(titleA, titleB);
+    /**
+     * Precomputed collation key of a label in a given locale
+     */
+    public static final class SortKey implements Comparable<SortKey> {
+
+        private final boolean mStartsWithLetter;
+        private final CollationKey mCollationKey;
+        private final Locale mLocale;
+
+        private SortKey(boolean startsWithLetter, CollationKey collationKey, Locale locale) {
+            mStartsWithLetter = startsWithLetter;
+            mCollationKey = collationKey;
+            mLocale = locale;
+        }
+
+        /**
+         * Returns true if the key was generated for the current default locale
+         */
+        public boolean isForCurrentLocale() {
+            return mLocale.equals(Locale.getDefault());
+        }
+
+        @Override
+        public int compareTo(SortKey other) {
+            int result = compareStartsWithLetter(mStartsWithLetter, other.mStartsWithLetter);
+            return result != 0 ? result : mCollationKey.compareTo(other.mCollationKey);
+        }
     }
 }
@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import static com.android.launcher3.util.Executors.UI_HELPER_EXECUTOR;
+
+import android.graphics.Typeface;
+import android.os.LocaleList;
+import android.text.TextPaint;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.launcher3.logging.EventTrace;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Process wide cache of the letter spacing needed for an icon label to fit in its available
+ * width, so that rebinding the same label does not measure the text again.
+ *
+ * Labels are grouped by everything else that affects the measured width: the text size, scale,
+ * typeface, locales and font features, and the available width. Only a few of these configurations are in use at a time
+ * (workspace, all apps, folders), and each one keeps all its labels, so that the cache is sized
+ * by the number of apps rather than by a fixed count. The hit rate is reported through
+ * {@link EventTrace} counters.
+ */
+public final class LabelSpacingCache {
+
+    private static final String COUNTER_HIT = "labelSpacing.hit";
+    private static final String COUNTER_MISS = "labelSpacing.miss";
+
+    // Number of text configurations kept in the cache
+    private static final int MAX_CONFIGS = 6;
+    // Upper bound of the labels per configuration, well above the number of installed apps
+    @VisibleForTesting
+    static final int MAX_LABELS_PER_CONFIG = 4096;
+    private static final int MAX_SEARCH_LOOP_COUNT = 20;
+
+    private static final LruCache<Config, Map<String, Float>> sCache =
+            new LruCache<>(MAX_CONFIGS) {
+                @Override
+                protected Map<String, Float> create(Config config) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    // Last configuration for which labels were precomputed, only accessed on the UI thread
+    private static Config sLastPrecomputeConfig;
+
+    private LabelSpacingCache() { }
+
+    /**
+     * Returns the letter spacing to use for the text to fit in the allowed width, 0 if the text
+     * already fits.
+     *
+     * @param paint the paint used by the text view, its letter spacing is ignored
+     * @param minSpacingEm minimum spacing allowed between characters
+     */
+    public static float getLetterSpacing(@NonNull TextPaint paint, @NonNull String text,
+            float allowedWidthPx, float minSpacingEm) {
+        Map<String, Float> labels = sCache.get(new Config(paint, allowedWidthPx));
+        Float spacing = labels.get(text);
+        if (spacing != null) {
+            EventTrace.incrementCounter(COUNTER_HIT);
+            return spacing;
+        }
+        EventTrace.incrementCounter(COUNTER_MISS);
+        float oldSpacing = paint.getLetterSpacing();
+        spacing = computeLetterSpacing(paint, text, allowedWidthPx, minSpacingEm);
+        paint.setLetterSpacing(oldSpacing);
+        if (labels.size() >= MAX_LABELS_PER_CONFIG) {
+            labels.clear();
+        }
+        labels.put(text, spacing);
+        return spacing;
+    }
+
+    /**
+     * Computes the letter spacing of the labels on a background thread, so that binding them
+     * later on does not measure any text. This is a no-op if the labels were already precomputed
+     * for the same paint and width.
+     */
+    public static void precompute(@NonNull Supplier<List<CharSequence>> labels,
+            @NonNull TextPaint paint, float allowedWidthPx, float minSpacingEm) {
+        Config config = new Config(paint, allowedWidthPx);
+        if (config.equals(sLastPrecomputeConfig)) {
+            return;
+        }
+        sLastPrecomputeConfig = config;
+
+        // The paint is owned by the view, use a copy on the background thread
+        TextPaint bgPaint = new TextPaint(paint);
+        List<CharSequence> bgLabels = labels.get();
+        UI_HELPER_EXECUTOR.execute(() -> {
+            for (CharSequence label : bgLabels) {
+                if (label != null) {
+                    getLetterSpacing(bgPaint, label.toString(), allowedWidthPx, minSpacingEm);
+                }
+            }
+        });
+    }
+
+    /**
+     * Find the appropriate text spacing to display the provided text
+     * @param paint the paint used by the text view
+     * @param text the text to display
+     * @param allowedWidthPx available space to render the text
+     * @param minSpacingEm minimum spacing allowed between characters
+     * @return the final textSpacing value
+     */
+    @VisibleForTesting
+    static float computeLetterSpacing(TextPaint paint, String text, float allowedWidthPx,
+            float minSpacingEm) {
+        paint.setLetterSpacing(0);
+        if (paint.measureText(text) < allowedWidthPx) {
+            return 0;
+        }
+
+        paint.setLetterSpacing(minSpacingEm);
+        if (paint.measureText(text) > allowedWidthPx) {
+            // If there is no result at high limit, we can do anything more
+            return minSpacingEm;
+        }
+
+        float lowLimit = 0;
+        float highLimit = minSpacingEm;
+
+        for (int i = 0; i < MAX_SEARCH_LOOP_COUNT; i++) {
+            float value = (lowLimit + highLimit) / 2;
+            paint.setLetterSpacing(value);
+            if (paint.measureText(text) < allowedWidthPx) {
+                highLimit = value;
+            } else {
+                lowLimit = value;
+            }
+        }
+
+        // At the end error on the higher side
+        return highLimit;
+    }
+
+    /**
+     * Returns the number of labels cached for the paint and width
+     */
+    @VisibleForTesting
+    static int getCachedLabelCount(TextPaint paint, float allowedWidthPx) {
+        return sCache.get(new Config(paint, allowedWidthPx)).size();
+    }
+
+    /**
+     * Clears all the cached values
+     */
+    @VisibleForTesting
+    static void clear() {
+        sCache.evictAll();
+        sLastPrecomputeConfig = null;
+    }
+
+    private static class Config {
+
+        private final float mTextSize;
+        private final float mTextScaleX;
+        private final Typeface mTypeface;
+        private final LocaleList mTextLocales;
+        private final String mFontFeatureSettings;
+        private final float mAllowedWidth;
+
+        Config(TextPaint paint, float allowedWidth) {
+            mTextSize = paint.getTextSize();
+            mTextScaleX = paint.getTextScaleX();
+            mTypeface = paint.getTypeface();
+            mTextLocales = paint.getTextLocales();
+            mFontFeatureSettings = paint.getFontFeatureSettings();
+            mAllowedWidth = allowedWidth;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Config c
+                    && mTextSize == c.mTextSize
+                    && mTextScaleX == c.mTextScaleX
+                    && mAllowedWidth == c.mAllowedWidth
+                    && Objects.equals(mTypeface, c.mTypeface)
+                    && Objects.equals(mTextLocales, c.mTextLocales)
+                    && Objects.equals(mFontFeatureSettings, c.mFontFeatureSettings);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mTextSize, mTextScaleX, mTypeface, mTextLocales,
+                    mFontFeatureSettings, mAllowedWidth);
+        }
+    }
+}
@@ -65,4 +65,10 @@ public class LogConfig {
      * When turned on, we enable AGA related session summary logging.
      */
     public static final String AGA_SESSION_SUMMARY_LOG = "AGASessionSummaryLog";
+
+    /**
+     * When turned on, the binder transactions made on the main thread are aggregated per section
+     * and reported in dumpsys.
+     */
+    public static final String MAIN_THREAD_IPC_TRACKING = "MainThreadIpcTracking";
 }
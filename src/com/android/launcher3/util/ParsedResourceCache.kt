@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.launcher3.util
+
+import android.content.Context
+import android.content.res.Configuration
+import android.os.LocaleList
+import android.util.LruCache
+import androidx.annotation.VisibleForTesting
+
+/**
+ * Process wide cache of models parsed from resource files, kept for the resource configuration
+ * they were parsed in, so that a file is not parsed again every time a grid is initialized or
+ * previewed.
+ *
+ * The cached models are shared by all the callers and must not be modified.
+ */
+class ParsedResourceCache<T : Any>(maxSize: Int) {
+
+    private val cache = LruCache<Key, T>(maxSize)
+
+    /**
+     * Returns the model cached for [key] in the resource configuration of [context], parsing it
+     * with [parser] the first time.
+     */
+    fun get(context: Context, key: Any, parser: () -> T): T {
+        val cacheKey =
+            Key(key, context.packageName, ConfigurationKey(context.resources.configuration))
+        // Parsing happens outside the cache lock, concurrent misses both parse the same model
+        return cache[cacheKey] ?: parser().also { cache.put(cacheKey, it) }
+    }
+
+    @VisibleForTesting
+    fun clear() {
+        cache.evictAll()
+    }
+
+    private data class Key(
+        val key: Any,
+        val packageName: String,
+        val configuration: ConfigurationKey
+    )
+
+    /**
+     * The parts of a [Configuration] which select the resources and scale the dimensions used by
+     * the parsed models. The current window width and height are left out as they change with
+     * every window resize, which would prevent any reuse across windows and displays; the parsed
+     * files are only qualified by smallest width and orientation.
+     */
+    private data class ConfigurationKey(
+        val densityDpi: Int,
+        val fontScale: Float,
+        val orientation: Int,
+        val smallestScreenWidthDp: Int,
+        val screenLayout: Int,
+        val uiMode: Int,
+        val locales: LocaleList
+    ) {
+        constructor(
+            config: Configuration
+        ) : this(
+            config.densityDpi,
+            config.fontScale,
+            config.orientation,
+            config.smallestScreenWidthDp,
+            config.screenLayout,
+            config.uiMode,
+            config.locales
+        )
+    }
+}
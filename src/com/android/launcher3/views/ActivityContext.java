@@ -63,6 +63,7 @@ import com.android.launcher3.Utilities;
 import com.android.launcher3.allapps.ActivityAllAppsContainerView;
 import com.android.launcher3.celllayout.CellPosMapper;
 import com.android.launcher3.dot.DotInfo;
+import com.android.launcher3.dot.DotViewIndex;
 import com.android.launcher3.dragndrop.DragController;
 import com.android.launcher3.folder.FolderIcon;
 import com.android.launcher3.logger.LauncherAtom;
@@ -99,6 +100,15 @@ public interface ActivityContext {
         return null;
     }
 
+    /**
+     * Returns the index used to notify icons of dot changes, or null if this context updates
+     * dots by traversing its icons.
+     */
+    @Nullable
+    default DotViewIndex getDotViewIndex() {
+        return null;
+    }
+
     /**
      * For items with tree hierarchy, notifies the activity to invalidate the parent when a root
      * is invalidated
@@ -106,7 +106,8 @@ public class LauncherAppWidgetProviderInfo extends AppWidgetProviderInfo
 
 
         Point cellSize = new Point();
-        for (DeviceProfile dp : idp.supportedProfiles) {
+        // Only use the profiles in use, instead of building all of them on the model thread
+        for (DeviceProfile dp : idp.getBuiltProfiles()) {
             dp.getCellSize(cellSize);
             Rect widgetPadding = dp.widgetPadding;
 
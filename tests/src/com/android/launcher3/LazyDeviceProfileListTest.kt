@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.SmallTest
+import com.android.launcher3.util.DisplayController
+import com.google.common.truth.Truth.assertThat
+import java.util.function.IntConsumer
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/** Tests for [LazyDeviceProfileList]. */
+@SmallTest
+@RunWith(AndroidJUnit4::class)
+class LazyDeviceProfileListTest : AbstractDeviceProfileTest() {
+
+    @Test
+    fun tabletHotseatIconsComputedOnceFromAllProfiles() {
+        initializeVarsForTablet(deviceSpecs["tablet"]!!)
+        val computedValues = mutableListOf<Int>()
+        val profiles =
+            createList(TABLET_GRID, numTabletHotseatIcons = -1) { computedValues.add(it) }
+
+        // Accessing any tablet profile computes the number of icons from all of them
+        profiles[0]
+        assertThat(computedValues).hasSize(1)
+        profiles.forEach {
+            assertThat(it.numShownHotseatIcons).isAtMost(computedValues[0])
+        }
+    }
+
+    @Test
+    fun knownTabletHotseatIconsAreReused() {
+        initializeVarsForTablet(deviceSpecs["tablet"]!!)
+        val computedValues = mutableListOf<Int>()
+        val expected =
+            createList(TABLET_GRID, numTabletHotseatIcons = -1) { computedValues.add(it) }
+        expected[0]
+
+        val reusedValues = mutableListOf<Int>()
+        val profiles =
+            createList(TABLET_GRID, numTabletHotseatIcons = computedValues[0]) {
+                reusedValues.add(it)
+            }
+
+        for (i in profiles.indices.reversed()) {
+            assertThat(profiles[i].numShownHotseatIcons)
+                .isEqualTo(expected[i].numShownHotseatIcons)
+        }
+        assertThat(reusedValues).isEmpty()
+    }
+
+    @Test
+    fun profilesMatchTheirWindowBounds() {
+        initializeVarsForPhone(deviceSpecs["phone"]!!)
+        val profiles = createList(PHONE_GRID, numTabletHotseatIcons = -1)
+
+        for (i in profiles.indices) {
+            assertThat(profiles[i]).isSameInstanceAs(profiles[i])
+            assertThat(profiles[i].widthPx).isEqualTo(profiles.getWindowBounds(i).bounds.width())
+            assertThat(profiles[i].heightPx).isEqualTo(profiles.getWindowBounds(i).bounds.height())
+            assertThat(profiles[i].rotationHint).isEqualTo(profiles.getWindowBounds(i).rotationHint)
+        }
+    }
+
+    @Test
+    fun builtProfilesDoNotBuildOthers() {
+        initializeVarsForPhone(deviceSpecs["phone"]!!)
+        val profiles = createList(PHONE_GRID, numTabletHotseatIcons = -1)
+        assertThat(profiles.builtProfiles).isEmpty()
+
+        val profile = profiles[profiles.size - 1]
+        assertThat(profiles.builtProfiles).containsExactly(profile)
+    }
+
+    private fun createList(
+        gridName: String,
+        numTabletHotseatIcons: Int,
+        callback: ((Int) -> Unit)? = null
+    ): LazyDeviceProfileList {
+        val info = DisplayController.INSTANCE.get(context!!).info
+        return LazyDeviceProfileList(
+            context,
+            InvariantDeviceProfile(context, gridName),
+            info,
+            /* isMultiDisplay= */ false,
+            info.supportedBounds,
+            numTabletHotseatIcons,
+            callback?.let { c -> IntConsumer { c(it) } }
+        )
+    }
+
+    companion object {
+        private const val PHONE_GRID = "5_by_5"
+        private const val TABLET_GRID = "6_by_5"
+    }
+}
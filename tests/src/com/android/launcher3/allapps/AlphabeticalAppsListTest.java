@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.allapps;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
+import static com.android.launcher3.util.Executors.UI_HELPER_EXECUTOR;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.content.ComponentName;
+import android.content.Intent;
+import android.os.Process;
+import android.view.LayoutInflater;
+
+import androidx.recyclerview.widget.RecyclerView.AdapterDataObserver;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.allapps.BaseAllAppsAdapter.AdapterItem;
+import com.android.launcher3.model.data.AppInfo;
+import com.android.launcher3.util.ActivityContextWrapper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests for {@link AlphabeticalAppsList}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class AlphabeticalAppsListTest {
+
+    private ActivityContextWrapper mContext;
+    private AllAppsStore<ActivityContextWrapper> mAppsStore;
+    private AlphabeticalAppsList<ActivityContextWrapper> mAppsList;
+    private int mAdapterChangeCount;
+
+    @Before
+    public void setUp() throws Exception {
+        MAIN_EXECUTOR.submit(() -> {
+            mContext = new ActivityContextWrapper(getApplicationContext());
+            mAppsStore = new AllAppsStore<>(mContext);
+            mAppsList = new AlphabeticalAppsList<>(mContext, mAppsStore, null);
+            AllAppsGridAdapter<ActivityContextWrapper> adapter = new AllAppsGridAdapter<>(
+                    mContext, LayoutInflater.from(mContext), mAppsList, null);
+            adapter.registerAdapterDataObserver(new AdapterDataObserver() {
+                @Override
+                public void onItemRangeChanged(int positionStart, int itemCount) {
+                    mAdapterChangeCount++;
+                }
+
+                @Override
+                public void onItemRangeInserted(int positionStart, int itemCount) {
+                    mAdapterChangeCount++;
+                }
+
+                @Override
+                public void onItemRangeRemoved(int positionStart, int itemCount) {
+                    mAdapterChangeCount++;
+                }
+
+                @Override
+                public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+                    mAdapterChangeCount++;
+                }
+            });
+            mAppsList.setAdapter(adapter);
+        }).get();
+    }
+
+    @Test
+    public void testAppsUpdateDiffedInBackground() throws Exception {
+        setApps(createApps("Alpha", "Charlie"));
+        waitForUpdates();
+        assertAppTitles("Alpha", "Charlie");
+
+        MAIN_EXECUTOR.submit(() -> {
+            mAdapterChangeCount = 0;
+            mAppsStore.setApps(createApps("Charlie", "Bravo", "Alpha"), 0, Collections.emptyMap());
+            // The sort and the diff are not done yet
+            assertEquals(2, mAppsList.getAdapterItems().size());
+        }).get();
+        waitForUpdates();
+
+        // The items are sorted and the diff is dispatched to the adapter
+        assertAppTitles("Alpha", "Bravo", "Charlie");
+        assertTrue(mAdapterChangeCount > 0);
+    }
+
+    @Test
+    public void testOverlappingAppsUpdatesAppliedInOrder() throws Exception {
+        setApps(createApps("Alpha"));
+        waitForUpdates();
+
+        MAIN_EXECUTOR.submit(() -> {
+            mAppsStore.setApps(createApps("Alpha", "Bravo"), 0, Collections.emptyMap());
+            mAppsStore.setApps(createApps("Delta", "Charlie"), 0, Collections.emptyMap());
+        }).get();
+        waitForUpdates();
+
+        // Only the latest update is applied
+        assertAppTitles("Charlie", "Delta");
+    }
+
+    @Test
+    public void testSearchResultsAppliedSynchronously() throws Exception {
+        setApps(createApps("Alpha", "Bravo"));
+        waitForUpdates();
+
+        ArrayList<AdapterItem> results = new ArrayList<>();
+        MAIN_EXECUTOR.submit(() -> {
+            // A pending apps update does not override the search results
+            mAppsStore.setApps(createApps("Alpha", "Bravo", "Charlie"), 0,
+                    Collections.emptyMap());
+            results.add(AdapterItem.asApp(createApps("Search")[0]));
+            assertTrue(mAppsList.setSearchResults(results));
+            assertEquals(1, mAppsList.getAdapterItems().size());
+            assertSame(results.get(0), mAppsList.getAdapterItems().get(0));
+        }).get();
+        waitForUpdates();
+        MAIN_EXECUTOR.submit(() ->
+                assertSame(results.get(0), mAppsList.getAdapterItems().get(0))).get();
+
+        // Clearing the results applies the latest apps
+        MAIN_EXECUTOR.submit(() -> {
+            assertTrue(mAppsList.setSearchResults(null));
+            mAppsList.onAppsUpdated();
+        }).get();
+        waitForUpdates();
+        assertAppTitles("Alpha", "Bravo", "Charlie");
+    }
+
+    @Test
+    public void testUpdateAdapterItemsDropsPendingDiff() throws Exception {
+        setApps(createApps("Alpha"));
+        waitForUpdates();
+
+        MAIN_EXECUTOR.submit(() -> {
+            mAppsStore.setApps(createApps("Alpha", "Bravo"), 0, Collections.emptyMap());
+        }).get();
+        // Let the sort complete and the diff start
+        UI_HELPER_EXECUTOR.submit(() -> { }).get();
+        MAIN_EXECUTOR.submit(() -> {
+            mAppsList.updateAdapterItems();
+            assertAppTitlesOnMain("Alpha", "Bravo");
+        }).get();
+        waitForUpdates();
+        assertAppTitles("Alpha", "Bravo");
+    }
+
+    @Test
+    public void testItemFilterAppliedSynchronously() throws Exception {
+        setApps(createApps("Alpha", "Bravo"));
+        waitForUpdates();
+
+        MAIN_EXECUTOR.submit(() -> {
+            mAppsList.updateItemFilter(info -> !"Alpha".contentEquals(info.title));
+            assertAppTitlesOnMain("Bravo");
+        }).get();
+    }
+
+    @Test
+    public void testFirstAppsAppliedSynchronously() throws Exception {
+        MAIN_EXECUTOR.submit(() -> {
+            mAppsStore.setApps(createApps("Bravo", "Alpha"), 0, Collections.emptyMap());
+            assertAppTitlesOnMain("Alpha", "Bravo");
+        }).get();
+    }
+
+    private void setApps(AppInfo[] apps) throws Exception {
+        MAIN_EXECUTOR.submit(() -> mAppsStore.setApps(apps, 0, Collections.emptyMap())).get();
+    }
+
+    private void assertAppTitles(String... titles) throws Exception {
+        MAIN_EXECUTOR.submit(() -> assertAppTitlesOnMain(titles)).get();
+    }
+
+    private void assertAppTitlesOnMain(String... titles) {
+        List<AdapterItem> items = mAppsList.getAdapterItems();
+        assertEquals(titles.length, items.size());
+        for (int i = 0; i < titles.length; i++) {
+            assertEquals(titles[i], items.get(i).itemInfo.title.toString());
+        }
+    }
+
+    /**
+     * Waits for the sort and the diff, which both run on the background executor and are then
+     * applied on the main thread
+     */
+    private static void waitForUpdates() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            UI_HELPER_EXECUTOR.submit(() -> { }).get();
+            MAIN_EXECUTOR.submit(() -> { }).get();
+        }
+    }
+
+    private static AppInfo[] createApps(String... titles) {
+        AppInfo[] apps = new AppInfo[titles.length];
+        for (int i = 0; i < titles.length; i++) {
+            ComponentName cn = new ComponentName("com.example." + titles[i], titles[i]);
+            apps[i] = new AppInfo(cn, titles[i], Process.myUserHandle(),
+                    new Intent().setComponent(cn));
+            apps[i].sectionName = titles[i].substring(0, 1);
+        }
+        return apps;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.celllayout;
+
+import static org.junit.Assert.assertTrue;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+
+import com.android.launcher3.util.GridOccupancy;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+/**
+ * Measures the time {@link ReorderEngine} takes to find a reorder for every drop position on
+ * dense grids. Timings are logged, the test only verifies that solutions were found.
+ */
+@MediumTest
+@RunWith(AndroidJUnit4.class)
+public class ReorderEngineBenchmarkTest {
+
+    private static final String TAG = "ReorderEngineBenchmarkTest";
+    private static final int ITERATIONS = 20;
+    // Number of cells left empty at the end of the grid, enough to fit the largest drop
+    private static final int EMPTY_CELLS = 4;
+
+    private static final int[][] DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+
+    private final ReorderEngine mEngine = new ReorderEngine();
+
+    @Test
+    public void reorder_6x5_icon() {
+        benchmark(6, 5, 1, 1);
+    }
+
+    @Test
+    public void reorder_6x5_widget() {
+        benchmark(6, 5, 2, 2);
+    }
+
+    @Test
+    public void reorder_8x4_twoPanel_icon() {
+        benchmark(8, 4, 1, 1);
+    }
+
+    @Test
+    public void reorder_8x4_twoPanel_widget() {
+        benchmark(8, 4, 2, 2);
+    }
+
+    private void benchmark(int countX, int countY, int spanX, int spanY) {
+        long[] times = new long[ITERATIONS];
+        int solutions = 0;
+        int[] direction = new int[2];
+        GridOccupancy occupied = new GridOccupancy(countX, countY);
+        for (int i = 0; i < ITERATIONS; i++) {
+            solutions = 0;
+            long start = SystemClock.elapsedRealtimeNanos();
+            for (int y = 0; y + spanY <= countY; y++) {
+                for (int x = 0; x + spanX <= countX; x++) {
+                    for (int[] d : DIRECTIONS) {
+                        fillDenseGrid(occupied, countX, countY);
+                        direction[0] = d[0];
+                        direction[1] = d[1];
+                        if (mEngine.rearrangementExists(x, y, spanX, spanY, direction,
+                                ReorderEngine.NO_ITEM)) {
+                            solutions++;
+                        }
+                    }
+                }
+            }
+            times[i] = SystemClock.elapsedRealtimeNanos() - start;
+        }
+        assertTrue(solutions > 0);
+
+        Arrays.sort(times);
+        Log.d(TAG, "Reorder " + spanX + "x" + spanY + " on " + countX + "x" + countY
+                + " (" + solutions + " solutions): median=" + times[ITERATIONS / 2] / 1000
+                + "us min=" + times[0] / 1000 + "us max=" + times[ITERATIONS - 1] / 1000 + "us");
+    }
+
+    /**
+     * Fills the grid with a 2x2 widget in two corners and icons everywhere else, except for the
+     * last few cells.
+     */
+    private void fillDenseGrid(GridOccupancy occupied, int countX, int countY) {
+        occupied.clear();
+        mEngine.reset(countX, countY, occupied);
+        addItem(occupied, 0, 0, 2, 2);
+        addItem(occupied, countX - 2, countY - 2 - 1, 2, 2);
+
+        int iconCount = countX * countY - 8 - EMPTY_CELLS;
+        for (int y = 0; y < countY && iconCount > 0; y++) {
+            for (int x = 0; x < countX && iconCount > 0; x++) {
+                if (!occupied.cells[x][y]) {
+                    addItem(occupied, x, y, 1, 1);
+                    iconCount--;
+                }
+            }
+        }
+    }
+
+    private void addItem(GridOccupancy occupied, int cellX, int cellY, int spanX, int spanY) {
+        occupied.markCells(cellX, cellY, spanX, spanY, true);
+        mEngine.addItem(cellX, cellY, spanX, spanY, true);
+    }
+}
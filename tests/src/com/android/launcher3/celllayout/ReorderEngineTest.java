@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.celllayout;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Point;
+import android.graphics.Rect;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.util.GridOccupancy;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Tests for {@link ReorderEngine}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class ReorderEngineTest {
+
+    private static final int[][] DIRECTIONS = {
+            {1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {-1, -1}, {1, -1}, {-1, 1}
+    };
+    private static final int[][] SPANS = {{1, 1}, {2, 1}, {1, 2}, {2, 2}, {3, 2}};
+
+    private final ReorderEngine mEngine = new ReorderEngine();
+
+    @Test
+    public void testPushInDirection() {
+        GridOccupancy occupied = new GridOccupancy(4, 1);
+        mEngine.reset(4, 1, occupied);
+        addItem(occupied, 0, 0, 1, 1, true);
+        addItem(occupied, 1, 0, 1, 1, true);
+
+        int[] direction = {1, 0};
+        assertTrue(mEngine.rearrangementExists(0, 0, 1, 1, direction, ReorderEngine.NO_ITEM));
+        assertEquals(1, mEngine.getCellX(0));
+        assertEquals(2, mEngine.getCellX(1));
+        assertArrayEquals(new int[] {1, 0}, direction);
+        assertEquals(1, mEngine.getIntersectingItems().size());
+    }
+
+    @Test
+    public void testFixedItemNotMoved() {
+        GridOccupancy occupied = new GridOccupancy(4, 1);
+        mEngine.reset(4, 1, occupied);
+        addItem(occupied, 0, 0, 1, 1, false);
+
+        assertFalse(mEngine.rearrangementExists(0, 0, 1, 1, new int[] {1, 0},
+                ReorderEngine.NO_ITEM));
+        assertEquals(0, mEngine.getCellX(0));
+    }
+
+    @Test
+    public void testDraggedItemPlacedAtDropRegion() {
+        GridOccupancy occupied = new GridOccupancy(4, 2);
+        mEngine.reset(4, 2, occupied);
+        int dragged = addItem(occupied, 3, 1, 1, 1, true);
+        addItem(occupied, 0, 0, 1, 1, true);
+
+        assertTrue(mEngine.rearrangementExists(0, 0, 1, 1, new int[] {1, 0}, dragged));
+        assertEquals(0, mEngine.getCellX(dragged));
+        assertEquals(0, mEngine.getCellY(dragged));
+        assertEquals(1, mEngine.getCellX(1));
+    }
+
+    /**
+     * Tries every drop position, span and direction on the boards of the reorder test cases, and
+     * verifies that every solution found is a valid placement.
+     */
+    @Test
+    public void testAllPositionsOnTestCaseBoards() throws IOException {
+        int solutions = 0;
+        for (CellLayoutBoard board : getTestCaseBoards()) {
+            for (int[] span : SPANS) {
+                for (int y = 0; y + span[1] <= board.getHeight(); y++) {
+                    for (int x = 0; x + span[0] <= board.getWidth(); x++) {
+                        for (int[] direction : DIRECTIONS) {
+                            GridOccupancy occupied = loadBoard(board);
+                            if (mEngine.rearrangementExists(x, y, span[0], span[1],
+                                    direction.clone(), ReorderEngine.NO_ITEM)) {
+                                verifySolution(board, occupied, new Rect(x, y, x + span[0],
+                                        y + span[1]));
+                                solutions++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        assertTrue(solutions > 0);
+    }
+
+    private void verifySolution(CellLayoutBoard board, GridOccupancy occupied, Rect dropRegion) {
+        String message = "Invalid solution for " + dropRegion + " on board\n" + board;
+        Rect r0 = new Rect();
+        Rect r1 = new Rect();
+        for (int i = 0; i < mEngine.getItemCount(); i++) {
+            getItemRect(i, r0);
+            assertTrue(message, r0.left >= 0 && r0.top >= 0
+                    && r0.right <= board.getWidth() && r0.bottom <= board.getHeight());
+            assertFalse(message, Rect.intersects(r0, dropRegion));
+            for (int j = i + 1; j < mEngine.getItemCount(); j++) {
+                getItemRect(j, r1);
+                assertFalse(message, Rect.intersects(r0, r1));
+            }
+            for (int x = r0.left; x < r0.right; x++) {
+                for (int y = r0.top; y < r0.bottom; y++) {
+                    assertTrue(message, occupied.cells[x][y]);
+                }
+            }
+        }
+    }
+
+    private void getItemRect(int id, Rect outRect) {
+        outRect.set(mEngine.getCellX(id), mEngine.getCellY(id),
+                mEngine.getCellX(id) + mEngine.getSpanX(id),
+                mEngine.getCellY(id) + mEngine.getSpanY(id));
+    }
+
+    private int addItem(GridOccupancy occupied, int cellX, int cellY, int spanX, int spanY,
+            boolean canReorder) {
+        occupied.markCells(cellX, cellY, spanX, spanY, true);
+        return mEngine.addItem(cellX, cellY, spanX, spanY, canReorder);
+    }
+
+    /**
+     * Adds the items of the board to the engine, in the same order as CellLayout would
+     */
+    static GridOccupancy loadBoard(ReorderEngine engine, CellLayoutBoard board) {
+        GridOccupancy occupied = new GridOccupancy(board.getWidth(), board.getHeight());
+        engine.reset(board.getWidth(), board.getHeight(), occupied);
+        List<Rect> items = new ArrayList<>();
+        board.getIcons().forEach(icon -> {
+            Point p = icon.getCoord();
+            items.add(new Rect(p.x, p.y, p.x + 1, p.y + 1));
+        });
+        board.getWidgets().forEach(widget -> items.add(new Rect(widget.getCellX(),
+                widget.getCellY(), widget.getCellX() + widget.getSpanX(),
+                widget.getCellY() + widget.getSpanY())));
+        items.sort(Comparator.<Rect>comparingInt(r -> r.left).thenComparingInt(r -> r.top));
+        for (Rect r : items) {
+            occupied.markCells(r, true);
+            engine.addItem(r.left, r.top, r.width(), r.height(), true);
+        }
+        return occupied;
+    }
+
+    private GridOccupancy loadBoard(CellLayoutBoard board) {
+        return loadBoard(mEngine, board);
+    }
+
+    static List<CellLayoutBoard> getTestCaseBoards() throws IOException {
+        List<CellLayoutBoard> boards = new ArrayList<>();
+        Iterator<CellLayoutTestCaseReader.TestSection> sections = CellLayoutTestCaseReader
+                .readFromFile("ReorderAlgorithmUnitTest/reorder_algorithm_test_cases")
+                .parse().iterator();
+        while (sections.hasNext()) {
+            boards.add(ReorderAlgorithmUnitTestCase.readNextCase(sections).startBoard);
+        }
+        return boards;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.celllayout;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.view.View;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.util.GridOccupancy;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Tests for {@link SpeculativeReorderSolver}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class SpeculativeReorderSolverTest {
+
+    private final SpeculativeReorderSolver mSolver = new SpeculativeReorderSolver();
+    private View[] mViews;
+
+    @Before
+    public void setUp() {
+        mViews = new View[] {new View(getApplicationContext()), new View(getApplicationContext())};
+    }
+
+    @Test
+    public void testEqualRequestReusesResult() {
+        SpeculativeReorderSolver.Result result = mSolver.solve(createRequest(new int[] {1, 0}));
+        assertTrue(result.isSolution);
+        assertSame(result, mSolver.solve(createRequest(new int[] {1, 0})));
+        assertNotSame(result, mSolver.solve(createRequest(new int[] {0, 1})));
+    }
+
+    @Test
+    public void testItemsPushedOutOfDropRegion() {
+        // Two icons in a 4x1 row, dropping an icon on the first one pushes both to the right
+        SpeculativeReorderSolver.Result result = mSolver.solve(createRequest(new int[] {1, 0}));
+        assertTrue(result.isSolution);
+        assertArrayEquals(new int[] {0, 0, 1, 1}, result.dropRegion);
+        assertEquals(1, result.getCellX(0));
+        assertEquals(2, result.getCellX(1));
+        assertArrayEquals(new int[] {0}, result.getIntersectingItems());
+    }
+
+    @Test
+    public void testSmallerSpanTriedWhenNoSolution() {
+        GridOccupancy occupied = new GridOccupancy(4, 1);
+        occupied.markCells(0, 0, 2, 1, true);
+        // The 4x1 region can not be freed as items can not be pushed out of the grid
+        SpeculativeReorderSolver.Request request = new SpeculativeReorderSolver.Request(4, 1,
+                occupied, mViews, new int[] {0, 0, 1, 1, 1, 0, 1, 1}, new boolean[] {true, true},
+                new int[] {0, 1}, ReorderEngine.NO_ITEM, new int[] {1, 0},
+                new int[] {0, 0, 4, 1, 2, 0, 2, 1});
+        SpeculativeReorderSolver.Result result = mSolver.solve(request);
+        assertTrue(result.isSolution);
+        assertArrayEquals(new int[] {2, 0, 2, 1}, result.dropRegion);
+        assertEquals(0, result.getCellX(0));
+        assertEquals(1, result.getCellX(1));
+    }
+
+    @Test
+    public void testNoSolution() {
+        GridOccupancy occupied = new GridOccupancy(4, 1);
+        occupied.markCells(0, 0, 2, 1, true);
+        SpeculativeReorderSolver.Request request = new SpeculativeReorderSolver.Request(4, 1,
+                occupied, mViews, new int[] {0, 0, 1, 1, 1, 0, 1, 1}, new boolean[] {false, false},
+                new int[] {0, 1}, ReorderEngine.NO_ITEM, new int[] {1, 0},
+                new int[] {0, 0, 1, 1});
+        SpeculativeReorderSolver.Result result = mSolver.solve(request);
+        assertFalse(result.isSolution);
+        assertNull(result.dropRegion);
+    }
+
+    private SpeculativeReorderSolver.Request createRequest(int[] direction) {
+        GridOccupancy occupied = new GridOccupancy(4, 1);
+        occupied.markCells(0, 0, 2, 1, true);
+        return new SpeculativeReorderSolver.Request(4, 1, occupied, mViews,
+                new int[] {0, 0, 1, 1, 1, 0, 1, 1}, new boolean[] {true, true}, new int[] {1, 0},
+                ReorderEngine.NO_ITEM, direction, new int[] {0, 0, 1, 1});
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.dot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import android.os.Process;
+import android.view.View;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.util.PackageUserKey;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tests for {@link DotViewIndex}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class DotViewIndexTest {
+
+    private static final PackageUserKey KEY_A =
+            new PackageUserKey("com.example.a", Process.myUserHandle());
+    private static final PackageUserKey KEY_B =
+            new PackageUserKey("com.example.b", Process.myUserHandle());
+
+    private final DotViewIndex mIndex = new DotViewIndex();
+    private final List<View> mUpdated = new ArrayList<>();
+
+    @Test
+    public void testOnlyAffectedViewsNotified() {
+        View a1 = mock(View.class);
+        View a2 = mock(View.class);
+        View b = mock(View.class);
+        mIndex.add(KEY_A, a1);
+        mIndex.add(KEY_A, a2);
+        mIndex.add(KEY_B, b);
+
+        mIndex.onDotsUpdated(Collections.singleton(KEY_A), mUpdated::add);
+        assertEquals(2, mUpdated.size());
+        assertTrue(mUpdated.contains(a1));
+        assertTrue(mUpdated.contains(a2));
+    }
+
+    @Test
+    public void testRemovedViewNotNotified() {
+        View a = mock(View.class);
+        mIndex.add(KEY_A, a);
+        mIndex.remove(KEY_A, a);
+        mIndex.remove(null, a);
+
+        mIndex.onDotsUpdated(Set.of(KEY_A, KEY_B), mUpdated::add);
+        assertTrue(mUpdated.isEmpty());
+    }
+
+    @Test
+    public void testViewNotifiedOnceForMultipleKeys() {
+        View folder = mock(View.class);
+        mIndex.add(KEY_A, folder);
+        mIndex.add(KEY_B, folder);
+
+        mIndex.onDotsUpdated(Set.of(KEY_A, KEY_B), mUpdated::add);
+        assertEquals(Collections.singletonList(folder), mUpdated);
+    }
+
+    @Test
+    public void testGenerationChangesOnEveryUpdate() {
+        int generation = mIndex.getGeneration();
+        mIndex.onDotsUpdated(Collections.emptySet(), mUpdated::add);
+        assertTrue(mIndex.getGeneration() != generation);
+    }
+}
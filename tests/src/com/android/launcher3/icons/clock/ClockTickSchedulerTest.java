@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.icons.clock;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Tests for {@link ClockTickScheduler}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class ClockTickSchedulerTest {
+
+    @Test
+    public void testTicksAlignedToSeconds() {
+        assertEquals(1000, ClockTickScheduler.getDelayToNextTick(60_000, true));
+        assertEquals(1, ClockTickScheduler.getDelayToNextTick(60_999, true));
+        assertEquals(750, ClockTickScheduler.getDelayToNextTick(123_250, true));
+    }
+
+    @Test
+    public void testTicksAlignedToMinutes() {
+        assertEquals(60_000, ClockTickScheduler.getDelayToNextTick(120_000, false));
+        assertEquals(1, ClockTickScheduler.getDelayToNextTick(179_999, false));
+        assertEquals(56_750, ClockTickScheduler.getDelayToNextTick(123_250, false));
+    }
+}
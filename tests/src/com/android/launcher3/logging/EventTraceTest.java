@@ -0,0 +1,100 @@
+package com.android.launcher3.logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.logging.EventTrace.Histogram;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * Tests for {@link EventTrace}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class EventTraceTest {
+
+    @Before
+    public void setUp() {
+        EventTrace.reset();
+    }
+
+    @Test
+    public void testPercentiles() {
+        // 1ms to 100ms
+        for (int i = 1; i <= 100; i++) {
+            EventTrace.recordDuration("test.span", i * 1_000_000L);
+        }
+        Histogram h = EventTrace.getSpan("test.span");
+        assertNotNull(h);
+        assertEquals(100, h.mCount);
+        assertEquals(100_000_000L, h.mMaxNanos);
+        assertWithinBucketError(50_000, h.getPercentileMicros(0.50f));
+        assertWithinBucketError(95_000, h.getPercentileMicros(0.95f));
+        assertWithinBucketError(99_000, h.getPercentileMicros(0.99f));
+        assertEquals(100_000, h.getPercentileMicros(1f));
+    }
+
+    @Test
+    public void testBucketBoundaries() {
+        for (int bucket = 0; bucket < 200; bucket++) {
+            long lowerBound = Histogram.getBucketLowerBound(bucket);
+            assertEquals(bucket, Histogram.getBucket(lowerBound));
+            assertEquals(bucket, Histogram.getBucket(Histogram.getBucketLowerBound(bucket + 1) - 1));
+        }
+    }
+
+    @Test
+    public void testCountersAcrossThreads() throws Exception {
+        Thread t = new Thread(() -> {
+            for (int i = 0; i < 1000; i++) {
+                EventTrace.incrementCounter("test.counter");
+            }
+        });
+        t.start();
+        for (int i = 0; i < 500; i++) {
+            EventTrace.incrementCounter("test.counter");
+        }
+        t.join();
+        assertEquals(1500, EventTrace.getCounter("test.counter"));
+        assertNull(EventTrace.getSpan("test.counter"));
+    }
+
+    @Test
+    public void testDump() {
+        EventTrace.recordDuration("test.dump", 2_000_000L);
+        EventTrace.incrementCounter("test.dumpCounter");
+
+        StringWriter writer = new StringWriter();
+        EventTrace.dump("", new PrintWriter(writer));
+        assertTrue(writer.toString().contains("test.dump: count=1"));
+        assertTrue(writer.toString().contains("test.dumpCounter: 1"));
+    }
+
+    @Test
+    public void testBufferDroppedWhenThreadDies() throws Exception {
+        int bufferCount = EventTrace.getBufferCount();
+        Thread t = new Thread(() -> EventTrace.incrementCounter("test.deadThread"));
+        t.start();
+        t.join();
+
+        // Events of the dead thread are kept, but not its buffer
+        assertEquals(1, EventTrace.getCounter("test.deadThread"));
+        assertEquals(bufferCount, EventTrace.getBufferCount());
+    }
+
+    private static void assertWithinBucketError(long expected, long actual) {
+        assertTrue("Expected " + expected + " but was " + actual,
+                Math.abs(actual - expected) <= expected / 8);
+    }
+}
@@ -5,6 +5,8 @@ import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import android.os.SystemClock;
+
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import androidx.test.filters.SmallTest;
 
@@ -14,9 +16,13 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.file.Files;
 import java.util.Calendar;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Tests for {@link FileLog}
@@ -25,25 +31,39 @@ import java.util.Calendar;
 @RunWith(AndroidJUnit4.class)
 public class FileLogTest {
 
+    private static final long WRITE_TIMEOUT_MS = 5000;
+
     private File mTempDir;
+    private File mOtherTempDir;
+
     @Before
     public void setUp() {
-        int count = 0;
-        do {
-            mTempDir = new File(getApplicationContext().getCacheDir(),
-                    "log-test-" + (count++));
-        } while (!mTempDir.mkdir());
-
+        mTempDir = createTempDir();
+        mOtherTempDir = createTempDir();
         FileLog.setDir(mTempDir);
     }
 
     @After
     public void tearDown() {
+        deleteTempDir(mTempDir);
+        deleteTempDir(mOtherTempDir);
+    }
+
+    private static File createTempDir() {
+        int count = 0;
+        File dir;
+        do {
+            dir = new File(getApplicationContext().getCacheDir(), "log-test-" + (count++));
+        } while (!dir.mkdir());
+        return dir;
+    }
+
+    private static void deleteTempDir(File dir) {
         // Clear existing logs
         for (int i = 0; i < FileLog.LOG_DAYS; i++) {
-            new File(mTempDir, "log-" + i).delete();
+            new File(dir, "log-" + i).delete();
         }
-        mTempDir.delete();
+        dir.delete();
     }
 
     @Test
@@ -93,4 +113,77 @@ public class FileLogTest {
         // Old logs have been truncated
         assertFalse(writer.toString().contains("hoolalala"));
     }
+
+    @Test
+    public void testWriteScheduledAfterBufferWraps() throws Exception {
+        if (!FileLog.ENABLED) {
+            return;
+        }
+        // Hold the writer thread, so that the pending logs wrap around the buffer
+        CountDownLatch writerBlocked = new CountDownLatch(1);
+        FileLog.getHandler().post(() -> awaitQuietly(writerBlocked));
+        FileLog.print("Testing", "dropped-entry");
+        for (int i = 0; i < FileLog.BUFFER_SIZE; i++) {
+            FileLog.print("Testing", "entry-" + i);
+        }
+        writerBlocked.countDown();
+
+        // No flush is requested, the write scheduled while printing must reach the file
+        String last = "entry-" + (FileLog.BUFFER_SIZE - 1);
+        String logs = waitForLogs(mTempDir, last);
+        assertTrue(logs, logs.contains(last));
+        assertTrue(logs, logs.contains("--- dropped"));
+        assertFalse(logs, logs.contains("dropped-entry"));
+
+        // A new batch is still written after the wrap
+        FileLog.print("Testing", "after-wrap");
+        logs = waitForLogs(mTempDir, "after-wrap");
+        assertTrue(logs, logs.contains("after-wrap"));
+    }
+
+    @Test
+    public void testPendingLogsWrittenAfterHandlerRestart() throws Exception {
+        if (!FileLog.ENABLED) {
+            return;
+        }
+        // Print while the writer thread is busy, then quit it by changing the directory
+        CountDownLatch writerBlocked = new CountDownLatch(1);
+        FileLog.getHandler().post(() -> awaitQuietly(writerBlocked));
+        FileLog.print("Testing", "before-restart");
+        FileLog.setDir(mOtherTempDir);
+        writerBlocked.countDown();
+
+        String logs = waitForLogs(mOtherTempDir, "before-restart");
+        assertTrue(logs, logs.contains("before-restart"));
+    }
+
+    /** Returns the logs written to the directory once they contain the text, or on timeout */
+    private static String waitForLogs(File dir, String text) throws IOException {
+        long end = SystemClock.uptimeMillis() + WRITE_TIMEOUT_MS;
+        String logs = readLogs(dir);
+        while (!logs.contains(text) && SystemClock.uptimeMillis() < end) {
+            SystemClock.sleep(50);
+            logs = readLogs(dir);
+        }
+        return logs;
+    }
+
+    private static String readLogs(File dir) throws IOException {
+        StringBuilder logs = new StringBuilder();
+        for (int i = 0; i < FileLog.LOG_DAYS; i++) {
+            File file = new File(dir, "log-" + i);
+            if (file.exists()) {
+                logs.append(new String(Files.readAllBytes(file.toPath())));
+            }
+        }
+        return logs.toString();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(WRITE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 }
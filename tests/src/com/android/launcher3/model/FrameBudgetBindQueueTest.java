@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.model;
+
+import static com.android.launcher3.model.FrameBudgetBindQueue.FRAME_BUDGET_NANOS;
+import static com.android.launcher3.model.FrameBudgetBindQueue.MAX_CHUNK_SIZE;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import android.os.SystemClock;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.model.BgDataModel.Callbacks;
+import com.android.launcher3.model.data.ItemInfo;
+import com.android.launcher3.model.data.LauncherAppWidgetInfo;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for {@link FrameBudgetBindQueue}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class FrameBudgetBindQueueTest {
+
+    private final ArrayDeque<Runnable> mPosted = new ArrayDeque<>();
+    private final List<String> mEvents = new ArrayList<>();
+
+    @Test
+    public void testChunkSize() {
+        assertEquals(MAX_CHUNK_SIZE, FrameBudgetBindQueue.getChunkSize(FRAME_BUDGET_NANOS, 1));
+        assertEquals(8, FrameBudgetBindQueue.getChunkSize(FRAME_BUDGET_NANOS,
+                FRAME_BUDGET_NANOS / 8));
+        // Always bind at least one item
+        assertEquals(1, FrameBudgetBindQueue.getChunkSize(0, FRAME_BUDGET_NANOS));
+        assertEquals(1, FrameBudgetBindQueue.getChunkSize(-1, 0));
+    }
+
+    @Test
+    public void testAllStepsExecutedInOrder() {
+        Callbacks callbacks = mock(Callbacks.class);
+        doAnswer(i -> {
+            for (Object item : (List<?>) i.getArgument(0)) {
+                mEvents.add("item" + ((ItemInfo) item).id);
+            }
+            return null;
+        }).when(callbacks).bindItems(anyList(), anyBoolean());
+
+        FrameBudgetBindQueue queue = new FrameBudgetBindQueue(
+                mPosted::add, task -> task.execute(callbacks), () -> true);
+        queue.addRunnable(() -> mEvents.add("start"));
+        queue.addItems(createItems(0, 100, false), false);
+        queue.addItems(createItems(100, 5, true), true);
+        queue.addTask(c -> mEvents.add("finish"));
+        queue.scheduleOn(mPosted::add);
+
+        int iterations = 0;
+        while (!mPosted.isEmpty()) {
+            mPosted.poll().run();
+            iterations++;
+        }
+        assertTrue(iterations >= 1);
+
+        assertEquals(107, mEvents.size());
+        assertEquals("start", mEvents.get(0));
+        for (int i = 0; i < 105; i++) {
+            assertEquals("item" + i, mEvents.get(i + 1));
+        }
+        assertEquals("finish", mEvents.get(106));
+    }
+
+    @Test
+    public void testScheduledOnlyOnce() {
+        FrameBudgetBindQueue queue =
+                new FrameBudgetBindQueue(mPosted::add, task -> { }, () -> true);
+        queue.addRunnable(() -> mEvents.add("first"));
+        queue.scheduleOn(mPosted::add);
+        queue.scheduleOn(mPosted::add);
+        assertEquals(1, mPosted.size());
+
+        mPosted.poll().run();
+        assertEquals(1, mEvents.size());
+
+        // Scheduling again after the queue is drained runs the new steps
+        queue.addRunnable(() -> mEvents.add("second"));
+        queue.scheduleOn(mPosted::add);
+        assertEquals(1, mPosted.size());
+        mPosted.poll().run();
+        assertEquals(2, mEvents.size());
+    }
+
+    @Test
+    public void testRemainingStepsDroppedWhenBindInvalid() {
+        Callbacks callbacks = mock(Callbacks.class);
+        doAnswer(i -> {
+            // Slow enough that all the chunks do not fit in a single frame budget
+            SystemClock.sleep(1);
+            mEvents.add("chunk");
+            return null;
+        }).when(callbacks).bindItems(anyList(), anyBoolean());
+
+        boolean[] isBindValid = new boolean[] {true};
+        FrameBudgetBindQueue queue = new FrameBudgetBindQueue(
+                mPosted::add, task -> task.execute(callbacks), () -> isBindValid[0]);
+        queue.addItems(createItems(0, 1000, true), true);
+        queue.addRunnable(() -> mEvents.add("finish"));
+        queue.scheduleOn(mPosted::add);
+
+        mPosted.poll().run();
+        assertFalse(mEvents.isEmpty());
+        assertFalse(mEvents.contains("finish"));
+        int boundChunks = mEvents.size();
+
+        // The next slice is posted on the ui executor, but does nothing once the bind is invalid
+        isBindValid[0] = false;
+        while (!mPosted.isEmpty()) {
+            mPosted.poll().run();
+        }
+        assertEquals(boundChunks, mEvents.size());
+
+        // The queue can be scheduled again for a new bind
+        isBindValid[0] = true;
+        queue.addRunnable(() -> mEvents.add("next"));
+        queue.scheduleOn(mPosted::add);
+        assertEquals(1, mPosted.size());
+        mPosted.poll().run();
+        assertEquals("next", mEvents.get(mEvents.size() - 1));
+    }
+
+    @Test
+    public void testUrgentStepsBoundWithoutYielding() {
+        Callbacks callbacks = mock(Callbacks.class);
+        doAnswer(i -> {
+            SystemClock.sleep(1);
+            mEvents.add("chunk");
+            return null;
+        }).when(callbacks).bindItems(anyList(), anyBoolean());
+
+        FrameBudgetBindQueue queue = new FrameBudgetBindQueue(
+                mPosted::add, task -> task.execute(callbacks), () -> true);
+        queue.addItems(createItems(0, 100, true), true);
+        queue.addRunnable(() -> mEvents.add("initialBindComplete"));
+        queue.markAddedStepsUrgent();
+        queue.addItems(createItems(100, 100, true), true);
+        queue.addRunnable(() -> mEvents.add("finish"));
+        queue.scheduleOn(mPosted::add);
+
+        // A task posted after scheduling the queue runs after all the urgent steps
+        mPosted.add(() -> mEvents.add("bindAllApps"));
+        mPosted.poll().run();
+        assertTrue(mEvents.contains("initialBindComplete"));
+        assertFalse(mEvents.contains("finish"));
+
+        while (!mPosted.isEmpty()) {
+            mPosted.poll().run();
+        }
+        assertEquals(mEvents.indexOf("initialBindComplete") + 1, mEvents.indexOf("bindAllApps"));
+        assertEquals("finish", mEvents.get(mEvents.size() - 1));
+    }
+
+    private static List<ItemInfo> createItems(int startId, int count, boolean isWidget) {
+        List<ItemInfo> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ItemInfo info = isWidget ? new LauncherAppWidgetInfo() : new ItemInfo();
+            info.id = startId + i;
+            items.add(info);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.model
+
+import android.content.ContentValues
+import android.content.Context
+import android.content.Intent
+import android.database.DatabaseUtils
+import android.database.sqlite.SQLiteDatabase
+import android.graphics.Point
+import android.os.Process
+import android.os.SystemClock
+import android.util.Log
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.MediumTest
+import com.android.launcher3.InvariantDeviceProfile
+import com.android.launcher3.LauncherSettings.Favorites.*
+import com.android.launcher3.model.GridSizeMigrationUtil.DbReader
+import com.android.launcher3.pm.UserCache
+import com.android.launcher3.provider.LauncherDbUtils
+import com.android.launcher3.util.LauncherModelHelper
+import com.google.common.truth.Truth.assertThat
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Measures [GridSizeMigrationUtil.migrate] time across grid size pairs for a workspace with many
+ * pages. Timings are logged, the test only verifies that all the items were migrated.
+ */
+@MediumTest
+@RunWith(AndroidJUnit4::class)
+class GridSizeMigrationBenchmarkTest {
+
+    private lateinit var modelHelper: LauncherModelHelper
+    private lateinit var context: Context
+    private lateinit var idp: InvariantDeviceProfile
+    private lateinit var dbHelper: DatabaseHelper
+    private lateinit var db: SQLiteDatabase
+    private val validPackages = HashSet<String>()
+
+    @Before
+    fun setUp() {
+        modelHelper = LauncherModelHelper()
+        context = modelHelper.sandboxContext
+        dbHelper =
+            DatabaseHelper(
+                context,
+                null,
+                UserCache.INSTANCE.get(context)::getSerialNumberForUser
+            ) {}
+        db = dbHelper.writableDatabase
+        idp = InvariantDeviceProfile.INSTANCE[context]
+    }
+
+    @After
+    fun tearDown() {
+        modelHelper.destroy()
+    }
+
+    @Test
+    fun migrate_6x5_to_4x4() = benchmark(Point(6, 5), Point(4, 4))
+
+    @Test
+    fun migrate_5x5_to_4x4() = benchmark(Point(5, 5), Point(4, 4))
+
+    @Test
+    fun migrate_4x5_to_3x3() = benchmark(Point(4, 5), Point(3, 3))
+
+    @Test
+    fun migrate_4x4_to_6x5() = benchmark(Point(4, 4), Point(6, 5))
+
+    private fun benchmark(srcSize: Point, destSize: Point) {
+        val totalTimes = ArrayList<Long>()
+        var itemCount = 0
+        repeat(ITERATIONS) {
+            resetTables()
+            itemCount = fillSourceGrid(srcSize)
+
+            idp.numDatabaseHotseatIcons = 4
+            idp.numColumns = destSize.x
+            idp.numRows = destSize.y
+            val start = SystemClock.elapsedRealtimeNanos()
+            GridSizeMigrationUtil.migrate(
+                dbHelper,
+                DbReader(db, TMP_TABLE, context, validPackages),
+                DbReader(db, TABLE_NAME, context, validPackages),
+                idp.numDatabaseHotseatIcons,
+                destSize,
+                DeviceGridState(context),
+                DeviceGridState(idp)
+            )
+            totalTimes.add(SystemClock.elapsedRealtimeNanos() - start)
+
+            assertThat(
+                    DatabaseUtils.queryNumEntries(db, TABLE_NAME, "container=$CONTAINER_DESKTOP")
+                )
+                .isEqualTo(itemCount)
+        }
+        totalTimes.sort()
+        Log.d(
+            TAG,
+            "Migration ${srcSize.x}x${srcSize.y} -> ${destSize.x}x${destSize.y}" +
+                " ($itemCount items): median=${totalTimes[totalTimes.size / 2] / 1000}us" +
+                " min=${totalTimes.first() / 1000}us max=${totalTimes.last() / 1000}us"
+        )
+    }
+
+    private fun resetTables() {
+        val userSerial = UserCache.INSTANCE[context].getSerialNumberForUser(Process.myUserHandle())
+        LauncherDbUtils.dropTable(db, TMP_TABLE)
+        addTableToDb(db, userSerial, false, TMP_TABLE)
+        db.delete(TABLE_NAME, null, null)
+    }
+
+    /** Fills [PAGE_COUNT] pages of the source grid with icons, returns the number of items */
+    private fun fillSourceGrid(size: Point): Int {
+        var id = 1
+        for (screen in 0 until PAGE_COUNT) {
+            for (y in 0 until size.y) {
+                for (x in 0 until size.x) {
+                    val packageName = "com.android.launcher3.benchmark$id"
+                    validPackages.add(packageName)
+                    val values = ContentValues()
+                    values.put(_ID, id)
+                    values.put(CONTAINER, CONTAINER_DESKTOP)
+                    values.put(SCREEN, screen)
+                    values.put(CELLX, x)
+                    values.put(CELLY, y)
+                    values.put(SPANX, 1)
+                    values.put(SPANY, 1)
+                    values.put(ITEM_TYPE, ITEM_TYPE_APPLICATION)
+                    values.put(INTENT, Intent(Intent.ACTION_MAIN).setPackage(packageName).toUri(0))
+                    db.insert(TMP_TABLE, null, values)
+                    id++
+                }
+            }
+        }
+        return id - 1
+    }
+
+    companion object {
+        private const val TAG = "GridSizeMigrationBenchmarkTest"
+        private const val PAGE_COUNT = 8
+        private const val ITERATIONS = 5
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.recyclerview
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.SmallTest
+import com.android.launcher3.allapps.BaseAllAppsAdapter
+import com.android.launcher3.recyclerview.AllAppsRecyclerViewPool.Companion.getFlingRowCount
+import com.android.launcher3.recyclerview.AllAppsRecyclerViewPool.Companion.getLearnedCount
+import com.google.common.truth.Truth.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@SmallTest
+@RunWith(AndroidJUnit4::class)
+class AllAppsRecyclerViewPoolTest {
+
+    @Test
+    fun learnedCount_addsMissesAndDecays() {
+        assertThat(getLearnedCount(0, 3)).isEqualTo(3)
+        assertThat(getLearnedCount(3, 2)).isEqualTo(5)
+        assertThat(getLearnedCount(5, 0)).isEqualTo(2)
+        assertThat(getLearnedCount(1, 0)).isEqualTo(0)
+        assertThat(getLearnedCount(MAX_LEARNED_COUNT, 10)).isEqualTo(MAX_LEARNED_COUNT)
+    }
+
+    @Test
+    fun flingRowCount_boundedByMax() {
+        assertThat(getFlingRowCount(0, 100)).isEqualTo(0)
+        assertThat(getFlingRowCount(2000, 100)).isEqualTo(2)
+        assertThat(getFlingRowCount(100_000, 100)).isEqualTo(MAX_FLING_ICONS_ROW_COUNT)
+        assertThat(getFlingRowCount(2000, 0)).isEqualTo(0)
+    }
+
+    @Test
+    fun mainThreadMisses_areCounted() {
+        val pool = AllAppsRecyclerViewPool<Any>()
+        assertThat(pool.getRecycledView(BaseAllAppsAdapter.VIEW_TYPE_ICON)).isNull()
+        assertThat(pool.getMainThreadCreateCount(BaseAllAppsAdapter.VIEW_TYPE_ICON)).isEqualTo(1)
+        assertThat(pool.getMainThreadCreateCount(BaseAllAppsAdapter.VIEW_TYPE_ALL_APPS_DIVIDER))
+            .isEqualTo(0)
+    }
+}
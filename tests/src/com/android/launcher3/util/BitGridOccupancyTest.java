@@ -0,0 +1,116 @@
+package com.android.launcher3.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Unit tests for {@link BitGridOccupancy}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class BitGridOccupancyTest {
+
+    @Test
+    public void testFindVacantCell() {
+        BitGridOccupancy grid = initGrid(4,
+                1, 1, 1, 0, 0,
+                0, 0, 1, 1, 0,
+                0, 0, 0, 0, 0,
+                1, 1, 0, 0, 0
+        );
+
+        int[] vacant = new int[2];
+        assertTrue(grid.findVacantCell(vacant, 0, 0, 2, 2));
+        assertEquals(vacant[0], 0);
+        assertEquals(vacant[1], 1);
+
+        assertTrue(grid.findVacantCell(vacant, 0, 0, 3, 2));
+        assertEquals(vacant[0], 2);
+        assertEquals(vacant[1], 2);
+
+        assertTrue(grid.findVacantCell(vacant, 4, 1, 1, 1));
+        assertEquals(vacant[0], 4);
+        assertEquals(vacant[1], 1);
+
+        assertFalse(grid.findVacantCell(vacant, 0, 0, 3, 3));
+    }
+
+    @Test
+    public void testIsRegionVacant() {
+        BitGridOccupancy grid = initGrid(4,
+                1, 1, 1, 0, 0,
+                0, 0, 1, 1, 0,
+                0, 0, 0, 0, 0,
+                1, 1, 0, 0, 0
+        );
+
+        assertTrue(grid.isRegionVacant(4, 0, 1, 4));
+        assertTrue(grid.isRegionVacant(0, 1, 2, 2));
+        assertTrue(grid.isRegionVacant(2, 2, 3, 2));
+
+        assertFalse(grid.isRegionVacant(3, 0, 2, 4));
+        assertFalse(grid.isRegionVacant(0, 0, 2, 1));
+        assertFalse(grid.isRegionVacant(4, 0, 2, 1));
+    }
+
+    @Test
+    public void testVacantPositions() {
+        BitGridOccupancy grid = initGrid(2,
+                1, 0, 0, 1, 0,
+                0, 0, 0, 0, 0
+        );
+
+        assertEquals(0b10110, grid.getVacantPositions(0, 1, 1));
+        assertEquals(0b00010, grid.getVacantPositions(0, 2, 1));
+        assertEquals(0b00010, grid.getVacantPositions(0, 2, 2));
+        assertEquals(0b01111, grid.getVacantPositions(1, 2, 1));
+        assertEquals(0, grid.getVacantPositions(1, 1, 2));
+        assertEquals(0, grid.getVacantPositions(0, 6, 1));
+    }
+
+    @Test
+    public void testMarkCellsMatchesGridOccupancy() {
+        GridOccupancy expected = new GridOccupancy(6, 5);
+        BitGridOccupancy grid = new BitGridOccupancy(6, 5);
+        int[][] regions = {{0, 0, 2, 2}, {3, 1, 4, 1}, {5, 3, 1, 3}, {1, 4, 2, 1}};
+        for (int[] r : regions) {
+            expected.markCells(r[0], r[1], r[2], r[3], true);
+            grid.markCells(r[0], r[1], r[2], r[3], true);
+        }
+        expected.markCells(0, 0, 1, 1, false);
+        grid.markCells(0, 0, 1, 1, false);
+
+        for (int spanX = 1; spanX <= 3; spanX++) {
+            for (int spanY = 1; spanY <= 3; spanY++) {
+                for (int y = 0; y < 5; y++) {
+                    for (int x = 0; x < 6; x++) {
+                        assertEquals(expected.isRegionVacant(x, y, spanX, spanY),
+                                grid.isRegionVacant(x, y, spanX, spanY));
+                    }
+                }
+            }
+        }
+    }
+
+    private BitGridOccupancy initGrid(int rows, int... cells) {
+        int cols = cells.length / rows;
+        int i = 0;
+        BitGridOccupancy grid = new BitGridOccupancy(cols, rows);
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < cols; x++) {
+                if (cells[i] != 0) {
+                    grid.markCells(x, y, 1, 1, true);
+                }
+                i++;
+            }
+        }
+        return grid;
+    }
+}
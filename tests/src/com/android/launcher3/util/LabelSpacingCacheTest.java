@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.text.TextPaint;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Locale;
+
+/**
+ * Tests for {@link LabelSpacingCache}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class LabelSpacingCacheTest {
+
+    private static final float MIN_SPACING = -0.05f;
+    private static final String LABEL = "A rather long application label";
+
+    private final TextPaint mPaint = new TextPaint();
+
+    @Before
+    public void setUp() {
+        LabelSpacingCache.clear();
+        mPaint.setTextSize(40);
+    }
+
+    @Test
+    public void testFittingTextHasNoSpacing() {
+        float width = mPaint.measureText(LABEL) + 10;
+        assertEquals(0f, LabelSpacingCache.getLetterSpacing(mPaint, LABEL, width, MIN_SPACING),
+                0f);
+    }
+
+    @Test
+    public void testSpacingMatchesComputedValue() {
+        float width = mPaint.measureText(LABEL) * 0.98f;
+        float expected = LabelSpacingCache.computeLetterSpacing(
+                new TextPaint(mPaint), LABEL, width, MIN_SPACING);
+        assertTrue(expected < 0 && expected >= MIN_SPACING);
+
+        mPaint.setLetterSpacing(0.1f);
+        assertEquals(expected,
+                LabelSpacingCache.getLetterSpacing(mPaint, LABEL, width, MIN_SPACING), 0f);
+        // The paint is left untouched
+        assertEquals(0.1f, mPaint.getLetterSpacing(), 0f);
+        // Cached values are returned for the same key
+        assertEquals(expected,
+                LabelSpacingCache.getLetterSpacing(mPaint, LABEL, width, MIN_SPACING), 0f);
+    }
+
+    @Test
+    public void testKeyIncludesTextSize() {
+        float width = mPaint.measureText(LABEL) + 10;
+        assertEquals(0f, LabelSpacingCache.getLetterSpacing(mPaint, LABEL, width, MIN_SPACING),
+                0f);
+        mPaint.setTextSize(80);
+        assertEquals(MIN_SPACING,
+                LabelSpacingCache.getLetterSpacing(mPaint, LABEL, width, MIN_SPACING), 0f);
+    }
+
+    @Test
+    public void testKeyIncludesFontFeatureSettings() {
+        float width = mPaint.measureText(LABEL) * 0.98f;
+        LabelSpacingCache.getLetterSpacing(mPaint, LABEL, width, MIN_SPACING);
+        assertEquals(1, LabelSpacingCache.getCachedLabelCount(mPaint, width));
+
+        mPaint.setFontFeatureSettings("smcp");
+        assertEquals(0, LabelSpacingCache.getCachedLabelCount(mPaint, width));
+    }
+
+    @Test
+    public void testKeyIncludesTextLocale() {
+        float width = mPaint.measureText(LABEL) * 0.98f;
+        mPaint.setTextLocale(Locale.US);
+        LabelSpacingCache.getLetterSpacing(mPaint, LABEL, width, MIN_SPACING);
+        assertEquals(1, LabelSpacingCache.getCachedLabelCount(mPaint, width));
+
+        mPaint.setTextLocale(Locale.JAPAN);
+        assertEquals(0, LabelSpacingCache.getCachedLabelCount(mPaint, width));
+    }
+
+    @Test
+    public void testAllLabelsOfAConfigAreKept() {
+        float width = mPaint.measureText(LABEL);
+        int count = 2000;
+        for (int i = 0; i < count; i++) {
+            LabelSpacingCache.getLetterSpacing(mPaint, LABEL + i, width, MIN_SPACING);
+        }
+        // Labels of another configuration do not evict them
+        TextPaint otherPaint = new TextPaint(mPaint);
+        otherPaint.setTextSize(20);
+        LabelSpacingCache.getLetterSpacing(otherPaint, LABEL, width, MIN_SPACING);
+
+        assertEquals(count, LabelSpacingCache.getCachedLabelCount(mPaint, width));
+        assertEquals(1, LabelSpacingCache.getCachedLabelCount(otherPaint, width));
+    }
+}
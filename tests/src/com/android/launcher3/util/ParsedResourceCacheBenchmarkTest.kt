@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.launcher3.util
+
+import android.content.Context
+import android.os.SystemClock
+import android.util.Log
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.MediumTest
+import androidx.test.platform.app.InstrumentationRegistry
+import com.android.launcher3.AbstractDeviceProfileTest
+import com.android.launcher3.InvariantDeviceProfile
+import com.android.launcher3.responsive.WorkspaceSpecs
+import com.android.launcher3.tests.R as TestR
+import com.google.common.truth.Truth.assertThat
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Measures the time to parse the grid options and responsive specs compared to reading them from
+ * a [ParsedResourceCache]. Timings are logged, the test only verifies that the cached models are
+ * the parsed ones.
+ */
+@MediumTest
+@RunWith(AndroidJUnit4::class)
+class ParsedResourceCacheBenchmarkTest : AbstractDeviceProfileTest() {
+    override val runningContext: Context = InstrumentationRegistry.getInstrumentation().context
+
+    private val targetContext: Context = InstrumentationRegistry.getInstrumentation().targetContext
+
+    @Before
+    fun setup() {
+        initializeVarsForPhone(deviceSpecs["phone"]!!)
+    }
+
+    @After
+    fun tearDown() {
+        InvariantDeviceProfile.clearParsedOptions()
+    }
+
+    @Test
+    fun gridOptions() {
+        val parsed =
+            benchmark("Grid options parse") {
+                InvariantDeviceProfile.clearParsedOptions()
+                InvariantDeviceProfile.parseAllDefinedGridOptions(targetContext)
+            }
+        val cached =
+            benchmark("Grid options cached") {
+                InvariantDeviceProfile.parseAllDefinedGridOptions(targetContext)
+            }
+
+        assertThat(parsed).isNotEmpty()
+        assertThat(cached.map { it.name }).isEqualTo(parsed.map { it.name })
+    }
+
+    @Test
+    fun workspaceSpecs() {
+        val cache = ParsedResourceCache<WorkspaceSpecs>(1)
+        val parser = {
+            WorkspaceSpecs.create(TestResourceHelper(context!!, TestR.xml.valid_workspace_file))
+        }
+        val parsed =
+            benchmark("Workspace specs parse") {
+                cache.clear()
+                cache.get(context!!, TestR.xml.valid_workspace_file, parser)
+            }
+        val cached =
+            benchmark("Workspace specs cached") {
+                cache.get(context!!, TestR.xml.valid_workspace_file, parser)
+            }
+
+        assertThat(cached.widthSpecs).isEqualTo(parsed.widthSpecs)
+        assertThat(cached.heightSpecs).isEqualTo(parsed.heightSpecs)
+    }
+
+    /** Runs [block] [ITERATIONS] times and logs its timings, returns the last result */
+    private fun <T> benchmark(name: String, block: () -> T): T {
+        val times = LongArray(ITERATIONS)
+        var result: T? = null
+        for (i in 0 until ITERATIONS) {
+            val start = SystemClock.elapsedRealtimeNanos()
+            result = block()
+            times[i] = SystemClock.elapsedRealtimeNanos() - start
+        }
+        times.sort()
+        Log.d(
+            TAG,
+            "$name: median=${times[ITERATIONS / 2] / 1000}us" +
+                " min=${times.first() / 1000}us max=${times.last() / 1000}us"
+        )
+        return result!!
+    }
+
+    companion object {
+        private const val TAG = "ParsedResourceCacheBenchmarkTest"
+        private const val ITERATIONS = 20
+    }
+}